@@ -0,0 +1,171 @@
+package controller;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import model.Direction;
+import model.GameWorld;
+import model.Item;
+import model.Player;
+import model.Room;
+
+/**
+ * Plays one of several players of a shared world, with every command run by the actor of the
+ * player's room (see {@link RoomActors}). Commands behave as in {@link GameController}, acting
+ * on this controller's player and writing to its own output, except that moving hands the
+ * player over to the actor of the room being entered. Given an {@link EventBroadcaster}, it
+ * also tells the players nearby what its player does.
+ */
+public class ActorController extends GameController {
+  private static final Set<Verb> ACTOR_VERBS = Collections.unmodifiableSet(EnumSet.of(
+          Verb.NORTH, Verb.SOUTH, Verb.EAST, Verb.WEST, Verb.LOOK, Verb.INVENTORY,
+          Verb.TAKE, Verb.DROP, Verb.EXAMINE, Verb.USE, Verb.ANSWER, Verb.ATTACK, Verb.HELP));
+
+  private final GameWorld world;
+  private final Player player;
+  private final RoomActors actors;
+  private final EventBroadcaster events;
+
+  // The player's last command; guarded by this
+  private CompletableFuture<Void> last = CompletableFuture.completedFuture(null);
+
+  // Arrival in the room being entered, set by a move and collected once it has run
+  private CompletableFuture<Void> handoff;
+
+  /**
+   * Creates a controller for a player who has joined a shared world.
+   *
+   * @param world  the shared world
+   * @param player the player, added with {@link GameWorld#addPlayer(String)}
+   * @param actors the room actors that run the world's commands
+   * @param output where the player's messages go
+   */
+  public ActorController(GameWorld world, Player player, RoomActors actors, Appendable output) {
+    this(world, player, actors, output, null);
+  }
+
+  /**
+   * Creates a controller for a player who has joined a shared world and whose doings are
+   * told to the players nearby.
+   *
+   * @param world  the shared world
+   * @param player the player, added with {@link GameWorld#addPlayer(String)}
+   * @param actors the room actors that run the world's commands
+   * @param output where the player's messages go
+   * @param events where the player's doings are published, or null to keep them quiet
+   */
+  public ActorController(GameWorld world, Player player, RoomActors actors, Appendable output,
+                         EventBroadcaster events) {
+    super(world);
+    this.world = world;
+    this.player = player;
+    this.actors = actors;
+    this.output = output;
+    this.events = events;
+  }
+
+  /**
+   * Gets the player this controller plays for.
+   *
+   * @return the player
+   */
+  @Override
+  protected Player player() {
+    return player;
+  }
+
+  /**
+   * Gets the verbs players of a shared world may use: everything but saving, restoring and
+   * quitting, which belong to the whole world.
+   *
+   * @return the supported verbs
+   */
+  @Override
+  public Set<Verb> supportedVerbs() {
+    return ACTOR_VERBS;
+  }
+
+  /**
+   * Publishes an event in the player's room.
+   *
+   * @param event the event
+   */
+  @Override
+  protected void announce(String event) {
+    if (events != null) {
+      events.publish(player.getCurrentRoom(), player, event);
+    }
+  }
+
+  /**
+   * Takes an item through the shared world, so that an item several rooms hold is taken only
+   * once.
+   *
+   * @param itemName the name of the item
+   * @throws IOException if the output cannot be written
+   */
+  @Override
+  public void takeItem(String itemName) throws IOException {
+    Item item = world.takeItem(player, itemName);
+    if (item != null) {
+      output.append("you pick up the " + item.getName().toLowerCase() + ".\n");
+      announce(player.getName() + " picks up the " + item.getName().toLowerCase() + ".");
+    } else if (player.getCurrentRoom().getItem(itemName) == null) {
+      output.append("there's no " + itemName + " here to take.\n");
+    } else {
+      output.append("you can't carry any more; your inventory is too heavy.\n");
+    }
+  }
+
+  /**
+   * Lets the player go from the room being left, which runs this, and sends the player to
+   * the actor of the room being entered.
+   *
+   * @param nextRoom  the room the exit leads to
+   * @param direction the direction of the exit
+   */
+  @Override
+  protected void moveTo(Room nextRoom, Direction direction) {
+    announce(player.getName() + " leaves " + direction.toString().toLowerCase() + ".");
+    world.leaveRoom(player);
+    handoff = actors.tell(nextRoom, () -> {
+      world.enterRoom(player, nextRoom);
+      try {
+        output.append("you move " + direction.toString().toLowerCase() + ".\n");
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      announce(player.getName() + " arrives.");
+    });
+  }
+
+  /**
+   * Starts a step of the player's commands once the previous one has finished.
+   * A step that fails does not stop the steps after it.
+   *
+   * @param step starts the step and returns its future
+   * @return the future of the step
+   */
+  synchronized CompletableFuture<Void> chain(Supplier<CompletableFuture<Void>> step) {
+    CompletableFuture<Void> next = last.thenCompose(ignored -> step.get());
+    last = next.exceptionally(error -> null);
+    return next;
+  }
+
+  /**
+   * Collects the arrival started by the last command, if it moved the player, whether or not
+   * the command went on to fail.
+   *
+   * @return the arrival, or a completed future if the player did not move
+   */
+  CompletableFuture<Void> takeHandoff() {
+    CompletableFuture<Void> arrival = handoff;
+    handoff = null;
+    return arrival != null ? arrival : CompletableFuture.completedFuture(null);
+  }
+}
@@ -1,25 +1,51 @@
 package controller;
 
-import java.io.FileWriter;
+import java.io.BufferedReader;
 import java.io.IOException;
-import java.util.List;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
 
 import model.Direction;
 import model.GameWorld;
 import model.Player;
 import model.Room;
+import model.RoomRenderCache;
 import model.Item;
+import model.Monster;
+import model.Puzzle;
 import util.FileIoManager;
 import view.GameView;
 
 /**
  * Controller for running the game in batch mode using a list of predefined commands.
+ * A line "@seed &lt;number&gt;" restarts the game's random stream from that seed, so a
+ * script can fix its own combat rolls.
  */
 public class BatchController extends GameController {
+  private static final Set<Verb> BATCH_VERBS = Collections.unmodifiableSet(EnumSet.of(
+          Verb.NORTH, Verb.SOUTH, Verb.EAST, Verb.WEST, Verb.LOOK, Verb.INVENTORY,
+          Verb.TAKE, Verb.DROP, Verb.USE, Verb.ANSWER, Verb.QUIT));
+  private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+  private static final int FLUSH_INTERVAL = 4096;   // commands between explicit flushes
+  private static final String SEED_DIRECTIVE = "@seed ";
+
   private final String batchFilePath;
   private final String outputFilePath;
-  private final StringBuilder outputBuffer;
   private final GameView view;
+  private final Writer transcript;
+  private Writer writer;
+  private int commandCount;
+  private String error;
+
+  // Room text reused until the room changes
+  private final RoomRenderCache itemsText = new RoomRenderCache(room -> room.getItems().isEmpty()
+          ? "" : "Items here: " + RoomRenderCache.itemNames(room, " "));
+  private final RoomRenderCache exitsText = new RoomRenderCache(room -> {
+    String exits = RoomRenderCache.exitNames(room);
+    return exits.isEmpty() ? "There are no obvious exits." : "Exits: " + exits;
+  });
 
   /**
    * Constructs a BatchController with a game world and a batch file path.
@@ -33,7 +59,7 @@ public class BatchController extends GameController {
     this.batchFilePath = batchFilePath;
     this.outputFilePath = null;
     this.view = view;
-    this.outputBuffer = new StringBuilder();
+    this.transcript = null;
   }
 
   /**
@@ -49,67 +75,184 @@ public class BatchController extends GameController {
     this.batchFilePath = batchFilePath;
     this.outputFilePath = outputFilePath;
     this.view = view;
-    this.outputBuffer = new StringBuilder();
+    this.transcript = null;
+  }
+
+  /**
+   * Constructs a BatchController with output to a writer, which is closed at the end of the run.
+   *
+   * @param world         The GameWorld instance
+   * @param batchFilePath Path to the batch command file
+   * @param transcript    The writer the output goes to
+   * @param view          The GameView to display output
+   */
+  public BatchController(GameWorld world, String batchFilePath, Writer transcript, GameView view) {
+    super(world);
+    this.batchFilePath = batchFilePath;
+    this.outputFilePath = null;
+    this.view = view;
+    this.transcript = transcript;
   }
 
   /**
    * Runs the game using commands from the batch file.
+   * The file is read one line at a time and output is written as it is produced, so memory
+   * use does not depend on the length of the script. A batch file that cannot be read or
+   * output that cannot be written does not stop the run; see {@link #getError()}.
    */
   public void run() {
-    List<String> commands = FileIoManager.readCommands(batchFilePath);
+    if (outputFilePath != null) {
+      try {
+        writer = FileIoManager.openWriter(outputFilePath, OUTPUT_BUFFER_SIZE);
+      } catch (IOException e) {
+        outputFailed(e);
+      }
+    } else {
+      writer = transcript;
+    }
 
+    try (BufferedReader reader = FileIoManager.openReader(batchFilePath)) {
+      if (reader != null) {
+        runCommands(reader);
+      } else {
+        fail("Batch file not found: " + batchFilePath);
+      }
+    } catch (IOException e) {
+      System.err.println("Error reading batch file: " + e.getMessage());
+      fail("Error reading batch file: " + e.getMessage());
+    } finally {
+      closeOutput();
+    }
+  }
+
+  /**
+   * Processes the player name and then each command line from the reader.
+   *
+   * @param reader the batch file
+   * @throws IOException if the batch file cannot be read
+   */
+  private void runCommands(BufferedReader reader) throws IOException {
     // Process player name first (first line of command file)
-    if (!commands.isEmpty()) {
-      String playerName = commands.get(0);
-      commands.remove(0);
-      gameWorld.setPlayerName(playerName);
-      addToOutput("Player name set to: " + playerName);
+    String line = reader.readLine();
+    if (line == null) {
+      return;
     }
+    String playerName = line.trim();
+    namePlayer(playerName);
+    addToOutput("Player name set to: " + playerName);
 
-    for (String command : commands) {
-      if (command.trim().isEmpty() || command.startsWith("//")) {
+    while ((line = reader.readLine()) != null) {
+      String command = line.trim();
+      if (command.isBlank() || command.startsWith("//")) {
+        continue;
+      }
+      if (command.startsWith(SEED_DIRECTIVE)) {
+        setSeed(command.substring(SEED_DIRECTIVE.length()).trim());
         continue;
       }
 
       addToOutput("> " + command);
 
-      switch (command.toLowerCase()) {
-        case "look", "l" -> performLook();
-        case "inventory", "i" -> performInventory();
-        case "north", "n" -> performMove(Direction.NORTH);
-        case "south", "s" -> performMove(Direction.SOUTH);
-        case "east", "e" -> performMove(Direction.EAST);
-        case "west", "w" -> performMove(Direction.WEST);
-        case "quit", "q" -> {
-          addToOutput("Exiting game with score: " + gameWorld.getPlayer().getScore());
-          break;
-        }
-        default -> {
-          if (command.startsWith("take ") || command.startsWith("t ")) {
-            String itemName = command.startsWith("take ") ? command.substring(5) : command.substring(2);
-            performTake(itemName);
-          } else {
-            addToOutput("Unknown command: " + command);
-          }
-        }
+      try {
+        runCommand(command);
+      } catch (IOException e) {
+        addToOutput("Error: " + e.getMessage());
       }
-    }
 
-    if (outputFilePath != null) {
-      try (FileWriter writer = new FileWriter(outputFilePath)) {
-        writer.write(outputBuffer.toString());
-      } catch (IOException e) {
-        System.err.println("Error writing to output file: " + e.getMessage());
+      if (++commandCount % FLUSH_INTERVAL == 0) {
+        flushOutput();
       }
     }
   }
 
-  private void performMove(Direction direction) {
+  /**
+   * Applies a seed directive.
+   *
+   * @param seed the seed as written in the batch file
+   */
+  private void setSeed(String seed) {
+    try {
+      gameWorld.setSeed(Long.parseLong(seed));
+    } catch (NumberFormatException e) {
+      addToOutput("Error: Invalid seed: " + seed);
+    }
+  }
+
+  /**
+   * Gets the number of commands run so far, not counting the player name, blank lines
+   * or comments.
+   *
+   * @return the command count
+   */
+  public int getCommandCount() {
+    return commandCount;
+  }
+
+  /**
+   * Gets what went wrong with the last run: the batch file could not be read, or the output
+   * could not be written in full.
+   *
+   * @return the first error of the run, or null if the whole script ran and its output was written
+   */
+  public String getError() {
+    return error;
+  }
+
+  /**
+   * Records an error of the run, keeping the first one.
+   *
+   * @param message the error
+   */
+  private void fail(String message) {
+    if (error == null) {
+      error = message;
+    }
+  }
+
+  /**
+   * Reports and records a failure to write the output.
+   *
+   * @param e the write error
+   */
+  private void outputFailed(IOException e) {
+    System.err.println("Error writing to output file: " + e.getMessage());
+    fail("Error writing to output file: " + e.getMessage());
+  }
+
+  /**
+   * Gets the verbs batch files may use.
+   *
+   * @return the supported verbs
+   */
+  @Override
+  public Set<Verb> supportedVerbs() {
+    return BATCH_VERBS;
+  }
+
+  /**
+   * Reports a command that was not understood.
+   *
+   * @param command the command line as read from the batch file
+   */
+  @Override
+  public void unknownCommand(String command) {
+    addToOutput("Unknown command: " + command);
+  }
+
+  /**
+   * Reports the score; the remaining commands in the file are still processed.
+   */
+  @Override
+  public void quitGame() {
+    addToOutput("Exiting game with score: " + gameWorld.getPlayer().getScore());
+  }
+
+  @Override
+  public void move(Direction direction) {
     Player player = gameWorld.getPlayer();
     Room currentRoom = player.getCurrentRoom();
 
-    String exitNumber = currentRoom.getExitRoomNumber(direction);
-    if (exitNumber.equals("0")) {
+    if (!currentRoom.hasExit(direction)) {
       addToOutput("You can't go that way.");
       return;
     }
@@ -118,13 +261,14 @@ public class BatchController extends GameController {
     if (nextRoom != null) {
       player.setCurrentRoom(nextRoom);
       addToOutput("You move " + direction.toString().toLowerCase() + ".");
-      performLook();
+      look();
     } else {
       addToOutput("You can't go that way right now.");
     }
   }
 
-  private void performLook() {
+  @Override
+  public void look() {
     Player player = gameWorld.getPlayer();
     Room room = player.getCurrentRoom();
 
@@ -132,47 +276,27 @@ public class BatchController extends GameController {
     addToOutput("You are in: " + room.getName());
     addToOutput(room.getDescription());
 
-    if (!room.getItems().isEmpty()) {
-      StringBuilder items = new StringBuilder("Items here: ");
-      room.getItems().forEach(item -> items.append(item.getName()).append(" "));
-      addToOutput(items.toString().trim());
+    String items = itemsText.get(room);
+    if (!items.isEmpty()) {
+      addToOutput(items);
     }
-
-    StringBuilder exits = new StringBuilder("Exits: ");
-    boolean hasExits = false;
-
-    if (!room.getExitRoomNumber(Direction.NORTH).equals("0")) {
-      exits.append("NORTH ");
-      hasExits = true;
-    }
-    if (!room.getExitRoomNumber(Direction.SOUTH).equals("0")) {
-      exits.append("SOUTH ");
-      hasExits = true;
-    }
-    if (!room.getExitRoomNumber(Direction.EAST).equals("0")) {
-      exits.append("EAST ");
-      hasExits = true;
-    }
-    if (!room.getExitRoomNumber(Direction.WEST).equals("0")) {
-      exits.append("WEST ");
-      hasExits = true;
-    }
-
-    addToOutput(hasExits ? exits.toString().trim() : "There are no obvious exits.");
+    addToOutput(exitsText.get(room));
   }
 
-  private void performInventory() {
+  @Override
+  public void showInventory() {
     Player player = gameWorld.getPlayer();
-    if (player.getInventory().isEmpty()) {
+    if (player.getInventoryView().isEmpty()) {
       addToOutput("Your inventory is empty.");
     } else {
       addToOutput("Inventory:");
-      player.getInventory().forEach(item ->
+      player.getInventoryView().forEach(item ->
               addToOutput("- " + item.getName() + " (uses: " + item.getUsesRemaining() + ")"));
     }
   }
 
-  private void performTake(String itemName) {
+  @Override
+  public void takeItem(String itemName) {
     Player player = gameWorld.getPlayer();
     Room currentRoom = player.getCurrentRoom();
 
@@ -190,10 +314,127 @@ public class BatchController extends GameController {
     }
   }
 
+  @Override
+  public void dropItem(String itemName) {
+    Player player = gameWorld.getPlayer();
+    Item item = player.getItemFromInventory(itemName);
+    if (item == null) {
+      addToOutput("You don't have a " + itemName + " in your inventory.");
+      return;
+    }
+
+    if (player.removeFromInventory(item)) {
+      player.getCurrentRoom().addItem(item);
+      addToOutput("You drop the " + item.getName() + ".");
+    } else {
+      addToOutput("You can't drop the " + item.getName() + ".");
+    }
+  }
+
+  @Override
+  public void useItem(String itemName) {
+    Player player = gameWorld.getPlayer();
+    Item item = player.getItemFromInventory(itemName);
+    if (item == null) {
+      addToOutput("You don't have a " + itemName + " in your inventory.");
+      return;
+    }
+    if (item.getUsesRemaining() <= 0) {
+      addToOutput("The " + item.getName() + " has no uses left.");
+      return;
+    }
+
+    Room currentRoom = player.getCurrentRoom();
+    Puzzle puzzle = currentRoom.getPuzzle();
+    boolean puzzleActive = puzzle != null && puzzle.isActive();
+    if (gameWorld.applySolution(item.getName())) {
+      if (puzzleActive && !puzzle.isActive()) {
+        addToOutput("You used the " + item.getName() + " to solve the puzzle!");
+        addToOutput(puzzle.getEffects());
+        addToOutput("You gain " + puzzle.getValue() + " points!");
+      } else {
+        Monster monster = currentRoom.getMonster();
+        addToOutput("You used the " + item.getName() + " to defeat the " + monster.getName() + "!");
+        addToOutput("You gain " + monster.getValue() + " points!");
+      }
+    } else {
+      addToOutput("You use the " + item.getName() + ".");
+      addToOutput(item.getWhenUsed());
+    }
+    item.use();
+  }
+
+  @Override
+  public void provideAnswer(String answer) {
+    Puzzle puzzle = gameWorld.getPlayer().getCurrentRoom().getPuzzle();
+    if (puzzle == null || !puzzle.isActive()) {
+      addToOutput("There's no active puzzle here.");
+      return;
+    }
+    if (!puzzle.getSolution().startsWith("'")) {
+      addToOutput("This puzzle requires using an item, not answering.");
+      return;
+    }
+
+    if (gameWorld.applySolution(answer)) {
+      addToOutput("Correct! " + puzzle.getEffects());
+      addToOutput("You gain " + puzzle.getValue() + " points!");
+    } else {
+      addToOutput("That's not right. The puzzle is still unsolved.");
+    }
+  }
+
+  /**
+   * Writes a line of output to the output file or writer, or to the console if there is none.
+   * After a write error the rest of the output is dropped and the game keeps running.
+   *
+   * @param message the line to write
+   */
   private void addToOutput(String message) {
-    outputBuffer.append(message).append("\n");
-    if (outputFilePath == null) {
+    if (outputFilePath == null && transcript == null) {
       System.out.println(message);
+      return;
+    }
+    if (writer == null) {
+      return;
+    }
+    try {
+      writer.write(message);
+      writer.write('\n');
+    } catch (IOException e) {
+      outputFailed(e);
+      closeOutput();
+    }
+  }
+
+  /**
+   * Pushes buffered output to the output file so progress is visible during long runs.
+   */
+  private void flushOutput() {
+    if (writer == null) {
+      return;
+    }
+    try {
+      writer.flush();
+    } catch (IOException e) {
+      outputFailed(e);
+      closeOutput();
+    }
+  }
+
+  /**
+   * Flushes and closes the output file, if one is open.
+   */
+  private void closeOutput() {
+    if (writer == null) {
+      return;
+    }
+    Writer open = writer;
+    writer = null;
+    try {
+      open.close();
+    } catch (IOException e) {
+      outputFailed(e);
     }
   }
 }
@@ -0,0 +1,670 @@
+package controller;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import model.GameWorld;
+import model.WorldTemplate;
+
+/**
+ * Runs batch scripts for clients on the same machine, so that a run pays neither for starting
+ * the JVM nor for parsing the game file. Every game file a job names is loaded once into a
+ * {@link WorldTemplate} and kept, and loaded again only when the file changes; each job plays
+ * a new session of it through a {@link BatchController} on a fixed pool of workers.
+ *
+ * <p>The daemon listens on a Unix domain socket, or on a port of the loopback address. A
+ * client sends one job per connection, as one line of tab-separated fields:
+ * <pre>
+ *   &lt;game file&gt; TAB &lt;script&gt; [TAB &lt;output file&gt; [TAB &lt;seed&gt;]]
+ * </pre>
+ * Paths are read by the daemon, so clients should send absolute ones. With an output file the
+ * transcript is written there, as by "-batch"; without one it is sent back as it is written.
+ * The daemon writes files on behalf of whoever can reach its socket, so output files are only
+ * accepted inside the output directory it was given, and refused if it was given none.
+ * A job line longer than {@link #MAX_REQUEST_BYTES}, or not sent within
+ * {@link #REQUEST_TIMEOUT_MILLIS}, fails without taking a worker.
+ * The reply ends with a status line starting with {@link #STATUS}, "done" followed by the
+ * number of commands run and the time taken, or "failed" followed by the reason, and the
+ * connection is closed.
+ * Being plain text, jobs can be sent with any socket tool as well as with
+ * {@link #submit(String, String, String, String, Long, Appendable)}.
+ */
+public class BatchDaemon {
+  /** Start of the line that ends every reply. */
+  public static final String STATUS = "@@ ";
+
+  /** Longest job line accepted, in bytes. */
+  static final int MAX_REQUEST_BYTES = 16 * 1024;
+
+  /** Time a client has to send its job line after connecting. */
+  static final long REQUEST_TIMEOUT_MILLIS = 5_000;
+
+  private static final int OUTPUT_BUFFER_SIZE = 16 * 1024;
+  private static final long ACCEPT_BACKOFF_MILLIS = 100;
+  private static final long SWEEP_MILLIS = 250;        // longest wait between deadline checks
+
+  private final String address;
+  private final int workers;
+  private final String outputDirectory;
+  private Path outputRoot;
+  private final Map<String, GameFile> templates = new ConcurrentHashMap<>();
+
+  private ServerSocketChannel serverChannel;
+  private Selector selector;
+  private SelectionKey acceptKey;
+  private Path socketFile;
+  private ExecutorService pool;
+  private Thread acceptThread;
+  private volatile boolean running;
+
+  private final AtomicLong jobs = new AtomicLong();
+  private final AtomicLong failedJobs = new AtomicLong();
+  private final AtomicLong commands = new AtomicLong();
+
+  /**
+   * A loaded game and the modification time of its file when it was loaded.
+   */
+  private record CachedTemplate(WorldTemplate template, long lastModified) {
+  }
+
+  /**
+   * One game file and its loaded game. The file is loaded under this object's lock, so jobs
+   * of other games carry on while it loads.
+   */
+  private final class GameFile {
+    private final String key;
+    private volatile CachedTemplate cached;
+
+    GameFile(String key) {
+      this.key = key;
+    }
+
+    /**
+     * Gets the loaded game, loading it if it has not been loaded or the file has changed.
+     * A file that fails to load before ever loading is forgotten.
+     *
+     * @param gameFile     the game file as the job named it
+     * @param lastModified the file's modification time now
+     * @return the loaded game
+     * @throws IOException if the game cannot be loaded
+     */
+    WorldTemplate get(String gameFile, long lastModified) throws IOException {
+      CachedTemplate current = cached;
+      if (current != null && current.lastModified() == lastModified) {
+        return current.template();
+      }
+      synchronized (this) {
+        current = cached;
+        if (current == null || current.lastModified() != lastModified) {
+          try {
+            current = new CachedTemplate(WorldTemplate.load(gameFile), lastModified);
+          } catch (IOException | RuntimeException e) {
+            if (cached == null) {
+              templates.remove(key, this);
+            }
+            throw e;
+          }
+          cached = current;
+        }
+        return current.template();
+      }
+    }
+
+    /**
+     * Checks whether the game has been loaded.
+     *
+     * @return true once the file has loaded
+     */
+    boolean isLoaded() {
+      return cached != null;
+    }
+  }
+
+  /**
+   * Creates a daemon that only sends transcripts back. Nothing is listened on until
+   * {@link #start()}.
+   *
+   * @param address a Unix domain socket path, or a port number to listen on the loopback
+   *                address, 0 for any free port
+   * @param workers the number of jobs run at once
+   * @throws IllegalArgumentException if workers is less than one
+   */
+  public BatchDaemon(String address, int workers) {
+    this(address, workers, null);
+  }
+
+  /**
+   * Creates a daemon. Nothing is listened on until {@link #start()}.
+   *
+   * @param address         a Unix domain socket path, or a port number to listen on the
+   *                        loopback address, 0 for any free port
+   * @param workers         the number of jobs run at once
+   * @param outputDirectory the directory jobs may write transcripts under, or null to refuse
+   *                        output files
+   * @throws IllegalArgumentException if workers is less than one
+   */
+  public BatchDaemon(String address, int workers, String outputDirectory) {
+    if (workers < 1) {
+      throw new IllegalArgumentException("Worker count must be at least 1");
+    }
+    this.address = address;
+    this.workers = workers;
+    this.outputDirectory = outputDirectory;
+  }
+
+  /**
+   * Loads a game ahead of the first job that names it.
+   *
+   * @param gameFile the game file
+   * @throws IOException if the game cannot be loaded
+   */
+  public void preload(String gameFile) throws IOException {
+    template(gameFile);
+  }
+
+  /**
+   * Starts listening and running jobs in the background. A socket file left by a daemon that
+   * did not stop cleanly, one that refuses connections, is replaced.
+   *
+   * @throws IOException if the output directory does not exist, another daemon is listening on
+   *                     the socket file, or the address cannot be bound
+   */
+  public void start() throws IOException {
+    if (outputDirectory != null) {
+      outputRoot = Path.of(outputDirectory).toRealPath();
+      if (!Files.isDirectory(outputRoot)) {
+        throw new IOException("Not a directory: " + outputDirectory);
+      }
+    }
+    if (isPort(address)) {
+      serverChannel = ServerSocketChannel.open();
+      serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+              Integer.parseInt(address)), 256);
+    } else {
+      socketFile = Path.of(address);
+      if (Files.exists(socketFile) && !Files.isRegularFile(socketFile)
+              && !Files.isDirectory(socketFile)) {
+        try {
+          SocketChannel.open(UnixDomainSocketAddress.of(socketFile)).close();
+          throw new IOException("A daemon is already listening on " + address);
+        } catch (ConnectException e) {
+          Files.delete(socketFile);
+        }
+      }
+      serverChannel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+      serverChannel.bind(UnixDomainSocketAddress.of(socketFile), 256);
+    }
+    selector = Selector.open();
+    serverChannel.configureBlocking(false);
+    acceptKey = serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+    AtomicInteger workerCount = new AtomicInteger();
+    pool = Executors.newFixedThreadPool(workers, task -> {
+      Thread thread = new Thread(task, "batch-worker-" + workerCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    running = true;
+    acceptThread = new Thread(this::acceptJobs, "batch-daemon");
+    acceptThread.start();
+  }
+
+  /**
+   * Gets the address the daemon is listening on.
+   *
+   * @return the socket path, or the port on the loopback address
+   * @throws IOException if the daemon is not listening
+   */
+  public String getAddress() throws IOException {
+    SocketAddress local = serverChannel.getLocalAddress();
+    if (local instanceof InetSocketAddress inet) {
+      return Integer.toString(inet.getPort());
+    }
+    return address;
+  }
+
+  /**
+   * Gets the number of jobs finished so far, including failed ones.
+   *
+   * @return the job count
+   */
+  public long getJobCount() {
+    return jobs.get();
+  }
+
+  /**
+   * Stops listening and waits for running jobs to finish.
+   *
+   * @throws IOException if the socket file cannot be removed
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public void close() throws IOException, InterruptedException {
+    running = false;
+    selector.wakeup();
+    acceptThread.join();
+    pool.shutdown();
+    pool.awaitTermination(10, TimeUnit.SECONDS);
+    if (socketFile != null) {
+      Files.deleteIfExists(socketFile);
+    }
+  }
+
+  /**
+   * Describes the daemon's work so far: jobs run and failed, commands, and games loaded.
+   *
+   * @return a one-line status
+   */
+  public String status() {
+    return String.format("Jobs: %d (%d failed); commands: %d; games loaded: %d",
+            jobs.get(), failedJobs.get(), commands.get(),
+            templates.values().stream().filter(GameFile::isLoaded).count());
+  }
+
+  /**
+   * Accepts connections and reads their job lines until the daemon is closed, handing each
+   * complete line to a worker. Job lines are read here rather than on the workers, so that a
+   * client that sends nothing, or too much, holds no worker while it is turned away.
+   */
+  private void acceptJobs() {
+    ByteBuffer readBuffer = ByteBuffer.allocate(4096);
+    List<PendingRequest> complete = new ArrayList<>();
+    long acceptResumeNanos = 0;
+    try {
+      while (running) {
+        selector.select(SWEEP_MILLIS);
+        long now = System.nanoTime();
+        if (acceptResumeNanos != 0 && now - acceptResumeNanos >= 0) {
+          acceptResumeNanos = 0;
+          acceptKey.interestOps(SelectionKey.OP_ACCEPT);
+        }
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+          SelectionKey key = keys.next();
+          keys.remove();
+          if (!key.isValid()) {
+            continue;
+          }
+          if (key.isAcceptable()) {
+            if (!accept(now)) {
+              acceptKey.interestOps(0);
+              acceptResumeNanos = now + ACCEPT_BACKOFF_MILLIS * 1_000_000;
+            }
+          } else if (((PendingRequest) key.attachment()).read(readBuffer)) {
+            complete.add((PendingRequest) key.attachment());
+          }
+        }
+        for (SelectionKey key : selector.keys()) {
+          if (key.isValid() && key.attachment() instanceof PendingRequest request
+                  && now - request.deadline >= 0) {
+            request.reject("no job line within " + REQUEST_TIMEOUT_MILLIS + " ms");
+          }
+        }
+        if (!complete.isEmpty()) {
+          // Finishes deregistering their channels, which must be done before blocking on them
+          selector.selectNow();
+          for (PendingRequest request : complete) {
+            request.dispatch();
+          }
+          complete.clear();
+        }
+      }
+    } catch (IOException e) {
+      System.err.println("Batch daemon stopped: " + e.getMessage());
+    } finally {
+      for (SelectionKey key : selector.keys()) {
+        if (key.attachment() instanceof PendingRequest request) {
+          request.close();
+        }
+      }
+      try {
+        serverChannel.close();
+        selector.close();
+      } catch (IOException e) {
+        System.err.println("Error closing batch daemon: " + e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Accepts every waiting connection and starts reading its job line.
+   *
+   * @param now the time, from {@link System#nanoTime()}
+   * @return false if accepting failed, for instance because the process is out of file
+   *         descriptors, and should pause for a while
+   * @throws ClosedChannelException if the daemon has been closed
+   */
+  private boolean accept(long now) throws ClosedChannelException {
+    while (true) {
+      SocketChannel channel;
+      try {
+        channel = serverChannel.accept();
+      } catch (ClosedChannelException e) {
+        throw e;
+      } catch (IOException e) {
+        System.err.println("Error accepting a batch job: " + e.getMessage());
+        return false;
+      }
+      if (channel == null) {
+        return true;
+      }
+      PendingRequest request = new PendingRequest(channel,
+              now + REQUEST_TIMEOUT_MILLIS * 1_000_000);
+      try {
+        channel.configureBlocking(false);
+        request.key = channel.register(selector, SelectionKey.OP_READ, request);
+      } catch (IOException | RuntimeException e) {
+        System.err.println("Error setting up a batch job: " + e.getMessage());
+        request.close();
+      }
+    }
+  }
+
+  /**
+   * A connection whose job line is still being read. Used by the accept thread only.
+   */
+  private final class PendingRequest {
+    private final SocketChannel channel;
+    private final long deadline;
+    private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+    private SelectionKey key;
+
+    PendingRequest(SocketChannel channel, long deadline) {
+      this.channel = channel;
+      this.deadline = deadline;
+    }
+
+    /**
+     * Reads what the client has sent so far. A connection closed before sending anything is
+     * dropped without counting as a job; a line that grows too long is rejected.
+     *
+     * @param buffer a buffer to read into
+     * @return true once the line is complete, ended by a line break or by the client closing
+     */
+    boolean read(ByteBuffer buffer) {
+      buffer.clear();
+      int read;
+      try {
+        read = channel.read(buffer);
+      } catch (IOException e) {
+        close();
+        return false;
+      }
+      if (read < 0) {
+        if (line.size() == 0) {
+          close();
+          return false;
+        }
+        key.cancel();
+        return true;
+      }
+      byte[] bytes = buffer.array();
+      for (int i = 0; i < read; i++) {
+        if (bytes[i] == '\n') {
+          line.write(bytes, 0, i);
+          key.cancel();
+          return true;
+        }
+      }
+      line.write(bytes, 0, read);
+      if (line.size() > MAX_REQUEST_BYTES) {
+        reject("job line longer than " + MAX_REQUEST_BYTES + " bytes");
+      }
+      return false;
+    }
+
+    /**
+     * Hands the complete job line to a worker. The channel's key must already be deregistered.
+     */
+    void dispatch() {
+      String request = line.toString(StandardCharsets.UTF_8);
+      if (request.endsWith("\r")) {
+        request = request.substring(0, request.length() - 1);
+      }
+      String job = request;
+      try {
+        channel.configureBlocking(true);
+        pool.execute(() -> serve(channel, job));
+      } catch (IOException | RuntimeException e) {
+        System.err.println("Error starting a batch job: " + e.getMessage());
+        close();
+      }
+    }
+
+    /**
+     * Fails the job without running it, sending the reason if the client can take it at once.
+     *
+     * @param reason why the job failed
+     */
+    void reject(String reason) {
+      failedJobs.incrementAndGet();
+      jobs.incrementAndGet();
+      try {
+        channel.write(ByteBuffer.wrap((STATUS + "failed " + reason + "\n")
+                .getBytes(StandardCharsets.UTF_8)));
+      } catch (IOException e) {
+        // The client went away
+      }
+      close();
+    }
+
+    /**
+     * Closes the connection.
+     */
+    void close() {
+      if (key != null) {
+        key.cancel();
+      }
+      try {
+        channel.close();
+      } catch (IOException e) {
+        // Nothing more to do for this connection
+      }
+    }
+  }
+
+  /**
+   * Runs a job and replies.
+   *
+   * @param channel the connection, in blocking mode
+   * @param request the job line
+   */
+  private void serve(SocketChannel channel, String request) {
+    try (channel;
+         Writer out = new BufferedWriter(new OutputStreamWriter(
+                 Channels.newOutputStream(channel), StandardCharsets.UTF_8), OUTPUT_BUFFER_SIZE)) {
+      long start = System.nanoTime();
+      String status;
+      try {
+        int count = runJob(request, out);
+        status = String.format("done %d commands in %.1f ms", count, (System.nanoTime() - start) / 1e6);
+      } catch (IOException | RuntimeException e) {
+        failedJobs.incrementAndGet();
+        status = "failed " + (e.getMessage() != null ? e.getMessage() : e.toString());
+      }
+      jobs.incrementAndGet();
+      out.write(STATUS + status + "\n");
+    } catch (IOException e) {
+      // The client went away; its job has run or will not
+    }
+  }
+
+  /**
+   * Runs one job.
+   *
+   * @param request the job line
+   * @param out     where the transcript goes if the job names no output file
+   * @return the number of commands run
+   * @throws IOException if the job is malformed, its game or script cannot be read, or its
+   *                     transcript cannot be written
+   */
+  private int runJob(String request, Writer out) throws IOException {
+    String[] fields = request == null ? new String[0] : request.split("\t", -1);
+    if (fields.length < 2 || fields.length > 4) {
+      throw new IOException("expected <game file> TAB <script> [TAB <output file> [TAB <seed>]]");
+    }
+    String script = fields[1];
+    if (!new File(script).isFile()) {
+      throw new IOException("Script not found: " + script);
+    }
+    String output = fields.length > 2 && !fields[2].isEmpty() ? outputPath(fields[2]) : null;
+    GameWorld world = template(fields[0]).newSession();
+    if (fields.length > 3 && !fields[3].isEmpty()) {
+      try {
+        world.setSeed(Long.parseLong(fields[3]));
+      } catch (NumberFormatException e) {
+        throw new IOException("Invalid seed: " + fields[3]);
+      }
+    }
+
+    BatchController controller = output != null
+            ? new BatchController(world, script, output, null)
+            : new BatchController(world, script, new KeepOpenWriter(out), null);
+    controller.run();
+    commands.addAndGet(controller.getCommandCount());
+    if (controller.getError() != null) {
+      throw new IOException(controller.getError());
+    }
+    return controller.getCommandCount();
+  }
+
+  /**
+   * Checks that a job may write its transcript to a file: with symbolic links followed, the
+   * file's directory must be the output directory or one below it, and the file must not
+   * itself be a symbolic link.
+   *
+   * @param output the output file named by the job
+   * @return the output file's absolute path
+   * @throws IOException if output files are refused or this one is outside the output directory
+   */
+  private String outputPath(String output) throws IOException {
+    if (outputRoot == null) {
+      throw new IOException("Output files are not accepted; leave the field empty to have the "
+              + "transcript sent back");
+    }
+    Path file = Path.of(output).toAbsolutePath().normalize();
+    Path parent = file.getParent();
+    if (parent == null || !Files.exists(parent)) {
+      throw new IOException("Output directory not found: " + output);
+    }
+    if (!parent.toRealPath().startsWith(outputRoot) || Files.isSymbolicLink(file)) {
+      throw new IOException("Output file outside " + outputRoot + ": " + output);
+    }
+    return file.toString();
+  }
+
+  /**
+   * Gets the loaded game of a file, loading it if it has not been loaded or has changed since.
+   *
+   * @param gameFile the game file
+   * @return the loaded game
+   * @throws IOException if the game cannot be loaded
+   */
+  private WorldTemplate template(String gameFile) throws IOException {
+    String key = new File(gameFile).getAbsolutePath();
+    long lastModified = new File(key).lastModified();
+    return templates.computeIfAbsent(key, GameFile::new).get(gameFile, lastModified);
+  }
+
+  /**
+   * Sends a job to a daemon and copies the transcript it sends back.
+   *
+   * @param address    the daemon's socket path or port
+   * @param gameFile   the game file
+   * @param script     the batch script
+   * @param outputFile the file the daemon writes the transcript to, or null to have it sent back
+   * @param seed       the seed of the session, or null for an unseeded one
+   * @param out        where the transcript sent back goes
+   * @return the status line without {@link #STATUS}, starting with "done" or "failed"
+   * @throws IOException if the daemon cannot be reached or closes before replying
+   */
+  public static String submit(String address, String gameFile, String script, String outputFile,
+                              Long seed, Appendable out) throws IOException {
+    SocketAddress target = isPort(address)
+            ? new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(address))
+            : UnixDomainSocketAddress.of(address);
+    try (SocketChannel channel = SocketChannel.open(target);
+         BufferedReader in = new BufferedReader(new InputStreamReader(
+                 Channels.newInputStream(channel), StandardCharsets.UTF_8))) {
+      StringBuilder request = new StringBuilder()
+              .append(new File(gameFile).getAbsolutePath()).append('\t')
+              .append(new File(script).getAbsolutePath());
+      if (outputFile != null || seed != null) {
+        request.append('\t').append(outputFile == null ? "" : new File(outputFile).getAbsolutePath());
+      }
+      if (seed != null) {
+        request.append('\t').append(seed);
+      }
+      request.append('\n');
+      Writer writer = new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8);
+      writer.write(request.toString());
+      writer.flush();
+
+      String line;
+      while ((line = in.readLine()) != null) {
+        if (line.startsWith(STATUS)) {
+          return line.substring(STATUS.length());
+        }
+        out.append(line).append('\n');
+      }
+      throw new IOException("Daemon closed the connection without a status");
+    }
+  }
+
+  /**
+   * Checks whether an address is a port number rather than a socket path.
+   *
+   * @param address the address
+   * @return true for a port
+   */
+  private static boolean isPort(String address) {
+    return !address.isEmpty() && address.chars().allMatch(Character::isDigit);
+  }
+
+  /**
+   * Passes writes through but only flushes on close, so that the batch controller closing its
+   * output leaves the connection open for the status line.
+   */
+  private static final class KeepOpenWriter extends FilterWriter {
+    KeepOpenWriter(Writer out) {
+      super(out);
+    }
+
+    @Override
+    public void close() throws IOException {
+      flush();
+    }
+  }
+}
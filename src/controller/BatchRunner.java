@@ -0,0 +1,375 @@
+package controller;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import model.GameRandom;
+import model.GameWorld;
+import model.Player;
+import model.WorldTemplate;
+import util.FileIoManager;
+
+/**
+ * Runs many batch scripts concurrently against one game.
+ * The game file is loaded once into a {@link WorldTemplate}; every script plays in its own
+ * session on a fixed pool of threads, writes its own transcript, and contributes a
+ * {@link Result} to the summary.
+ *
+ * <p>With a seed, each script's session gets a seed of its own, drawn from the run's seed in
+ * script order before any script starts, so transcripts come out the same on any number of
+ * threads.
+ */
+public class BatchRunner {
+  private final WorldTemplate template;
+  private final File outputDir;
+  private final int threads;
+  private final Long seed;
+
+  /**
+   * The outcome of one script.
+   */
+  public static final class Result {
+    private final String script;
+    private final String transcript;
+    private final int commands;
+    private final int score;
+    private final String rank;
+    private final int health;
+    private final long nanos;
+    private final String error;
+
+    Result(String script, String transcript, int commands, int score, String rank,
+           int health, long nanos, String error) {
+      this.script = script;
+      this.transcript = transcript;
+      this.commands = commands;
+      this.score = score;
+      this.rank = rank;
+      this.health = health;
+      this.nanos = nanos;
+      this.error = error;
+    }
+
+    /**
+     * Gets the path of the script.
+     *
+     * @return the script path
+     */
+    public String getScript() {
+      return script;
+    }
+
+    /**
+     * Gets the path of the transcript written for the script.
+     *
+     * @return the transcript path
+     */
+    public String getTranscript() {
+      return transcript;
+    }
+
+    /**
+     * Gets the number of commands the script ran.
+     *
+     * @return the command count
+     */
+    public int getCommands() {
+      return commands;
+    }
+
+    /**
+     * Gets the player's final score.
+     *
+     * @return the score
+     */
+    public int getScore() {
+      return score;
+    }
+
+    /**
+     * Gets the player's final rank.
+     *
+     * @return the rank
+     */
+    public String getRank() {
+      return rank;
+    }
+
+    /**
+     * Gets the player's final health.
+     *
+     * @return the health
+     */
+    public int getHealth() {
+      return health;
+    }
+
+    /**
+     * Checks whether the player ended the script with no health left.
+     *
+     * @return true if the player died
+     */
+    public boolean isDead() {
+      return error == null && health <= 0;
+    }
+
+    /**
+     * Gets how long the script took to run.
+     *
+     * @return the run time in nanoseconds
+     */
+    public long getNanos() {
+      return nanos;
+    }
+
+    /**
+     * Gets the error that stopped the script, if any.
+     *
+     * @return the error message, or null if the script ran to the end
+     */
+    public String getError() {
+      return error;
+    }
+  }
+
+  /**
+   * Creates a runner that writes transcripts to the given directory.
+   *
+   * @param template  the loaded game
+   * @param outputDir the directory for transcripts and the summary
+   * @param threads   the number of scripts to run at once
+   * @throws IllegalArgumentException if threads is less than one
+   */
+  public BatchRunner(WorldTemplate template, String outputDir, int threads) {
+    this(template, outputDir, threads, null);
+  }
+
+  /**
+   * Creates a runner whose sessions roll the same way on every run with the same seed.
+   *
+   * @param template  the loaded game
+   * @param outputDir the directory for transcripts and the summary
+   * @param threads   the number of scripts to run at once
+   * @param seed      the seed of the run, or null for a different stream each session
+   * @throws IllegalArgumentException if threads is less than one
+   */
+  public BatchRunner(WorldTemplate template, String outputDir, int threads, Long seed) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("Thread count must be at least 1");
+    }
+    this.template = template;
+    this.outputDir = new File(outputDir);
+    this.threads = threads;
+    this.seed = seed;
+  }
+
+  /**
+   * Lists the scripts named by a directory or a list file.
+   * A directory contributes every regular file in it, in name order; any other file is read
+   * as a list of script paths, one per line, skipping blank lines and "//" comments.
+   *
+   * @param source a directory of scripts or a file listing them
+   * @return the script paths
+   * @throws IOException if the source does not exist
+   */
+  public static List<String> listScripts(String source) throws IOException {
+    File file = new File(source);
+    List<String> scripts = new ArrayList<>();
+    if (file.isDirectory()) {
+      File[] files = file.listFiles(File::isFile);
+      if (files != null) {
+        Arrays.sort(files);
+        for (File script : files) {
+          scripts.add(script.getPath());
+        }
+      }
+      return scripts;
+    }
+
+    try (BufferedReader reader = FileIoManager.openReader(source)) {
+      if (reader == null) {
+        throw new IOException("Script list not found: " + source);
+      }
+      String line;
+      while ((line = reader.readLine()) != null) {
+        String script = line.trim();
+        if (!script.isEmpty() && !script.startsWith("//")) {
+          scripts.add(script);
+        }
+      }
+    }
+    return scripts;
+  }
+
+  /**
+   * Runs the scripts and waits for all of them to finish.
+   * Each transcript is named after its script with ".out" appended.
+   *
+   * @param scripts the script paths
+   * @return one result per script, in the same order
+   * @throws IOException if the output directory cannot be created
+   * @throws InterruptedException if interrupted while waiting for the scripts
+   */
+  public List<Result> run(List<String> scripts) throws IOException, InterruptedException {
+    if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+      throw new IOException("Cannot create output directory: " + outputDir);
+    }
+
+    ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, scripts.size())));
+    GameRandom seeds = seed == null ? null : new GameRandom(seed);
+    try {
+      List<Future<Result>> futures = new ArrayList<>(scripts.size());
+      Set<String> names = new HashSet<>();
+      for (String script : scripts) {
+        String transcript = new File(outputDir, transcriptName(script, names)).getPath();
+        Long scriptSeed = seeds == null ? null : seeds.nextSeed();
+        futures.add(pool.submit(() -> runScript(script, transcript, scriptSeed)));
+      }
+
+      List<Result> results = new ArrayList<>(scripts.size());
+      for (int i = 0; i < futures.size(); i++) {
+        try {
+          results.add(futures.get(i).get());
+        } catch (ExecutionException e) {
+          results.add(new Result(scripts.get(i), null, 0, 0, null, 0, 0,
+                  String.valueOf(e.getCause())));
+        }
+      }
+      return results;
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Plays one script in a new session.
+   *
+   * @param script     the script path
+   * @param transcript the transcript path
+   * @param seed       the seed of the session, or null to leave it unseeded
+   * @return the result, failed if the script could not be read or the transcript written
+   */
+  private Result runScript(String script, String transcript, Long seed) {
+    long start = System.nanoTime();
+    GameWorld world = template.newSession();
+    if (seed != null) {
+      world.setSeed(seed);
+    }
+    BatchController controller = new BatchController(world, script, transcript, null);
+    try {
+      controller.run();
+    } catch (RuntimeException e) {
+      return new Result(script, transcript, controller.getCommandCount(), 0, null, 0,
+              System.nanoTime() - start, e.toString());
+    }
+    if (controller.getError() != null) {
+      return new Result(script, transcript, controller.getCommandCount(), 0, null, 0,
+              System.nanoTime() - start, controller.getError());
+    }
+    Player player = world.getPlayer();
+    return new Result(script, transcript, controller.getCommandCount(), player.getScore(),
+            player.getRank(), player.getHealth(), System.nanoTime() - start, null);
+  }
+
+  /**
+   * Chooses a transcript file name for a script that no earlier script has used.
+   *
+   * @param script the script path
+   * @param used   names already given out
+   * @return the file name
+   */
+  private static String transcriptName(String script, Set<String> used) {
+    String base = new File(script).getName();
+    String name = base + ".out";
+    for (int n = 2; !used.add(name); n++) {
+      name = base + "-" + n + ".out";
+    }
+    return name;
+  }
+
+  /**
+   * Writes the summary of a run to "summary.txt" in the output directory.
+   *
+   * @param results   the results of the run
+   * @param wallNanos the wall-clock time of the whole run in nanoseconds
+   * @return the summary text
+   * @throws IOException if the summary cannot be written
+   */
+  public String writeSummary(List<Result> results, long wallNanos) throws IOException {
+    String summary = summarize(results, wallNanos, threads, seed);
+    FileIoManager.writeOutput(new File(outputDir, "summary.txt").getPath(), summary);
+    return summary;
+  }
+
+  /**
+   * Formats a table of per-script results followed by totals: scores, ranks, deaths and
+   * throughput.
+   *
+   * @param results   the results of the run
+   * @param wallNanos the wall-clock time of the whole run in nanoseconds
+   * @param threads   the number of threads used
+   * @param seed      the seed of the run, or null if it was unseeded
+   * @return the summary text
+   */
+  static String summarize(List<Result> results, long wallNanos, int threads, Long seed) {
+    StringBuilder out = new StringBuilder();
+    out.append(String.format("%-32s %10s %7s %-20s %6s %10s%n",
+            "Script", "Commands", "Score", "Rank", "Health", "Millis"));
+
+    long commands = 0;
+    long scoreTotal = 0;
+    int minScore = Integer.MAX_VALUE;
+    int maxScore = Integer.MIN_VALUE;
+    int completed = 0;
+    int deaths = 0;
+    Map<String, Integer> ranks = new TreeMap<>();
+    for (Result result : results) {
+      String name = new File(result.getScript()).getName();
+      commands += result.getCommands();
+      if (result.getError() != null) {
+        out.append(String.format("%-32s %10d  FAILED: %s%n", name, result.getCommands(),
+                result.getError()));
+        continue;
+      }
+      out.append(String.format("%-32s %10d %7d %-20s %6d %10.1f%n", name, result.getCommands(),
+              result.getScore(), result.getRank(), result.getHealth(), result.getNanos() / 1e6));
+      completed++;
+      scoreTotal += result.getScore();
+      minScore = Math.min(minScore, result.getScore());
+      maxScore = Math.max(maxScore, result.getScore());
+      ranks.merge(result.getRank(), 1, Integer::sum);
+      if (result.isDead()) {
+        deaths++;
+      }
+    }
+
+    double seconds = wallNanos / 1e9;
+    out.append(String.format("%nScripts: %d (%d failed) on %d threads%n",
+            results.size(), results.size() - completed, threads));
+    if (seed != null) {
+      out.append(String.format("Seed: %d%n", seed));
+    }
+    if (completed > 0) {
+      out.append(String.format("Score: mean %.1f, min %d, max %d%n",
+              (double) scoreTotal / completed, minScore, maxScore));
+    }
+    out.append("Ranks:");
+    ranks.forEach((rank, count) -> out.append(' ').append(rank).append('=').append(count));
+    out.append(String.format("%nDeaths: %d%n", deaths));
+    out.append(String.format("Commands: %d in %.2f s (%.0f commands/s)%n",
+            commands, seconds, seconds > 0 ? commands / seconds : 0.0));
+    return out.toString();
+  }
+}
@@ -6,91 +6,163 @@ import model.Direction;
 /**
  * Factory for creating command objects from input strings.
  * Implements the Factory Pattern to centralize command creation.
+ * Verbs are found through a hash table over every alias, built once; input is scanned in
+ * place, so finding the verb allocates nothing and only an argument is copied out.
  */
 public class CommandFactory {
+  private static final int TABLE_SIZE = 64;   // power of two, at least twice the alias count
+  private static final String[] TABLE_KEYS = new String[TABLE_SIZE];
+  private static final Verb[] TABLE_VERBS = new Verb[TABLE_SIZE];
+
+  static {
+    for (Verb verb : Verb.values()) {
+      for (String alias : verb.getAliases()) {
+        int slot = hash(alias, 0, alias.length()) & (TABLE_SIZE - 1);
+        while (TABLE_KEYS[slot] != null) {
+          if (TABLE_KEYS[slot].equals(alias)) {
+            throw new IllegalStateException("Duplicate command alias: " + alias);
+          }
+          slot = (slot + 1) & (TABLE_SIZE - 1);
+        }
+        TABLE_KEYS[slot] = alias;
+        TABLE_VERBS[slot] = verb;
+      }
+    }
+  }
 
   /**
    * Creates a command object based on the input string.
+   * Verbs the controller does not support, and verbs missing a required argument, become
+   * an {@link UnknownCommand}. Unless the controller parses leniently, extra words after a
+   * verb without arguments also make the command unknown.
    *
    * @param controller The controller that will execute the command
    * @param commandString The input command string
    * @return A Command object that can be executed
    */
   public static Command createCommand(GameController controller, String commandString) {
-    if (commandString == null || commandString.trim().isEmpty()) {
+    if (commandString == null) {
       return new UnknownCommand(controller, "");
     }
 
-    // Parse command string
-    String[] parts = commandString.trim().toLowerCase().split("\\s+", 2);
-    String command = parts[0];
-    String argument = parts.length > 1 ? parts[1] : "";
-
-    // Create appropriate command object based on the first word
-    switch (command) {
-      case "n":
-      case "north":
-        return new MoveCommand(controller, Direction.NORTH);
-
-      case "s":
-      case "south":
-        return new MoveCommand(controller, Direction.SOUTH);
-
-      case "e":
-      case "east":
-        return new MoveCommand(controller, Direction.EAST);
-
-      case "w":
-      case "west":
-        return new MoveCommand(controller, Direction.WEST);
-
-      case "l":
-      case "look":
-        return new LookCommand(controller);
-
-      case "i":
-      case "inventory":
-        return new InventoryCommand(controller);
-
-      case "t":
-      case "take":
-        return new TakeCommand(controller, argument);
-
-      case "d":
-      case "drop":
-        return new DropCommand(controller, argument);
-
-      case "x":
-      case "examine":
-        return new ExamineCommand(controller, argument);
-
-      case "u":
-      case "use":
-        return new UseCommand(controller, argument);
+    // Find the first word without splitting or copying the input
+    int length = commandString.length();
+    int verbStart = skipWhitespace(commandString, 0);
+    if (verbStart == length) {
+      return new UnknownCommand(controller, "");
+    }
+    int verbEnd = verbStart;
+    while (verbEnd < length && !Character.isWhitespace(commandString.charAt(verbEnd))) {
+      verbEnd++;
+    }
 
-      case "a":
-      case "answer":
-        return new AnswerCommand(controller, argument);
+    Verb verb = lookup(commandString, verbStart, verbEnd);
+    if (verb == null || !controller.supportedVerbs().contains(verb)) {
+      return new UnknownCommand(controller, commandString);
+    }
 
-      case "k":
-      case "attack":
-        return new AttackCommand(controller);
+    // The rest of the line, trimmed, is the argument
+    int argumentStart = skipWhitespace(commandString, verbEnd);
+    int argumentEnd = length;
+    while (argumentEnd > argumentStart
+            && Character.isWhitespace(commandString.charAt(argumentEnd - 1))) {
+      argumentEnd--;
+    }
+    boolean hasArgument = argumentStart < argumentEnd;
+    if (hasArgument != verb.takesArgument() && !controller.isLenientParsing()) {
+      return new UnknownCommand(controller, commandString);
+    }
+    String argument = verb.takesArgument() && hasArgument
+            ? commandString.substring(argumentStart, argumentEnd) : "";
+
+    return switch (verb) {
+      case NORTH -> new MoveCommand(controller, Direction.NORTH);
+      case SOUTH -> new MoveCommand(controller, Direction.SOUTH);
+      case EAST -> new MoveCommand(controller, Direction.EAST);
+      case WEST -> new MoveCommand(controller, Direction.WEST);
+      case LOOK -> new LookCommand(controller);
+      case INVENTORY -> new InventoryCommand(controller);
+      case TAKE -> new TakeCommand(controller, argument);
+      case DROP -> new DropCommand(controller, argument);
+      case EXAMINE -> new ExamineCommand(controller, argument);
+      case USE -> new UseCommand(controller, argument);
+      case ANSWER -> new AnswerCommand(controller, argument);
+      case ATTACK -> new AttackCommand(controller);
+      case SAVE -> new SaveCommand(controller);
+      case RESTORE -> new LoadCommand(controller);
+      case HELP -> new HelpCommand(controller);
+      case QUIT -> new QuitCommand(controller);
+    };
+  }
 
-      case "v":
-      case "save":
-        return new SaveCommand(controller);
+  /**
+   * Finds the verb named by part of a string, ignoring case.
+   *
+   * @param text  the text containing the word
+   * @param start index of the first character of the word
+   * @param end   index after the last character of the word
+   * @return the verb, or null if the word names no verb
+   */
+  public static Verb lookup(CharSequence text, int start, int end) {
+    int slot = hash(text, start, end) & (TABLE_SIZE - 1);
+    String key;
+    while ((key = TABLE_KEYS[slot]) != null) {
+      if (matches(key, text, start, end)) {
+        return TABLE_VERBS[slot];
+      }
+      slot = (slot + 1) & (TABLE_SIZE - 1);
+    }
+    return null;
+  }
 
-      case "r":
-      case "restore":
-      case "load":
-        return new LoadCommand(controller);
+  /**
+   * Hashes part of a string as if it were lower case.
+   *
+   * @param text  the text
+   * @param start the start index, inclusive
+   * @param end   the end index, exclusive
+   * @return the hash
+   */
+  private static int hash(CharSequence text, int start, int end) {
+    int h = 0;
+    for (int i = start; i < end; i++) {
+      h = 31 * h + Character.toLowerCase(text.charAt(i));
+    }
+    return h ^ (h >>> 16);
+  }
 
-      case "q":
-      case "quit":
-        return new QuitCommand(controller);
+  /**
+   * Compares a lower-case alias with part of a string, ignoring case.
+   *
+   * @param alias the lower-case alias
+   * @param text  the text
+   * @param start the start index, inclusive
+   * @param end   the end index, exclusive
+   * @return true if the alias matches
+   */
+  private static boolean matches(String alias, CharSequence text, int start, int end) {
+    if (alias.length() != end - start) {
+      return false;
+    }
+    for (int i = 0; i < alias.length(); i++) {
+      if (alias.charAt(i) != Character.toLowerCase(text.charAt(start + i))) {
+        return false;
+      }
+    }
+    return true;
+  }
 
-      default:
-        return new UnknownCommand(controller, commandString);
+  /**
+   * Skips whitespace.
+   *
+   * @param text  the text
+   * @param index the index to start from
+   * @return the index of the next non-whitespace character, or the text length
+   */
+  private static int skipWhitespace(CharSequence text, int index) {
+    while (index < text.length() && Character.isWhitespace(text.charAt(index))) {
+      index++;
     }
+    return index;
   }
-}
\ No newline at end of file
+}
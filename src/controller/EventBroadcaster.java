@@ -0,0 +1,245 @@
+package controller;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import model.Direction;
+import model.Player;
+import model.Room;
+
+/**
+ * Sends what happens in a shared world only to the players who are near enough to notice.
+ * An event, such as "goblin attacks al." or "bo drops the key.", is published in a room and
+ * reaches the subscribers in that room and, if the broadcaster is made so, in the rooms its
+ * exits link to. The player who caused an event is not sent it, having been told already.
+ *
+ * <p>Subscribers are kept by room. A subscription follows its player through
+ * {@link Player#setRoomListener}, so a move only takes the subscriber out of one room's set
+ * and puts it in another's, and publishing never looks at players in other parts of the map.
+ *
+ * <p>Publishing only queues the event. Once per tick, {@link #flush()} hands every subscriber
+ * one batch with all of that tick's events for it. Handing over never blocks: each subscriber's
+ * {@link Output} queues the batch on the client's own connection, or refuses it when the client
+ * has fallen too far behind, so a slow client holds up no thread and no other client. A
+ * subscriber misses the batches its output refuses; what it missed is counted.
+ *
+ * <p>This is the delivery side only. A shared-world front end, such as a shared
+ * {@link GameServer}, subscribes its players, passes the broadcaster to their
+ * {@link ActorController}s, and calls {@link #flush()} once per tick.
+ */
+public class EventBroadcaster {
+  private static final Direction[] DIRECTIONS = Direction.values();
+
+  private final boolean adjacentRooms;
+  private final Map<Player, Subscriber> subscribers = new ConcurrentHashMap<>();
+  private final Map<String, Set<Subscriber>> rooms = new ConcurrentHashMap<>();
+  private final Queue<Event> published = new ConcurrentLinkedQueue<>();
+
+  // Used by flush only, which runs one tick at a time
+  private final List<Subscriber> touched = new ArrayList<>();
+  private long eventNumber;
+
+  /**
+   * Where a subscriber's events go.
+   */
+  @FunctionalInterface
+  public interface Output {
+    /**
+     * Hands over a batch of events without waiting for it to be written, for example by
+     * queueing it on the client's connection.
+     *
+     * @param batch the events, each ending with a line break
+     * @return true if the batch was taken, false if the client is too far behind to take it
+     */
+    boolean offer(String batch);
+  }
+
+  /**
+   * Creates a broadcaster.
+   *
+   * @param adjacentRooms true to send events to the rooms next to where they happen as well
+   */
+  public EventBroadcaster(boolean adjacentRooms) {
+    this.adjacentRooms = adjacentRooms;
+  }
+
+  /**
+   * Subscribes a player to the events near them, replacing any earlier subscription.
+   * Batches are handed to the output on the thread that calls {@link #flush()}.
+   *
+   * @param player the player
+   * @param output where the player's events go
+   */
+  public void subscribe(Player player, Output output) {
+    unsubscribe(player);
+    Subscriber subscriber = new Subscriber(player, output);
+    subscribers.put(player, subscriber);
+    player.setRoomListener((from, to) -> subscriber.moveTo(to));
+    subscriber.moveTo(player.getCurrentRoom());
+  }
+
+  /**
+   * Stops sending events to a player.
+   *
+   * @param player the player
+   */
+  public void unsubscribe(Player player) {
+    Subscriber subscriber = subscribers.remove(player);
+    if (subscriber != null) {
+      player.setRoomListener(null);
+      subscriber.close();
+    }
+  }
+
+  /**
+   * Publishes an event, to be sent at the next tick.
+   *
+   * @param room   the room the event happened in
+   * @param source the player who caused it, who is not sent it, or null to send it to all
+   * @param text   the event, without a line break
+   */
+  public void publish(Room room, Player source, String text) {
+    published.add(new Event(room, source, text));
+  }
+
+  /**
+   * Runs one tick: sends every event published since the last tick to the subscribers near it,
+   * as one batch per subscriber.
+   *
+   * @return the number of events sent
+   */
+  public synchronized int flush() {
+    int count = 0;
+    Event event;
+    while ((event = published.poll()) != null) {
+      eventNumber++;
+      collect(event, event.room);
+      if (adjacentRooms) {
+        for (Direction direction : DIRECTIONS) {
+          Room neighbor = event.room.getLinkedExit(direction);
+          if (neighbor != null) {
+            collect(event, neighbor);
+          }
+        }
+      }
+      count++;
+    }
+    for (Subscriber subscriber : touched) {
+      subscriber.deliver();
+    }
+    touched.clear();
+    return count;
+  }
+
+  /**
+   * Adds an event to the batch of each subscriber in a room that has not had it yet.
+   *
+   * @param event the event
+   * @param room  the room
+   */
+  private void collect(Event event, Room room) {
+    Set<Subscriber> inRoom = rooms.get(room.getRoomNumber());
+    if (inRoom == null) {
+      return;
+    }
+    for (Subscriber subscriber : inRoom) {
+      if (subscriber.player == event.source || subscriber.lastEvent == eventNumber) {
+        continue;
+      }
+      subscriber.lastEvent = eventNumber;
+      if (subscriber.batchEvents == 0) {
+        touched.add(subscriber);
+      }
+      subscriber.batch.append(event.text).append('\n');
+      subscriber.batchEvents++;
+    }
+  }
+
+  /**
+   * Gets the number of events a player missed because their client was too far behind.
+   *
+   * @param player the player
+   * @return the events dropped, or 0 if the player is not subscribed
+   */
+  public long getDropped(Player player) {
+    Subscriber subscriber = subscribers.get(player);
+    return subscriber == null ? 0 : subscriber.dropped.get();
+  }
+
+  /**
+   * Something that happened in a room.
+   */
+  private record Event(Room room, Player source, String text) {
+  }
+
+  /**
+   * A subscribed player: the room they are in and the batch being gathered this tick.
+   */
+  private final class Subscriber {
+    private final Player player;
+    private final Output output;
+    private volatile Room room;
+    private volatile boolean closed;
+
+    // Gathered by flush only
+    private final StringBuilder batch = new StringBuilder();
+    private int batchEvents;
+    private long lastEvent;
+    private final AtomicLong dropped = new AtomicLong();
+
+    Subscriber(Player player, Output output) {
+      this.player = player;
+      this.output = output;
+    }
+
+    /**
+     * Moves the subscription to the set of another room.
+     *
+     * @param next the room entered, or null to leave every room
+     */
+    void moveTo(Room next) {
+      if (closed) {
+        next = null;
+      }
+      Room previous = room;
+      if (next != null) {
+        rooms.computeIfAbsent(next.getRoomNumber(), number -> ConcurrentHashMap.newKeySet())
+                .add(this);
+      }
+      room = next;
+      if (previous != null && previous != next) {
+        Set<Subscriber> left = rooms.get(previous.getRoomNumber());
+        if (left != null) {
+          left.remove(this);
+        }
+      }
+    }
+
+    /**
+     * Takes the subscriber out of its room for good.
+     */
+    void close() {
+      closed = true;
+      moveTo(null);
+    }
+
+    /**
+     * Hands over this tick's batch, counting its events as missed if the output refuses it.
+     */
+    void deliver() {
+      String text = batch.toString();
+      int events = batchEvents;
+      batch.setLength(0);
+      batchEvents = 0;
+      if (!output.offer(text)) {
+        dropped.addAndGet(events);
+      }
+    }
+  }
+}
@@ -0,0 +1,610 @@
+package controller;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+import model.GameWorld;
+
+/**
+ * Event-sourced record of a game session.
+ * Every command that can change the game, and the player's name, is appended to
+ * "&lt;base&gt;.events"; every so many events the whole game is written to a binary snapshot
+ * "&lt;base&gt;.&lt;events&gt;.snap". Restoring loads the newest snapshot and replays the events
+ * after it; replaying from the start runs the whole session again on a freshly loaded world.
+ * The log header keeps the seed of the session's random stream and snapshots keep its
+ * position, so combat rolls come out the same both ways.
+ *
+ * <p>Recording does not wait for the disk. Events are queued and a writer thread appends
+ * everything queued so far as one checksummed frame and forces it to disk, so a burst of
+ * commands costs one fsync while a player typing commands gets one per turn. A frame cut short
+ * by a crash is dropped when the log is opened again.
+ *
+ * <p>Replay runs the recorded commands through a controller, so it reproduces the session
+ * exactly when the controller is of the same kind as the one that recorded it. Restoring a
+ * saved game ("restore") cannot be replayed; it is followed by a snapshot so that restoring
+ * from the log still comes back to the right place.
+ */
+public final class EventLog implements Closeable {
+  /** Events between snapshots unless a front end chooses otherwise. */
+  public static final int DEFAULT_SNAPSHOT_INTERVAL = 500;
+
+  private static final int MAGIC = 0x4147454C; // "AGEL"
+  private static final int FORMAT_VERSION = 2;
+  private static final String EVENTS_SUFFIX = ".events";
+  private static final String SNAPSHOT_SUFFIX = ".snap";
+  private static final int NAME_EVENT = 0;
+
+  // The code each recorded verb is stored as; codes are part of the file format, so a code
+  // must never be reused for another verb
+  private static final Map<Verb, Integer> EVENT_CODES = new EnumMap<>(Verb.class);
+  private static final Verb[] VERBS_BY_CODE = new Verb[13];
+
+  static {
+    eventCode(Verb.NORTH, 1);
+    eventCode(Verb.SOUTH, 2);
+    eventCode(Verb.EAST, 3);
+    eventCode(Verb.WEST, 4);
+    eventCode(Verb.LOOK, 5);
+    eventCode(Verb.TAKE, 7);
+    eventCode(Verb.DROP, 8);
+    eventCode(Verb.USE, 10);
+    eventCode(Verb.ANSWER, 11);
+    eventCode(Verb.ATTACK, 12);
+  }
+
+  private final String base;
+  private final String gameFileName;
+  private final long seed;
+  private final int snapshotInterval;
+  private final FileChannel channel;
+  private final ThreadPoolExecutor writer;
+
+  // Queued events, guarded by this
+  private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+  private boolean drainQueued;
+  private IOException failure;
+  private long syncCount;
+
+  // Used on the game thread only
+  private long eventCount;
+
+  /**
+   * Opens a log for appending.
+   *
+   * @param base             the path the log files are named after
+   * @param gameFileName     the game file the session is played on
+   * @param seed             the seed of the session's random stream
+   * @param snapshotInterval the number of events between snapshots
+   * @param channel          the events file, positioned at its end
+   * @param eventCount       the number of events already in the file
+   */
+  private EventLog(String base, String gameFileName, long seed, int snapshotInterval,
+                   FileChannel channel, long eventCount) {
+    this.base = base;
+    this.gameFileName = gameFileName;
+    this.seed = seed;
+    this.snapshotInterval = snapshotInterval;
+    this.channel = channel;
+    this.eventCount = eventCount;
+    this.writer = new ThreadPoolExecutor(1, 1, 2, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+            runnable -> new Thread(runnable, "event-log-writer"));
+    this.writer.allowCoreThreadTimeOut(true);
+  }
+
+  private static void eventCode(Verb verb, int code) {
+    EVENT_CODES.put(verb, code);
+    VERBS_BY_CODE[code] = verb;
+  }
+
+  /**
+   * Checks whether a log exists.
+   *
+   * @param base the path the log files are named after
+   * @return true if there is an events file
+   */
+  public static boolean exists(String base) {
+    return new File(base + EVENTS_SUFFIX).isFile();
+  }
+
+  /**
+   * Starts a new log, replacing any log and snapshots with the same name.
+   *
+   * @param base             the path the log files are named after
+   * @param gameFileName     the game file the session is played on
+   * @param seed             the seed the session's random stream starts from
+   * @param snapshotInterval the number of events between snapshots
+   * @return the log
+   * @throws IOException if the log cannot be created
+   */
+  public static EventLog create(String base, String gameFileName, long seed,
+                                int snapshotInterval) throws IOException {
+    for (Snapshot snapshot : snapshots(base)) {
+      Files.deleteIfExists(snapshot.file);
+    }
+    String gameFile = new File(gameFileName).getAbsolutePath();
+    FileChannel channel = FileChannel.open(Path.of(base + EVENTS_SUFFIX),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+    try {
+      writeFully(channel, ByteBuffer.wrap(header(gameFile, seed)));
+      channel.force(true);
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+    return new EventLog(base, gameFile, seed, snapshotInterval, channel, 0);
+  }
+
+  /**
+   * Opens an existing log to continue it. A frame left incomplete by a crash is cut off.
+   *
+   * @param base             the path the log files are named after
+   * @param snapshotInterval the number of events between snapshots
+   * @return the log
+   * @throws IOException if the log cannot be read or is not an event log
+   */
+  public static EventLog open(String base, int snapshotInterval) throws IOException {
+    Path file = Path.of(base + EVENTS_SUFFIX);
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      LogReader reader = new LogReader(channel);
+      long events = 0;
+      while (reader.nextFrame()) {
+        events += reader.frameEvents().size();
+      }
+      channel.truncate(reader.validLength);
+      channel.position(reader.validLength);
+      return new EventLog(base, reader.gameFileName, reader.seed, snapshotInterval, channel,
+              events);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Records the player's name.
+   *
+   * @param name the name
+   * @throws IOException if an earlier write to the log failed
+   */
+  public void recordName(String name) throws IOException {
+    append(NAME_EVENT, name);
+  }
+
+  /**
+   * Records a command that has just run, if it can have changed the game, and writes a
+   * snapshot when one is due. After "restore" a snapshot is always written.
+   *
+   * @param command the command as entered
+   * @param world   the game it ran on
+   * @throws IOException if the log or snapshot cannot be written
+   */
+  public void record(String command, GameWorld world) throws IOException {
+    int start = skipWhitespace(command, 0);
+    int end = start;
+    while (end < command.length() && !Character.isWhitespace(command.charAt(end))) {
+      end++;
+    }
+    Verb verb = CommandFactory.lookup(command, start, end);
+    if (verb == Verb.RESTORE) {
+      snapshot(world);
+      return;
+    }
+    Integer code = verb == null ? null : EVENT_CODES.get(verb);
+    if (code == null) {
+      return;
+    }
+    append(code, verb.takesArgument() ? command.substring(end).trim() : null);
+    if (eventCount % snapshotInterval == 0) {
+      snapshot(world);
+    }
+  }
+
+  /**
+   * Queues one event for the writer thread.
+   *
+   * @param code     the event code
+   * @param argument the argument, or null for a verb without one
+   * @throws IOException if an earlier write failed
+   */
+  private void append(int code, String argument) throws IOException {
+    boolean queueDrain;
+    synchronized (this) {
+      if (failure != null) {
+        throw failure;
+      }
+      pending.write(code);
+      if (argument != null) {
+        new DataOutputStream(pending).writeUTF(argument);
+      }
+      queueDrain = !drainQueued;
+      drainQueued = true;
+    }
+    eventCount++;
+    if (queueDrain) {
+      writer.execute(this::drain);
+    }
+  }
+
+  /**
+   * Writes every queued event as one frame and forces it to disk.
+   */
+  private void drain() {
+    byte[] events;
+    synchronized (this) {
+      drainQueued = false;
+      if (failure != null || pending.size() == 0) {
+        return;
+      }
+      events = pending.toByteArray();
+      pending = new ByteArrayOutputStream();
+    }
+    CRC32 crc = new CRC32();
+    crc.update(events);
+    ByteBuffer frame = ByteBuffer.allocate(8 + events.length);
+    frame.putInt(events.length).putInt((int) crc.getValue()).put(events).flip();
+    try {
+      writeFully(channel, frame);
+      channel.force(false);
+      synchronized (this) {
+        syncCount++;
+      }
+    } catch (IOException e) {
+      synchronized (this) {
+        failure = e;
+      }
+    }
+  }
+
+  /**
+   * Waits until every event recorded so far is on disk.
+   *
+   * @throws IOException if an event could not be written
+   */
+  public void sync() throws IOException {
+    CompletableFuture<Void> marker = new CompletableFuture<>();
+    writer.execute(() -> marker.complete(null));
+    marker.join();
+    synchronized (this) {
+      if (failure != null) {
+        throw failure;
+      }
+    }
+  }
+
+  /**
+   * Writes a snapshot of the game after the events recorded so far, and removes snapshots
+   * older than the one before it. The events are made durable first, so a snapshot never
+   * covers events the log does not have.
+   *
+   * @param world the game
+   * @throws IOException if the log or snapshot cannot be written
+   */
+  public void snapshot(GameWorld world) throws IOException {
+    sync();
+    world.saveSnapshot(snapshotPath(base, eventCount).toString());
+    List<Snapshot> snapshots = snapshots(base);
+    for (int i = 2; i < snapshots.size(); i++) {
+      Files.deleteIfExists(snapshots.get(i).file);
+    }
+  }
+
+  /**
+   * Rebuilds the game from the newest readable snapshot and the events after it.
+   * Snapshots that cannot be read are skipped; without any, every event is replayed on a
+   * freshly loaded world.
+   *
+   * @param controllerFor creates the controller that replays events on the restored world;
+   *                      its output is not part of the restored game
+   * @return the restored game
+   * @throws IOException if the game file or log cannot be read
+   */
+  public GameWorld restore(Function<GameWorld, GameController> controllerFor) throws IOException {
+    sync();
+    for (Snapshot snapshot : snapshots(base)) {
+      if (snapshot.events <= eventCount) {
+        GameWorld world;
+        try {
+          world = GameWorld.loadSnapshot(snapshot.file.toString());
+        } catch (IOException e) {
+          continue;
+        }
+        replay(controllerFor.apply(world), snapshot.events);
+        return world;
+      }
+    }
+    return replay(controllerFor);
+  }
+
+  /**
+   * Runs the whole session again on a freshly loaded world.
+   *
+   * @param controllerFor creates the controller that replays the events
+   * @return the game after the last event
+   * @throws IOException if the game file or log cannot be read
+   */
+  public GameWorld replay(Function<GameWorld, GameController> controllerFor) throws IOException {
+    sync();
+    GameWorld world = new GameWorld(gameFileName);
+    world.setSeed(seed);
+    replay(controllerFor.apply(world), 0);
+    return world;
+  }
+
+  /**
+   * Replays the events from a given position through a controller.
+   *
+   * @param controller the controller
+   * @param from       the number of events to skip
+   * @throws IOException if the log cannot be read
+   */
+  private void replay(GameController controller, long from) throws IOException {
+    try (FileChannel in = FileChannel.open(Path.of(base + EVENTS_SUFFIX), StandardOpenOption.READ)) {
+      LogReader reader = new LogReader(in);
+      long position = 0;
+      while (position < eventCount && reader.nextFrame()) {
+        for (Event event : reader.frameEvents()) {
+          if (position++ < from) {
+            continue;
+          }
+          if (event.verb == null) {
+            controller.namePlayer(event.argument);
+          } else {
+            controller.processCommand(event.argument == null
+                    ? event.verb.getAliases()[0]
+                    : event.verb.getAliases()[0] + " " + event.argument);
+          }
+          if (position == eventCount) {
+            break;
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Gets the number of events in the log.
+   *
+   * @return the event count
+   */
+  public long getEventCount() {
+    return eventCount;
+  }
+
+  /**
+   * Gets the number of frames forced to disk since the log was opened; each holds one or
+   * more events.
+   *
+   * @return the sync count
+   */
+  public synchronized long getSyncCount() {
+    return syncCount;
+  }
+
+  /**
+   * Gets the game file the session is played on.
+   *
+   * @return the absolute path of the game file
+   */
+  public String getGameFileName() {
+    return gameFileName;
+  }
+
+  /**
+   * Gets the seed the session's random stream started from.
+   *
+   * @return the seed
+   */
+  public long getSeed() {
+    return seed;
+  }
+
+  /**
+   * Writes the remaining events and closes the log.
+   *
+   * @throws IOException if the remaining events cannot be written
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      sync();
+    } finally {
+      writer.shutdown();
+      channel.close();
+    }
+  }
+
+  /**
+   * Builds the header of an events file.
+   *
+   * @param gameFile the game file the session is played on
+   * @param seed     the seed of the session's random stream
+   * @return the header bytes
+   * @throws IOException if the game file name is too long
+   */
+  private static byte[] header(String gameFile, long seed) throws IOException {
+    ByteArrayOutputStream header = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(header);
+    out.writeInt(MAGIC);
+    out.writeInt(FORMAT_VERSION);
+    out.writeUTF(gameFile);
+    out.writeLong(seed);
+    return header.toByteArray();
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  private static int skipWhitespace(String text, int index) {
+    while (index < text.length() && Character.isWhitespace(text.charAt(index))) {
+      index++;
+    }
+    return index;
+  }
+
+  private static Path snapshotPath(String base, long events) {
+    return Path.of(base + "." + events + SNAPSHOT_SUFFIX);
+  }
+
+  /**
+   * Lists the snapshots of a log, newest first.
+   *
+   * @param base the path the log files are named after
+   * @return the snapshots
+   * @throws IOException if the directory cannot be listed
+   */
+  private static List<Snapshot> snapshots(String base) throws IOException {
+    Path prefix = Path.of(base).toAbsolutePath();
+    String name = prefix.getFileName() + ".";
+    List<Snapshot> snapshots = new ArrayList<>();
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(prefix.getParent(), name + "*" + SNAPSHOT_SUFFIX)) {
+      for (Path file : files) {
+        String count = file.getFileName().toString();
+        count = count.substring(name.length(), count.length() - SNAPSHOT_SUFFIX.length());
+        try {
+          snapshots.add(new Snapshot(file, Long.parseLong(count)));
+        } catch (NumberFormatException e) {
+          // Not one of ours
+        }
+      }
+    }
+    snapshots.sort((a, b) -> Long.compare(b.events, a.events));
+    return snapshots;
+  }
+
+  /**
+   * A snapshot file and the number of events it covers.
+   */
+  private static final class Snapshot {
+    private final Path file;
+    private final long events;
+
+    private Snapshot(Path file, long events) {
+      this.file = file;
+      this.events = events;
+    }
+  }
+
+  /**
+   * One recorded event: a command, or the player's name when there is no verb.
+   */
+  private static final class Event {
+    private final Verb verb;
+    private final String argument;
+
+    private Event(Verb verb, String argument) {
+      this.verb = verb;
+      this.argument = argument;
+    }
+  }
+
+  /**
+   * Reads an events file one frame at a time, stopping at the first frame that is incomplete
+   * or fails its checksum.
+   */
+  private static final class LogReader {
+    private final DataInputStream in;
+    private final long fileSize;
+    private final String gameFileName;
+    private final long seed;
+    private final List<Event> events = new ArrayList<>();
+    private long validLength;
+
+    private LogReader(FileChannel channel) throws IOException {
+      InputStream stream = Channels.newInputStream(channel.position(0));
+      this.in = new DataInputStream(new BufferedInputStream(stream, 64 * 1024));
+      this.fileSize = channel.size();
+      try {
+        if (in.readInt() != MAGIC) {
+          throw new IOException("Not an event log");
+        }
+        int version = in.readInt();
+        if (version != FORMAT_VERSION) {
+          throw new IOException("Unsupported event log version " + version);
+        }
+        gameFileName = in.readUTF();
+        seed = in.readLong();
+      } catch (EOFException e) {
+        throw new IOException("Not an event log", e);
+      }
+      validLength = header(gameFileName, seed).length;
+    }
+
+    /**
+     * Reads the next frame.
+     *
+     * @return true if a complete frame was read
+     * @throws IOException if the file cannot be read
+     */
+    private boolean nextFrame() throws IOException {
+      events.clear();
+      byte[] payload;
+      int checksum;
+      try {
+        int length = in.readInt();
+        checksum = in.readInt();
+        // A length running past the end of the file is a torn or corrupt frame
+        if (length <= 0 || length > fileSize - validLength - 8) {
+          return false;
+        }
+        payload = new byte[length];
+        in.readFully(payload);
+      } catch (EOFException e) {
+        return false;
+      }
+      CRC32 crc = new CRC32();
+      crc.update(payload);
+      if ((int) crc.getValue() != checksum) {
+        return false;
+      }
+
+      DataInputStream frame = new DataInputStream(new ByteArrayInputStream(payload));
+      while (frame.available() > 0) {
+        int code = frame.readUnsignedByte();
+        if (code == NAME_EVENT) {
+          events.add(new Event(null, frame.readUTF()));
+        } else if (code < VERBS_BY_CODE.length && VERBS_BY_CODE[code] != null) {
+          Verb verb = VERBS_BY_CODE[code];
+          events.add(new Event(verb, verb.takesArgument() ? frame.readUTF() : null));
+        } else {
+          throw new IOException("Unknown event code " + code);
+        }
+      }
+      validLength += 8 + payload.length;
+      return true;
+    }
+
+    private List<Event> frameEvents() {
+      return events;
+    }
+  }
+}
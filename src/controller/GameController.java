@@ -1,8 +1,15 @@
 package controller;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Queue;
 import java.util.Scanner;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
+import controller.commands.UnknownCommand;
 import model.Direction;
 import model.Fixture;
 import model.GameWorld;
@@ -11,6 +18,8 @@ import model.Monster;
 import model.Player;
 import model.Puzzle;
 import model.Room;
+import model.RoomRenderCache;
+import model.SaveQueue;
 import view.GameView;
 
 /*
@@ -24,6 +33,23 @@ public class GameController {
     public boolean gameOver;
     public GameView view;
 
+    private static final Set<Verb> ALL_VERBS = Collections.unmodifiableSet(EnumSet.allOf(Verb.class));
+    private static final String SAVE_FILE = "saved_game.json";
+
+    // Results of background saves, waiting for the game thread to show them
+    private final Queue<Optional<Throwable>> finishedSaves = new ConcurrentLinkedQueue<>();
+
+    // Records the session when set
+    private EventLog eventLog;
+
+    // Room text reused until the room changes
+    private final RoomRenderCache itemsText = new RoomRenderCache(room -> room.getItems().isEmpty()
+            ? "" : "items here: " + RoomRenderCache.itemNames(room, " ").toLowerCase() + " \n");
+    private final RoomRenderCache exitsText = new RoomRenderCache(room -> {
+        String exits = RoomRenderCache.exitNames(room);
+        return exits.isEmpty() ? "There are no obvious exits.\n" : "Exits: " + exits + " \n";
+    });
+
   // set up game world environment, input, and output
     public GameController(GameWorld gameWorld, Readable input, Appendable output) {
         this.gameWorld = gameWorld;
@@ -55,15 +81,15 @@ public class GameController {
         promptForPlayerName();
         while (!gameOver && scanner.hasNextLine()) {
             lookAround();
-            if (gameWorld.getPlayer().getHealth() <= 0) {
+            if (player().getHealth() <= 0) {
                 displayGameOver();
                 endGame();
                 return;
             }
             displayMenu();
-            String command = scanner.nextLine().trim().toLowerCase();
-            processCommand(command);
+            processCommand(scanner.nextLine());
         }
+        awaitSaves();
     }
     
     // display welcome message
@@ -75,13 +101,13 @@ public class GameController {
     public void promptForPlayerName() throws IOException {
         output.append("enter your name: ");
         String name = scanner.nextLine().trim();
-        gameWorld.setPlayerName(name);
+        namePlayer(name);
         output.append("hello, " + name + "! let's start your adventure.\n\n");
     }
     
     // display current room and health status
     public void look() throws IOException {
-        Player player = gameWorld.getPlayer();
+        Player player = player();
         Room currentRoom = player.getCurrentRoom();
         output.append("health: " + player.getHealth() + " (" + player.getHealthStatus() + ")\n");
         output.append("you are in the " + currentRoom.getName().toLowerCase() + "\n");
@@ -100,25 +126,22 @@ public class GameController {
     
     // display items in the room
     public void displayRoomItems() throws IOException {
-        Room currentRoom = gameWorld.getPlayer().getCurrentRoom();
-        if (!currentRoom.getItems().isEmpty()) {
-            output.append("items here: ");
-            for (Item item : currentRoom.getItems()) {
-                output.append(item.getName().toLowerCase() + " ");
-            }
-            output.append("\n");
+        String items = itemsText.get(player().getCurrentRoom());
+        if (!items.isEmpty()) {
+            output.append(items);
         }
     }
     
     // let monster counterattack
     public void monsterAttacksPlayer() throws IOException {
-        Room currentRoom = gameWorld.getPlayer().getCurrentRoom();
+        Room currentRoom = player().getCurrentRoom();
         Monster monster = currentRoom.getMonster();
         if (monster != null && monster.isActive() && monster.canAttack()) {
-            int damage = monster.attack(gameWorld.getPlayer());
+            int damage = monster.attack(player());
             if (damage > 0) {
                 output.append(monster.getName().toLowerCase() + " " + monster.getAttackDescription() + "\n");
                 output.append("you take -" + damage + " damage!\n");
+                announce(monster.getName().toLowerCase() + " attacks " + player().getName() + ".");
             }
         }
     }
@@ -129,59 +152,106 @@ public class GameController {
         output.append("your choice: ");
     }
     
-    // process player's command
+    // process player's command through the shared command table
     public void processCommand(String command) throws IOException {
-        if (command.isEmpty()) return;
-        if (command.equals("n") || command.equals("north")) {
-            move(Direction.NORTH);
-        } else if (command.equals("s") || command.equals("south")) {
-            move(Direction.SOUTH);
-        } else if (command.equals("e") || command.equals("east")) {
-            move(Direction.EAST);
-        } else if (command.equals("w") || command.equals("west")) {
-            move(Direction.WEST);
-        } else if (command.equals("l") || command.equals("look")) {
-            lookAround();
-        } else if (command.equals("i") || command.equals("inventory")) {
-            showInventory();
-        } else if (command.equals("k") || command.equals("attack")) {
-            attackMonster();
-        } else if (command.startsWith("t ") || command.startsWith("take ")) {
-            String itemName = command.startsWith("t ") ? command.substring(2) : command.substring(5);
-            takeItem(itemName);
-        } else if (command.startsWith("d ") || command.startsWith("drop ")) {
-            String itemName = command.startsWith("d ") ? command.substring(2) : command.substring(5);
-            dropItem(itemName);
-        } else if (command.startsWith("x ") || command.startsWith("examine ")) {
-            String target = command.startsWith("x ") ? command.substring(2) : command.substring(8);
-            examine(target);
-        } else if (command.startsWith("u ") || command.startsWith("use ")) {
-            String itemName = command.startsWith("u ") ? command.substring(2) : command.substring(4);
-            useItem(itemName);
-        } else if (command.startsWith("a ") || command.startsWith("answer ")) {
-            String answer = command.startsWith("a ") ? command.substring(2) : command.substring(7);
-            provideAnswer(answer);
-        } else if (command.equals("v") || command.equals("save")) {
-            saveGame();
-        } else if (command.equals("r") || command.equals("restore")) {
-            restoreGame();
-        } else if (command.equals("q") || command.equals("quit")) {
-            showFinalScore();
-            endGame();
-        } else {
-            output.append("I don't understand that command.\n");
+        reportSaves();
+        if (command.isBlank()) return;
+        runCommand(command);
+    }
+
+    /**
+     * Runs one command through the shared command table and records it in the event log,
+     * if there is one.
+     *
+     * @param command the command as entered
+     * @throws IOException if the output or the event log cannot be written
+     */
+    protected void runCommand(String command) throws IOException {
+        Command parsed = CommandFactory.createCommand(this, command);
+        parsed.execute();
+        if (eventLog != null && !(parsed instanceof UnknownCommand)) {
+            eventLog.record(command, gameWorld);
+        }
+    }
+
+    /**
+     * Sets the player's name and records it in the event log, if there is one.
+     *
+     * @param name the name
+     * @throws IOException if the event log cannot be written
+     */
+    public void namePlayer(String name) throws IOException {
+        gameWorld.setPlayerName(name);
+        if (eventLog != null) {
+            eventLog.recordName(name);
         }
     }
 
+    /**
+     * Records this session in an event log from now on.
+     *
+     * @param eventLog the log, or null to stop recording
+     */
+    public void setEventLog(EventLog eventLog) {
+        this.eventLog = eventLog;
+    }
+
+    /**
+     * Gets the player this controller plays for.
+     *
+     * @return the world's player unless a subclass plays for another
+     */
+    protected Player player() {
+        return gameWorld.getPlayer();
+    }
+
+    /**
+     * Tells other players near the player's room what the player just did or had done to them.
+     * A single-player game has no one to tell, so this does nothing unless a subclass shares
+     * the world.
+     *
+     * @param event the event, such as "al drops the key."
+     */
+    protected void announce(String event) {
+    }
+
+    /**
+     * Gets the verbs this controller understands; other verbs are reported as unknown.
+     *
+     * @return the supported verbs
+     */
+    public Set<Verb> supportedVerbs() {
+        return ALL_VERBS;
+    }
+
+    /**
+     * Checks whether commands are parsed leniently, so that a verb missing its argument runs
+     * with an empty one and words after a verb without arguments are ignored.
+     *
+     * @return true for lenient parsing; false reports such commands as unknown
+     */
+    public boolean isLenientParsing() {
+        return false;
+    }
+
+    // report a command that was not understood
+    public void unknownCommand(String command) throws IOException {
+        output.append("I don't understand that command.\n");
+    }
+
+    // display list of available commands
+    public void showHelp() throws IOException {
+        output.append("commands: (n)orth, (s)outh, (e)ast, (w)est, (t)ake, (d)rop, e(x)amine, attac(k), (l)ook, (u)se, (i)nventory, (a)nswer, sa(v)e, (r)estore, (q)uit\n");
+    }
+
   // move player in the given direction
     public void move(Direction direction) throws IOException {
-        Room currentRoom = gameWorld.getPlayer().getCurrentRoom();
-        String exitNumber = currentRoom.getExitRoomNumber(direction);
-        if (exitNumber.equals("0")) {
+        Room currentRoom = player().getCurrentRoom();
+        if (!currentRoom.hasExit(direction)) {
             output.append("you can't go that way. there's a wall.\n");
             return;
         }
-        if (Integer.parseInt(exitNumber) < 0) {
+        if (currentRoom.isExitBlocked(direction)) {
             if (currentRoom.getPuzzle() != null && currentRoom.getPuzzle().isActive()) {
                 output.append("blocked by puzzle: " + currentRoom.getPuzzle().getDescription() + "\n");
             } else if (currentRoom.getMonster() != null && currentRoom.getMonster().isActive()) {
@@ -194,21 +264,34 @@ public class GameController {
         }
         Room nextRoom = currentRoom.getExit(direction);
         if (nextRoom != null) {
-            gameWorld.getPlayer().setCurrentRoom(nextRoom);
-            output.append("you move " + direction.toString().toLowerCase() + ".\n");
+            moveTo(nextRoom, direction);
         } else {
             output.append("exit error. can't move there.\n");
         }
     }
     
+    /**
+     * Moves the player through an open exit and says so.
+     *
+     * @param nextRoom  the room the exit leads to
+     * @param direction the direction of the exit
+     * @throws IOException if the output cannot be written
+     */
+    protected void moveTo(Room nextRoom, Direction direction) throws IOException {
+        announce(player().getName() + " leaves " + direction.toString().toLowerCase() + ".");
+        player().setCurrentRoom(nextRoom);
+        output.append("you move " + direction.toString().toLowerCase() + ".\n");
+        announce(player().getName() + " arrives.");
+    }
+
     // display player's inventory
     public void showInventory() throws IOException {
-        Player player = gameWorld.getPlayer();
+        Player player = player();
         output.append("inventory (weight: " + player.getInventoryWeight() + "/" + player.getMaxWeight() + "):\n");
-        if (player.getInventory().isEmpty()) {
+        if (player.getInventoryView().isEmpty()) {
             output.append("your inventory is empty.\n");
         } else {
-            for (Item item : player.getInventory()) {
+            for (Item item : player.getInventoryView()) {
                 output.append("- " + item.getName().toLowerCase() + " (weight: " + item.getWeight() +
                             ", uses: " + item.getUsesRemaining() + ")\n");
             }
@@ -217,27 +300,29 @@ public class GameController {
     
     // attack monster in the room
     public void attackMonster() throws IOException {
-        Room currentRoom = gameWorld.getPlayer().getCurrentRoom();
+        Room currentRoom = player().getCurrentRoom();
         Monster monster = currentRoom.getMonster();
         if (monster == null || !monster.isActive()) {
             output.append("there's nothing here to attack.\n");
             return;
         }
         output.append("you attack the " + monster.getName().toLowerCase() + ", but it's not very effective.\n");
+        announce(player().getName() + " attacks the " + monster.getName().toLowerCase() + ".");
         monsterAttacksPlayer();
     }
     
     // pick up an item
     public void takeItem(String itemName) throws IOException {
-        Room currentRoom = gameWorld.getPlayer().getCurrentRoom();
+        Room currentRoom = player().getCurrentRoom();
         Item item = currentRoom.getItem(itemName);
         if (item == null) {
             output.append("there's no " + itemName + " here to take.\n");
             return;
         }
-        if (gameWorld.getPlayer().addToInventory(item)) {
+        if (player().addToInventory(item)) {
             currentRoom.removeItem(item);
             output.append("you pick up the " + item.getName().toLowerCase() + ".\n");
+            announce(player().getName() + " picks up the " + item.getName().toLowerCase() + ".");
         } else {
             output.append("you can't carry any more; your inventory is too heavy.\n");
         }
@@ -245,7 +330,7 @@ public class GameController {
     
     // drop an item from inventory
     public void dropItem(String itemName) throws IOException {
-        Player player = gameWorld.getPlayer();
+        Player player = player();
         Item item = player.getItemFromInventory(itemName);
         if (item == null) {
             output.append("you don't have a " + itemName + " in your inventory.\n");
@@ -254,6 +339,7 @@ public class GameController {
         if (player.removeFromInventory(item)) {
             player.getCurrentRoom().addItem(item);
             output.append("you drop the " + item.getName().toLowerCase() + ".\n");
+            announce(player.getName() + " drops the " + item.getName().toLowerCase() + ".");
         } else {
             output.append("can't drop the " + item.getName().toLowerCase() + ".\n");
         }
@@ -261,7 +347,7 @@ public class GameController {
     
     // examine an object in inventory, room, or fixture
     public void examine(String target) throws IOException {
-        Player player = gameWorld.getPlayer();
+        Player player = player();
         Item invItem = player.getItemFromInventory(target);
         if (invItem != null) {
             output.append(invItem.getDescription() + "\n");
@@ -283,7 +369,7 @@ public class GameController {
     
     // use an item to solve a puzzle or defeat a monster
     public void useItem(String itemName) throws IOException {
-        Player player = gameWorld.getPlayer();
+        Player player = player();
         Item item = player.getItemFromInventory(itemName);
         if (item == null) {
             output.append("you don't have a " + itemName + " in your inventory.\n");
@@ -294,7 +380,7 @@ public class GameController {
             return;
         }
         Room currentRoom = player.getCurrentRoom();
-        boolean solved = gameWorld.applySolution(item.getName());
+        boolean solved = gameWorld.applySolution(player(), item.getName());
         if (solved) {
             if (currentRoom.getPuzzle() != null && !currentRoom.getPuzzle().isActive()) {
                 output.append("you used the " + item.getName().toLowerCase() + " to solve the puzzle!\n");
@@ -314,7 +400,7 @@ public class GameController {
     
     // provide an answer to a puzzle
     public void provideAnswer(String answer) throws IOException {
-        Room currentRoom = gameWorld.getPlayer().getCurrentRoom();
+        Room currentRoom = player().getCurrentRoom();
         if (currentRoom.getPuzzle() == null || !currentRoom.getPuzzle().isActive()) {
             output.append("there's no active puzzle here.\n");
             return;
@@ -324,7 +410,7 @@ public class GameController {
             output.append("this puzzle requires using an item, not answering.\n");
             return;
         }
-        boolean solved = gameWorld.applySolution(answer);
+        boolean solved = gameWorld.applySolution(player(), answer);
         if (solved) {
             output.append("correct! " + puzzle.getEffects() + "\n");
             output.append("you gain " + puzzle.getValue() + " points!\n");
@@ -333,15 +419,57 @@ public class GameController {
         }
     }
     
-    // save game state
+    // save game state in the background; the result is shown before the next command
     public void saveGame() throws IOException {
-        try {
-            gameWorld.saveGame("saved_game.json");
+        gameWorld.saveGameAsync(SAVE_FILE).whenComplete((ignored, error) -> saveCompleted(error));
+    }
+
+    /**
+     * Receives the result of a background save, on the thread that wrote it.
+     * The result is handed to the game thread, which shows it before the next command.
+     *
+     * @param error the reason the save failed, or null if it succeeded
+     */
+    protected void saveCompleted(Throwable error) {
+        finishedSaves.add(Optional.ofNullable(error));
+    }
+
+    /**
+     * Shows the results of background saves that have finished since the last call.
+     *
+     * @throws IOException if the output cannot be written
+     */
+    protected void reportSaves() throws IOException {
+        Optional<Throwable> result;
+        while ((result = finishedSaves.poll()) != null) {
+            showSaveResult(result.orElse(null));
+        }
+    }
+
+    /**
+     * Shows the result of a save.
+     *
+     * @param error the reason the save failed, or null if it succeeded
+     * @throws IOException if the output cannot be written
+     */
+    protected void showSaveResult(Throwable error) throws IOException {
+        if (error == null) {
             output.append("game saved successfully!\n");
-        } catch (IOException e) {
-            output.append("error saving game: " + e.getMessage() + "\n");
+        } else {
+            output.append("error saving game: " + error.getMessage() + "\n");
         }
     }
+
+    /**
+     * Waits until background saves have reached the disk and shows their results.
+     * Call before exiting so no save is lost.
+     *
+     * @throws IOException if the output cannot be written
+     */
+    public void awaitSaves() throws IOException {
+        SaveQueue.getDefault().flush();
+        reportSaves();
+    }
     
     // restore game state
     public void restoreGame() throws IOException {
@@ -359,7 +487,7 @@ public class GameController {
     
     // display final score and rank
     public void showFinalScore() throws IOException {
-        Player player = gameWorld.getPlayer();
+        Player player = player();
         output.append("\ngame over!\n");
         output.append("final score: " + player.getScore() + "\n");
         output.append("rank: " + player.getRank() + "\n");
@@ -419,7 +547,7 @@ public class GameController {
       output.append("Game loaded successfully!\n");
 
       // Update view with current room information
-      Room currentRoom = gameWorld.getPlayer().getCurrentRoom();
+      Room currentRoom = player().getCurrentRoom();
       output.append("You are in: " + currentRoom.getName() + "\n");
       output.append(currentRoom.getDescription() + "\n");
 
@@ -442,31 +570,7 @@ public class GameController {
    * @throws IOException If there is an error writing to the output
    */
   private void showExits(Room room) throws IOException {
-    StringBuilder exits = new StringBuilder("Exits: ");
-    boolean hasExits = false;
-
-    if (!"0".equals(room.getExitRoomNumber(Direction.NORTH))) {
-      exits.append("NORTH ");
-      hasExits = true;
-    }
-    if (!"0".equals(room.getExitRoomNumber(Direction.SOUTH))) {
-      exits.append("SOUTH ");
-      hasExits = true;
-    }
-    if (!"0".equals(room.getExitRoomNumber(Direction.EAST))) {
-      exits.append("EAST ");
-      hasExits = true;
-    }
-    if (!"0".equals(room.getExitRoomNumber(Direction.WEST))) {
-      exits.append("WEST ");
-      hasExits = true;
-    }
-
-    if (hasExits) {
-      output.append(exits.toString() + "\n");
-    } else {
-      output.append("There are no obvious exits.\n");
-    }
+    output.append(exitsText.get(room));
   }
 }
 
@@ -0,0 +1,781 @@
+package controller;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import model.GameRandom;
+import model.GameWorld;
+import model.Player;
+import model.WorldTemplate;
+
+/**
+ * Serves a game to many players at once over line-based TCP connections on localhost.
+ * Every connection plays its own session of a shared {@link WorldTemplate} through a
+ * {@link TextController}, exactly as at the console except that saving and restoring are not
+ * offered, since every session would share one save file.
+ *
+ * <p>One selector thread accepts connections, splits what clients send into lines and writes
+ * back what the game prints. Whenever a session has lines waiting, it is handed to a small
+ * pool of worker threads, which runs them through the session's controller one at a time.
+ * Connections waiting for input hold no thread, so idle players cost only their session's
+ * memory. A client that stops reading stops being read from, so no session buffers more than
+ * a few kilobytes of input or output.
+ *
+ * <p>With a seed, each session gets a seed of its own, drawn from the server's seed in the
+ * order connections are accepted.
+ *
+ * <p>A shared server instead puts every connection into one world, as a player joined with
+ * {@link GameWorld#addPlayer(String)}. Their commands run on {@link RoomActors} through an
+ * {@link ActorController} each, and what players do is told to the others in the same room
+ * through an {@link EventBroadcaster}, flushed every {@link #TICK_MILLIS}. A player whose
+ * connection falls behind misses events rather than holding up anyone else. Closing the
+ * connection takes the player out of the world.
+ */
+public class GameServer {
+  /** Longest line kept from a client; the rest of a longer line is dropped. */
+  static final int MAX_LINE = 1024;
+
+  // A session stops being read from while it has this much input or output waiting
+  private static final int MAX_PENDING_LINES = 32;
+  private static final int MAX_PENDING_OUTPUT = 64 * 1024;
+
+  // Pause in accepting after the server socket fails, such as when out of file descriptors
+  private static final long ACCEPT_BACKOFF_MILLIS = 100;
+
+  /** Time between deliveries of events to the players of a shared server. */
+  static final long TICK_MILLIS = 100;
+
+  private static final Set<Verb> SERVER_VERBS;
+
+  static {
+    Set<Verb> verbs = EnumSet.allOf(Verb.class);
+    verbs.remove(Verb.SAVE);
+    verbs.remove(Verb.RESTORE);
+    SERVER_VERBS = Collections.unmodifiableSet(verbs);
+  }
+
+  private final WorldTemplate template;
+  private final int port;
+  private final int workers;
+  private final GameRandom seeds;
+  private final boolean shared;
+
+  // The one world of a shared server, and what runs it; null otherwise
+  private GameWorld sharedWorld;
+  private ExecutorService actorPool;
+  private RoomActors actors;
+  private EventBroadcaster events;
+  private ScheduledExecutorService ticker;
+
+  private ServerSocketChannel serverChannel;
+  private SelectionKey acceptKey;
+  private long acceptResumeNanos;      // selector thread only; 0 while accepting
+  private Selector selector;
+  private ExecutorService pool;
+  private Thread selectorThread;
+  private volatile boolean running;
+
+  // Sessions whose interest in reading or writing may have changed, for the selector thread
+  private final Queue<Session> updates = new ConcurrentLinkedQueue<>();
+
+  private final AtomicInteger openSessions = new AtomicInteger();
+  private final AtomicLong totalSessions = new AtomicLong();
+  private final AtomicLong commands = new AtomicLong();
+  private long baselineHeap;
+  private long lastStatusNanos;
+  private long lastStatusCommands;
+
+  /**
+   * Creates a server for a game. Nothing is listened on until {@link #start()}.
+   *
+   * @param template the loaded game
+   * @param port     the port to listen on, or 0 for any free port
+   * @param workers  the number of threads that run commands
+   * @param seed     the seed of the server, or null for a different stream each session
+   * @throws IllegalArgumentException if workers is less than one
+   */
+  public GameServer(WorldTemplate template, int port, int workers, Long seed) {
+    this(template, port, workers, seed, false);
+  }
+
+  /**
+   * Creates a server for a game, with a session per connection or one world for them all.
+   * Nothing is listened on until {@link #start()}.
+   *
+   * @param template the loaded game
+   * @param port     the port to listen on, or 0 for any free port
+   * @param workers  the number of threads that run commands
+   * @param seed     the seed of the server, or null for a different stream each session
+   * @param shared   true to put every connection into one world
+   * @throws IllegalArgumentException if workers is less than one
+   */
+  public GameServer(WorldTemplate template, int port, int workers, Long seed, boolean shared) {
+    if (workers < 1) {
+      throw new IllegalArgumentException("Worker count must be at least 1");
+    }
+    this.template = template;
+    this.port = port;
+    this.workers = workers;
+    this.seeds = seed == null ? null : new GameRandom(seed);
+    this.shared = shared;
+  }
+
+  /**
+   * Starts listening on the loopback address and serving connections in the background.
+   *
+   * @throws IOException if the port cannot be bound
+   */
+  public void start() throws IOException {
+    selector = Selector.open();
+    serverChannel = ServerSocketChannel.open();
+    serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+    serverChannel.configureBlocking(false);
+    acceptKey = serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+    AtomicInteger workerCount = new AtomicInteger();
+    pool = Executors.newFixedThreadPool(workers, task -> {
+      Thread thread = new Thread(task, "game-worker-" + workerCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    if (shared) {
+      startWorld();
+    }
+    baselineHeap = heapAfterGc();
+    lastStatusNanos = System.nanoTime();
+    running = true;
+    selectorThread = new Thread(this::serve, "game-server");
+    selectorThread.start();
+  }
+
+  /**
+   * Makes the world of a shared server, the room actors that run it on threads of their own,
+   * and the tick that delivers its events.
+   */
+  private void startWorld() {
+    sharedWorld = template.newSession();
+    if (seeds != null) {
+      sharedWorld.setSeed(seeds.nextSeed());
+    }
+    AtomicInteger actorCount = new AtomicInteger();
+    actorPool = Executors.newFixedThreadPool(workers, task -> {
+      Thread thread = new Thread(task, "room-actor-" + actorCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    actors = new RoomActors(sharedWorld, actorPool);
+    events = new EventBroadcaster(false);
+    ticker = Executors.newSingleThreadScheduledExecutor(task -> {
+      Thread thread = new Thread(task, "event-tick");
+      thread.setDaemon(true);
+      return thread;
+    });
+    ticker.scheduleAtFixedRate(events::flush, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Gets the port the server is listening on.
+   *
+   * @return the port
+   * @throws IOException if the server is not listening
+   */
+  public int getPort() throws IOException {
+    return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+  }
+
+  /**
+   * Gets the number of connections open now.
+   *
+   * @return the open session count
+   */
+  public int getOpenSessions() {
+    return openSessions.get();
+  }
+
+  /**
+   * Gets the number of commands run since the server started.
+   *
+   * @return the command count
+   */
+  public long getCommandCount() {
+    return commands.get();
+  }
+
+  /**
+   * Stops listening, closes every connection and waits for running commands to finish.
+   *
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public void close() throws InterruptedException {
+    running = false;
+    selector.wakeup();
+    selectorThread.join();
+    pool.shutdown();
+    pool.awaitTermination(10, TimeUnit.SECONDS);
+    if (shared) {
+      ticker.shutdownNow();
+      actorPool.shutdown();
+      actorPool.awaitTermination(10, TimeUnit.SECONDS);
+    }
+  }
+
+  /**
+   * Describes the server's load since the last call: open sessions, commands per second and
+   * the heap each open session holds, estimated from the heap in use after the last garbage
+   * collection.
+   *
+   * @return a one-line status
+   */
+  public synchronized String status() {
+    long now = System.nanoTime();
+    long total = commands.get();
+    double seconds = (now - lastStatusNanos) / 1e9;
+    double rate = seconds > 0 ? (total - lastStatusCommands) / seconds : 0.0;
+    lastStatusNanos = now;
+    lastStatusCommands = total;
+
+    int open = openSessions.get();
+    long heap = heapAfterGc();
+    double perSession = open > 0 ? Math.max(0, heap - baselineHeap) / 1024.0 / open : 0.0;
+    return String.format("Sessions: %d open, %d total; commands: %d (%.0f commands/s); "
+            + "heap: %.1f MB (%.1f KB per session)", open, totalSessions.get(), total, rate,
+            heap / 1048576.0, perSession);
+  }
+
+  /**
+   * Gets the heap in use after the last garbage collection, or the heap in use now if there
+   * has not been one.
+   *
+   * @return the heap in bytes
+   */
+  private static long heapAfterGc() {
+    long used = 0;
+    for (MemoryPoolMXBean memoryPool : ManagementFactory.getMemoryPoolMXBeans()) {
+      MemoryUsage usage = memoryPool.getCollectionUsage();
+      if (memoryPool.getType() == MemoryType.HEAP && usage != null) {
+        used += usage.getUsed();
+      }
+    }
+    Runtime runtime = Runtime.getRuntime();
+    return used > 0 ? used : runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  /**
+   * Runs the selector loop until the server is closed.
+   */
+  private void serve() {
+    ByteBuffer readBuffer = ByteBuffer.allocateDirect(16 * 1024);
+    try {
+      while (running) {
+        if (acceptResumeNanos == 0) {
+          selector.select();
+        } else {
+          long waitMillis = (acceptResumeNanos - System.nanoTime()) / 1_000_000;
+          if (waitMillis <= 0) {
+            acceptResumeNanos = 0;
+            acceptKey.interestOps(SelectionKey.OP_ACCEPT);
+            selector.selectNow();
+          } else {
+            selector.select(waitMillis);
+          }
+        }
+        Session changed;
+        while ((changed = updates.poll()) != null) {
+          changed.updateInterest();
+        }
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+          SelectionKey key = keys.next();
+          keys.remove();
+          if (!key.isValid()) {
+            continue;
+          }
+          if (key.isAcceptable()) {
+            accept();
+            continue;
+          }
+          Session session = (Session) key.attachment();
+          try {
+            if (key.isReadable()) {
+              session.read(readBuffer);
+            }
+            if (key.isValid() && key.isWritable()) {
+              session.write();
+            }
+          } catch (IOException e) {
+            session.close();
+          }
+        }
+      }
+    } catch (IOException e) {
+      System.err.println("Game server stopped: " + e.getMessage());
+    } finally {
+      for (SelectionKey key : selector.keys()) {
+        if (key.attachment() instanceof Session session) {
+          session.close();
+        }
+      }
+      try {
+        serverChannel.close();
+        selector.close();
+      } catch (IOException e) {
+        System.err.println("Error closing game server: " + e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Accepts every waiting connection and greets each one on a worker. A connection that
+   * cannot be set up is closed on its own. If accepting itself fails, for instance because the
+   * process is out of file descriptors, accepting pauses for {@link #ACCEPT_BACKOFF_MILLIS}
+   * while the open sessions carry on.
+   *
+   * @throws ClosedChannelException if the server has been closed
+   */
+  private void accept() throws ClosedChannelException {
+    while (true) {
+      SocketChannel channel;
+      try {
+        channel = serverChannel.accept();
+      } catch (ClosedChannelException e) {
+        throw e;
+      } catch (IOException e) {
+        System.err.println("Error accepting a connection: " + e.getMessage());
+        acceptKey.interestOps(0);
+        acceptResumeNanos = System.nanoTime() + ACCEPT_BACKOFF_MILLIS * 1_000_000;
+        return;
+      }
+      if (channel == null) {
+        return;
+      }
+      try {
+        channel.configureBlocking(false);
+        Session session = new Session(channel, seeds == null ? null : seeds.nextSeed());
+        session.key = channel.register(selector, SelectionKey.OP_READ, session);
+        openSessions.incrementAndGet();
+        totalSessions.incrementAndGet();
+        session.schedule();
+      } catch (IOException | RuntimeException e) {
+        System.err.println("Error setting up a connection: " + e.getMessage());
+        try {
+          channel.close();
+        } catch (IOException closeError) {
+          // Nothing more to do for this connection
+        }
+      }
+    }
+  }
+
+  /**
+   * One player's connection and game session.
+   * Lines and output are handed between the selector thread and the workers under the
+   * session's lock; the controller is only used by the one worker draining the session.
+   */
+  private final class Session {
+    private final SocketChannel channel;
+    private final Long seed;
+    private SelectionKey key;
+
+    // Selector thread only
+    private byte[] partial = new byte[64];
+    private int partialLength;
+    private ByteBuffer writing;
+
+    // Guarded by this
+    private final ArrayDeque<String> lines = new ArrayDeque<>();
+    private final ArrayDeque<ByteBuffer> output = new ArrayDeque<>();
+    private int outputBytes;
+    private boolean scheduled;
+    private boolean finished;
+    private boolean closed;
+
+    // Worker only
+    private final ByteArrayOutputStream printed = new ByteArrayOutputStream(256);
+    private PrintStream out;
+    private ServerSessionController controller;
+    private ActorController actor;
+
+    // The player of a shared server, once named; taken out of the world once
+    private volatile Player player;
+    private final AtomicBoolean departed = new AtomicBoolean();
+
+    Session(SocketChannel channel, Long seed) {
+      this.channel = channel;
+      this.seed = seed;
+    }
+
+    /**
+     * Splits what the client sent into lines and queues them for a worker.
+     * Runs on the selector thread.
+     */
+    void read(ByteBuffer buffer) throws IOException {
+      buffer.clear();
+      int count = channel.read(buffer);
+      if (count < 0) {
+        close();
+        return;
+      }
+      buffer.flip();
+      boolean added = false;
+      while (buffer.hasRemaining()) {
+        byte b = buffer.get();
+        if (b == '\n') {
+          int length = partialLength > 0 && partial[partialLength - 1] == '\r'
+                  ? partialLength - 1 : partialLength;
+          String line = new String(partial, 0, length, StandardCharsets.UTF_8);
+          partialLength = 0;
+          synchronized (this) {
+            lines.add(line);
+          }
+          added = true;
+        } else if (partialLength < MAX_LINE) {
+          if (partialLength == partial.length) {
+            partial = Arrays.copyOf(partial, Math.min(MAX_LINE, partial.length * 2));
+          }
+          partial[partialLength++] = b;
+        }
+      }
+      if (added) {
+        schedule();
+        updateInterest();
+      }
+    }
+
+    /**
+     * Writes as much waiting output as the connection takes and closes it once a finished
+     * game's output is all sent. Runs on the selector thread.
+     */
+    void write() throws IOException {
+      while (true) {
+        if (writing == null) {
+          synchronized (this) {
+            writing = output.poll();
+          }
+          if (writing == null) {
+            break;
+          }
+        }
+        channel.write(writing);
+        if (writing.hasRemaining()) {
+          return;
+        }
+        synchronized (this) {
+          outputBytes -= writing.capacity();
+        }
+        writing = null;
+      }
+      synchronized (this) {
+        if (finished && output.isEmpty()) {
+          close();
+          return;
+        }
+      }
+      updateInterest();
+    }
+
+    /**
+     * Reads only while little input and output are waiting, and writes while there is output.
+     * Runs on the selector thread.
+     */
+    void updateInterest() {
+      if (!key.isValid()) {
+        return;
+      }
+      int ops;
+      synchronized (this) {
+        if (finished && output.isEmpty() && writing == null) {
+          close();
+          return;
+        }
+        ops = 0;
+        if (!finished && lines.size() < MAX_PENDING_LINES && outputBytes < MAX_PENDING_OUTPUT) {
+          ops |= SelectionKey.OP_READ;
+        }
+        if (writing != null || !output.isEmpty()) {
+          ops |= SelectionKey.OP_WRITE;
+        }
+      }
+      key.interestOps(ops);
+    }
+
+    /**
+     * Hands the session to a worker unless one already has it.
+     */
+    void schedule() {
+      synchronized (this) {
+        if (scheduled || closed) {
+          return;
+        }
+        scheduled = true;
+      }
+      pool.execute(this::drain);
+    }
+
+    /**
+     * Runs every waiting line through the controller and queues what it printed.
+     * The session stays scheduled until its output is queued and no line is left, so a line
+     * that arrives meanwhile is run by this worker rather than by a second one.
+     * Runs on a worker.
+     */
+    private void drain() {
+      while (true) {
+        try {
+          if (out == null) {
+            greet();
+          }
+          while (true) {
+            String line;
+            synchronized (this) {
+              line = finished ? null : lines.poll();
+            }
+            if (line == null) {
+              break;
+            }
+            handle(line);
+          }
+        } catch (IOException | RuntimeException e) {
+          out.println("Error: " + e.getMessage());
+          synchronized (this) {
+            finished = true;
+          }
+        }
+        out.flush();
+        send();
+        synchronized (this) {
+          if (finished || closed || lines.isEmpty()) {
+            scheduled = false;
+            return;
+          }
+        }
+      }
+    }
+
+    /**
+     * Starts the session's game and asks the player's name.
+     */
+    private void greet() throws IOException {
+      out = new PrintStream(printed, false, StandardCharsets.UTF_8);
+      if (shared) {
+        out.print("welcome to " + sharedWorld.getGameName() + "!\n\n");
+        out.print("Enter your name: ");
+        return;
+      }
+      GameWorld world = template.newSession();
+      if (seed != null) {
+        world.setSeed(seed);
+      }
+      controller = new ServerSessionController(world, out);
+      controller.displayWelcome();
+      out.print("Enter your name: ");
+    }
+
+    /**
+     * Runs one line: the player's name at first, then a command at each prompt.
+     */
+    private void handle(String line) throws IOException {
+      if (shared) {
+        if (player == null) {
+          join(line);
+        } else {
+          commands.incrementAndGet();
+          play(line);
+        }
+        out.print("\nWhat would you like to do? ");
+        return;
+      }
+      if (!controller.isRunning()) {
+        controller.begin(line);
+      } else {
+        commands.incrementAndGet();
+        controller.runTurn(line);
+      }
+      if (controller.isRunning()) {
+        controller.displayPrompt();
+      } else {
+        synchronized (this) {
+          finished = true;
+        }
+      }
+    }
+
+    /**
+     * Adds the player of a shared server to the world and shows them where they are.
+     *
+     * @param name the name the player gave
+     */
+    private void join(String name) {
+      String trimmed = name.trim().isEmpty() ? "Player" : name.trim();
+      Player joined = sharedWorld.addPlayer(trimmed);
+      actor = new ActorController(sharedWorld, joined, actors, out, events);
+      events.subscribe(joined, this::offerEvents);
+      player = joined;
+      synchronized (this) {
+        if (closed) {
+          depart();
+          return;
+        }
+      }
+      out.print("welcome, " + trimmed + "!\n");
+      events.publish(joined.getCurrentRoom(), joined, trimmed + " joins the game.");
+      play("look");
+    }
+
+    /**
+     * Runs a command of the player of a shared server on the room actors and waits for it.
+     * The actors have threads of their own, so waiting cannot starve them.
+     *
+     * @param command the command
+     */
+    private void play(String command) {
+      try {
+        actors.submit(actor, command).join();
+      } catch (CompletionException e) {
+        Throwable cause = e.getCause() != null ? e.getCause() : e;
+        out.println("Error: " + cause.getMessage());
+      }
+    }
+
+    /**
+     * Queues a batch of events for the selector thread to write, unless the client is too far
+     * behind to take it. Never blocks.
+     *
+     * @param batch the events
+     * @return true if the batch was queued
+     */
+    private boolean offerEvents(String batch) {
+      ByteBuffer bytes = ByteBuffer.wrap(batch.getBytes(StandardCharsets.UTF_8));
+      synchronized (this) {
+        if (closed || outputBytes + bytes.capacity() > MAX_PENDING_OUTPUT) {
+          return false;
+        }
+        output.add(bytes);
+        outputBytes += bytes.capacity();
+      }
+      updates.add(this);
+      selector.wakeup();
+      return true;
+    }
+
+    /**
+     * Takes the player of a shared server out of the world, after their last command.
+     */
+    private void depart() {
+      Player leaving = player;
+      if (leaving == null || !departed.compareAndSet(false, true)) {
+        return;
+      }
+      events.unsubscribe(leaving);
+      actor.chain(() -> actors.tell(leaving.getCurrentRoom(), () -> {
+        events.publish(leaving.getCurrentRoom(), leaving, leaving.getName() + " leaves the game.");
+        sharedWorld.removePlayer(leaving);
+      }));
+    }
+
+    /**
+     * Queues what the controller printed for the selector thread to write.
+     */
+    private void send() {
+      if (printed.size() > 0) {
+        ByteBuffer bytes = ByteBuffer.wrap(printed.toByteArray());
+        printed.reset();
+        synchronized (this) {
+          if (closed) {
+            return;
+          }
+          output.add(bytes);
+          outputBytes += bytes.capacity();
+        }
+      }
+      updates.add(this);
+      selector.wakeup();
+    }
+
+    /**
+     * Closes the connection. The session's game is dropped with it.
+     */
+    void close() {
+      synchronized (this) {
+        if (closed) {
+          return;
+        }
+        closed = true;
+        lines.clear();
+        output.clear();
+      }
+      openSessions.decrementAndGet();
+      key.cancel();
+      try {
+        channel.close();
+      } catch (IOException e) {
+        // The connection is gone either way
+      }
+      if (shared) {
+        depart();
+      }
+    }
+  }
+
+  /**
+   * The console game for one connection. Input arrives a line at a time from the server
+   * instead of through a reader, and quitting ends the session without offering a save.
+   */
+  private static final class ServerSessionController extends TextController {
+
+    ServerSessionController(GameWorld gameWorld, PrintStream out) {
+      super(gameWorld, null, out);
+    }
+
+    /**
+     * Gets the verbs players on the server may use: everything but saving and restoring.
+     *
+     * @return the supported verbs
+     */
+    @Override
+    public Set<Verb> supportedVerbs() {
+      return SERVER_VERBS;
+    }
+
+    /**
+     * Shows the final score and ends the session.
+     */
+    @Override
+    public void quitGame() {
+      try {
+        showFinalScore();
+      } catch (IOException e) {
+        System.err.println("Error quitting game: " + e.getMessage());
+      }
+      endGame();
+    }
+  }
+}
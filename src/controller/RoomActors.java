@@ -0,0 +1,167 @@
+package controller;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import model.GameWorld;
+import model.Room;
+
+/**
+ * Runs the players of a shared world as messages to the rooms they are in, instead of
+ * locking rooms.
+ * Every room has a mailbox, and a room's messages run one at a time, in the order they were
+ * sent, on a shared executor; different rooms run at the same time. Rooms that share a puzzle,
+ * monster or item share one mailbox, the one of the room that stands for them all (see
+ * {@link GameWorld#getGuardRoomNumber(Room)}). Everything a command changes then belongs to the
+ * player, the player's room or a room sharing its mailbox, so commands need no locks of their
+ * own.
+ *
+ * <p>Each player's commands are sent through {@link #submit(ActorController, String)}, which
+ * runs them in order: a command goes to whatever room the player is in once the previous
+ * command, including any move it made, has finished, even if the command failed after moving.
+ * A move is a handoff: the room being left
+ * lets the player go, then sends a message to the room being entered, which takes the player
+ * in (see {@link ActorController}). Anything else that reads a room, such as the players in
+ * it, should do so in a message to the room too.
+ *
+ * <p>A mailbox runs a limited batch of messages each time it gets a thread, so one crowded
+ * room cannot keep the others waiting. The number of messages each mailbox has run is kept for
+ * measuring where the work goes.
+ */
+public class RoomActors {
+  /** Messages a mailbox runs before giving its thread to another room. */
+  static final int BATCH = 64;
+
+  private final GameWorld world;
+  private final Executor executor;
+  private final Map<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+  /**
+   * Creates the room actors of a shared world, running on an executor. Running them on the
+   * calling thread, with {@code Runnable::run}, plays every room in turn on one thread.
+   *
+   * @param world    the shared world, which a player must already have joined
+   * @param executor the executor that runs mailboxes
+   */
+  public RoomActors(GameWorld world, Executor executor) {
+    this.world = world;
+    this.executor = executor;
+  }
+
+  /**
+   * Sends a message to a room.
+   *
+   * @param room    the room
+   * @param message the message, run with no other message of that room or a room sharing
+   *                its mailbox
+   * @return a future completed once the message has run, or exceptionally with its error;
+   *         an Error is also rethrown to the executor
+   */
+  public CompletableFuture<Void> tell(Room room, Runnable message) {
+    CompletableFuture<Void> done = new CompletableFuture<>();
+    Mailbox mailbox = mailboxes.computeIfAbsent(world.getGuardRoomNumber(room),
+            number -> new Mailbox());
+    mailbox.post(() -> {
+      try {
+        message.run();
+        mailbox.processed.incrementAndGet();
+        done.complete(null);
+      } catch (RuntimeException e) {
+        mailbox.processed.incrementAndGet();
+        done.completeExceptionally(e);
+      } catch (Error e) {
+        mailbox.processed.incrementAndGet();
+        done.completeExceptionally(e);
+        throw e;
+      }
+    });
+    return done;
+  }
+
+  /**
+   * Runs a command for a player in the room the player is in, after the player's earlier
+   * commands have finished.
+   *
+   * @param controller the player's controller
+   * @param command    the command as entered
+   * @return a future completed once the command, and any move it made, has finished
+   */
+  public CompletableFuture<Void> submit(ActorController controller, String command) {
+    Command parsed = CommandFactory.createCommand(controller, command);
+    return controller.chain(() -> {
+      CompletableFuture<Void> ran = tell(controller.player().getCurrentRoom(), () -> {
+        try {
+          parsed.execute();
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+      // A command that failed after moving still waits for the arrival it started
+      return ran.handle((ignored, error) -> controller.takeHandoff())
+              .thenCompose(arrival -> arrival)
+              .thenCompose(ignored -> ran);
+    });
+  }
+
+  /**
+   * Gets the number of messages each mailbox has run.
+   *
+   * @return map of the room number standing for each mailbox to messages run, in room number
+   *         order
+   */
+  public Map<String, Long> getMessageCounts() {
+    Map<String, Long> counts = new TreeMap<>();
+    mailboxes.forEach((number, mailbox) -> counts.put(number, mailbox.processed.get()));
+    return counts;
+  }
+
+  /**
+   * The messages of a room, or of rooms sharing a puzzle, monster or item, run by at most one thread at a time.
+   */
+  private final class Mailbox implements Runnable {
+    private final ConcurrentLinkedQueue<Runnable> messages = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicLong processed = new AtomicLong();
+
+    /**
+     * Queues a message and makes sure the mailbox will run.
+     *
+     * @param message the message
+     */
+    void post(Runnable message) {
+      messages.add(message);
+      if (scheduled.compareAndSet(false, true)) {
+        executor.execute(this);
+      }
+    }
+
+    /**
+     * Runs a batch of messages, then schedules the mailbox again if more are waiting.
+     * A message that throws ends the batch but not the mailbox.
+     */
+    @Override
+    public void run() {
+      int count = 0;
+      Runnable message;
+      try {
+        while (count < BATCH && (message = messages.poll()) != null) {
+          message.run();
+          count++;
+        }
+      } finally {
+        scheduled.set(false);
+        if (!messages.isEmpty() && scheduled.compareAndSet(false, true)) {
+          executor.execute(this);
+        }
+      }
+    }
+  }
+}
@@ -3,24 +3,58 @@ package controller;
 import java.awt.*;
 import java.awt.event.ActionListener;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.swing.*;
 
 import model.*;
+import util.ImageLoader;
 import view.swing.GameWindow;
+import view.swing.InventoryPanel;
+import view.swing.NavigationPanel;
+import view.swing.OutputLog;
+import view.swing.RoomPanel;
+import view.swing.ViewState;
 
 /**
  * SwingController manages the game state and UI interactions for the GUI version.
  * It processes commands, updates the view, and maintains game state.
  */
 public class SwingController extends GameController {
+  private static final Set<Verb> SWING_VERBS = Collections.unmodifiableSet(EnumSet.of(
+          Verb.NORTH, Verb.SOUTH, Verb.EAST, Verb.WEST, Verb.LOOK, Verb.INVENTORY,
+          Verb.TAKE, Verb.DROP, Verb.EXAMINE, Verb.USE, Verb.ANSWER, Verb.HELP, Verb.QUIT));
+
   private final GameWorld gameWorld;
-  private final Map<String, Runnable> commandMap;
-  private JTextArea outputArea;
+  // Set on the event dispatch thread and read by the game thread
+  private volatile JTextArea outputArea;
+  private volatile OutputLog outputLog;
   private JPanel controlPanel;
-  private GameWindow gameWindow;
+  private volatile GameWindow gameWindow;
+
+  // Commands run here, one at a time, so a slow command never holds up the event dispatch thread
+  private final ExecutorService gameThread = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "game");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  // Used on the game thread only
+  private final RoomRenderCache roomText = new RoomRenderCache(RoomPanel::describe);
+  private ViewState publishedState;
+
+  // Room text reused until the room changes
+  private final RoomRenderCache itemsText = new RoomRenderCache(room -> room.getItems().isEmpty()
+          ? "" : "You see: " + RoomRenderCache.itemNames(room, ", "));
+  private final RoomRenderCache exitsText = new RoomRenderCache(room -> {
+    String exits = RoomRenderCache.exitNames(room);
+    return exits.isEmpty() ? "There are no obvious exits." : "Exits: " + exits + " ";
+  });
 
   /**
    * Creates a new SwingController with the specified GameWorld.
@@ -30,32 +64,9 @@ public class SwingController extends GameController {
   public SwingController(GameWorld gameWorld) {
     super(gameWorld);
     this.gameWorld = gameWorld;
-    this.commandMap = new HashMap<>();
-    initCommands();
     createControlPanel();
   }
 
-  /**
-   * Initialize command mappings.
-   */
-  private void initCommands() {
-    commandMap.put("q", this::quitGame);
-    commandMap.put("quit", this::quitGame);
-    commandMap.put("n", () -> move(Direction.NORTH));
-    commandMap.put("north", () -> move(Direction.NORTH));
-    commandMap.put("s", () -> move(Direction.SOUTH));
-    commandMap.put("south", () -> move(Direction.SOUTH));
-    commandMap.put("e", () -> move(Direction.EAST));
-    commandMap.put("east", () -> move(Direction.EAST));
-    commandMap.put("w", () -> move(Direction.WEST));
-    commandMap.put("west", () -> move(Direction.WEST));
-    commandMap.put("look", this::look);
-    commandMap.put("i", this::showInventory);
-    commandMap.put("inventory", this::showInventory);
-    commandMap.put("help", this::showHelp);
-    commandMap.put("?", this::showHelp);
-  }
-
   /**
    * Create the control panel with output area.
    */
@@ -69,6 +80,7 @@ public class SwingController extends GameController {
     outputArea.setLineWrap(true);
     outputArea.setWrapStyleWord(true);
     outputArea.setFont(new Font("SansSerif", Font.PLAIN, 12));
+    outputLog = new OutputLog(outputArea, OutputLog.DEFAULT_LINES);
 
     // Add components to the panel
     JScrollPane scrollPane = new JScrollPane(outputArea);
@@ -101,8 +113,7 @@ public class SwingController extends GameController {
     // Create and show the main game window
     SwingUtilities.invokeLater(() -> {
       gameWindow = new GameWindow(gameWorld.getGameName(), this);
-      showWelcome();
-      updateView();
+      execute(this::showWelcome);
     });
   }
 
@@ -112,70 +123,101 @@ public class SwingController extends GameController {
   private void showWelcome() {
     appendText("Welcome to " + gameWorld.getGameName() + "!");
     appendText("Type 'help' or '?' for a list of commands.");
-    updateView();
   }
 
   /**
-   * Updates the view with current game state.
+   * Runs an action on the game thread, then publishes the state the panels show.
+   * Actions run one at a time in the order they were submitted; the window draws the
+   * resulting state in its next frame, so however many changes an action makes the panels are
+   * updated once.
+   *
+   * @param action the action, which may change the game world
    */
-  private void updateView() {
-    if (gameWindow != null) {
-      Player player = gameWorld.getPlayer();
-      Room currentRoom = player.getCurrentRoom();
-
-      // Update room display
-      gameWindow.displayRoom(currentRoom);
-
-      // Update health status
-      gameWindow.displayHealth(player.getHealth(), player.getHealthStatus());
+  public void execute(Runnable action) {
+    gameThread.execute(() -> {
+      try {
+        action.run();
+      } catch (RuntimeException e) {
+        appendText("Error: " + e.getMessage());
+      }
+      publishView();
+    });
+  }
 
-      // Update inventory display
-      gameWindow.displayInventory(player.getInventory());
+  /**
+   * Captures what the panels show and hands it to the window, unless nothing they show has
+   * changed since the last time. Runs on the game thread.
+   */
+  private void publishView() {
+    GameWindow window = gameWindow;
+    if (window == null) {
+      return;
+    }
+    Player player = gameWorld.getPlayer();
+    Room room = player.getCurrentRoom();
+    ViewState previous = publishedState;
+    boolean sameRoom = previous != null && previous.getRoom() == room;
+    ViewState state = new ViewState(room, room.getVersion(),
+            sameRoom ? previous.getRoomImage() : ImageLoader.getRoomImage(room),
+            roomText.get(room), NavigationPanel.openExits(room), player.getHealth(),
+            player.getHealthStatus(), InventoryPanel.entries(player.getInventoryView()));
+    if (state.changedSince(previous) != 0) {
+      publishedState = state;
+      window.publish(state);
     }
   }
 
   /**
    * Process a command string entered by the user.
+   * The command runs on the game thread; this returns as soon as it is queued.
    *
    * @param commandString The command to process
    */
   public void processCommand(String commandString) {
-    if (commandString == null || commandString.trim().isEmpty()) {
+    if (commandString == null || commandString.isBlank()) {
       return;
     }
+    execute(() -> {
+      // Display the command
+      appendText("> " + commandString);
 
-    // Display the command
-    appendText("> " + commandString);
-
-    // Extract the command and arguments
-    String[] parts = commandString.trim().toLowerCase().split("\\s+", 2);
-    String command = parts[0];
-    String argument = parts.length > 1 ? parts[1] : "";
+      // Run the command through the shared command table
+      try {
+        runCommand(commandString);
+      } catch (IOException e) {
+        appendText("Error: " + e.getMessage());
+      }
+    });
+  }
 
-    // Look for exact command match
-    Runnable action = commandMap.get(command);
-    if (action != null) {
-      action.run();
-      return;
-    }
+  /**
+   * Gets the verbs the graphical interface understands.
+   *
+   * @return the supported verbs
+   */
+  @Override
+  public Set<Verb> supportedVerbs() {
+    return SWING_VERBS;
+  }
 
-    // Handle commands with arguments
-    if (command.equals("take") || command.equals("t")) {
-      takeItem(argument);
-    } else if (command.equals("drop") || command.equals("d")) {
-      dropItem(argument);
-    } else if (command.equals("examine") || command.equals("x")) {
-      examine(argument);
-    } else if (command.equals("use") || command.equals("u")) {
-      useItem(argument);
-    } else if (command.equals("answer") || command.equals("a")) {
-      answerPuzzle(argument);
-    } else {
-      appendText("Unknown command. Type 'help' or '?' for help.");
-    }
+  /**
+   * Parses commands leniently: the handlers here ask for a missing argument themselves.
+   *
+   * @return true
+   */
+  @Override
+  public boolean isLenientParsing() {
+    return true;
+  }
 
-    // Update the view after processing the command
-    updateView();
+  /**
+   * Reports a command that was not understood.
+   *
+   * @param command the command as entered
+   */
+  @Override
+  public void unknownCommand(String command) {
+    appendText("Unknown command. Type 'help' or '?' for help.");
   }
 
   /**
@@ -187,15 +229,13 @@ public class SwingController extends GameController {
   public void move(Direction dir) {
     Player player = gameWorld.getPlayer();
     Room current = player.getCurrentRoom();
-    String exitNumber = current.getExitRoomNumber(dir);
-
-    if ("0".equals(exitNumber)) {
+    if (!current.hasExit(dir)) {
       appendText("You can't go that way.");
       return;
     }
 
     // Check for blocked path (negative exit number)
-    if (Integer.parseInt(exitNumber) < 0) {
+    if (current.isExitBlocked(dir)) {
       if (current.getPuzzle() != null && current.getPuzzle().isActive()) {
         appendText("Your path is blocked by a puzzle: " + current.getPuzzle().getDescription());
       } else if (current.getMonster() != null && current.getMonster().isActive()) {
@@ -214,7 +254,6 @@ public class SwingController extends GameController {
       appendText("You move " + dir.toString().toLowerCase() + ".");
       appendText("You are in: " + next.getName());
       appendText(next.getDescription());
-      updateView();
     } else {
       appendText("There's nothing in that direction.");
     }
@@ -232,7 +271,6 @@ public class SwingController extends GameController {
       if (damage > 0) {
         appendText(monster.getName() + " " + monster.getAttackDescription());
         appendText("You take " + damage + " damage!");
-        updateView(); // Update health display
       }
     }
   }
@@ -253,44 +291,13 @@ public class SwingController extends GameController {
     }
 
     // Show items in room
-    if (!room.getItems().isEmpty()) {
-      StringBuilder itemList = new StringBuilder("You see: ");
-      for (Item item : room.getItems()) {
-        itemList.append(item.getName()).append(", ");
-      }
-      // Remove trailing comma and space
-      if (itemList.length() > 8) {
-        itemList.setLength(itemList.length() - 2);
-      }
-      appendText(itemList.toString());
+    String items = itemsText.get(room);
+    if (!items.isEmpty()) {
+      appendText(items);
     }
 
     // Show exits
-    StringBuilder exits = new StringBuilder("Exits: ");
-    boolean hasExits = false;
-
-    if (!"0".equals(room.getExitRoomNumber(Direction.NORTH))) {
-      exits.append("NORTH ");
-      hasExits = true;
-    }
-    if (!"0".equals(room.getExitRoomNumber(Direction.SOUTH))) {
-      exits.append("SOUTH ");
-      hasExits = true;
-    }
-    if (!"0".equals(room.getExitRoomNumber(Direction.EAST))) {
-      exits.append("EAST ");
-      hasExits = true;
-    }
-    if (!"0".equals(room.getExitRoomNumber(Direction.WEST))) {
-      exits.append("WEST ");
-      hasExits = true;
-    }
-
-    if (hasExits) {
-      appendText(exits.toString());
-    } else {
-      appendText("There are no obvious exits.");
-    }
+    appendText(exitsText.get(room));
   }
 
   /**
@@ -300,10 +307,10 @@ public class SwingController extends GameController {
     Player player = gameWorld.getPlayer();
     appendText("Inventory (weight: " + player.getInventoryWeight() + "/" + player.getMaxWeight() + "):");
 
-    if (player.getInventory().isEmpty()) {
+    if (player.getInventoryView().isEmpty()) {
       appendText("Your inventory is empty.");
     } else {
-      for (Item item : player.getInventory()) {
+      for (Item item : player.getInventoryView()) {
         appendText("- " + item.getName() + " (uses: " + item.getUsesRemaining() + ")");
       }
     }
@@ -331,7 +338,6 @@ public class SwingController extends GameController {
     if (gameWorld.getPlayer().addToInventory(item)) {
       currentRoom.removeItem(item);
       appendText("You pick up the " + item.getName() + ".");
-      updateView();
     } else {
       appendText("You can't carry any more. Your inventory is too heavy.");
     }
@@ -359,7 +365,6 @@ public class SwingController extends GameController {
     if (player.removeFromInventory(item)) {
       player.getCurrentRoom().addItem(item);
       appendText("You drop the " + item.getName() + ".");
-      updateView();
     } else {
       appendText("You can't drop the " + item.getName() + " for some reason.");
     }
@@ -453,12 +458,10 @@ public class SwingController extends GameController {
         appendText("You gain " + currentRoom.getMonster().getValue() + " points!");
       }
       item.use();
-      updateView();
     } else {
       appendText("You use the " + item.getName() + ".");
       appendText(item.getWhenUsed());
       item.use();
-      updateView();
     }
   }
 
@@ -493,7 +496,6 @@ public class SwingController extends GameController {
     if (solved) {
       appendText("Correct! " + puzzle.getEffects());
       appendText("You gain " + puzzle.getValue() + " points!");
-      updateView();
     } else {
       appendText("That's not the right answer. The puzzle remains unsolved.");
     }
@@ -502,7 +504,8 @@ public class SwingController extends GameController {
   /**
    * Displays the help menu.
    */
-  private void showHelp() {
+  @Override
+  public void showHelp() {
     appendText("\nAvailable commands:");
     appendText("- n, north: Move north");
     appendText("- s, south: Move south");
@@ -532,11 +535,7 @@ public class SwingController extends GameController {
     appendText("Rank: " + player.getRank());
 
     // Ask if player wants to save
-    int option = JOptionPane.showConfirmDialog(
-            null,
-            "Do you want to save your progress before quitting?",
-            "Save Game",
-            JOptionPane.YES_NO_OPTION);
+    int option = confirm("Do you want to save your progress before quitting?", "Save Game");
 
     if (option == JOptionPane.YES_OPTION) {
       try {
@@ -548,29 +547,76 @@ public class SwingController extends GameController {
     }
 
     // Exit with confirmation dialog
-    option = JOptionPane.showConfirmDialog(
-            null,
-            "Are you sure you want to quit?",
-            "Confirm Exit",
-            JOptionPane.YES_NO_OPTION);
+    option = confirm("Are you sure you want to quit?", "Confirm Exit");
 
     if (option == JOptionPane.YES_OPTION) {
-      if (gameWindow != null) {
-        gameWindow.dispose();
-      }
-      System.exit(0);
+      SwingUtilities.invokeLater(() -> {
+        if (gameWindow != null) {
+          gameWindow.dispose();
+        }
+        System.exit(0);
+      });
     }
   }
 
   /**
-   * Appends text to the output area.
+   * Asks a yes or no question in a dialog on the event dispatch thread and waits for the
+   * answer.
+   *
+   * @param message the question
+   * @param title   the dialog title
+   * @return {@link JOptionPane#YES_OPTION} or another option if the answer was not yes
+   */
+  private static int confirm(String message, String title) {
+    if (SwingUtilities.isEventDispatchThread()) {
+      return JOptionPane.showConfirmDialog(null, message, title, JOptionPane.YES_NO_OPTION);
+    }
+    int[] option = {JOptionPane.NO_OPTION};
+    try {
+      SwingUtilities.invokeAndWait(() -> option[0] =
+              JOptionPane.showConfirmDialog(null, message, title, JOptionPane.YES_NO_OPTION));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (InvocationTargetException e) {
+      // A dialog that failed to show counts as no
+    }
+    return option[0];
+  }
+
+  /**
+   * Shows the result of a background save on the event dispatch thread.
+   *
+   * @param error the reason the save failed, or null if it succeeded
+   */
+  @Override
+  protected void saveCompleted(Throwable error) {
+    SwingUtilities.invokeLater(() -> showSaveResult(error));
+  }
+
+  /**
+   * Shows the result of a save in the output area.
+   *
+   * @param error the reason the save failed, or null if it succeeded
+   */
+  @Override
+  protected void showSaveResult(Throwable error) {
+    if (error == null) {
+      appendText("Game saved successfully!");
+    } else {
+      appendText("Error saving game: " + error.getMessage());
+    }
+  }
+
+  /**
+   * Appends text to the output area, which shows it with the rest of the text appended
+   * before the event dispatch thread next runs.
    *
    * @param text The text to append
    */
   private void appendText(String text) {
-    if (outputArea != null) {
-      outputArea.append(text + "\n");
-      outputArea.setCaretPosition(outputArea.getDocument().getLength());
+    OutputLog log = outputLog;
+    if (log != null) {
+      log.append(text);
     }
   }
 
@@ -592,6 +638,16 @@ public class SwingController extends GameController {
     return outputArea;
   }
 
+  /**
+   * Gets the bounded output log that appends to the output area.
+   * Anything else showing text in the output area should append through it.
+   *
+   * @return The output log, or null if there is no output area
+   */
+  public OutputLog getOutputLog() {
+    return outputLog;
+  }
+
   /**
    * Sets the output area for the controller.
    * Used when the GameWindow creates its own output area.
@@ -600,5 +656,6 @@ public class SwingController extends GameController {
    */
   public void setOutputArea(JTextArea area) {
     this.outputArea = area;
+    this.outputLog = area != null ? new OutputLog(area, OutputLog.DEFAULT_LINES) : null;
   }
 }
\ No newline at end of file
@@ -12,6 +12,7 @@ import model.Monster;
 import model.Player;
 import model.Puzzle;
 import model.Room;
+import model.RoomRenderCache;
 
 /**
  * TextController handles text-based interaction with the game.
@@ -23,6 +24,14 @@ public class TextController extends GameController {
   private final PrintStream out;
   private boolean running;
 
+  // Room text reused until the room changes
+  private final RoomRenderCache itemsText = new RoomRenderCache(room -> room.getItems().isEmpty()
+          ? "" : "Items here: " + RoomRenderCache.itemNames(room, ", "));
+  private final RoomRenderCache exitsText = new RoomRenderCache(room -> {
+    String exits = RoomRenderCache.exitNames(room);
+    return exits.isEmpty() ? "Exits: NONE" : "Exits: " + exits + " ";
+  });
+
   /**
    * Constructs a TextController with the given GameWorld.
    *
@@ -87,22 +96,43 @@ public class TextController extends GameController {
       displayPrompt();
 
       // Read next command
-      String command = bufferedReader.readLine();
+      runTurn(bufferedReader.readLine());
+    }
+  }
 
-      // Check if input is null (EOF or ctrl+d)
-      if (command == null) {
-        quitGame();
-        break;
-      }
+  /**
+   * Greets a player whose name is already known and shows the first room, for sessions fed
+   * one line at a time rather than run by {@link #start()}.
+   *
+   * @param name the name the player entered
+   * @throws IOException if the output cannot be written
+   */
+  void begin(String name) throws IOException {
+    running = true;
+    welcomePlayer(name);
+    lookAround();
+  }
 
-      // Process the command
-      processCommand(command.trim().toLowerCase());
+  /**
+   * Runs one command entered at the prompt and ends the game if the player has no health left.
+   *
+   * @param command the command, or null at the end of the input
+   * @throws IOException if the output cannot be written
+   */
+  void runTurn(String command) throws IOException {
+    // Check if input is null (EOF or ctrl+d)
+    if (command == null) {
+      quitGame();
+      return;
+    }
 
-      // Check if player's health is depleted
-      if (gameWorld.getPlayer().getHealth() <= 0) {
-        displayGameOver();
-        endGame();
-      }
+    // Process the command
+    processCommand(command);
+
+    // Check if player's health is depleted
+    if (gameWorld.getPlayer().getHealth() <= 0) {
+      displayGameOver();
+      endGame();
     }
   }
 
@@ -122,22 +152,32 @@ public class TextController extends GameController {
   public void promptForPlayerName() throws IOException {
     out.print("Enter your name: ");
     out.flush();
-    String name = bufferedReader.readLine();
+    welcomePlayer(bufferedReader.readLine());
+  }
+
+  /**
+   * Names the player and welcomes them, calling them Adventurer if no name was entered.
+   *
+   * @param name the name as entered, or null
+   * @throws IOException if the event log cannot be written
+   */
+  private void welcomePlayer(String name) throws IOException {
     if (name != null && !name.trim().isEmpty()) {
-      gameWorld.setPlayerName(name.trim());
+      namePlayer(name.trim());
       out.println("Welcome, " + name.trim() + "! Your adventure begins now.\n");
     } else {
-      gameWorld.setPlayerName("Adventurer");
+      namePlayer("Adventurer");
       out.println("Welcome, Adventurer! Your journey begins now.\n");
     }
   }
 
   /**
    * Displays the current room and its contents.
+   * This runs as a look command, since a monster in the room may attack.
    */
-  private void lookAround() {
+  void lookAround() {
     try {
-      look();
+      runCommand("look");
     } catch (IOException e) {
       out.println("Error displaying room: " + e.getMessage());
     }
@@ -173,52 +213,32 @@ public class TextController extends GameController {
 
   /**
    * Process player commands for the text interface.
-   * Overrides the base controller implementation to add text-specific command handling.
+   * Commands are dispatched through the shared command table; this controller supports
+   * every verb, including help.
    */
   @Override
   public void processCommand(String command) throws IOException {
-    if (command.isEmpty()) return;
-
-    if (command.equals("n") || command.equals("north")) {
-      move(Direction.NORTH);
-    } else if (command.equals("s") || command.equals("south")) {
-      move(Direction.SOUTH);
-    } else if (command.equals("e") || command.equals("east")) {
-      move(Direction.EAST);
-    } else if (command.equals("w") || command.equals("west")) {
-      move(Direction.WEST);
-    } else if (command.equals("l") || command.equals("look")) {
-      look();
-    } else if (command.equals("i") || command.equals("inventory")) {
-      showInventory();
-    } else if (command.equals("k") || command.equals("attack")) {
-      attackMonster();
-    } else if (command.equals("h") || command.equals("help")) {
-      displayHelp();
-    } else if (command.startsWith("t ") || command.startsWith("take ")) {
-      String itemName = command.startsWith("t ") ? command.substring(2) : command.substring(5);
-      takeItem(itemName);
-    } else if (command.startsWith("d ") || command.startsWith("drop ")) {
-      String itemName = command.startsWith("d ") ? command.substring(2) : command.substring(5);
-      dropItem(itemName);
-    } else if (command.startsWith("x ") || command.startsWith("examine ")) {
-      String target = command.startsWith("x ") ? command.substring(2) : command.substring(8);
-      examine(target);
-    } else if (command.startsWith("u ") || command.startsWith("use ")) {
-      String itemName = command.startsWith("u ") ? command.substring(2) : command.substring(4);
-      useItem(itemName);
-    } else if (command.startsWith("a ") || command.startsWith("answer ")) {
-      String answer = command.startsWith("a ") ? command.substring(2) : command.substring(7);
-      provideAnswer(answer);
-    } else if (command.equals("v") || command.equals("save")) {
-      saveGame();
-    } else if (command.equals("r") || command.equals("restore") || command.equals("load")) {
-      loadGame();
-    } else if (command.equals("q") || command.equals("quit")) {
-      quitGame();
-    } else {
-      out.println("I don't understand that command. Type 'help' for a list of commands.");
-    }
+    reportSaves();
+    if (command.isBlank()) return;
+    runCommand(command);
+  }
+
+  /**
+   * Shows the list of commands.
+   */
+  @Override
+  public void showHelp() {
+    displayHelp();
+  }
+
+  /**
+   * Reports a command that was not understood.
+   *
+   * @param command the command as entered
+   */
+  @Override
+  public void unknownCommand(String command) {
+    out.println("I don't understand that command. Type 'help' for a list of commands.");
   }
 
   /**
@@ -226,12 +246,11 @@ public class TextController extends GameController {
    */
   public void move(Direction direction) throws IOException {
     Room currentRoom = gameWorld.getPlayer().getCurrentRoom();
-    String exitNumber = currentRoom.getExitRoomNumber(direction);
-    if (exitNumber.equals("0")) {
+    if (!currentRoom.hasExit(direction)) {
       out.println("You can't go that way. There's a wall.");
       return;
     }
-    if (Integer.parseInt(exitNumber) < 0) {
+    if (currentRoom.isExitBlocked(direction)) {
       if (currentRoom.getPuzzle() != null && currentRoom.getPuzzle().isActive()) {
         out.println("Blocked by puzzle: " + currentRoom.getPuzzle().getDescription());
       } else if (currentRoom.getMonster() != null && currentRoom.getMonster().isActive()) {
@@ -272,40 +291,13 @@ public class TextController extends GameController {
     }
 
     // Display items in room
-    if (!currentRoom.getItems().isEmpty()) {
-      out.print("Items here: ");
-      for (int i = 0; i < currentRoom.getItems().size(); i++) {
-        out.print(currentRoom.getItems().get(i).getName());
-        if (i < currentRoom.getItems().size() - 1) {
-          out.print(", ");
-        }
-      }
-      out.println();
+    String items = itemsText.get(currentRoom);
+    if (!items.isEmpty()) {
+      out.println(items);
     }
 
     // Display exits
-    out.print("Exits: ");
-    boolean hasExits = false;
-    if (!currentRoom.getExitRoomNumber(Direction.NORTH).equals("0")) {
-      out.print("NORTH ");
-      hasExits = true;
-    }
-    if (!currentRoom.getExitRoomNumber(Direction.SOUTH).equals("0")) {
-      out.print("SOUTH ");
-      hasExits = true;
-    }
-    if (!currentRoom.getExitRoomNumber(Direction.EAST).equals("0")) {
-      out.print("EAST ");
-      hasExits = true;
-    }
-    if (!currentRoom.getExitRoomNumber(Direction.WEST).equals("0")) {
-      out.print("WEST ");
-      hasExits = true;
-    }
-    if (!hasExits) {
-      out.print("NONE");
-    }
-    out.println();
+    out.println(exitsText.get(currentRoom));
   }
 
   /**
@@ -329,10 +321,10 @@ public class TextController extends GameController {
   public void showInventory() {
     Player player = gameWorld.getPlayer();
     out.println("Inventory (weight: " + player.getInventoryWeight() + "/" + player.getMaxWeight() + "):");
-    if (player.getInventory().isEmpty()) {
+    if (player.getInventoryView().isEmpty()) {
       out.println("Your inventory is empty.");
     } else {
-      for (Item item : player.getInventory()) {
+      for (Item item : player.getInventoryView()) {
         out.println("- " + item.getName() + " (weight: " + item.getWeight() +
                 ", uses: " + item.getUsesRemaining() + ")");
       }
@@ -501,14 +493,16 @@ public class TextController extends GameController {
   }
 
   /**
-   * Save the game
+   * Shows the result of a background save.
+   *
+   * @param error the reason the save failed, or null if it succeeded
    */
-  public void saveGame() throws IOException {
-    try {
-      gameWorld.saveGame("saved_game.json");
+  @Override
+  protected void showSaveResult(Throwable error) {
+    if (error == null) {
       out.println("Game saved successfully!");
-    } catch (IOException e) {
-      out.println("Error saving game: " + e.getMessage());
+    } else {
+      out.println("Error saving game: " + error.getMessage());
     }
   }
 
@@ -551,6 +545,7 @@ public class TextController extends GameController {
       if (answer != null && answer.toLowerCase().startsWith("y")) {
         saveGame();
       }
+      awaitSaves();
 
       endGame();
     } catch (IOException e) {
@@ -585,4 +580,13 @@ public class TextController extends GameController {
   public void endGame() {
     running = false;
   }
+
+  /**
+   * Checks whether the game is still being played.
+   *
+   * @return true until the player quits or runs out of health
+   */
+  public boolean isRunning() {
+    return running;
+  }
 }
\ No newline at end of file
@@ -0,0 +1,51 @@
+package controller;
+
+/**
+ * The verbs understood by the game's command interpreters, with the words that name them.
+ * Every front end routes its input through {@link CommandFactory}, which maps these words to
+ * verbs; each controller decides which verbs it supports.
+ */
+public enum Verb {
+  NORTH(false, "n", "north"),
+  SOUTH(false, "s", "south"),
+  EAST(false, "e", "east"),
+  WEST(false, "w", "west"),
+  LOOK(false, "l", "look"),
+  INVENTORY(false, "i", "inventory"),
+  TAKE(true, "t", "take"),
+  DROP(true, "d", "drop"),
+  EXAMINE(true, "x", "examine"),
+  USE(true, "u", "use"),
+  ANSWER(true, "a", "answer"),
+  ATTACK(false, "k", "attack"),
+  SAVE(false, "v", "save"),
+  RESTORE(false, "r", "restore", "load"),
+  HELP(false, "h", "help", "?"),
+  QUIT(false, "q", "quit");
+
+  private final boolean takesArgument;
+  private final String[] aliases;
+
+  Verb(boolean takesArgument, String... aliases) {
+    this.takesArgument = takesArgument;
+    this.aliases = aliases;
+  }
+
+  /**
+   * Checks whether the verb is followed by an argument, such as an item name.
+   *
+   * @return true if the verb takes an argument
+   */
+  public boolean takesArgument() {
+    return takesArgument;
+  }
+
+  /**
+   * Gets the lower-case words that name this verb.
+   *
+   * @return a copy of the aliases
+   */
+  public String[] getAliases() {
+    return aliases.clone();
+  }
+}
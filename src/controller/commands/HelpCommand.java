@@ -0,0 +1,27 @@
+package controller.commands;
+
+import java.io.IOException;
+
+import controller.Command;
+import controller.GameController;
+
+/**
+ * Command for listing the available commands.
+ */
+public class HelpCommand implements Command {
+  private final GameController controller;
+
+  /**
+   * Creates a new help command.
+   *
+   * @param controller The controller that will execute the command
+   */
+  public HelpCommand(GameController controller) {
+    this.controller = controller;
+  }
+
+  @Override
+  public void execute() throws IOException {
+    controller.showHelp();
+  }
+}
@@ -1,5 +1,7 @@
 package controller.commands;
 
+import java.io.IOException;
+
 import controller.Command;
 import controller.GameController;
 
@@ -22,7 +24,7 @@ public class UnknownCommand implements Command {
   }
 
   @Override
-  public void execute() {
-    controller.view.displayMessage("I don't understand that command: " + commandString);
+  public void execute() throws IOException {
+    controller.unknownCommand(commandString);
   }
 }
\ No newline at end of file
@@ -1,11 +1,16 @@
 package enginedriver;
 
 import java.io.BufferedReader;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.FileWriter;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Reader;
 
 import controller.BatchController;
+import controller.EventLog;
 import controller.SwingController;
 import controller.TextController;
 import model.GameWorld;
@@ -22,14 +27,17 @@ public class GameEngineApp {
   private final String mode;
   private final String inputFile;
   private final String outputFile;
+  private Long seed;
 
   /**
    * Constructs a new GameEngineApp with the specified parameters.
    *
    * @param gameFileName The path to the JSON file containing game data
-   * @param mode The mode to run the game in ("text", "graphics", or "batch")
-   * @param inputFile The input file for batch mode (null for other modes)
-   * @param outputFile The output file for batch mode (null for console output or other modes)
+   * @param mode The mode to run the game in ("text", "graphics", "batch", "events" or "replay")
+   * @param inputFile The input file for batch mode, or the event log for the "events" and
+   *                  "replay" modes (null for other modes)
+   * @param outputFile The output file for batch and replay modes (null for console output or
+   *                   other modes)
    */
   public GameEngineApp(String gameFileName, String mode, String inputFile, String outputFile) {
     this.gameFileName = gameFileName;
@@ -38,6 +46,16 @@ public class GameEngineApp {
     this.outputFile = outputFile;
   }
 
+  /**
+   * Sets the seed of the game's random stream, so that the same commands give the same
+   * results every time. Without a seed each game rolls differently.
+   *
+   * @param seed the seed, or null for a different stream each game
+   */
+  public void setSeed(Long seed) {
+    this.seed = seed;
+  }
+
   /**
    * Initializes and starts the game.
    * This method creates the game world, appropriate controller, and begins the game.
@@ -45,9 +63,22 @@ public class GameEngineApp {
    * @throws IOException If there is an error reading the game file or during I/O operations
    */
   public void start() throws IOException {
+    // These modes load the world from the event log
+    if ("events".equals(mode)) {
+      runEventMode();
+      return;
+    }
+    if ("replay".equals(mode)) {
+      runReplayMode();
+      return;
+    }
+
     try {
       // Create model from game file
       GameWorld gameWorld = new GameWorld(gameFileName);
+      if (seed != null) {
+        gameWorld.setSeed(seed);
+      }
 
       // Process different modes
       if ("text".equals(mode)) {
@@ -82,6 +113,61 @@ public class GameEngineApp {
     textController.start();
   }
 
+  /**
+   * Runs the game in text mode, recording every turn in an event log.
+   * If the log already exists the game continues where it left off: the newest snapshot is
+   * loaded and the events after it are replayed without output.
+   *
+   * @throws IOException If there is an error with I/O operations
+   */
+  private void runEventMode() throws IOException {
+    EventLog log;
+    GameWorld gameWorld;
+    if (EventLog.exists(inputFile)) {
+      log = EventLog.open(inputFile, EventLog.DEFAULT_SNAPSHOT_INTERVAL);
+      PrintStream quiet = new PrintStream(OutputStream.nullOutputStream());
+      gameWorld = log.restore(world -> new TextController(world,
+              new BufferedReader(Reader.nullReader()), quiet));
+      System.out.println("Restored " + log.getEventCount() + " events from " + inputFile);
+    } else {
+      gameWorld = new GameWorld(gameFileName);
+      if (seed != null) {
+        gameWorld.setSeed(seed);
+      }
+      log = EventLog.create(inputFile, gameFileName, gameWorld.getSeed(),
+              EventLog.DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    try (log) {
+      BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
+      TextController textController = new TextController(gameWorld, reader, System.out);
+      textController.setEventLog(log);
+      textController.start();
+    }
+  }
+
+  /**
+   * Replays a whole recorded session, printing what the text interface showed for each
+   * event, and then the final score.
+   *
+   * @throws IOException If the log, game file or output file cannot be used
+   */
+  private void runReplayMode() throws IOException {
+    PrintStream out = outputFile == null ? System.out
+            : new PrintStream(new FileOutputStream(outputFile), false);
+    try (EventLog log = EventLog.open(inputFile, EventLog.DEFAULT_SNAPSHOT_INTERVAL)) {
+      GameWorld gameWorld = log.replay(world -> new TextController(world,
+              new BufferedReader(Reader.nullReader()), out));
+      out.println("Replayed " + log.getEventCount() + " events.");
+      out.println("Final score: " + gameWorld.getPlayer().getScore()
+              + " (" + gameWorld.getPlayer().getRank() + ")");
+    } finally {
+      if (out != System.out) {
+        out.close();
+      }
+    }
+  }
+
   /**
    * Runs the game in graphics mode with Swing UI.
    *
@@ -1,7 +1,20 @@
 package enginedriver;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
 import javax.swing.SwingUtilities;
+import controller.BatchDaemon;
+import controller.BatchRunner;
+import controller.GameServer;
+import model.CombatSimulator;
+import model.GameWorld;
+import model.PlaythroughSolver;
+import model.WorldTemplate;
+import util.FileIoManager;
 import util.ImageLoader;
 
 /**
@@ -9,14 +22,40 @@ import util.ImageLoader;
  * Handles command-line arguments and launches the appropriate game mode.
  */
 public class Main {
+  // How often server mode reports its load
+  private static final long STATUS_MILLIS = 10_000;
 
   /**
    * The main method that processes command-line arguments and starts the game.
    *
    * @param args Command line arguments
-   *             Format: <game_file> [-text|-graphics|-batch <input_file> [output_file]]
+   *             Format: <game_file> [-text|-graphics|-batch <input_file> [output_file]
+   *             |-batchdir <scripts> <out_dir> [threads]|-events <log>
+   *             |-replay <log> [output_file]|-simulate [fights] [threads]
+   *             |-solve <script> [threads] [max_states]|-server <port> [workers]
+   *             |-shared <port> [workers]
+   *             |-daemon <address> [workers] [out_dir]
+   *             |-submit <address> <script> [output_file]|-compile]
+   *             [-seed <number>]
    */
   public static void main(String[] args) {
+    // A seed may be given anywhere after the game file
+    Long seed = null;
+    List<String> rest = new ArrayList<>(Arrays.asList(args));
+    int seedAt = rest.indexOf("-seed");
+    if (seedAt > 0 && seedAt + 1 < rest.size()) {
+      try {
+        seed = Long.parseLong(rest.get(seedAt + 1));
+      } catch (NumberFormatException e) {
+        System.out.println("Invalid seed: " + rest.get(seedAt + 1));
+        printUsage();
+        return;
+      }
+      rest.subList(seedAt, seedAt + 2).clear();
+      args = rest.toArray(new String[0]);
+    }
+
+
     // If no arguments provided, use default behavior
     if (args.length == 0) {
       try {
@@ -43,6 +82,7 @@ public class Main {
           // Make sure we're explicitly showing the welcome screen
           System.out.println("Starting text adventure mode...");
           GameEngineApp app = new GameEngineApp(gameFile, "text", null, null);
+          app.setSeed(seed);
           app.start();
           break;
 
@@ -53,6 +93,7 @@ public class Main {
           // Run in graphics mode
           System.out.println("Starting graphics mode...");
           GameEngineApp graphicsApp = new GameEngineApp(gameFile, "graphics", null, null);
+          graphicsApp.setSeed(seed);
 
           // Run on the Event Dispatch Thread for Swing
           SwingUtilities.invokeLater(() -> {
@@ -78,9 +119,100 @@ public class Main {
           // Run in batch mode
           System.out.println("Starting batch mode...");
           GameEngineApp batchApp = new GameEngineApp(gameFile, "batch", inputFile, outputFile);
+          batchApp.setSeed(seed);
           batchApp.start();
           break;
 
+        case "-batchdir":
+          if (args.length < 4) {
+            System.out.println("Parallel batch mode requires a script source and an output directory");
+            printUsage();
+            return;
+          }
+          int threads = (args.length > 4) ? Integer.parseInt(args[4])
+                  : Runtime.getRuntime().availableProcessors();
+          runBatchScripts(gameFile, args[2], args[3], threads, seed);
+          break;
+
+        case "-events":
+        case "-replay":
+          if (args.length < 3) {
+            System.out.println("Event log modes require a log name");
+            printUsage();
+            return;
+          }
+          String logMode = mode.substring(1);
+          String logOutput = "-replay".equals(mode) && args.length > 3 ? args[3] : null;
+          GameEngineApp logApp = new GameEngineApp(gameFile, logMode, args[2], logOutput);
+          logApp.setSeed(seed);
+          logApp.start();
+          break;
+
+        case "-simulate":
+          long fights = (args.length > 2) ? Long.parseLong(args[2])
+                  : CombatSimulator.DEFAULT_FIGHTS;
+          int simThreads = (args.length > 3) ? Integer.parseInt(args[3])
+                  : Runtime.getRuntime().availableProcessors();
+          runSimulation(gameFile, fights, simThreads,
+                  seed != null ? seed : new SplittableRandom().nextLong());
+          break;
+
+        case "-solve":
+          if (args.length < 3) {
+            System.out.println("Solve mode requires a script file to write");
+            printUsage();
+            return;
+          }
+          int solveThreads = (args.length > 3) ? Integer.parseInt(args[3])
+                  : Runtime.getRuntime().availableProcessors();
+          int maxStates = (args.length > 4) ? Integer.parseInt(args[4])
+                  : PlaythroughSolver.DEFAULT_MAX_STATES;
+          runSolver(gameFile, args[2], solveThreads, maxStates);
+          break;
+
+        case "-server":
+        case "-shared":
+          if (args.length < 3) {
+            System.out.println("Server mode requires a port");
+            printUsage();
+            return;
+          }
+          int workers = (args.length > 3) ? Integer.parseInt(args[3])
+                  : Runtime.getRuntime().availableProcessors();
+          runServer(gameFile, Integer.parseInt(args[2]), workers, seed, mode.equals("-shared"));
+          break;
+
+        case "-daemon":
+          if (args.length < 3) {
+            System.out.println("Daemon mode requires a socket path or port");
+            printUsage();
+            return;
+          }
+          int jobWorkers = (args.length > 3) ? Integer.parseInt(args[3])
+                  : Runtime.getRuntime().availableProcessors();
+          runDaemon(gameFile, args[2], jobWorkers, (args.length > 4) ? args[4] : null);
+          break;
+
+        case "-submit":
+          if (args.length < 4) {
+            System.out.println("Submit mode requires the daemon's address and a script");
+            printUsage();
+            return;
+          }
+          String status = BatchDaemon.submit(args[2], gameFile, args[3],
+                  (args.length > 4) ? args[4] : null, seed, System.out);
+          if (status.startsWith("failed")) {
+            System.err.println("Batch job " + status);
+            System.exit(1);
+          }
+          break;
+
+        case "-compile":
+          // Precompile the game file into a binary world image
+          String imageFile = GameWorld.compileImage(gameFile);
+          System.out.println("Compiled " + gameFile + " to " + imageFile);
+          break;
+
         default:
           System.out.println("Invalid mode: " + mode);
           printUsage();
@@ -106,16 +238,177 @@ public class Main {
     app.start();
   }
 
+  /**
+   * Runs every script from a directory or list file concurrently and prints the summary.
+   *
+   * @param gameFile  the game file, loaded once for all scripts
+   * @param source    a directory of scripts or a file listing them
+   * @param outputDir the directory for transcripts and the summary
+   * @param threads   the number of scripts to run at once
+   * @param seed      the seed of the run, or null for unseeded sessions
+   * @throws IOException If there is an error loading the game or writing output
+   * @throws InterruptedException If interrupted while waiting for the scripts
+   */
+  private static void runBatchScripts(String gameFile, String source, String outputDir,
+                                      int threads, Long seed)
+          throws IOException, InterruptedException {
+    List<String> scripts = BatchRunner.listScripts(source);
+    System.out.println("Running " + scripts.size() + " batch scripts on " + threads + " threads...");
+    long start = System.nanoTime();
+    BatchRunner runner = new BatchRunner(WorldTemplate.load(gameFile), outputDir, threads, seed);
+    List<BatchRunner.Result> results = runner.run(scripts);
+    System.out.print(runner.writeSummary(results, System.nanoTime() - start));
+  }
+
+  /**
+   * Fights every monster in the game many times and prints the balance report.
+   *
+   * @param gameFile the game file
+   * @param fights   the number of fights per monster
+   * @param threads  the number of threads to fight on
+   * @param seed     the seed of the run, printed so the run can be repeated
+   * @throws IOException If there is an error loading the game
+   */
+  private static void runSimulation(String gameFile, long fights, int threads, long seed)
+          throws IOException {
+    CombatSimulator simulator = new CombatSimulator(WorldTemplate.load(gameFile));
+    System.out.println("Simulating " + fights + " fights per monster on " + threads + " threads...");
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    try {
+      long start = System.nanoTime();
+      List<CombatSimulator.Stats> results = simulator.run(fights, seed, pool);
+      System.out.print(CombatSimulator.report(results, System.nanoTime() - start, threads, seed));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Searches the game for its highest-scoring route and writes it as a batch script.
+   *
+   * @param gameFile   the game file
+   * @param scriptFile the batch script to write
+   * @param threads    the number of threads to search on
+   * @param maxStates  the number of states after which the search stops
+   * @throws IOException If there is an error loading the game or writing the script
+   */
+  private static void runSolver(String gameFile, String scriptFile, int threads, int maxStates)
+          throws IOException {
+    PlaythroughSolver solver = new PlaythroughSolver(WorldTemplate.load(gameFile));
+    System.out.println("Searching " + gameFile + " on " + threads + " threads...");
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    try {
+      long start = System.nanoTime();
+      PlaythroughSolver.Route route = solver.solve(pool, maxStates);
+      double seconds = (System.nanoTime() - start) / 1e9;
+      FileIoManager.writeOutput(scriptFile, route.toScript("Solver"));
+      System.out.printf("Score: %d of %d in %d commands%n", route.getScore(),
+              route.getMaxScore(), route.getCommands().size());
+      System.out.printf("States: %d in %.2f s (%.0f states/s)%s%n", route.getStates(), seconds,
+              seconds > 0 ? route.getStates() / seconds : 0.0,
+              route.isComplete() ? "" : ", stopped at the state limit");
+      System.out.println("Wrote " + scriptFile);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Serves the game to TCP clients on localhost until the process is stopped, printing the
+   * server's load every few seconds while it changes.
+   *
+   * @param gameFile the game file
+   * @param port     the port to listen on
+   * @param workers  the number of threads that run commands
+   * @param seed     the seed of the server, or null for unseeded sessions
+   * @param shared   true to put every connection into one world
+   * @throws IOException If there is an error loading the game or binding the port
+   * @throws InterruptedException If interrupted while serving
+   */
+  private static void runServer(String gameFile, int port, int workers, Long seed, boolean shared)
+          throws IOException, InterruptedException {
+    GameServer server = new GameServer(WorldTemplate.load(gameFile), port, workers, seed, shared);
+    server.start();
+    System.out.println("Serving " + gameFile + " on localhost:" + server.getPort()
+            + " with " + workers + " workers...");
+    int lastSessions = -1;
+    long lastCommands = -1;
+    while (true) {
+      Thread.sleep(STATUS_MILLIS);
+      if (server.getOpenSessions() != lastSessions || server.getCommandCount() != lastCommands) {
+        lastSessions = server.getOpenSessions();
+        lastCommands = server.getCommandCount();
+        System.out.println(server.status());
+      }
+    }
+  }
+
+  /**
+   * Runs batch jobs sent by clients until the process is stopped, printing the daemon's work
+   * every few seconds while it changes.
+   *
+   * @param gameFile the game file, loaded before the first job
+   * @param address  the Unix domain socket path, or the port on localhost, to listen on
+   * @param workers  the number of jobs run at once
+   * @param outDir   the directory jobs may write transcripts under, or null to only send them back
+   * @throws IOException If there is an error loading the game or binding the address
+   * @throws InterruptedException If interrupted while serving
+   */
+  private static void runDaemon(String gameFile, String address, int workers, String outDir)
+          throws IOException, InterruptedException {
+    BatchDaemon daemon = new BatchDaemon(address, workers, outDir);
+    daemon.preload(gameFile);
+    daemon.start();
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+      try {
+        daemon.close();
+      } catch (IOException | InterruptedException e) {
+        System.err.println("Error stopping daemon: " + e.getMessage());
+      }
+    }));
+    System.out.println("Running batch jobs on " + daemon.getAddress() + " with " + workers
+            + " workers, " + gameFile + " loaded...");
+    long lastJobs = 0;
+    while (true) {
+      Thread.sleep(STATUS_MILLIS);
+      if (daemon.getJobCount() != lastJobs) {
+        lastJobs = daemon.getJobCount();
+        System.out.println(daemon.status());
+      }
+    }
+  }
+
   /**
    * Prints usage information for the command-line interface.
    */
   private static void printUsage() {
-    System.out.println("Usage: java -jar game_engine.jar <game_file> [-text|-graphics|-batch <input_file> [output_file]]");
+    System.out.println("Usage: java -jar game_engine.jar <game_file> [-text|-graphics|-batch <input_file> [output_file]|-batchdir <scripts> <out_dir> [threads]|-events <log>|-replay <log> [output_file]|-simulate [fights] [threads]|-solve <script> [threads] [max_states]|-server <port> [workers]|-shared <port> [workers]|-daemon <address> [workers] [out_dir]|-submit <address> <script> [output_file]|-compile] [-seed <number>]");
     System.out.println("  <game_file>      : Path to the JSON game data file");
     System.out.println("  -text            : Run in interactive text mode");
     System.out.println("  -graphics        : Run in graphical mode using Swing UI");
     System.out.println("  -batch <in>      : Run in batch mode with commands from input file");
     System.out.println("  -batch <in> <out>: Run in batch mode with output to file");
+    System.out.println("  -batchdir <scripts> <out_dir> [threads]: Run a directory or list of batch scripts");
+    System.out.println("                   concurrently, one transcript each plus summary.txt");
+    System.out.println("  -events <log>    : Run in text mode, recording each turn in <log>.events with");
+    System.out.println("                   periodic snapshots; continues the session if the log exists");
+    System.out.println("  -replay <log> [out]: Replay a recorded session from the start");
+    System.out.println("  -simulate [fights] [threads]: Fight every monster many times and report win rates,");
+    System.out.println("                   turns, health lost and expected score");
+    System.out.println("  -solve <script> [threads] [max_states]: Search for the highest-scoring route and");
+    System.out.println("                   write it as a batch script");
+    System.out.println("  -server <port> [workers]: Serve the game to line-based TCP clients on localhost,");
+    System.out.println("                   one session per connection");
+    System.out.println("  -shared <port> [workers]: Like -server, but every connection plays in one world");
+    System.out.println("                   and sees what the others in the same room do");
+    System.out.println("  -daemon <address> [workers] [out_dir]: Run batch jobs sent to a Unix domain socket");
+    System.out.println("                   path or a port on localhost, keeping each game file loaded;");
+    System.out.println("                   jobs may write transcripts only under <out_dir>");
+    System.out.println("  -submit <address> <script> [out]: Run a script on a daemon; without <out> the");
+    System.out.println("                   transcript is printed; <out> must be under the daemon's out_dir");
+    System.out.println("  -compile         : Precompile the game file into a binary world image");
+    System.out.println("  -seed <number>   : Roll the same way every run; batch scripts may also use");
+    System.out.println("                   a line \"@seed <number>\"");
     System.out.println("\nWith no arguments, runs a default game in text mode.");
   }
 }
\ No newline at end of file
@@ -0,0 +1,382 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Headless combat simulator for balancing monsters against the player.
+ * Every monster in a game is fought many times with {@link Player#attack(Monster)} and
+ * {@link Monster#attack(Player)}: the player strikes first, then the monster strikes back,
+ * until one side is defeated. Fights are split across a fork/join pool; each leaf task sets up
+ * one player and one copy of the monster and resets them between fights, so fights allocate
+ * nothing.
+ *
+ * <p>Results depend only on the seed and the number of fights, not on the number of threads:
+ * every monster gets a seed drawn from the run's seed in name order, and every task hands
+ * seeds to its two halves before either one runs.
+ */
+public final class CombatSimulator {
+  /** Fights per monster unless the caller chooses otherwise. */
+  public static final int DEFAULT_FIGHTS = 1_000_000;
+
+  static final int MAX_TURNS = 1000;          // fights still going after this are unfinished
+  private static final int LEAF_FIGHTS = 1 << 16;
+
+  private final WorldTemplate template;
+  private final int attackPower;
+  private final int criticalChance;
+
+  /**
+   * The outcome of all fights against one monster.
+   */
+  public static final class Stats {
+    private final String monster;
+    private final int damage;
+    private final int value;
+    private final long fights;
+    private final long wins;
+    private final long losses;
+    private final long[] winTurns;      // wins by the number of turns they took
+    private final long[] healthLost;    // fights by the player's health lost
+
+    Stats(String monster, int damage, int value, long fights, long wins, long losses,
+          long[] winTurns, long[] healthLost) {
+      this.monster = monster;
+      this.damage = damage;
+      this.value = value;
+      this.fights = fights;
+      this.wins = wins;
+      this.losses = losses;
+      this.winTurns = winTurns;
+      this.healthLost = healthLost;
+    }
+
+    /**
+     * Gets the monster's name.
+     *
+     * @return the name
+     */
+    public String getMonster() {
+      return monster;
+    }
+
+    /**
+     * Gets the damage the monster does per attack.
+     *
+     * @return the damage
+     */
+    public int getDamage() {
+      return damage;
+    }
+
+    /**
+     * Gets the points the monster is worth.
+     *
+     * @return the value
+     */
+    public int getValue() {
+      return value;
+    }
+
+    /**
+     * Gets the number of fights.
+     *
+     * @return the fight count
+     */
+    public long getFights() {
+      return fights;
+    }
+
+    /**
+     * Gets the number of fights the player won.
+     *
+     * @return the win count
+     */
+    public long getWins() {
+      return wins;
+    }
+
+    /**
+     * Gets the number of fights the player lost.
+     *
+     * @return the loss count
+     */
+    public long getLosses() {
+      return losses;
+    }
+
+    /**
+     * Gets the number of fights neither side had won after {@value #MAX_TURNS} turns.
+     *
+     * @return the unfinished fight count
+     */
+    public long getUnfinished() {
+      return fights - wins - losses;
+    }
+
+    /**
+     * Gets the share of fights the player won.
+     *
+     * @return the win rate, from 0 to 1
+     */
+    public double getWinRate() {
+      return fights == 0 ? 0 : (double) wins / fights;
+    }
+
+    /**
+     * Gets the mean number of turns the player needed to defeat the monster.
+     *
+     * @return the mean turns over fights the player won, or 0 if there were none
+     */
+    public double getMeanTurnsToWin() {
+      return mean(winTurns, wins);
+    }
+
+    /**
+     * Gets the mean health the player lost per fight, won or lost.
+     *
+     * @return the mean health lost
+     */
+    public double getMeanHealthLost() {
+      return mean(healthLost, fights);
+    }
+
+    /**
+     * Gets a percentile of the health the player lost per fight.
+     *
+     * @param percent the percentile, from 0 to 100
+     * @return the smallest health loss at least that share of fights did not exceed
+     */
+    public int getHealthLostPercentile(double percent) {
+      long rank = Math.max(1, (long) Math.ceil(fights * percent / 100));
+      long seen = 0;
+      for (int lost = 0; lost < healthLost.length; lost++) {
+        seen += healthLost[lost];
+        if (seen >= rank) {
+          return lost;
+        }
+      }
+      return healthLost.length - 1;
+    }
+
+    /**
+     * Gets the score the player can expect from one fight with the monster.
+     *
+     * @return the monster's value times the win rate
+     */
+    public double getExpectedScore() {
+      return value * getWinRate();
+    }
+
+    private static double mean(long[] counts, long total) {
+      if (total == 0) {
+        return 0;
+      }
+      double sum = 0;
+      for (int i = 0; i < counts.length; i++) {
+        sum += (double) i * counts[i];
+      }
+      return sum / total;
+    }
+  }
+
+  /**
+   * Creates a simulator using the player's usual combat values.
+   *
+   * @param template the loaded game
+   */
+  public CombatSimulator(WorldTemplate template) {
+    this(template, Player.DEFAULT_ATTACK_POWER, Player.DEFAULT_CRITICAL_CHANCE);
+  }
+
+  /**
+   * Creates a simulator with other combat values for the player.
+   *
+   * @param template       the loaded game
+   * @param attackPower    the damage of a normal hit
+   * @param criticalChance the percent chance that a hit is critical and does double damage
+   * @throws IllegalArgumentException if either value is out of range
+   */
+  public CombatSimulator(WorldTemplate template, int attackPower, int criticalChance) {
+    if (attackPower < 0) {
+      throw new IllegalArgumentException("Attack power cannot be negative");
+    }
+    if (criticalChance < 0 || criticalChance > 100) {
+      throw new IllegalArgumentException("Critical chance must be from 0 to 100");
+    }
+    this.template = template;
+    this.attackPower = attackPower;
+    this.criticalChance = criticalChance;
+  }
+
+  /**
+   * Fights every monster in the game and waits for the results.
+   *
+   * @param fights the number of fights per monster
+   * @param seed   the seed of the run
+   * @param pool   the pool to fight on
+   * @return one result per monster, in name order
+   * @throws IllegalArgumentException if fights is negative
+   */
+  public List<Stats> run(long fights, long seed, ForkJoinPool pool) {
+    if (fights < 0) {
+      throw new IllegalArgumentException("Fight count cannot be negative");
+    }
+    Room arena = template.rooms().get(template.getStartRoomNumber());
+    if (arena == null) {
+      arena = new Room("Arena", "0", "", new HashMap<>(), "", "", "", "", "");
+    }
+
+    GameRandom seeds = new GameRandom(seed);
+    Map<String, Monster> monsters = new TreeMap<>(template.monsters());
+    List<ForkJoinTask<Tally>> tasks = new ArrayList<>(monsters.size());
+    for (Monster monster : monsters.values()) {
+      tasks.add(pool.submit(new Fights(arena, monster, 0, fights, seeds.nextSeed())));
+    }
+
+    List<Stats> results = new ArrayList<>(tasks.size());
+    int i = 0;
+    for (Monster monster : monsters.values()) {
+      Tally tally = tasks.get(i++).join();
+      results.add(new Stats(monster.getName(), Math.abs(monster.getDamage()), monster.getValue(),
+              fights, tally.wins, tally.losses, tally.winTurns, tally.healthLost));
+    }
+    return Collections.unmodifiableList(results);
+  }
+
+  /**
+   * Formats a table of per-monster results followed by the run's totals: win rate, mean turns
+   * to win, the player's health lost per fight (mean and percentiles) and expected score.
+   *
+   * @param results   the results of the run
+   * @param wallNanos the wall-clock time of the run in nanoseconds
+   * @param threads   the number of threads used
+   * @param seed      the seed of the run
+   * @return the report text
+   */
+  public static String report(List<Stats> results, long wallNanos, int threads, long seed) {
+    StringBuilder out = new StringBuilder();
+    out.append(String.format("%-24s %6s %6s %7s %7s %7s %5s %5s %5s %8s%n",
+            "Monster", "Damage", "Value", "Win%", "Turns", "HP lost", "p50", "p90", "p99",
+            "Score"));
+    long fights = 0;
+    double score = 0;
+    for (Stats stats : results) {
+      fights += stats.getFights();
+      score += stats.getExpectedScore();
+      out.append(String.format("%-24s %6d %6d %7.2f %7.2f %7.1f %5d %5d %5d %8.2f%n",
+              stats.getMonster(), stats.getDamage(), stats.getValue(),
+              stats.getWinRate() * 100, stats.getMeanTurnsToWin(), stats.getMeanHealthLost(),
+              stats.getHealthLostPercentile(50), stats.getHealthLostPercentile(90),
+              stats.getHealthLostPercentile(99), stats.getExpectedScore()));
+      if (stats.getUnfinished() > 0) {
+        out.append(String.format("  %d fights unfinished after %d turns%n",
+                stats.getUnfinished(), MAX_TURNS));
+      }
+    }
+
+    double seconds = wallNanos / 1e9;
+    out.append(String.format("%nMonsters: %d, expected score from defeating all: %.1f%n",
+            results.size(), score));
+    out.append(String.format("Fights: %d in %.2f s (%.0f fights/s) on %d threads%n",
+            fights, seconds, seconds > 0 ? fights / seconds : 0.0, threads));
+    out.append(String.format("Seed: %d%n", seed));
+    return out.toString();
+  }
+
+  /**
+   * Counts kept by one task and merged as tasks finish.
+   */
+  private static final class Tally {
+    private long wins;
+    private long losses;
+    private final long[] winTurns = new long[MAX_TURNS + 1];
+    private final long[] healthLost = new long[Player.MAX_HEALTH + 1];
+
+    private Tally add(Tally other) {
+      wins += other.wins;
+      losses += other.losses;
+      for (int i = 0; i < winTurns.length; i++) {
+        winTurns[i] += other.winTurns[i];
+      }
+      for (int i = 0; i < healthLost.length; i++) {
+        healthLost[i] += other.healthLost[i];
+      }
+      return this;
+    }
+  }
+
+  /**
+   * Runs a range of fights against one monster, halving the range until it is small enough
+   * to run on one thread. Tasks are never serialized.
+   */
+  @SuppressWarnings("serial")
+  private final class Fights extends RecursiveTask<Tally> {
+    private final Room arena;
+    private final Monster definition;
+    private final long from;
+    private final long to;
+    private final long seed;
+
+    private Fights(Room arena, Monster definition, long from, long to, long seed) {
+      this.arena = arena;
+      this.definition = definition;
+      this.from = from;
+      this.to = to;
+      this.seed = seed;
+    }
+
+    @Override
+    protected Tally compute() {
+      if (to - from <= LEAF_FIGHTS) {
+        return fight();
+      }
+      GameRandom seeds = new GameRandom(seed);
+      long middle = (from + to) >>> 1;
+      Fights left = new Fights(arena, definition, from, middle, seeds.nextSeed());
+      Fights right = new Fights(arena, definition, middle, to, seeds.nextSeed());
+      right.fork();
+      return left.compute().add(right.join());
+    }
+
+    /**
+     * Runs every fight in the range on one player and one copy of the monster.
+     */
+    private Tally fight() {
+      Tally tally = new Tally();
+      Player player = new Player(arena, attackPower, criticalChance);
+      player.setRandom(new GameRandom(seed));
+      Monster monster = new Monster(definition.getName(), definition.getDescription(), true,
+              definition.getDamage(), definition.canAttack(), definition.getAttackDescription(),
+              definition.getEffects(), definition.getValue(), definition.getSolution(),
+              definition.getTarget());
+
+      for (long i = from; i < to; i++) {
+        player.setHealth(Player.MAX_HEALTH);
+        monster.revive();
+        for (int turn = 1; turn <= MAX_TURNS; turn++) {
+          player.attack(monster);
+          if (!monster.isActive()) {
+            tally.wins++;
+            tally.winTurns[turn]++;
+            break;
+          }
+          monster.attack(player);
+          if (player.getHealth() == 0) {
+            tally.losses++;
+            break;
+          }
+        }
+        tally.healthLost[Player.MAX_HEALTH - player.getHealth()]++;
+      }
+      return tally;
+    }
+  }
+}
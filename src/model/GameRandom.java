@@ -0,0 +1,106 @@
+package model;
+
+import java.util.SplittableRandom;
+
+/**
+ * Source of random numbers for one game session.
+ * Each session owns its own stream, so sessions running on different threads never share
+ * random state, and a session started from the same seed makes the same draws.
+ *
+ * <p>The stream is the one {@link SplittableRandom} makes from the same seed: the n-th draw
+ * mixes the seed plus n times a fixed odd constant. Every draw consumes exactly one number, so
+ * a saved seed and draw count put a restored session back at the same point in its stream,
+ * and getting there is one multiplication rather than a replay of every draw.
+ */
+public final class GameRandom {
+  private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+  private final long seed;
+  private long state;
+  private long draws;
+
+  /**
+   * Creates a random source from a seed.
+   *
+   * @param seed the seed
+   */
+  public GameRandom(long seed) {
+    this.seed = seed;
+    this.state = seed;
+  }
+
+  /**
+   * Creates a random source with a seed of its own choosing, which {@link #getSeed()} reports.
+   *
+   * @return the random source
+   */
+  public static GameRandom unseeded() {
+    return new GameRandom(new SplittableRandom().nextLong());
+  }
+
+  /**
+   * Recreates a random source that has already made some draws.
+   *
+   * @param seed  the seed it was created from
+   * @param draws the number of draws it had made
+   * @return the random source, ready for its next draw
+   */
+  static GameRandom restore(long seed, long draws) {
+    GameRandom restored = new GameRandom(seed);
+    restored.state = seed + draws * GOLDEN_GAMMA;
+    restored.draws = draws;
+    return restored;
+  }
+
+  /**
+   * Draws true with the given chance.
+   *
+   * @param percent the chance of true, from 0 to 100
+   * @return true with the given chance
+   */
+  public boolean chance(int percent) {
+    double roll = (nextLong() >>> 11) * 0x1.0p-53;   // uniform in [0, 1)
+    return roll * 100 < percent;
+  }
+
+  /**
+   * Draws a seed for another session's random source. Seeds drawn in the same order from
+   * the same source are the same no matter which threads the sessions later run on.
+   *
+   * @return the new seed
+   */
+  public long nextSeed() {
+    return nextLong();
+  }
+
+  /**
+   * Makes one draw, as {@link SplittableRandom#nextLong()} does.
+   *
+   * @return the next number in the stream
+   */
+  private long nextLong() {
+    draws++;
+    long z = state += GOLDEN_GAMMA;
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+
+  /**
+   * Gets the seed this source was created from.
+   *
+   * @return the seed
+   */
+  public long getSeed() {
+    return seed;
+  }
+
+  /**
+   * Gets the number of draws made so far.
+   *
+   * @return the draw count
+   */
+  long getDraws() {
+    return draws;
+  }
+}
@@ -1,14 +1,19 @@
 package model;
 
+import java.io.File;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.Serial;
 import java.io.Serializable;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
@@ -18,12 +23,19 @@ import org.json.simple.parser.ParseException;
  * Represents the game world model containing all game elements and state.
  * This class manages rooms, items, fixtures, puzzles, monsters, and the player.
  * It handles game data loading, saving, and various game mechanics.
+ *
+ * <p>More players can join the world with {@link #addPlayer(String)}, each played by one thread
+ * at a time. Joined players change the world only through {@link #takeItem}, {@link #dropItem},
+ * {@link #move}, {@link #attack} and {@link #applySolution(Player, String)}, which hold the
+ * locks of the rooms they touch (see {@link RoomLocks}), so two players taking the same item or
+ * fighting the same monster never both succeed.
  */
 public class GameWorld implements  Serializable {
   @Serial
   private static final long serialVersionUID = 1L;
 
   // Game metadata
+  private String gameFileName;
   private String gameName;
   private String version;
 
@@ -36,6 +48,22 @@ public class GameWorld implements  Serializable {
 
   // Player
   private Player player;
+  private GameRandom random = GameRandom.unseeded();
+  private String startRoomNumber;
+
+  // Players who joined with addPlayer, and the locks they take; made when the first one joins
+  private transient List<Player> players;
+  private transient volatile RoomLocks locks;
+  private transient Map<Item, List<Room>> sharedItems;   // items held by more than one room
+
+  // Incremental saves to the file last saved or loaded; used on the game thread only
+  private transient SaveJournal saveJournal;
+
+  // Item, monster, puzzle and exit indexes; built on the first query and kept up to date by
+  // the rooms, puzzles and monsters themselves
+  private transient WorldIndex index;
+
+  private static final Direction[] DIRECTIONS = Direction.values();
 
   /**
    * Default no-argument constructor for testing only.
@@ -63,303 +91,243 @@ public class GameWorld implements  Serializable {
     this.puzzles = new HashMap<>();
     this.monsters = new HashMap<>();
 
-    try {
-      loadGameData(gameFileName);
-    } catch (Exception e) {
-      throw new IOException("Error loading game data: " + e.getMessage(), e);
-    }
+    loadWorld(gameFileName);
 
     // Initialize player in the first room
     if (!rooms.isEmpty()) {
       Room startRoom = rooms.values().iterator().next(); // Get the first room
       this.player = new Player(startRoom);
+      player.setRandom(random);
+      this.startRoomNumber = startRoom.getRoomNumber();
     } else {
       throw new IOException("No rooms defined in the game file.");
     }
   }
 
   /**
-   * Loads and parses game data from the specified JSON file.
-   * Initializes game elements including items, fixtures, puzzles, monsters, and rooms.
+   * Constructs a new game session on a shared world template.
+   * Rooms, items, puzzles and monsters are copied from the template as the session first looks
+   * them up; fixtures have no session state and are shared.
    *
-   * @param gameFileName Path to the JSON file containing game data
-   * @throws IOException    If there is an error reading the file
-   * @throws ParseException If there is an error parsing the JSON data
+   * @param template the loaded world template
    */
-  private void loadGameData(String gameFileName) throws IOException,
-          org.json.simple.parser.ParseException {
-    JSONParser parser = new JSONParser();
-
-    try (FileReader reader = new FileReader(gameFileName)) {
-      JSONObject gameData = (JSONObject) parser.parse(reader);
-
-      // Load game metadata
-      this.gameName = (String) gameData.get("name");
-      this.version = (String) gameData.get("version");
-
-      // Load items first so they can be referenced by rooms
-      if (gameData.containsKey("items")) {
-        loadItems((JSONArray) gameData.get("items"));
-      }
-
-      // Load fixtures
-      if (gameData.containsKey("fixtures")) {
-        loadFixtures((JSONArray) gameData.get("fixtures"));
-      }
-
-      // Load puzzles
-      if (gameData.containsKey("puzzles")) {
-        loadPuzzles((JSONArray) gameData.get("puzzles"));
-      }
-
-      // Load monsters
-      if (gameData.containsKey("monsters")) {
-        loadMonsters((JSONArray) gameData.get("monsters"));
-      }
-
-      // Load rooms (must be loaded last)
-      if (gameData.containsKey("rooms")) {
-        loadRooms((JSONArray) gameData.get("rooms"));
-      } else {
-        throw new IOException("No rooms defined in the game file.");
-      }
-
-    } catch (IOException e) {
-      throw e;
-    } catch (org.json.simple.parser.ParseException e) {
-      throw e;
-    }
+  GameWorld(WorldTemplate template) {
+    this.gameFileName = template.getGameFileName();
+    this.gameName = template.getGameName();
+    this.version = template.getVersion();
+    this.fixtures = template.fixtures();
+    this.items = new SessionMap<>(template, template.items(), GameWorld::copyItem);
+    this.puzzles = new SessionMap<>(template, template.puzzles(), GameWorld::copyPuzzle);
+    this.monsters = new SessionMap<>(template, template.monsters(), GameWorld::copyMonster);
+    this.rooms = new SessionMap<>(template, template.rooms(), this::copyRoom);
+    this.startRoomNumber = template.getStartRoomNumber();
+    this.player = new Player(rooms.get(startRoomNumber));
+    player.setRandom(random);
   }
 
   /**
-   * Loads room data from the JSON array and creates Room objects.
-   * Links rooms with items, fixtures, puzzles, and monsters as specified.
+   * Loads a game file into a world template that sessions can share.
    *
-   * @param roomsArray The JSON array containing room data
+   * @param gameFileName the path to the JSON file containing game data
+   * @return the loaded template
+   * @throws IOException If there is an error reading or parsing the game file
    */
-  private void loadRooms(JSONArray roomsArray) {
-    for (Object obj : roomsArray) {
-      JSONObject roomData = (JSONObject) obj;
-
-      String roomName = (String) roomData.get("room_name");
-      String roomNumber = (String) roomData.get("room_number");
-      String description = (String) roomData.get("description");
-
-      // Parse exits
-      Map<Direction, String> exits = new HashMap<>();
-      exits.put(Direction.NORTH, (String) roomData.get("N"));
-      exits.put(Direction.SOUTH, (String) roomData.get("S"));
-      exits.put(Direction.EAST, (String) roomData.get("E"));
-      exits.put(Direction.WEST, (String) roomData.get("W"));
-
-      // Create room
-      Room room = new Room(roomName, roomNumber, description, exits,
-              0, 0, 0, 0, "itemsField", "field3");
-
-      // Add items to room if present
-      String itemsList = (String) roomData.get("items");
-      if (itemsList != null && !itemsList.isEmpty()) {
-        for (String itemName : itemsList.split(",")) {
-          Item item = items.get(itemName.trim().toUpperCase());
-          if (item != null) {
-            room.addItem(item);
-          }
-        }
-      }
-
-      // Add fixtures to room if present
-      String fixturesList = (String) roomData.get("fixtures");
-      if (fixturesList != null && !fixturesList.isEmpty()) {
-        for (String fixtureName : fixturesList.split(",")) {
-          Fixture fixture = fixtures.get(fixtureName.trim().toUpperCase());
-          if (fixture != null) {
-            room.addFixture(fixture);
-          }
-        }
-      }
-
-      // Add puzzle to room if present
-      String puzzleName = (String) roomData.get("puzzle");
-      if (puzzleName != null && !puzzleName.isEmpty()) {
-        Puzzle puzzle = puzzles.get(puzzleName.trim().toUpperCase());
-        if (puzzle != null) {
-          room.setPuzzle(puzzle);
-        }
-      }
-
-      // Add monster to room if present
-      String monsterName = (String) roomData.get("monster");
-      if (monsterName != null && !monsterName.isEmpty()) {
-        Monster monster = monsters.get(monsterName.trim().toUpperCase());
-        if (monster != null) {
-          room.setMonster(monster);
-        }
-      }
-
-      // Add room to map
-      rooms.put(roomNumber, room);
+  static WorldTemplate loadTemplate(String gameFileName) throws IOException {
+    GameWorld world = new GameWorld();
+    world.loadWorld(gameFileName);
+    if (world.rooms.isEmpty()) {
+      throw new IOException("No rooms defined in the game file.");
     }
-
-    // Connect rooms after all rooms are loaded
-    connectRooms();
+    String startRoomNumber = world.rooms.keySet().iterator().next();
+    return new WorldTemplate(world.gameFileName, world.gameName, world.version, world.rooms,
+            world.items, world.fixtures, world.puzzles, world.monsters, startRoomNumber);
   }
 
   /**
-   * Loads item data from the JSON array and creates Item objects.
+   * Loads game elements from a precompiled world image when one is current, or otherwise
+   * from the JSON game file.
    *
-   * @param itemsArray The JSON array containing item data
+   * @param gameFileName the path to the JSON file containing game data
+   * @throws IOException If there is an error reading or parsing the game file
    */
-  private void loadItems(JSONArray itemsArray) {
-    if (itemsArray == null) {
-      return;
-    }
-
-    for (Object obj : itemsArray) {
-      JSONObject itemData = (JSONObject) obj;
-
-      String name = (String) itemData.get("name");
-      int weight = parseIntOrDefault(itemData.get("weight"), 1);
-      int maxUses = parseIntOrDefault(itemData.get("max_uses"), 1);
-      int usesRemaining = parseIntOrDefault(itemData.get("uses_remaining"), 1);
-      int value = parseIntOrDefault(itemData.get("value"), 0);
-      String whenUsed = (String) itemData.get("when_used");
-      String description = (String) itemData.get("description");
-
-      Item item = new Item(name, weight, maxUses, usesRemaining, value, whenUsed, description);
-      items.put(name.toUpperCase(), item);
+  private void loadWorld(String gameFileName) throws IOException {
+    this.gameFileName = gameFileName;
+    WorldImage image = WorldImage.openIfCurrent(gameFileName);
+    if (image != null) {
+      openImage(image);
+    } else {
+      try {
+        loadGameData(gameFileName);
+      } catch (Exception e) {
+        throw new IOException("Error loading game data: " + e.getMessage(), e);
+      }
     }
   }
 
   /**
-   * Loads fixture data from the JSON array and creates Fixture objects.
+   * Loads and parses game data from the specified JSON file.
+   * The file is read as a token stream by {@link WorldLoader}, which builds items, fixtures,
+   * puzzles, monsters, and rooms as it goes and resolves forward references at the end.
    *
-   * @param fixturesArray The JSON array containing fixture data
+   * @param gameFileName Path to the JSON file containing game data
+   * @throws IOException    If there is an error reading the file
+   * @throws ParseException If there is an error parsing the JSON data
    */
-  private void loadFixtures(JSONArray fixturesArray) {
-    if (fixturesArray == null) {
-      return;
-    }
-
-    for (Object obj : fixturesArray) {
-      JSONObject fixtureData = (JSONObject) obj;
+  private void loadGameData(String gameFileName) throws IOException,
+          org.json.simple.parser.ParseException {
+    WorldLoader loader = new WorldLoader(rooms, items, fixtures, puzzles, monsters);
+    loader.load(gameFileName);
 
-      String name = (String) fixtureData.get("name");
-      int weight = parseIntOrDefault(fixtureData.get("weight"), 1000);
-      String description = (String) fixtureData.get("description");
+    // Load game metadata
+    this.gameName = loader.getGameName();
+    this.version = loader.getVersion();
 
-      Fixture fixture = new Fixture(name, weight, description);
-      fixtures.put(name.toUpperCase(), fixture);
-    }
+    // Connect rooms after all rooms are loaded
+    connectRooms();
   }
 
   /**
-   * Loads puzzle data from the JSON array and creates Puzzle objects.
+   * Uses a precompiled world image as the source of game elements.
+   * Rooms and other elements are built from the image as they are first looked up.
    *
-   * @param puzzlesArray The JSON array containing puzzle data
+   * @param image the opened world image
    */
-  private void loadPuzzles(JSONArray puzzlesArray) {
-    if (puzzlesArray == null) {
-      return;
-    }
-
-    for (Object obj : puzzlesArray) {
-      JSONObject puzzleData = (JSONObject) obj;
-
-      String name = (String) puzzleData.get("name");
-      boolean active = Boolean.parseBoolean((String) puzzleData.get("active"));
-      boolean affectsTarget = Boolean.parseBoolean((String) puzzleData.get("affects_target"));
-      boolean affectsPlayer = Boolean.parseBoolean((String) puzzleData.get("affects_player"));
-      String solution = (String) puzzleData.get("solution");
-      int value = parseIntOrDefault(puzzleData.get("value"), 0);
-      String description = (String) puzzleData.get("description");
-      String effects = (String) puzzleData.get("effects");
-      String target = (String) puzzleData.get("target");
-
-      Puzzle puzzle = new Puzzle(name, active, affectsTarget, affectsPlayer, solution, value,
-              description, effects, target);
-      puzzles.put(name.toUpperCase(), puzzle);
-    }
+  private void openImage(WorldImage image) {
+    this.gameName = image.getGameName();
+    this.version = image.getVersion();
+    this.rooms = image.rooms();
+    this.items = image.items();
+    this.fixtures = image.fixtures();
+    this.puzzles = image.puzzles();
+    this.monsters = image.monsters();
   }
 
   /**
-   * Loads monster data from the JSON array and creates Monster objects.
+   * Compiles a JSON game file into a binary world image stored next to it.
+   * Later GameWorlds created from the same game file open the image instead of parsing
+   * the JSON, for as long as the game file is unchanged.
    *
-   * @param monstersArray The JSON array containing monster data
+   * @param gameFileName the path to the JSON file containing game data
+   * @return the path of the written image
+   * @throws IOException If the game file cannot be loaded or the image cannot be written
    */
-  private void loadMonsters(JSONArray monstersArray) {
-    if (monstersArray == null) {
-      return;
+  public static String compileImage(String gameFileName) throws IOException {
+    GameWorld world = new GameWorld();
+    try {
+      world.loadGameData(gameFileName);
+    } catch (Exception e) {
+      throw new IOException("Error loading game data: " + e.getMessage(), e);
     }
-
-    for (Object obj : monstersArray) {
-      JSONObject monsterData = (JSONObject) obj;
-
-      String name = (String) monsterData.get("name");
-      String description = (String) monsterData.get("description");
-      boolean active = Boolean.parseBoolean((String) monsterData.get("active"));
-      int damage = parseIntOrDefault(monsterData.get("damage"), 5);
-      boolean canAttack = Boolean.parseBoolean((String) monsterData.get("can_attack"));
-      String attackDescription = (String) monsterData.get("attack");
-      String effects = (String) monsterData.get("effects");
-      int value = parseIntOrDefault(monsterData.get("value"), 0);
-      String solution = (String) monsterData.get("solution");
-      String target = (String) monsterData.get("target");
-
-      Monster monster = new Monster(name, description, active, damage, canAttack,
-              attackDescription, effects, value, solution, target);
-      monsters.put(name.toUpperCase(), monster);
+    if (world.rooms.isEmpty()) {
+      throw new IOException("No rooms defined in the game file.");
     }
+    return WorldImage.write(gameFileName, world.gameName, world.version, world.rooms,
+            world.items, world.fixtures, world.puzzles, world.monsters);
   }
 
   /**
    * Establishes connections between rooms based on exit information.
    * This is called after all rooms are loaded to ensure all room references exist.
+   * Blocked exits are linked too; they stay closed until their room is unblocked.
    */
   private void connectRooms() {
     for (Room room : rooms.values()) {
-      for (Direction dir : Direction.values()) {
-        String targetRoomNumber = room.getExitRoomNumber(dir);
-
-        // Skip if no exit in this direction (0) or if there's a puzzle/monster blocking (-n)
-        if (targetRoomNumber.equals("0")) {
-          continue;
-        }
-
-        // If positive, direct connection to another room
-        if (Integer.parseInt(targetRoomNumber) > 0) {
-          Room targetRoom = rooms.get(targetRoomNumber);
-          if (targetRoom != null) {
-            room.setExit(dir, targetRoom);
-          }
-        }
-        // If negative, there's a puzzle or monster blocking; will handle this during gameplay
+      for (Direction dir : DIRECTIONS) {
+        linkExit(room, dir);
       }
     }
   }
 
   /**
-   * Utility method to parse integer values from JSON, providing a default if parsing fails.
+   * Links an exit to the room its room number refers to.
    *
-   * @param value        The value to parse
-   * @param defaultValue The default value to return if parsing fails
-   * @return The parsed integer value or the default value
+   * @param room the room the exit leaves from
+   * @param dir  the direction of the exit
    */
-  private int parseIntOrDefault(Object value, int defaultValue) {
-    if (value == null) {
-      return defaultValue;
+  private void linkExit(Room room, Direction dir) {
+    int targetNumber = Math.abs(room.getExitNumber(dir));
+    if (targetNumber != 0) {
+      Room targetRoom = findRoom(targetNumber);
+      if (targetRoom != null) {
+        room.setExit(dir, targetRoom);
+      }
     }
+  }
 
-    try {
-      if (value instanceof String) {
-        return Integer.parseInt((String) value);
-      } else if (value instanceof Number) {
-        return ((Number) value).intValue();
+  /**
+   * Finds a room by its numeric room number.
+   *
+   * @param number the room number
+   * @return the room, or null if not found
+   */
+  private Room findRoom(int number) {
+    return rooms.get(Integer.toString(number));
+  }
+
+  /**
+   * Creates this session's copy of a room definition.
+   * The copy holds this session's items, puzzle and monster, and its exits lead to this
+   * session's rooms.
+   *
+   * @param definition the room definition from the template
+   * @return the session copy
+   */
+  private Room copyRoom(Room definition) {
+    Room room = new Room(definition);
+    for (Item item : definition.getItems()) {
+      Item copy = items.get(item.getName().toUpperCase());
+      if (copy != null) {
+        room.addItem(copy);
       }
-    } catch (NumberFormatException e) {
-      // Ignore and return default
     }
+    for (Fixture fixture : definition.getFixtureList()) {
+      room.addFixture(fixture);
+    }
+    if (definition.getPuzzle() != null) {
+      room.setPuzzle(puzzles.get(definition.getPuzzle().getName().toUpperCase()));
+    }
+    if (definition.getMonster() != null) {
+      room.setMonster(monsters.get(definition.getMonster().getName().toUpperCase()));
+    }
+    room.setExitResolver(direction -> findRoom(Math.abs(room.getExitNumber(direction))));
+    return room;
+  }
 
-    return defaultValue;
+  /**
+   * Creates a session copy of an item definition.
+   *
+   * @param definition the item definition
+   * @return the session copy
+   */
+  private static Item copyItem(Item definition) {
+    return new Item(definition.getName(), definition.getWeight(), definition.getMaxUses(),
+            definition.getUsesRemaining(), definition.getValue(), definition.getWhenUsed(),
+            definition.getDescription());
+  }
+
+  /**
+   * Creates a session copy of a puzzle definition.
+   *
+   * @param definition the puzzle definition
+   * @return the session copy
+   */
+  private static Puzzle copyPuzzle(Puzzle definition) {
+    return new Puzzle(definition.getName(), definition.isActive(), definition.affectsTarget(),
+            definition.affectsPlayer(), definition.getSolution(), definition.getValue(),
+            definition.getDescription(), definition.getEffects(), definition.getTarget());
+  }
+
+  /**
+   * Creates a session copy of a monster definition.
+   *
+   * @param definition the monster definition
+   * @return the session copy
+   */
+  private static Monster copyMonster(Monster definition) {
+    return new Monster(definition.getName(), definition.getDescription(), definition.isActive(),
+            definition.getDamage(), definition.canAttack(), definition.getAttackDescription(),
+            definition.getEffects(), definition.getValue(), definition.getSolution(),
+            definition.getTarget());
   }
 
   /**
@@ -380,6 +348,28 @@ public class GameWorld implements  Serializable {
     player.setName(name);
   }
 
+  /**
+   * Restarts the session's random stream from a seed, so that the same commands produce
+   * the same combat results.
+   *
+   * @param seed the seed
+   */
+  public void setSeed(long seed) {
+    random = new GameRandom(seed);
+    if (player != null) {
+      player.setRandom(random);
+    }
+  }
+
+  /**
+   * Gets the seed of the session's random stream.
+   *
+   * @return the seed
+   */
+  public long getSeed() {
+    return random.getSeed();
+  }
+
   /**
    * Gets a room by its unique room number.
    *
@@ -400,6 +390,62 @@ public class GameWorld implements  Serializable {
     return puzzles.get(name.toUpperCase());
   }
 
+  /**
+   * Finds the rooms an item is lying in. Items the player carries are in no room.
+   *
+   * @param itemName the name of the item, in any case
+   * @return a read-only view of the room numbers, kept up to date as the game goes on
+   */
+  public Set<String> findItem(String itemName) {
+    return index().itemRooms(itemName);
+  }
+
+  /**
+   * Gets the rooms whose monster has not been defeated.
+   *
+   * @return a read-only view of the room numbers, kept up to date as the game goes on
+   */
+  public Set<String> getRoomsWithActiveMonsters() {
+    return index().activeMonsterRooms();
+  }
+
+  /**
+   * Gets the rooms whose puzzle has not been solved.
+   *
+   * @return a read-only view of the room numbers, kept up to date as the game goes on
+   */
+  public Set<String> getRoomsWithUnsolvedPuzzles() {
+    return index().unsolvedPuzzleRooms();
+  }
+
+  /**
+   * Gets every blocked exit in the world.
+   *
+   * @return a read-only view from room number to the room's blocked directions, listing only
+   *         rooms with a blocked exit and kept up to date as the game goes on
+   */
+  public Map<String, Set<Direction>> getBlockedExits() {
+    return index().blockedExits();
+  }
+
+  /**
+   * Gets the world's indexes, building them on first use.
+   * Building looks at every room once, so a session on a template copies all of its rooms;
+   * from then on each change to a room, puzzle or monster updates the indexes directly.
+   *
+   * @return the indexes
+   */
+  private WorldIndex index() {
+    if (index == null) {
+      WorldIndex built = new WorldIndex();
+      for (Room room : rooms.values()) {
+        built.add(room);
+      }
+      index = built;
+    }
+    return index;
+  }
+
   /**
    * Gets the name of the game.
    *
@@ -418,6 +464,34 @@ public class GameWorld implements  Serializable {
    * @return true if the solution was successful, false otherwise
    */
   public boolean applySolution(String solution) {
+    return applySolution(player, solution);
+  }
+
+  /**
+   * Attempts to solve a puzzle or defeat a monster in a player's current room by applying the
+   * provided solution. Only one player can solve each puzzle or defeat each monster.
+   * If successful, updates that player's score and unblocks any paths that were blocked.
+   *
+   * @param player   the player applying the solution
+   * @param solution The solution to apply
+   * @return true if the solution was successful, false otherwise
+   */
+  public boolean applySolution(Player player, String solution) {
+    RoomLocks roomLocks = locks;
+    if (roomLocks == null) {
+      return solve(player, solution);
+    }
+    return roomLocks.withRoom(player.getCurrentRoom(), () -> solve(player, solution));
+  }
+
+  /**
+   * Applies a solution in a player's current room, with the room locked if the world is shared.
+   *
+   * @param player   the player applying the solution
+   * @param solution the solution
+   * @return true if the solution was successful
+   */
+  private boolean solve(Player player, String solution) {
     Room currentRoom = player.getCurrentRoom();
 
     // Check if there's a puzzle in the room
@@ -428,19 +502,7 @@ public class GameWorld implements  Serializable {
         player.addScore(puzzle.getValue());
 
         // Unblock paths
-        for (Direction dir : Direction.values()) {
-          String exitNumber = currentRoom.getExitRoomNumber(dir);
-          if (Integer.parseInt(exitNumber) < 0) {
-            // Convert negative to positive to unblock
-            currentRoom.setExitRoomNumber(dir,
-                    String.valueOf(Math.abs(Integer.parseInt(exitNumber))));
-            // Set the actual exit
-            Room targetRoom = rooms.get(String.valueOf(Math.abs(Integer.parseInt(exitNumber))));
-            if (targetRoom != null) {
-              currentRoom.setExit(dir, targetRoom);
-            }
-          }
-        }
+        currentRoom.unblockExits();
         return true;
       }
     }
@@ -454,84 +516,398 @@ public class GameWorld implements  Serializable {
         player.addScore(monster.getValue());
 
         // Unblock paths
-        for (Direction dir : Direction.values()) {
-          String exitNumber = currentRoom.getExitRoomNumber(dir);
-          if (Integer.parseInt(exitNumber) < 0) {
-            // Convert negative to positive to unblock
-            currentRoom.setExitRoomNumber(dir, String.valueOf(Math.abs
-                    (Integer.parseInt(exitNumber))));
-            // Set the actual exit
-            Room targetRoom = rooms.get(String.valueOf(Math.abs(Integer.parseInt(exitNumber))));
-            if (targetRoom != null) {
-              currentRoom.setExit(dir, targetRoom);
+        currentRoom.unblockExits();
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Adds a player to the world, in the room the game starts in. The first player to join makes
+   * the world shared: every room, item, puzzle and monster is built up front so that players
+   * only read the world's maps from then on. Each player rolls its own random stream, drawn from
+   * the world's.
+   *
+   * @param name the player's name
+   * @return the new player
+   * @throws IllegalStateException if the world has no start room
+   */
+  public synchronized Player addPlayer(String name) {
+    Room startRoom = startRoomNumber == null ? null : rooms.get(startRoomNumber);
+    if (startRoom == null) {
+      throw new IllegalStateException("Game world has no start room");
+    }
+    if (locks == null) {
+      share();
+    }
+    Player joined = new Player(startRoom);
+    joined.setName(name);
+    joined.setRandom(new GameRandom(random.nextSeed()));
+    locks.withRoom(startRoom, () -> {
+      startRoom.addOccupant(joined);
+      return null;
+    });
+    players.add(joined);
+    return joined;
+  }
+
+  /**
+   * Builds every element of a session and resolves every exit, then makes the room locks.
+   * Rooms holding the same puzzle, monster or item share a lock.
+   */
+  private void share() {
+    RoomLocks roomLocks = new RoomLocks(Math.max(16, Runtime.getRuntime().availableProcessors() * 8));
+    Map<Object, Room> firstHolder = new IdentityHashMap<>();
+    Map<Item, List<Room>> holders = new IdentityHashMap<>();
+    // Iterating a session's maps copies every element not yet copied from the template
+    for (Map<String, ?> elements : List.of(items, puzzles, monsters, rooms)) {
+      for (Object element : elements.values()) {
+        if (element instanceof Room room) {
+          room.resolveExits();
+          List<Object> held = new ArrayList<>(room.getItems());
+          held.add(room.getPuzzle());
+          held.add(room.getMonster());
+          for (Object shared : held) {
+            Room other = shared == null ? null : firstHolder.putIfAbsent(shared, room);
+            if (other != null) {
+              roomLocks.guardTogether(other, room);
+              if (shared instanceof Item item) {
+                holders.computeIfAbsent(item, first -> new ArrayList<>(List.of(other))).add(room);
+              }
             }
           }
         }
-        return true;
       }
     }
+    players = new CopyOnWriteArrayList<>();
+    sharedItems = holders;
+    locks = roomLocks;
+  }
 
-    return false;
+  /**
+   * Gets the players who joined with {@link #addPlayer(String)}.
+   *
+   * @return a read-only snapshot of the players, in the order they joined
+   */
+  public List<Player> getPlayers() {
+    return locks == null ? List.of() : List.copyOf(players);
+  }
+
+  /**
+   * Gets the joined players in a room.
+   *
+   * @param room the room
+   * @return a copy of the list of players in the room
+   */
+  public List<Player> getPlayersIn(Room room) {
+    RoomLocks roomLocks = locks;
+    if (roomLocks == null) {
+      return new ArrayList<>();
+    }
+    return roomLocks.withRoom(room, room::getOccupants);
+  }
+
+  /**
+   * Moves a player of a shared world through an exit of their room, holding the locks of
+   * both rooms.
+   *
+   * @param player    the player
+   * @param direction the direction to move
+   * @return true if the player moved, false if there is no exit or it is blocked
+   * @throws IllegalStateException if no player has joined the world
+   */
+  public boolean move(Player player, Direction direction) {
+    Room from = player.getCurrentRoom();
+    Room to = from.getLinkedExit(direction);
+    if (to == null) {
+      return false;
+    }
+    return sharedLocks().withRooms(from, to, () -> {
+      if (from.getExit(direction) != to) {
+        return false;
+      }
+      from.removeOccupant(player);
+      to.addOccupant(player);
+      player.setCurrentRoom(to);
+      return true;
+    });
+  }
+
+  /**
+   * Takes a player of a shared world out of their room, for front ends that hand players from
+   * room to room themselves, such as room actors, rather than through {@link #move}. Only the
+   * room's list of players is locked; the caller must be the only one moving the player.
+   *
+   * @param player the player
+   * @throws IllegalStateException if no player has joined the world
+   */
+  public void leaveRoom(Player player) {
+    Room room = player.getCurrentRoom();
+    sharedLocks().withRoom(room, () -> {
+      room.removeOccupant(player);
+      return null;
+    });
+  }
+
+  /**
+   * Puts a player of a shared world into a room they were let go to with
+   * {@link #leaveRoom(Player)}. Only the room's list of players is locked; the caller must be
+   * the only one moving the player.
+   *
+   * @param player the player
+   * @param room   the room entered
+   * @throws IllegalStateException if no player has joined the world
+   */
+  public void enterRoom(Player player, Room room) {
+    sharedLocks().withRoom(room, () -> {
+      room.addOccupant(player);
+      player.setCurrentRoom(room);
+      return null;
+    });
+  }
+
+  /**
+   * Takes a player out of a shared world for good, such as when their connection closes.
+   * The caller must be the only one moving the player.
+   *
+   * @param player the player, added with {@link #addPlayer(String)}
+   * @throws IllegalStateException if no player has joined the world
+   */
+  public void removePlayer(Player player) {
+    leaveRoom(player);
+    players.remove(player);
+  }
+
+  /**
+   * Moves an item from a player's room to their inventory, unless another player took it
+   * first or the player cannot carry it. An item that several rooms hold is taken out of all
+   * of them.
+   *
+   * @param player   the player
+   * @param itemName the name of the item, in any case
+   * @return the item taken, or null if the room holds no such item or it is too heavy
+   * @throws IllegalStateException if no player has joined the world
+   */
+  public Item takeItem(Player player, String itemName) {
+    Room room = player.getCurrentRoom();
+    return sharedLocks().withRoom(room, () -> {
+      Item item = room.getItem(itemName);
+      if (item == null || !player.addToInventory(item)) {
+        return null;
+      }
+      room.removeItem(item);
+      for (Room other : sharedItems.getOrDefault(item, List.of())) {
+        if (other.getItem(item.getName()) == item) {
+          other.removeItem(item);
+        }
+      }
+      return item;
+    });
+  }
+
+  /**
+   * Moves an item from a player's inventory to their room.
+   *
+   * @param player   the player
+   * @param itemName the name of the item, in any case
+   * @return the item dropped, or null if the player does not carry it
+   * @throws IllegalStateException if no player has joined the world
+   */
+  public Item dropItem(Player player, String itemName) {
+    Room room = player.getCurrentRoom();
+    return sharedLocks().withRoom(room, () -> {
+      Item item = player.getItemFromInventory(itemName);
+      if (item == null || !player.removeFromInventory(item)) {
+        return null;
+      }
+      room.addItem(item);
+      return item;
+    });
+  }
+
+  /**
+   * Has a player attack the monster in their room. The player whose blow defeats the monster
+   * gains its value, and the room's exits are unblocked.
+   *
+   * @param player the player
+   * @return the damage dealt, or 0 if there is no active monster
+   * @throws IllegalStateException if no player has joined the world
+   */
+  public int attack(Player player) {
+    Room room = player.getCurrentRoom();
+    return sharedLocks().withRoom(room, () -> {
+      Monster monster = room.getMonster();
+      if (monster == null || !monster.isActive()) {
+        return 0;
+      }
+      int damage = player.attack(monster);
+      if (!monster.isActive()) {
+        player.addScore(monster.getValue());
+        room.unblockExits();
+      }
+      return damage;
+    });
+  }
+
+  /**
+   * Gets the room that stands for a room of a shared world together with every room it shares
+   * a puzzle, monster or item with. Rooms that share nothing stand for themselves.
+   *
+   * @param room the room
+   * @return the room number of the group's room
+   * @throws IllegalStateException if no player has joined the world
+   */
+  public String getGuardRoomNumber(Room room) {
+    return sharedLocks().group(room.getRoomNumber());
+  }
+
+  /**
+   * Gets the room locks of a shared world.
+   *
+   * @return the locks
+   * @throws IllegalStateException if no player has joined the world
+   */
+  RoomLocks sharedLocks() {
+    RoomLocks roomLocks = locks;
+    if (roomLocks == null) {
+      throw new IllegalStateException("No player has joined this world");
+    }
+    return roomLocks;
   }
 
   /**
-   * Saves the current game state to a JSON file.
+   * Saves the current game state to a JSON file and waits until it is on disk.
    * Includes player data, inventory, room states, and other game elements.
+   * The save goes through the same queue as {@link #saveGameAsync(String)}.
    *
    * @param filename The path where the save file will be created
    * @throws IOException If there is an error writing to the file
    */
   public void saveGame(String filename) throws IOException {
+    SaveQueue.await(saveGameAsync(filename));
+  }
+
+  /**
+   * Captures the current game state and writes it to a JSON file in the background.
+   * The state is captured before this method returns, so later moves are not part of the
+   * save. The first save to a file writes the full state; later saves to the same file append
+   * only the rooms and player that changed to its journal (see {@link SaveJournal}), and the
+   * full state is written again once the journal has grown long. Full saves replace the file
+   * atomically, so an interrupted save leaves the previous one intact.
+   *
+   * @param filename The path where the save file will be created
+   * @return a future completed once the save is on disk, or exceptionally with the IOException
+   *         that stopped it
+   */
+  public CompletableFuture<Void> saveGameAsync(String filename) {
+    return SaveQueue.getDefault().submit(captureSave(filename));
+  }
+
+  /**
+   * Captures the state to save: only what changed if the file's journal can take another
+   * delta, otherwise everything.
+   *
+   * @param filename the save file
+   * @return the captured save
+   */
+  PendingSave captureSave(String filename) {
+    if (saveJournal != null && saveJournal.reserve(filename)) {
+      return new PendingSave(this, filename, saveJournal, false, changedState());
+    }
+
+    saveJournal = SaveJournal.forSnapshot(filename);
     JSONObject saveData = new JSONObject();
 
     // Save player data
-    JSONObject playerData = getJsonObject();
-
-    saveData.put("player", playerData);
+    saveData.put("player", playerState());
+    player.clearDirty();
 
     // Save room states
     JSONArray roomsData = new JSONArray();
     for (Room room : rooms.values()) {
-      JSONObject roomData = new JSONObject();
-      roomData.put("room_number", room.getRoomNumber());
+      roomsData.add(roomState(room));
+      room.clearDirty();
+    }
 
-      // Save puzzle state
-      if (room.getPuzzle() != null) {
-        roomData.put("puzzle_active", room.getPuzzle().isActive());
-      }
+    saveData.put("rooms", roomsData);
+    saveData.put("game_name", gameName);
+    saveData.put("version", version);
+    return new PendingSave(this, filename, saveJournal, true, saveData);
+  }
 
-      // Save monster state
-      if (room.getMonster() != null) {
-        roomData.put("monster_active", room.getMonster().isActive());
-      }
+  /**
+   * Collects the state changed since the last save, in the same layout as a full save but
+   * with only the rooms that changed and the player only if it changed.
+   *
+   * @return the changed state, empty if nothing changed
+   */
+  private JSONObject changedState() {
+    JSONObject changes = new JSONObject();
+    if (player.isDirty()) {
+      changes.put("player", playerState());
+    }
 
-      // Save room exits
-      JSONObject exitsData = new JSONObject();
-      for (Direction dir : Direction.values()) {
-        exitsData.put(dir.toString(), room.getExitRoomNumber(dir));
+    // Collect first and clear afterwards, since rooms may share a puzzle or monster
+    List<Room> changedRooms = new ArrayList<>();
+    for (Room room : rooms.values()) {
+      if (room.isDirty()) {
+        changedRooms.add(room);
       }
-      roomData.put("exits", exitsData);
-
-      // Save items in room
-      JSONArray roomItemsData = new JSONArray();
-      for (Item item : room.getItems()) {
-        roomItemsData.add(item.getName());
+    }
+    if (!changedRooms.isEmpty()) {
+      JSONArray roomsData = new JSONArray();
+      for (Room room : changedRooms) {
+        roomsData.add(roomState(room));
       }
-      roomData.put("items", roomItemsData);
+      changes.put("rooms", roomsData);
+    }
 
-      roomsData.add(roomData);
+    player.clearDirty();
+    for (Room room : changedRooms) {
+      room.clearDirty();
     }
+    return changes;
+  }
 
-    saveData.put("rooms", roomsData);
-    saveData.put("game_name", gameName);
-    saveData.put("version", version);
+  /**
+   * Builds the saved state of one room.
+   *
+   * @param room the room
+   * @return the room's puzzle and monster state, exits, and items
+   */
+  private JSONObject roomState(Room room) {
+    JSONObject roomData = new JSONObject();
+    roomData.put("room_number", room.getRoomNumber());
+
+    // Save puzzle state
+    if (room.getPuzzle() != null) {
+      roomData.put("puzzle_active", room.getPuzzle().isActive());
+    }
+
+    // Save monster state
+    if (room.getMonster() != null) {
+      roomData.put("monster_active", room.getMonster().isActive());
+    }
+
+    // Save room exits
+    JSONObject exitsData = new JSONObject();
+    for (Direction dir : DIRECTIONS) {
+      exitsData.put(dir.toString(), room.getExitRoomNumber(dir));
+    }
+    roomData.put("exits", exitsData);
 
-    try (FileWriter file = new FileWriter(filename)) {
-      file.write(saveData.toJSONString());
+    // Save items in room
+    JSONArray roomItemsData = new JSONArray();
+    for (Item item : room.getItems()) {
+      roomItemsData.add(item.getName());
     }
+    roomData.put("items", roomItemsData);
+    return roomData;
   }
 
-  private JSONObject getJsonObject() {
+  private JSONObject playerState() {
     JSONObject playerData = new JSONObject(); // Fixed typo: JSONobject to JSONObject
     playerData.put("name", player.getName());
     playerData.put("health", player.getHealth());
@@ -540,7 +916,7 @@ public class GameWorld implements  Serializable {
 
     // Save inventory
     JSONArray inventoryData = new JSONArray();
-    for (Item item : player.getInventory()) {
+    for (Item item : player.getInventoryView()) {
       JSONObject itemData = new JSONObject();
       itemData.put("name", item.getName());
       itemData.put("uses_remaining", item.getUsesRemaining());
@@ -550,22 +926,103 @@ public class GameWorld implements  Serializable {
     return playerData;
   }
 
+  /**
+   * Writes the current game state to a binary snapshot (see {@link SnapshotCodec}).
+   * The snapshot records the game file this world was loaded from, so
+   * {@link #loadSnapshot(String)} can rebuild the world from the snapshot alone. The file is
+   * replaced only once the new snapshot is complete.
+   *
+   * @param filename The path where the snapshot will be written
+   * @throws IOException If this world was not loaded from a game file or the snapshot cannot
+   *                     be written
+   */
+  public void saveSnapshot(String filename) throws IOException {
+    if (gameFileName == null) {
+      throw new IOException("Game world was not loaded from a game file");
+    }
+    SnapshotCodec.write(Path.of(filename), new File(gameFileName).getAbsolutePath(), gameName,
+            version, player, rooms.values());
+  }
+
+  /**
+   * Loads a game from a binary snapshot written by {@link #saveSnapshot(String)}.
+   * The world is loaded from the game file named in the snapshot and the saved state is then
+   * applied to it. The snapshot is checked against its checksum before anything is applied.
+   *
+   * @param filename The path to the snapshot
+   * @return the restored game world
+   * @throws IOException If the snapshot or its game file cannot be read
+   */
+  public static GameWorld loadSnapshot(String filename) throws IOException {
+    JSONObject state = SnapshotCodec.read(Path.of(filename));
+    GameWorld world = new GameWorld((String) state.get("game_file"));
+    world.applySavedState(state);
+    return world;
+  }
+
   /**
    * Loads a previously saved game state from a JSON file.
-   * Restores player data, inventory, room states, and other game elements.
+   * Restores player data, inventory, room states, and other game elements, then applies any
+   * incremental saves recorded in the file's journal.
    *
    * @param filename The path to the save file to load
    * @throws IOException    If there is an error reading the file
    * @throws ParseException If there is an error parsing the JSON data
    */
   public void loadGame(String filename) throws IOException, org.json.simple.parser.ParseException {
+    // Let saves already requested reach the disk first
+    SaveQueue.getDefault().flush();
+
     JSONParser parser = new JSONParser();
+    saveJournal = null;
 
+    JSONObject saveData;
     try (FileReader file = new FileReader(filename)) {
-      JSONObject saveData = (JSONObject) parser.parse(file);
+      saveData = (JSONObject) parser.parse(file);
+    }
+    applySavedState(saveData);
+
+    // A journal of another generation outlived the snapshot that replaced it; ignore it
+    Object generation = saveData.get("generation");
+    List<String> deltas = SaveJournal.readDeltas(filename);
+    for (int i = 0; i < deltas.size(); i++) {
+      JSONObject delta;
+      try {
+        delta = (JSONObject) parser.parse(deltas.get(i));
+      } catch (org.json.simple.parser.ParseException e) {
+        if (i < deltas.size() - 1) {
+          throw e;
+        }
+        // A save interrupted while appending; the next save writes a fresh snapshot
+        return;
+      }
+      if (generation == null || !generation.equals(delta.get("generation"))) {
+        return;
+      }
+      applySavedState(delta);
+    }
 
-      // Load player data
-      JSONObject playerData = (JSONObject) saveData.get("player");
+    // Keep appending to this save only if it covers every room
+    JSONArray roomsData = (JSONArray) saveData.get("rooms");
+    if (roomsData != null && roomsData.size() == rooms.size()) {
+      player.clearDirty();
+      for (Room room : rooms.values()) {
+        room.clearDirty();
+      }
+      saveJournal = SaveJournal.resume(filename, deltas.size(), (Long) generation);
+    }
+  }
+
+  /**
+   * Applies saved state from a full save or a journal delta.
+   * The player and rooms are each optional; rooms not listed keep their current state.
+   *
+   * @param saveData the saved state
+   */
+  private void applySavedState(JSONObject saveData) {
+    // Load player data
+    JSONObject playerData = (JSONObject) saveData.get("player");
+    if (playerData != null) {
       String playerName = (String) playerData.get("name");
       long health = (Long) playerData.get("health");
       long score = (Long) playerData.get("score");
@@ -593,60 +1050,64 @@ public class GameWorld implements  Serializable {
       player.setCurrentRoom(rooms.get(currentRoomNumber));
       player.setInventory(inventory);
 
-      // Load room state
-      JSONArray roomsData = (JSONArray) saveData.get("rooms");
-      for (Object obj : roomsData) {
-        JSONObject roomData = (JSONObject) obj;
-        String roomNumber = (String) roomData.get("room_number");
-        Room room = rooms.get(roomNumber);
-
-        if (room != null) {
-          // Load puzzle state
-          if (roomData.containsKey("puzzle_active") && room.getPuzzle() != null) {
-            boolean puzzleActive = (Boolean) roomData.get("puzzle_active");
-            room.getPuzzle().setActive(puzzleActive);
-          }
+      // Continue the random stream where it was, if it was saved
+      if (playerData.containsKey("random_seed")) {
+        random = GameRandom.restore((Long) playerData.get("random_seed"),
+                (Long) playerData.get("random_draws"));
+        player.setRandom(random);
+      }
+    }
 
-          // Load monster state
-          if (roomData.containsKey("monster_active") && room.getMonster() != null) {
-            boolean monsterActive = (Boolean) roomData.get("monster_active");
-            room.getMonster().setActive(monsterActive);
-          }
+    // Load room state
+    JSONArray roomsData = (JSONArray) saveData.get("rooms");
+    if (roomsData == null) {
+      return;
+    }
+    for (Object obj : roomsData) {
+      JSONObject roomData = (JSONObject) obj;
+      String roomNumber = (String) roomData.get("room_number");
+      Room room = rooms.get(roomNumber);
 
-          // Load room exits
-          if (roomData.containsKey("exits")) {
-            JSONObject exitsData = (JSONObject) roomData.get("exits");
-            for (Direction dir : Direction.values()) {
-              String exitNumber = (String) exitsData.get(dir.toString());
-              room.setExitRoomNumber(dir, exitNumber);
-
-              // Update actual exit connections
-              if (!exitNumber.equals("0") && Integer.parseInt(exitNumber) > 0) {
-                Room targetRoom = rooms.get(exitNumber);
-                if (targetRoom != null) {
-                  room.setExit(dir, targetRoom);
-                }
-              } else {
-                room.setExit(dir, null);
-              }
-            }
+      if (room != null) {
+        // Load puzzle state
+        if (roomData.containsKey("puzzle_active") && room.getPuzzle() != null) {
+          boolean puzzleActive = (Boolean) roomData.get("puzzle_active");
+          room.getPuzzle().setActive(puzzleActive);
+        }
+
+        // Load monster state
+        if (roomData.containsKey("monster_active") && room.getMonster() != null) {
+          boolean monsterActive = (Boolean) roomData.get("monster_active");
+          room.getMonster().setActive(monsterActive);
+        }
+        if (roomData.containsKey("monster_health") && room.getMonster() != null) {
+          room.getMonster().setHealth(((Long) roomData.get("monster_health")).intValue());
+        }
+
+        // Load room exits
+        if (roomData.containsKey("exits")) {
+          JSONObject exitsData = (JSONObject) roomData.get("exits");
+          for (Direction dir : DIRECTIONS) {
+            room.setExitRoomNumber(dir, (String) exitsData.get(dir.toString()));
+
+            // Update actual exit connections
+            linkExit(room, dir);
           }
+        }
 
-          // Load items in room
-          if (roomData.containsKey("items")) {
-            JSONArray roomsItemsData = (JSONArray) roomData.get("items");
-            room.clearItems();
-            for (Object itemObj : roomsItemsData) {
-              String itemName = (String) itemObj;
-              Item item = items.get(itemName.toUpperCase());
-              if (item != null) {
-                room.addItem(item);
-              }
+        // Load items in room
+        if (roomData.containsKey("items")) {
+          JSONArray roomsItemsData = (JSONArray) roomData.get("items");
+          room.clearItems();
+          for (Object itemObj : roomsItemsData) {
+            String itemName = (String) itemObj;
+            Item item = items.get(itemName.toUpperCase());
+            if (item != null) {
+              room.addItem(item);
             }
           }
         }
       }
     }
-
   }
 }
\ No newline at end of file
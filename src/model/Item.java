@@ -13,6 +13,7 @@ public class Item {
   private final int value;
   private final String whenUsed;
   private final String description;
+  private boolean dirty;             // uses changed since the last save
 
   /**
    * Constructs an Item with the specified attributes.
@@ -50,6 +51,7 @@ public class Item {
   public boolean use() {
     if (usesRemaining > 0) {
       usesRemaining--;
+      dirty = true;
       return true;
     }
     return false;
@@ -107,6 +109,7 @@ public class Item {
    */
   public void setUsesRemaining(int uses) {
     this.usesRemaining = uses;
+    this.dirty = true;
   }
 
   /**
@@ -126,4 +129,20 @@ public class Item {
   public String getDescription() {
     return this.description;
   }
+
+  /**
+   * Checks whether the item's saved state has changed since the last save.
+   *
+   * @return true if the item needs saving
+   */
+  boolean isDirty() {
+    return dirty;
+  }
+
+  /**
+   * Records that the item's current state has been saved.
+   */
+  void clearDirty() {
+    dirty = false;
+  }
 }
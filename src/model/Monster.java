@@ -19,6 +19,9 @@ public class Monster {
   private int value;
   private int health;
   private int maxHealth;
+  private boolean dirty;             // active state changed since the last save
+  private WorldIndex index;          // notified of changes once the world is indexed
+  private long version;              // counts changes to the active state
 
   // Constructor (Qt: 1)
   /**
@@ -74,6 +77,11 @@ public class Monster {
   public void defeat() {
     this.active = false;
     this.health = 0;
+    this.dirty = true;
+    this.version++;
+    if (index != null) {
+      index.monsterChanged(this);
+    }
   }
 
   /**
@@ -90,11 +98,7 @@ public class Monster {
               + "message: Monster is already defeated" + "\n\n";
     } // if Monster is already defeated
 
-    this.health -= amount; // reduce health by amount dealt by the Player
-
-    if (this.health <= 0) {
-      this.health = 0;
-      this.defeat();
+    if (applyDamage(amount)) {
       return "success: " + true + ",\n"
               + "damage: " + amount + ",\n"
               + "critical: " + isCritical + ",\n"
@@ -110,6 +114,39 @@ public class Monster {
             + "healthRemaining: " + this.health + "\n\n";
   }
 
+  /**
+   * Reduces the Monster's health without describing the result, defeating it when its
+   * health runs out. Does nothing if the Monster is already defeated.
+   *
+   * @param amount Damage Amount
+   * @return true if this damage defeated the Monster
+   */
+  boolean applyDamage(int amount) {
+    if (!active) {
+      return false;
+    }
+    this.health -= amount; // reduce health by amount dealt by the Player
+    if (this.health <= 0) {
+      this.defeat();
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Brings the Monster back to full health and makes it active, for simulated fights.
+   * The version is bumped and the index told, as for any change to the active state, but the
+   * Monster is not marked as needing to be saved.
+   */
+  void revive() {
+    this.active = true;
+    this.health = maxHealth;
+    this.version++;
+    if (index != null) {
+      index.monsterChanged(this);
+    }
+  }
+
   /**
    * This method lets the user know if the Monster is active.
    */
@@ -145,6 +182,24 @@ public class Monster {
     return description;
   }
 
+  /**
+   * This method will get the Monster's current health.
+   *
+   * @return Monster's current health
+   */
+  public int getHealth() {
+    return health;
+  }
+
+  /**
+   * Restores the Monster's health from a saved game.
+   *
+   * @param health the saved health, at most the Monster's maximum
+   */
+  void setHealth(int health) {
+    this.health = Math.max(0, Math.min(health, maxHealth));
+  }
+
   /**
    * This method will get the Monster's current health percentage.
    *
@@ -214,5 +269,44 @@ public class Monster {
    */
   public void setActive(boolean active) {
     this.active = active;
+    this.dirty = true;
+    this.version++;
+    if (index != null) {
+      index.monsterChanged(this);
+    }
+  }
+
+  /**
+   * Checks whether the monster's saved state has changed since the last save.
+   *
+   * @return true if the monster needs saving
+   */
+  boolean isDirty() {
+    return dirty;
+  }
+
+  /**
+   * Records that the monster's current state has been saved.
+   */
+  void clearDirty() {
+    dirty = false;
+  }
+
+  /**
+   * Gets a count of the changes to the monster's active state.
+   *
+   * @return the version stamp
+   */
+  long getVersion() {
+    return version;
+  }
+
+  /**
+   * Has the monster report being defeated or made active to a world index.
+   *
+   * @param index the index, or null to stop reporting
+   */
+  void setIndex(WorldIndex index) {
+    this.index = index;
   }
 }
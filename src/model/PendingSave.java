@@ -0,0 +1,159 @@
+package model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+/**
+ * Game state captured for saving, ready to be written on another thread.
+ * The state is a tree of JSON objects holding only strings, numbers and booleans, so it no
+ * longer refers to the live game. A full save is written to a temporary file, forced to disk
+ * and renamed over the save file, and only then is the old journal removed; a delta is
+ * appended to the save file's journal. Both carry the journal's generation.
+ */
+final class PendingSave {
+  private final Object owner;
+  private final Path file;
+  private final SaveJournal journal;
+  private final boolean full;
+  private final JSONObject state;
+
+  /**
+   * Creates a captured save.
+   *
+   * @param owner   the world the state was captured from
+   * @param file    the save file
+   * @param journal the save file's journal
+   * @param full    true for a full snapshot, false for a delta
+   * @param state   the captured state
+   */
+  PendingSave(Object owner, String file, SaveJournal journal, boolean full, JSONObject state) {
+    this.owner = owner;
+    this.file = Path.of(file).toAbsolutePath();
+    this.journal = journal;
+    this.full = full;
+    this.state = state;
+  }
+
+  /**
+   * Checks whether a later save can be folded into this one: same world, same file.
+   *
+   * @param later the later save
+   * @return true if the saves can be merged
+   */
+  boolean canMerge(PendingSave later) {
+    return owner == later.owner && file.equals(later.file);
+  }
+
+  /**
+   * Folds a later save of the same world and file into this one.
+   * A later full save replaces this one; a later delta overrides the player and rooms it
+   * contains and gives back its journal reservation.
+   *
+   * @param later the later save
+   * @return the merged save
+   */
+  PendingSave merge(PendingSave later) {
+    if (later.full) {
+      release();
+      return later;
+    }
+    later.journal.cancel();
+    if (later.state.containsKey("player")) {
+      state.put("player", later.state.get("player"));
+    }
+    JSONArray laterRooms = (JSONArray) later.state.get("rooms");
+    if (laterRooms != null) {
+      Map<Object, Object> merged = new LinkedHashMap<>();
+      JSONArray rooms = (JSONArray) state.get("rooms");
+      if (rooms != null) {
+        for (Object room : rooms) {
+          merged.put(((JSONObject) room).get("room_number"), room);
+        }
+      }
+      for (Object room : laterRooms) {
+        merged.put(((JSONObject) room).get("room_number"), room);
+      }
+      JSONArray mergedRooms = new JSONArray();
+      mergedRooms.addAll(merged.values());
+      state.put("rooms", mergedRooms);
+    }
+    return this;
+  }
+
+  /**
+   * Drops this save without writing it.
+   * A snapshot that is never written leaves its journal broken, so the world's next save is full.
+   */
+  void release() {
+    if (full) {
+      journal.failed();
+    } else {
+      journal.cancel();
+    }
+  }
+
+  /**
+   * Writes the save. An empty delta writes nothing.
+   *
+   * @throws IOException if the save cannot be written; the next save will then be full
+   */
+  void write() throws IOException {
+    if (!full && state.isEmpty()) {
+      journal.cancel();
+      return;
+    }
+    try {
+      state.put("generation", journal.getGeneration());
+      if (full) {
+        writeAtomically(state.toJSONString());
+        journal.discardFile();
+        journal.snapshotWritten();
+      } else {
+        journal.append(state.toJSONString());
+      }
+    } catch (IOException | RuntimeException e) {
+      journal.failed();
+      throw e;
+    }
+  }
+
+  /**
+   * Writes the save file through a temporary file in the same directory, so a crash leaves
+   * either the old file or the new one but never a partial file.
+   *
+   * @param text the file contents
+   * @throws IOException if the file cannot be written
+   */
+  private void writeAtomically(String text) throws IOException {
+    Path directory = file.getParent();
+    Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+    try {
+      try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE,
+              StandardOpenOption.TRUNCATE_EXISTING)) {
+        ByteBuffer bytes = ByteBuffer.wrap(text.getBytes(Charset.defaultCharset()));
+        while (bytes.hasRemaining()) {
+          channel.write(bytes);
+        }
+        channel.force(true);
+      }
+      try {
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+}
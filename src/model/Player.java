@@ -1,7 +1,11 @@
 package model;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
 
 /**
  * Represents a player in the game world.
@@ -12,12 +16,20 @@ public class Player {
   private String name;
   private int health;
   private final List<Item> inventory;
+  private final List<Item> inventoryView;        // read-only view of inventory
+  private final Map<String, Item> inventoryIndex; // upper-case name to first item with that name
+  private int inventoryWeight;
   private Room currentRoom;
   private int score;
   private static final int MAX_WEIGHT = 13;
-  private static final int MAX_HEALTH = 100;
+  static final int MAX_HEALTH = 100;
+  static final int DEFAULT_ATTACK_POWER = 10;
+  static final int DEFAULT_CRITICAL_CHANCE = 15;
   private final int attackPower;
-  private final int criticalChance;
+  private final int criticalChance;               // percent
+  private GameRandom random;
+  private boolean dirty;                          // changed since the last save
+  private BiConsumer<Room, Room> roomListener;    // told the old and new room on every move
 
   /**
    * Creates a new player in the specified starting room.
@@ -26,16 +38,31 @@ public class Player {
    * @throws IllegalArgumentException if startRoom is null
    */
   public Player(Room startRoom) {
+    this(startRoom, DEFAULT_ATTACK_POWER, DEFAULT_CRITICAL_CHANCE);
+  }
+
+  /**
+   * Creates a new player with non-default combat values, for trying out balance changes.
+   *
+   * @param startRoom      The room where the player starts
+   * @param attackPower    The damage of a normal hit
+   * @param criticalChance The percent chance that a hit is critical and does double damage
+   * @throws IllegalArgumentException if startRoom is null
+   */
+  Player(Room startRoom, int attackPower, int criticalChance) {
     if (startRoom == null) {
       throw new IllegalArgumentException("Start room cannot be null");
     }
     this.name = "Player";
     this.health = MAX_HEALTH;
     this.inventory = new ArrayList<>();
+    this.inventoryView = Collections.unmodifiableList(inventory);
+    this.inventoryIndex = new HashMap<>();
     this.currentRoom = startRoom;
     this.score = 0;
-    this.attackPower = 10;
-    this.criticalChance = 15;
+    this.attackPower = attackPower;
+    this.criticalChance = criticalChance;
+    this.random = GameRandom.unseeded();
   }
 
   /**
@@ -58,6 +85,7 @@ public class Player {
       throw new IllegalArgumentException("Damage amount cannot be negative");
     }
     this.health = Math.max(0, this.health - amount);
+    this.dirty = true;
   }
 
   /**
@@ -98,8 +126,8 @@ public class Player {
     if (item == null) {
       throw new IllegalArgumentException("Item cannot be null");
     }
-    if (getInventoryWeight() + item.getWeight() <= MAX_WEIGHT) {
-      inventory.add(item);
+    if (inventoryWeight + item.getWeight() <= MAX_WEIGHT) {
+      addItem(item);
       return true;
     }
     return false;
@@ -116,7 +144,45 @@ public class Player {
     if (item == null) {
       throw new IllegalArgumentException("Item cannot be null");
     }
-    return inventory.remove(item);
+    if (!inventory.remove(item)) {
+      return false;
+    }
+    inventoryWeight -= item.getWeight();
+    dirty = true;
+    String key = indexKey(item.getName());
+    if (inventoryIndex.get(key) == item) {
+      // Another carried item with the same name, if any, becomes the one found by name
+      inventoryIndex.remove(key);
+      for (Item other : inventory) {
+        if (indexKey(other.getName()).equals(key)) {
+          inventoryIndex.put(key, other);
+          break;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Appends an item to the inventory and updates the name index and total weight.
+   *
+   * @param item The item to add
+   */
+  private void addItem(Item item) {
+    inventory.add(item);
+    inventoryIndex.putIfAbsent(indexKey(item.getName()), item);
+    inventoryWeight += item.getWeight();
+    dirty = true;
+  }
+
+  /**
+   * Normalizes an item name for the inventory index.
+   *
+   * @param itemName The item name
+   * @return The index key for the name
+   */
+  private static String indexKey(String itemName) {
+    return itemName.toUpperCase();
   }
 
   /**
@@ -130,10 +196,7 @@ public class Player {
     if (itemName == null || itemName.trim().isEmpty()) {
       throw new IllegalArgumentException("Item name cannot be null or empty");
     }
-    return inventory.stream()
-            .filter(item -> item.getName().equalsIgnoreCase(itemName))
-            .findFirst()
-            .orElse(null);
+    return inventoryIndex.get(indexKey(itemName));
   }
 
   /**
@@ -142,9 +205,7 @@ public class Player {
    * @return The total weight of the inventory
    */
   public int getInventoryWeight() {
-    return inventory.stream()
-            .mapToInt(Item::getWeight)
-            .sum();
+    return inventoryWeight;
   }
 
   /**
@@ -156,6 +217,16 @@ public class Player {
     return new ArrayList<>(inventory);
   }
 
+  /**
+   * Gets a read-only view of the player's inventory, in the order items were added.
+   * The view reflects later changes to the inventory; use {@link #getInventory()} for a copy.
+   *
+   * @return An unmodifiable view of the inventory
+   */
+  public List<Item> getInventoryView() {
+    return inventoryView;
+  }
+
   /**
    * Sets the player's inventory to the specified list.
    *
@@ -166,8 +237,14 @@ public class Player {
     if (inventory == null) {
       throw new IllegalArgumentException("Inventory cannot be null");
     }
+    List<Item> items = new ArrayList<>(inventory);
     this.inventory.clear();
-    this.inventory.addAll(inventory);
+    this.inventoryIndex.clear();
+    this.inventoryWeight = 0;
+    this.dirty = true;
+    for (Item item : items) {
+      addItem(item);
+    }
   }
 
   /**
@@ -198,7 +275,23 @@ public class Player {
     if (room == null) {
       throw new IllegalArgumentException("Room cannot be null");
     }
+    Room previous = this.currentRoom;
     this.currentRoom = room;
+    this.dirty = true;
+    if (roomListener != null && previous != room) {
+      roomListener.accept(previous, room);
+    }
+  }
+
+  /**
+   * Sets the listener told of every change of the player's room, such as the subscriptions of
+   * an {@code EventBroadcaster}. It runs on the thread that moved the player.
+   *
+   * @param listener called with the room left and the room entered, replacing any earlier
+   *                 listener, or null for none
+   */
+  public void setRoomListener(BiConsumer<Room, Room> listener) {
+    this.roomListener = listener;
   }
 
   /**
@@ -212,6 +305,29 @@ public class Player {
       throw new IllegalArgumentException("Points cannot be negative");
     }
     this.score += points;
+    this.dirty = true;
+  }
+
+  /**
+   * Sets the random source used in combat.
+   *
+   * @param random the random source of the player's game session
+   * @throws IllegalArgumentException if random is null
+   */
+  public void setRandom(GameRandom random) {
+    if (random == null) {
+      throw new IllegalArgumentException("Random source cannot be null");
+    }
+    this.random = random;
+  }
+
+  /**
+   * Gets the random source used in combat.
+   *
+   * @return the random source
+   */
+  public GameRandom getRandom() {
+    return random;
   }
 
   /**
@@ -224,6 +340,7 @@ public class Player {
       throw new IllegalArgumentException("Name cannot be null or empty");
     }
     this.name = name;
+    this.dirty = true;
   }
 
   /**
@@ -237,6 +354,7 @@ public class Player {
       throw new IllegalArgumentException("Score cannot be negative");
     }
     this.score = score;
+    this.dirty = true;
   }
 
   /**
@@ -250,6 +368,7 @@ public class Player {
       throw new IllegalArgumentException("Health cannot be negative");
     }
     this.health = Math.min(health, MAX_HEALTH);
+    this.dirty = true;
   }
 
   /**
@@ -304,7 +423,7 @@ public class Player {
       damage *= 2;
     }
 
-    monster.takeDamage(damage, isCritical);
+    monster.applyDamage(damage);
     return damage;
   }
 
@@ -314,7 +433,7 @@ public class Player {
    * @return true if the attack is a critical hit
    */
   private boolean isCriticalHit() {
-    return Math.random() < criticalChance;
+    return random.chance(criticalChance);
   }
 
   /**
@@ -332,7 +451,8 @@ public class Player {
   }
 
   /**
-   * Moves the player in a given direction.
+   * Moves the player in a given direction, telling the room listener as
+   * {@link #setCurrentRoom(Room)} does.
    *
    * @param direction The direction to move
    * @return true if the move was successful, false otherwise
@@ -344,9 +464,37 @@ public class Player {
     }
     Room nextRoom = currentRoom.getExit(direction);
     if (nextRoom != null) {
-      currentRoom = nextRoom;
+      setCurrentRoom(nextRoom);
       return true;
     }
     return false;
   }
-}
\ No newline at end of file
+
+  /**
+   * Checks whether the player's saved state has changed since the last save,
+   * including the uses left on carried items.
+   *
+   * @return true if the player needs saving
+   */
+  boolean isDirty() {
+    if (dirty) {
+      return true;
+    }
+    for (Item item : inventory) {
+      if (item.isDirty()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Records that the player's current state, and that of carried items, has been saved.
+   */
+  void clearDirty() {
+    dirty = false;
+    for (Item item : inventory) {
+      item.clearDirty();
+    }
+  }
+}
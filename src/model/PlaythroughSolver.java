@@ -0,0 +1,741 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Searches the reachable states of a game for the route with the highest score.
+ *
+ * <p>A state is the player's room, where each useful item is and how many uses it has left,
+ * which puzzles and monsters are still active, and which rooms still have blocked exits. Only
+ * items that solve some puzzle or monster are tracked; carrying anything else can only use up
+ * weight. States are explored breadth first by moving, taking, answering, and using items
+ * where they solve something, with the game's own {@link GameWorld#applySolution(String)},
+ * {@link Player#move(Direction)} and {@link Item#use()}. An item is dropped only where that
+ * makes room to take another. The route found is the highest-scoring one with the fewest
+ * commands.
+ *
+ * <p>Each level of the search is split across a fork/join pool. Every pool thread plays in its
+ * own session, loading a state by changing only the parts that differ from the state it holds.
+ * A state is encoded as an int array and hashed Zobrist-style: the hash is the XOR of one key
+ * per array slot and value, so each command updates it from the slots it changed. A lock-free
+ * transposition table keyed by the hash drops states seen before; it keeps each state as well
+ * and compares them, so two states whose hashes collide are both searched. When several parents
+ * reach the same new state, the first in search order keeps it, so the route does not depend
+ * on the number of threads.
+ *
+ * <p>The table keeps every state it has seen, so the state limit is lowered to what the heap
+ * can hold.
+ */
+public final class PlaythroughSolver {
+  /** States explored before giving up, unless the caller chooses otherwise. */
+  public static final int DEFAULT_MAX_STATES = 1_000_000;
+
+  private static final int MAX_STATES = 1 << 28;
+  private static final int INVENTORY = -1;
+  private static final int LEAF_STATES = 16;
+  private static final Direction[] DIRECTIONS = Direction.values();
+  private static final int MAX_ITEMS = 8000;       // actions per state must fit ACTION_BITS
+  private static final int ACTION_BITS = 15;
+  private static final int PARENT_BITS = 32;
+
+  private final WorldTemplate template;
+  private final String[] roomNumbers;
+  private final List<String> moveCommands = new ArrayList<>();
+  private final String[] answerCommands;   // by puzzle, null for puzzles solved with items
+  private final String[] takeCommands;     // by item
+  private final String[] dropCommands;
+  private final String[] useCommands;
+  private final int puzzleCount;
+  private final int monsterCount;
+  private final int blockerCount;
+  private final int itemCount;
+  private final int flagBase;              // first int of the flag words
+  private final int stateLength;
+  private final int maxScore;
+  private final ThreadLocal<Session> sessions;
+
+  /**
+   * The best route found.
+   */
+  public static final class Route {
+    private final List<String> commands;
+    private final int score;
+    private final int maxScore;
+    private final int states;
+    private final boolean complete;
+
+    Route(List<String> commands, int score, int maxScore, int states, boolean complete) {
+      this.commands = Collections.unmodifiableList(commands);
+      this.score = score;
+      this.maxScore = maxScore;
+      this.states = states;
+      this.complete = complete;
+    }
+
+    /**
+     * Gets the commands of the route, in order.
+     *
+     * @return the commands
+     */
+    public List<String> getCommands() {
+      return commands;
+    }
+
+    /**
+     * Gets the score at the end of the route.
+     *
+     * @return the score
+     */
+    public int getScore() {
+      return score;
+    }
+
+    /**
+     * Gets the score for solving every active puzzle and defeating every active monster,
+     * whether or not that is possible.
+     *
+     * @return the largest possible score
+     */
+    public int getMaxScore() {
+      return maxScore;
+    }
+
+    /**
+     * Gets the number of distinct states the search reached.
+     *
+     * @return the state count
+     */
+    public int getStates() {
+      return states;
+    }
+
+    /**
+     * Checks whether the search ran to the end, so that no route scores higher.
+     *
+     * @return false if the search stopped at its state limit
+     */
+    public boolean isComplete() {
+      return complete;
+    }
+
+    /**
+     * Formats the route as a batch script: the player's name, the commands, and "quit" to
+     * report the final score.
+     *
+     * @param playerName the name on the first line
+     * @return the script text
+     */
+    public String toScript(String playerName) {
+      StringBuilder script = new StringBuilder(playerName).append('\n');
+      for (String command : commands) {
+        script.append(command).append('\n');
+      }
+      return script.append("quit\n").toString();
+    }
+  }
+
+  /**
+   * Prepares to search a game.
+   *
+   * @param template the loaded game
+   * @throws IllegalArgumentException if the game has too many useful items to search
+   */
+  public PlaythroughSolver(WorldTemplate template) {
+    this.template = template;
+    this.roomNumbers = new TreeMap<>(template.rooms()).keySet().toArray(new String[0]);
+    for (Direction direction : DIRECTIONS) {
+      moveCommands.add(direction.toString().toLowerCase());
+    }
+
+    Session layout = new Session();
+    this.puzzleCount = layout.puzzles.length;
+    this.monsterCount = layout.monsters.length;
+    this.blockerCount = layout.blockers.length;
+    this.itemCount = layout.items.length;
+    if (itemCount > MAX_ITEMS) {
+      throw new IllegalArgumentException("Too many useful items to search: " + itemCount);
+    }
+    this.flagBase = 1 + 2 * itemCount;
+    this.stateLength = flagBase + (puzzleCount + monsterCount + blockerCount + 31) / 32;
+
+    this.answerCommands = new String[puzzleCount];
+    int max = 0;
+    for (int p = 0; p < puzzleCount; p++) {
+      String answer = answerOf(layout.puzzles[p]);
+      answerCommands[p] = answer == null ? null : "answer " + answer;
+      max += layout.puzzles[p].isActive() ? layout.puzzles[p].getValue() : 0;
+    }
+    for (Monster monster : layout.monsters) {
+      max += monster.isActive() ? monster.getValue() : 0;
+    }
+    this.maxScore = max;
+
+    this.takeCommands = new String[itemCount];
+    this.dropCommands = new String[itemCount];
+    this.useCommands = new String[itemCount];
+    for (int i = 0; i < itemCount; i++) {
+      String name = layout.items[i].getName();
+      takeCommands[i] = "take " + name;
+      dropCommands[i] = "drop " + name;
+      useCommands[i] = "use " + name;
+    }
+    this.sessions = ThreadLocal.withInitial(() -> {
+      Session session = new Session();
+      session.capture();
+      return session;
+    });
+  }
+
+  /**
+   * Searches for the best route.
+   *
+   * @param pool      the pool to search on
+   * @param maxStates the number of distinct states after which the search stops
+   * @return the best route found
+   * @throws IllegalArgumentException if maxStates is out of range
+   */
+  public Route solve(ForkJoinPool pool, int maxStates) {
+    if (maxStates < 1 || maxStates > MAX_STATES) {
+      throw new IllegalArgumentException("State limit must be from 1 to " + MAX_STATES);
+    }
+    Table table = new Table(Math.min(maxStates, heapStates()));
+    Session start = new Session();
+    int[] state = start.capture();
+    Node root = new Node(state, hash(state), null, null, start.world.getPlayer().getScore(), 0);
+    table.offer(root.state, root.hash, 0);
+
+    Node best = root;
+    List<Node> frontier = List.of(root);
+    for (long depth = 1; !frontier.isEmpty() && best.score < maxScore && !table.isFull();
+         depth++) {
+      if (depth >= 1L << (63 - PARENT_BITS - ACTION_BITS)) {
+        break;
+      }
+      List<Node> candidates = pool.invoke(new Expand(frontier, 0, frontier.size(), depth, table));
+      List<Node> next = new ArrayList<>(candidates.size());
+      for (Node candidate : candidates) {
+        if (table.holds(candidate.state, candidate.hash, candidate.order)) {
+          next.add(candidate);
+          if (candidate.score > best.score) {
+            best = candidate;
+          }
+        }
+      }
+      frontier = next;
+    }
+
+    List<String> commands = new ArrayList<>();
+    for (Node node = best; node.parent != null; node = node.parent) {
+      commands.add(node.command);
+    }
+    Collections.reverse(commands);
+    boolean complete = frontier.isEmpty() || best.score == maxScore;
+    return new Route(commands, best.score, maxScore, table.size(), complete);
+  }
+
+  /**
+   * Gets the number of states the heap has room for, allowing for the table's slots, a state
+   * array and a node for each.
+   *
+   * @return the state count, at least 1
+   */
+  private int heapStates() {
+    Runtime runtime = Runtime.getRuntime();
+    long free = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+    long perState = 4 * (8 + 8 + 8) + 16 + 4L * stateLength + 48;
+    return (int) Math.max(1, Math.min(MAX_STATES, free / perState));
+  }
+
+  /**
+   * Gets the text answer to a puzzle.
+   *
+   * @param puzzle the puzzle
+   * @return the answer without its quotes, or null if the puzzle is solved with an item
+   */
+  private static String answerOf(Puzzle puzzle) {
+    String solution = puzzle.getSolution();
+    if (solution != null && solution.length() >= 2 && solution.startsWith("'")
+            && solution.endsWith("'")) {
+      return solution.substring(1, solution.length() - 1);
+    }
+    return null;
+  }
+
+  /**
+   * Gets the Zobrist key of one slot of a state holding one value.
+   */
+  private static long key(int slot, int value) {
+    long z = ((long) slot << 32) | (value & 0xFFFFFFFFL);
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  private static long hash(int[] state) {
+    long hash = 0;
+    for (int slot = 0; slot < state.length; slot++) {
+      hash ^= key(slot, state[slot]);
+    }
+    return hash;
+  }
+
+  /**
+   * A state reached by the search and the command that reached it.
+   */
+  private static final class Node {
+    private final int[] state;
+    private final long hash;
+    private final Node parent;
+    private final String command;
+    private final int score;
+    private final long order;     // depth, then parent position, then command position
+
+    private Node(int[] state, long hash, Node parent, String command, int score, long order) {
+      this.state = state;
+      this.hash = hash;
+      this.parent = parent;
+      this.command = command;
+      this.score = score;
+      this.order = order;
+    }
+  }
+
+  /**
+   * Expands a range of one level of the search, halving the range until it is small.
+   * Tasks are never serialized.
+   */
+  @SuppressWarnings("serial")
+  private final class Expand extends RecursiveTask<List<Node>> {
+    private final List<Node> frontier;
+    private final int from;
+    private final int to;
+    private final long depth;
+    private final Table table;
+
+    private Expand(List<Node> frontier, int from, int to, long depth, Table table) {
+      this.frontier = frontier;
+      this.from = from;
+      this.to = to;
+      this.depth = depth;
+      this.table = table;
+    }
+
+    @Override
+    protected List<Node> compute() {
+      if (to - from <= LEAF_STATES) {
+        Session session = sessions.get();
+        List<Node> children = new ArrayList<>();
+        for (int i = from; i < to && !table.isFull(); i++) {
+          long order = (depth << (PARENT_BITS + ACTION_BITS)) | ((long) i << ACTION_BITS);
+          session.expand(frontier.get(i), order, table, children);
+        }
+        return children;
+      }
+      int middle = (from + to) >>> 1;
+      Expand right = new Expand(frontier, middle, to, depth, table);
+      right.fork();
+      List<Node> children = new Expand(frontier, from, middle, depth, table).compute();
+      children.addAll(right.join());
+      return children;
+    }
+  }
+
+  /**
+   * A game session owned by one thread, indexed the same way in every thread.
+   */
+  private final class Session {
+    private final GameWorld world;
+    private final Player player;
+    private final Room[] rooms;
+    private final Map<Room, Integer> roomIndex = new IdentityHashMap<>();
+    private final Puzzle[] puzzles;
+    private final Monster[] monsters;
+    private final Room[] blockers;
+    private final int[] blockedBits;          // each blocker's exits before it was solved
+    private final Item[] items;
+    private final int[] roomPuzzle;           // by room: puzzle index, or -1
+    private final int[] roomMonster;
+    private final int[] roomBlocker;
+    private int[] current;                    // the state the session is in
+
+    private Session() {
+      world = template.newSession();
+      player = world.getPlayer();
+      rooms = new Room[roomNumbers.length];
+      roomPuzzle = new int[rooms.length];
+      roomMonster = new int[rooms.length];
+      roomBlocker = new int[rooms.length];
+
+      Map<Puzzle, Integer> puzzleIndex = new IdentityHashMap<>();
+      Map<Monster, Integer> monsterIndex = new IdentityHashMap<>();
+      List<Room> blockerList = new ArrayList<>();
+      for (int r = 0; r < rooms.length; r++) {
+        Room room = world.getRoom(roomNumbers[r]);
+        rooms[r] = room;
+        roomIndex.put(room, r);
+        roomPuzzle[r] = room.getPuzzle() == null ? -1
+                : puzzleIndex.computeIfAbsent(room.getPuzzle(), p -> puzzleIndex.size());
+        roomMonster[r] = room.getMonster() == null ? -1
+                : monsterIndex.computeIfAbsent(room.getMonster(), m -> monsterIndex.size());
+        roomBlocker[r] = -1;
+        if (room.getBlockedExits() != 0 && (roomPuzzle[r] >= 0 || roomMonster[r] >= 0)) {
+          roomBlocker[r] = blockerList.size();
+          blockerList.add(room);
+        }
+      }
+      puzzles = sorted(puzzleIndex, new Puzzle[puzzleIndex.size()]);
+      monsters = sorted(monsterIndex, new Monster[monsterIndex.size()]);
+      blockers = blockerList.toArray(new Room[0]);
+      blockedBits = new int[blockers.length];
+      for (int b = 0; b < blockers.length; b++) {
+        blockedBits[b] = blockers[b].getBlockedExits();
+      }
+
+      // Items that answer some puzzle or monster, in room order
+      List<String> solutions = new ArrayList<>();
+      for (Puzzle puzzle : puzzles) {
+        String answer = answerOf(puzzle);
+        solutions.add(answer != null ? answer : puzzle.getSolution());
+      }
+      for (Monster monster : monsters) {
+        solutions.add(monster.getSolution());
+      }
+      Map<Item, Integer> itemIndex = new IdentityHashMap<>();
+      for (Room room : rooms) {
+        for (Item item : room.getItems()) {
+          for (String solution : solutions) {
+            if (solution != null && solution.equalsIgnoreCase(item.getName())) {
+              itemIndex.putIfAbsent(item, itemIndex.size());
+              break;
+            }
+          }
+        }
+      }
+      items = sorted(itemIndex, new Item[itemIndex.size()]);
+    }
+
+    private <T> T[] sorted(Map<T, Integer> index, T[] array) {
+      index.forEach((value, position) -> array[position] = value);
+      return array;
+    }
+
+    /**
+     * Reads the session's whole state.
+     *
+     * @return the state
+     */
+    private int[] capture() {
+      int[] state = new int[stateLength];
+      state[0] = roomIndex.get(player.getCurrentRoom());
+      for (int i = 0; i < items.length; i++) {
+        state[1 + 2 * i] = locate(items[i]);
+        state[2 + 2 * i] = items[i].getUsesRemaining();
+      }
+      for (int p = 0; p < puzzles.length; p++) {
+        setFlag(state, p, puzzles[p].isActive());
+      }
+      for (int m = 0; m < monsters.length; m++) {
+        setFlag(state, puzzleCount + m, monsters[m].isActive());
+      }
+      for (int b = 0; b < blockers.length; b++) {
+        setFlag(state, puzzleCount + monsterCount + b, blockers[b].getBlockedExits() != 0);
+      }
+      current = state;
+      return state;
+    }
+
+    private int locate(Item item) {
+      if (player.getInventoryView().contains(item)) {
+        return INVENTORY;
+      }
+      for (int r = 0; r < rooms.length; r++) {
+        if (rooms[r].getItem(item.getName()) == item) {
+          return r;
+        }
+      }
+      throw new IllegalStateException("Item is nowhere: " + item.getName());
+    }
+
+    /**
+     * Puts the session into a state, changing only what differs from its current state.
+     */
+    private void load(int[] state, int score) {
+      int[] from = current;
+      if (from[0] != state[0]) {
+        player.setCurrentRoom(rooms[state[0]]);
+      }
+      // Take items away before putting any back, so the player is never over weight
+      for (int i = 0; i < items.length; i++) {
+        int at = from[1 + 2 * i];
+        if (at != state[1 + 2 * i]) {
+          if (at == INVENTORY) {
+            player.removeFromInventory(items[i]);
+          } else {
+            rooms[at].removeItem(items[i]);
+          }
+        }
+      }
+      for (int i = 0; i < items.length; i++) {
+        int at = state[1 + 2 * i];
+        if (at != from[1 + 2 * i]) {
+          if (at == INVENTORY) {
+            player.addToInventory(items[i]);
+          } else {
+            rooms[at].addItem(items[i]);
+          }
+        }
+        if (from[2 + 2 * i] != state[2 + 2 * i]) {
+          items[i].setUsesRemaining(state[2 + 2 * i]);
+        }
+      }
+      for (int word = flagBase; word < stateLength; word++) {
+        int changed = from[word] ^ state[word];
+        while (changed != 0) {
+          int flag = (word - flagBase) * 32 + Integer.numberOfTrailingZeros(changed);
+          changed &= changed - 1;
+          boolean on = getFlag(state, flag);
+          if (flag < puzzleCount) {
+            puzzles[flag].setActive(on);
+          } else if (flag < puzzleCount + monsterCount) {
+            monsters[flag - puzzleCount].setActive(on);
+          } else {
+            int b = flag - puzzleCount - monsterCount;
+            blockers[b].setBlockedExits(on ? blockedBits[b] : 0);
+          }
+        }
+      }
+      player.setScore(score);
+      current = state;
+    }
+
+    /**
+     * Tries every useful command from a state and offers the resulting states to the table.
+     */
+    private void expand(Node parent, long order, Table table, List<Node> children) {
+      load(parent.state, parent.score);
+      int room = parent.state[0];
+      Room here = rooms[room];
+      int action = 0;
+
+      // Answer the puzzle here
+      int p = roomPuzzle[room];
+      if (p >= 0 && answerCommands[p] != null && puzzles[p].isActive()) {
+        if (world.applySolution(answerOf(puzzles[p]))) {
+          offer(parent, -1, answerCommands[p], order | action, table, children);
+        }
+        action++;
+        load(parent.state, parent.score);
+      }
+
+      // Use a carried item where it solves something
+      boolean solvable = (p >= 0 && puzzles[p].isActive())
+              || (roomMonster[room] >= 0 && monsters[roomMonster[room]].isActive());
+      for (int i = 0; i < items.length && solvable; i++) {
+        if (parent.state[1 + 2 * i] == INVENTORY && parent.state[2 + 2 * i] > 0) {
+          if (world.applySolution(items[i].getName())) {
+            items[i].use();
+            offer(parent, i, useCommands[i], order | action, table, children);
+          }
+          action++;
+          load(parent.state, parent.score);
+        }
+      }
+
+      // Take items here, dropping a carried one first if there is no room
+      boolean full = false;
+      for (int i = 0; i < items.length; i++) {
+        if (parent.state[1 + 2 * i] == room) {
+          if (player.addToInventory(items[i])) {
+            here.removeItem(items[i]);
+            offer(parent, i, takeCommands[i], order | action, table, children);
+            load(parent.state, parent.score);
+          } else {
+            full = true;
+          }
+          action++;
+        }
+      }
+      for (int i = 0; i < items.length && full; i++) {
+        if (parent.state[1 + 2 * i] == INVENTORY) {
+          player.removeFromInventory(items[i]);
+          here.addItem(items[i]);
+          offer(parent, i, dropCommands[i], order | action, table, children);
+          action++;
+          load(parent.state, parent.score);
+        }
+      }
+
+      // Move
+      for (int d = 0; d < DIRECTIONS.length; d++) {
+        if (player.move(DIRECTIONS[d])) {
+          offer(parent, -1, moveCommands.get(d), order | action, table, children);
+          load(parent.state, parent.score);
+        }
+        action++;
+      }
+    }
+
+    /**
+     * Reads the state a command led to from the parts it can have changed: the room, one
+     * item, and the flags of the current room. Offers the state if it is new.
+     */
+    private void offer(Node parent, int item, String command, long order, Table table,
+                       List<Node> children) {
+      int[] state = parent.state.clone();
+      long hash = parent.hash;
+      int room = roomIndex.get(player.getCurrentRoom());
+      hash = update(state, hash, 0, room);
+      if (item >= 0) {
+        hash = update(state, hash, 1 + 2 * item,
+                player.getInventoryView().contains(items[item]) ? INVENTORY : room);
+        hash = update(state, hash, 2 + 2 * item, items[item].getUsesRemaining());
+      }
+      int[] flags = state.clone();
+      if (roomPuzzle[room] >= 0) {
+        setFlag(flags, roomPuzzle[room], puzzles[roomPuzzle[room]].isActive());
+      }
+      if (roomMonster[room] >= 0) {
+        setFlag(flags, puzzleCount + roomMonster[room], monsters[roomMonster[room]].isActive());
+      }
+      if (roomBlocker[room] >= 0) {
+        setFlag(flags, puzzleCount + monsterCount + roomBlocker[room],
+                rooms[room].getBlockedExits() != 0);
+      }
+      for (int word = flagBase; word < stateLength; word++) {
+        hash = update(state, hash, word, flags[word]);
+      }
+      current = state;
+
+      if (table.offer(state, hash, order)) {
+        children.add(new Node(state, hash, parent, command, player.getScore(), order));
+      }
+    }
+
+    private long update(int[] state, long hash, int slot, int value) {
+      if (state[slot] == value) {
+        return hash;
+      }
+      hash ^= key(slot, state[slot]) ^ key(slot, value);
+      state[slot] = value;
+      return hash;
+    }
+  }
+
+  private boolean getFlag(int[] state, int flag) {
+    return (state[flagBase + (flag >>> 5)] & (1 << flag)) != 0;
+  }
+
+  private void setFlag(int[] state, int flag, boolean on) {
+    if (on) {
+      state[flagBase + (flag >>> 5)] |= 1 << flag;
+    } else {
+      state[flagBase + (flag >>> 5)] &= ~(1 << flag);
+    }
+  }
+
+  /**
+   * Lock-free open-addressing table of the states reached so far. Each state keeps the
+   * smallest search order that reached it. A slot is claimed by its hash and then given its
+   * state; states with the same hash take separate slots.
+   */
+  private static final class Table {
+    private final AtomicLongArray keys;
+    private final AtomicReferenceArray<int[]> states;
+    private final AtomicLongArray marks;     // Long.MAX_VALUE - order; 0 for an empty slot
+    private final AtomicInteger size = new AtomicInteger();
+    private final int limit;
+    private volatile boolean full;
+
+    private Table(int limit) {
+      this.limit = limit;
+      int capacity = Integer.highestOneBit(Math.max(limit, 8) - 1) << 2;
+      this.keys = new AtomicLongArray(capacity);
+      this.states = new AtomicReferenceArray<>(capacity);
+      this.marks = new AtomicLongArray(capacity);
+    }
+
+    /**
+     * Records that a state was reached in a given search order.
+     *
+     * @return true if no earlier order has reached the state so far
+     */
+    private boolean offer(int[] state, long hash, long order) {
+      long key = hash == 0 ? 1 : hash;
+      long mark = Long.MAX_VALUE - order;
+      int mask = keys.length() - 1;
+      for (int slot = (int) (key ^ (key >>> 32)) & mask; ; slot = (slot + 1) & mask) {
+        long found = keys.get(slot);
+        if (found == 0) {
+          if (size.get() >= limit) {
+            full = true;
+            return false;
+          }
+          if (keys.compareAndSet(slot, 0, key)) {
+            size.incrementAndGet();
+            states.set(slot, state);
+            found = key;
+          } else {
+            found = keys.get(slot);
+          }
+        }
+        if (found == key && Arrays.equals(stateAt(slot), state)) {
+          long current;
+          do {
+            current = marks.get(slot);
+            if (current >= mark) {
+              return false;
+            }
+          } while (!marks.compareAndSet(slot, current, mark));
+          return true;
+        }
+      }
+    }
+
+    /**
+     * Checks whether a given search order is the earliest that reached a state.
+     */
+    private boolean holds(int[] state, long hash, long order) {
+      long key = hash == 0 ? 1 : hash;
+      int mask = keys.length() - 1;
+      for (int slot = (int) (key ^ (key >>> 32)) & mask; ; slot = (slot + 1) & mask) {
+        long found = keys.get(slot);
+        if (found == key && Arrays.equals(stateAt(slot), state)) {
+          return marks.get(slot) == Long.MAX_VALUE - order;
+        }
+        if (found == 0) {
+          return false;
+        }
+      }
+    }
+
+    /**
+     * Gets the state of a claimed slot, waiting for the thread that claimed it to store it.
+     */
+    private int[] stateAt(int slot) {
+      int[] state;
+      while ((state = states.get(slot)) == null) {
+        Thread.yield();
+      }
+      return state;
+    }
+
+    private boolean isFull() {
+      return full;
+    }
+
+    private int size() {
+      return size.get();
+    }
+  }
+}
@@ -14,6 +14,9 @@ public class Puzzle {
     private String description;
     private String effects;
     private String target;
+    private boolean dirty;  // active state changed since the last save
+    private WorldIndex index;  // notified of changes once the world is indexed
+    private long version;      // counts changes to the active state
     
     /**
      * create a new puzzle
@@ -55,7 +58,7 @@ public class Puzzle {
             
             // check if they match
             if (providedSolution.matches(correctSolution)) {
-                active = false;  // puzzle is now solved
+                setActive(false);  // puzzle is now solved
                 return true;
             }
         } 
@@ -69,7 +72,7 @@ public class Puzzle {
             
             // check if they match
             if (providedSolution.matches(correctSolution)) {
-                active = false;  // puzzle is now solved
+                setActive(false);  // puzzle is now solved
                 return true;
             }
         }
@@ -89,6 +92,11 @@ public class Puzzle {
     
     public void setActive(boolean active) {
         this.active = active;
+        this.dirty = true;
+        this.version++;
+        if (index != null) {
+            index.puzzleChanged(this);
+        }
     }
     
     public boolean affectsTarget() {
@@ -118,4 +126,23 @@ public class Puzzle {
     public String getTarget() {
         return target;
     }
+
+    // save tracking
+    boolean isDirty() {
+        return dirty;
+    }
+
+    void clearDirty() {
+        dirty = false;
+    }
+
+    // change tracking for rendered text
+    long getVersion() {
+        return version;
+    }
+
+    // world index
+    void setIndex(WorldIndex index) {
+        this.index = index;
+    }
 }
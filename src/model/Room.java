@@ -5,6 +5,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.function.Function;
 
 /**
  * Represents a room in the game world.
@@ -15,12 +16,12 @@ public class Room {
   private final String room_name;
   private final String room_number;
   private final String description;
-  private final int N;
-  private final int S;
-  private final int E;
-  private final int W;
-  private final Map<Direction, String> exitRoomNumbers;
-  private final Map<Direction, Room> exits;
+  private static final Direction[] DIRECTIONS = Direction.values();
+
+  // Exit graph, indexed by Direction.ordinal()
+  private final int[] exitNumbers;   // target room number, 0 for a wall
+  private final Room[] exits;        // target room, linked even while the exit is blocked
+  private int blockedExits;          // one bit per direction
   private final List<Item> items;
   private final List<Fixture> fixtures;
   private final Map<String, Fixture> fixtureMap;
@@ -28,6 +29,12 @@ public class Room {
   private Puzzle puzzleObj;
   private Monster monsterObj;
   private String picture;
+  private Function<Direction, Room> exitResolver;
+  private int resolvedExits;         // one bit per direction already resolved or set
+  private boolean dirty;             // items, exits, puzzle or monster changed since the last save
+  private WorldIndex index;          // notified of changes once the world is indexed
+  private long version;              // counts changes to items, exits, puzzle or monster
+  private List<Player> occupants;    // players of a shared world in the room, made on first entry
 
   /**
    * Full constructor for Room.
@@ -49,14 +56,11 @@ public class Room {
     this.room_name = room_name;
     this.room_number = room_number;
     this.description = description;
-    this.exitRoomNumbers = (exitRoomNumbers != null) ? new HashMap<>(exitRoomNumbers) : new HashMap<>();
-    this.N = parseExitAsInt(this.exitRoomNumbers.get(Direction.NORTH));
-    this.S = parseExitAsInt(this.exitRoomNumbers.get(Direction.SOUTH));
-    this.E = parseExitAsInt(this.exitRoomNumbers.get(Direction.EAST));
-    this.W = parseExitAsInt(this.exitRoomNumbers.get(Direction.WEST));
+    this.exitNumbers = new int[DIRECTIONS.length];
+    this.exits = new Room[DIRECTIONS.length];
+    setExitNumbers(exitRoomNumbers);
     this.items = new ArrayList<>();
     this.fixtures = new ArrayList<>();
-    this.exits = new HashMap<>();
     this.fixtureMap = new HashMap<>();
     this.itemMap = new HashMap<>();
     this.picture = picture;
@@ -81,14 +85,11 @@ public class Room {
     this.room_name = room_name;
     this.room_number = room_number;
     this.description = description;
-    this.exitRoomNumbers = (exitRoomNumbers != null) ? new HashMap<>(exitRoomNumbers) : new HashMap<>();
-    this.N = parseExitAsInt(this.exitRoomNumbers.get(Direction.NORTH));
-    this.S = parseExitAsInt(this.exitRoomNumbers.get(Direction.SOUTH));
-    this.E = parseExitAsInt(this.exitRoomNumbers.get(Direction.EAST));
-    this.W = parseExitAsInt(this.exitRoomNumbers.get(Direction.WEST));
+    this.exitNumbers = new int[DIRECTIONS.length];
+    this.exits = new Room[DIRECTIONS.length];
+    setExitNumbers(exitRoomNumbers);
     this.items = new ArrayList<>();
     this.fixtures = new ArrayList<>();
-    this.exits = new HashMap<>();
     this.fixtureMap = new HashMap<>();
     this.itemMap = new HashMap<>();
     this.picture = picture;
@@ -107,26 +108,57 @@ public class Room {
     this.room_name = name;
     this.room_number = roomNumber;
     this.description = description;
-    this.exitRoomNumbers = (exits != null) ? new HashMap<>(exits) : new HashMap<>();
-    this.N = parseExitAsInt(this.exitRoomNumbers.get(Direction.NORTH));
-    this.S = parseExitAsInt(this.exitRoomNumbers.get(Direction.SOUTH));
-    this.E = parseExitAsInt(this.exitRoomNumbers.get(Direction.EAST));
-    this.W = parseExitAsInt(this.exitRoomNumbers.get(Direction.WEST));
+    this.exitNumbers = new int[DIRECTIONS.length];
+    this.exits = new Room[DIRECTIONS.length];
+    setExitNumbers(exits);
     this.items = new ArrayList<>();
     this.fixtures = new ArrayList<>();
-    this.exits = new HashMap<>();
     this.fixtureMap = new HashMap<>();
     this.itemMap = new HashMap<>();
     this.picture = null;
   }
 
+  /**
+   * Creates a room with the same name, description, picture and exits as another room.
+   * Items, fixtures, puzzle and monster are not copied, and no exit is linked.
+   *
+   * @param definition the room to copy
+   */
+  Room(Room definition) {
+    this.room_name = definition.room_name;
+    this.room_number = definition.room_number;
+    this.description = definition.description;
+    this.exitNumbers = definition.exitNumbers.clone();
+    this.exits = new Room[DIRECTIONS.length];
+    this.blockedExits = definition.blockedExits;
+    this.items = new ArrayList<>();
+    this.fixtures = new ArrayList<>();
+    this.fixtureMap = new HashMap<>();
+    this.itemMap = new HashMap<>();
+    this.picture = definition.picture;
+  }
+
+  /**
+   * Sets every exit from a map of directions to room numbers as written in the game file.
+   * Room numbers are parsed once here; negative numbers mark blocked exits.
+   *
+   * @param exitRoomNumbers Map of exits to room numbers (nullable)
+   */
+  private void setExitNumbers(Map<Direction, String> exitRoomNumbers) {
+    if (exitRoomNumbers != null) {
+      for (Direction direction : DIRECTIONS) {
+        setExitNumber(direction, parseExitAsInt(exitRoomNumbers.get(direction)));
+      }
+    }
+  }
+
   /**
    * Parses a string to integer or returns 0 if parsing fails.
    *
    * @param value The string to parse
    * @return The parsed integer or 0
    */
-  private int parseExitAsInt(String value) {
+  private static int parseExitAsInt(String value) {
     if (value == null) return 0;
     try {
       return Integer.parseInt(value.trim());
@@ -168,7 +200,7 @@ public class Room {
    * @return The north exit value
    */
   public int getNorth() {
-    return N;
+    return getExitNumber(Direction.NORTH);
   }
 
   /**
@@ -177,7 +209,7 @@ public class Room {
    * @return The south exit value
    */
   public int getSouth() {
-    return S;
+    return getExitNumber(Direction.SOUTH);
   }
 
   /**
@@ -186,7 +218,7 @@ public class Room {
    * @return The east exit value
    */
   public int getEast() {
-    return E;
+    return getExitNumber(Direction.EAST);
   }
 
   /**
@@ -195,7 +227,7 @@ public class Room {
    * @return The west exit value
    */
   public int getWest() {
-    return W;
+    return getExitNumber(Direction.WEST);
   }
 
   /**
@@ -242,6 +274,11 @@ public class Room {
     if (item != null) {
       items.add(item);
       itemMap.put(item.getName().toUpperCase(), item);
+      dirty = true;
+      version++;
+      if (index != null) {
+        index.itemAdded(this, item);
+      }
     }
   }
 
@@ -253,7 +290,13 @@ public class Room {
   public void removeItem(Item item) {
     if (item != null) {
       itemMap.remove(item.getName().toUpperCase());
-      items.remove(item);
+      if (items.remove(item)) {
+        dirty = true;
+        version++;
+        if (index != null) {
+          index.itemRemoved(this, item);
+        }
+      }
     }
   }
 
@@ -261,8 +304,14 @@ public class Room {
    * Clears all items from the room.
    */
   public void clearItems() {
+    List<Item> removed = index != null ? new ArrayList<>(items) : List.of();
     items.clear();
     itemMap.clear();
+    dirty = true;
+    version++;
+    for (Item item : removed) {
+      index.itemRemoved(this, item);
+    }
   }
 
   /**
@@ -290,12 +339,10 @@ public class Room {
    * @param items List of items to set
    */
   public void setItems(List<Item> items) {
-    this.items.clear();
-    this.itemMap.clear();
+    clearItems();
     if (items != null) {
       for (Item item : items) {
-        this.items.add(item);
-        this.itemMap.put(item.getName().toUpperCase(), item);
+        addItem(item);
       }
     }
   }
@@ -322,7 +369,13 @@ public class Room {
    * @param puzzle The puzzle to set
    */
   public void setPuzzle(Puzzle puzzle) {
+    Puzzle previous = puzzleObj;
     this.puzzleObj = puzzle;
+    this.dirty = true;
+    this.version += previous != null ? previous.getVersion() + 1 : 1;
+    if (index != null) {
+      index.puzzleMoved(this, previous, puzzle);
+    }
   }
 
   /**
@@ -340,7 +393,13 @@ public class Room {
    * @param monster The monster to set
    */
   public void setMonster(Monster monster) {
+    Monster previous = monsterObj;
     this.monsterObj = monster;
+    this.dirty = true;
+    this.version += previous != null ? previous.getVersion() + 1 : 1;
+    if (index != null) {
+      index.monsterMoved(this, previous, monster);
+    }
   }
 
   /**
@@ -360,7 +419,8 @@ public class Room {
    */
   public void setExit(Direction direction, Room neighbor) {
     if (direction != null && neighbor != null) {
-      exits.put(direction, neighbor);
+      exits[direction.ordinal()] = neighbor;
+      resolvedExits |= 1 << direction.ordinal();
     }
   }
 
@@ -368,32 +428,284 @@ public class Room {
    * Gets the room that an exit leads to.
    *
    * @param direction The direction of the exit
-   * @return The room the exit leads to, or null if none
+   * @return The room the exit leads to, or null if none or if the exit is blocked
    */
   public Room getExit(Direction direction) {
-    return exits.get(direction);
+    if (direction == null) {
+      return null;
+    }
+    int bit = 1 << direction.ordinal();
+    if ((blockedExits & bit) != 0) {
+      return null;
+    }
+    if ((resolvedExits & bit) == 0 && exitResolver != null) {
+      resolvedExits |= bit;
+      Room neighbor = exitResolver.apply(direction);
+      if (neighbor != null) {
+        exits[direction.ordinal()] = neighbor;
+      }
+    }
+    return exits[direction.ordinal()];
+  }
+
+  /**
+   * Sets a resolver for exits whose neighboring rooms have not been built yet.
+   * Each direction is resolved on first use unless an exit has been set explicitly.
+   *
+   * @param resolver function from direction to the linked room, or null
+   */
+  void setExitResolver(Function<Direction, Room> resolver) {
+    this.exitResolver = resolver;
+    this.resolvedExits = 0;
+  }
+
+  /**
+   * Resolves every exit not yet resolved, blocked or not, so that later lookups only read.
+   * Rooms of a world shared by several players are resolved before it is shared.
+   */
+  void resolveExits() {
+    if (exitResolver == null) {
+      return;
+    }
+    for (Direction direction : DIRECTIONS) {
+      int bit = 1 << direction.ordinal();
+      if ((resolvedExits & bit) == 0) {
+        resolvedExits |= bit;
+        Room neighbor = exitResolver.apply(direction);
+        if (neighbor != null) {
+          exits[direction.ordinal()] = neighbor;
+        }
+      }
+    }
+  }
+
+  /**
+   * Gets the room an exit is linked to, even while the exit is blocked.
+   * Only resolved exits are seen.
+   *
+   * @param direction the direction of the exit
+   * @return the linked room, or null if none
+   */
+  public Room getLinkedExit(Direction direction) {
+    return exits[direction.ordinal()];
+  }
+
+  /**
+   * Records that a player of a shared world entered the room.
+   *
+   * @param player the player
+   */
+  void addOccupant(Player player) {
+    if (occupants == null) {
+      occupants = new ArrayList<>(2);
+    }
+    occupants.add(player);
+  }
+
+  /**
+   * Records that a player of a shared world left the room.
+   *
+   * @param player the player
+   */
+  void removeOccupant(Player player) {
+    if (occupants != null) {
+      occupants.remove(player);
+    }
+  }
+
+  /**
+   * Gets the players of a shared world who are in the room.
+   *
+   * @return a copy of the list of players
+   */
+  List<Player> getOccupants() {
+    return occupants == null ? new ArrayList<>() : new ArrayList<>(occupants);
   }
 
   /**
    * Sets the room number for an exit.
    *
    * @param direction The direction of the exit
-   * @param number The room number the exit leads to
+   * @param number The room number the exit leads to, negative if blocked
    */
   public void setExitRoomNumber(Direction direction, String number) {
     if (direction != null && number != null) {
-      exitRoomNumbers.put(direction, number);
+      setExitNumber(direction, parseExitAsInt(number));
     }
   }
 
   /**
    * Gets the room number for an exit.
+   * This is a string view of {@link #getExitNumber(Direction)} kept for compatibility.
    *
    * @param direction The direction of the exit
-   * @return The room number the exit leads to, or "0" if none
+   * @return The room number the exit leads to (negative if blocked), or "0" if none
    */
   public String getExitRoomNumber(Direction direction) {
-    return exitRoomNumbers.getOrDefault(direction, "0");
+    return String.valueOf(getExitNumber(direction));
+  }
+
+  /**
+   * Sets the room number for an exit.
+   * Changing the target room unlinks the exit until {@link #setExit} is called again.
+   *
+   * @param direction The direction of the exit
+   * @param number The room number the exit leads to, negative if blocked, 0 for a wall
+   */
+  public void setExitNumber(Direction direction, int number) {
+    if (direction == null) {
+      return;
+    }
+    int index = direction.ordinal();
+    int bit = 1 << index;
+    int target = Math.abs(number);
+    if (exitNumbers[index] != target) {
+      exitNumbers[index] = target;
+      exits[index] = null;
+      resolvedExits |= bit;
+      dirty = true;
+      version++;
+    }
+    int blocked = number < 0 ? blockedExits | bit : blockedExits & ~bit;
+    if (blocked != blockedExits) {
+      blockedExits = blocked;
+      dirty = true;
+      version++;
+      if (this.index != null) {
+        this.index.exitsChanged(this);
+      }
+    }
+  }
+
+  /**
+   * Gets the room number for an exit without any string parsing.
+   *
+   * @param direction The direction of the exit
+   * @return The room number the exit leads to, negative if blocked, or 0 if none
+   */
+  public int getExitNumber(Direction direction) {
+    if (direction == null) {
+      return 0;
+    }
+    int number = exitNumbers[direction.ordinal()];
+    return isExitBlocked(direction) ? -number : number;
+  }
+
+  /**
+   * Checks whether there is an exit (open or blocked) in a direction.
+   *
+   * @param direction The direction of the exit
+   * @return true if the exit leads somewhere, false if there is a wall
+   */
+  public boolean hasExit(Direction direction) {
+    return direction != null && exitNumbers[direction.ordinal()] != 0;
+  }
+
+  /**
+   * Checks whether the exit in a direction is blocked by a puzzle or monster.
+   *
+   * @param direction The direction of the exit
+   * @return true if the exit is blocked
+   */
+  public boolean isExitBlocked(Direction direction) {
+    return direction != null && (blockedExits & (1 << direction.ordinal())) != 0;
+  }
+
+  /**
+   * Gets the blocked exits, one bit per direction in {@link Direction} order.
+   *
+   * @return the blocked exit bits
+   */
+  int getBlockedExits() {
+    return blockedExits;
+  }
+
+  /**
+   * Sets which exits are blocked, one bit per direction in {@link Direction} order.
+   *
+   * @param bits the blocked exit bits
+   */
+  void setBlockedExits(int bits) {
+    if (bits != blockedExits) {
+      blockedExits = bits;
+      dirty = true;
+      version++;
+      if (index != null) {
+        index.exitsChanged(this);
+      }
+    }
+  }
+
+  /**
+   * Unblocks every blocked exit of this room.
+   *
+   * @return true if any exit was unblocked
+   */
+  public boolean unblockExits() {
+    boolean changed = blockedExits != 0;
+    blockedExits = 0;
+    dirty |= changed;
+    if (changed) {
+      version++;
+      if (index != null) {
+        index.exitsChanged(this);
+      }
+    }
+    return changed;
+  }
+
+  /**
+   * Checks whether the room's saved state (items, exits, or its puzzle or monster being
+   * active) has changed since the last save.
+   *
+   * @return true if the room needs saving
+   */
+  boolean isDirty() {
+    return dirty
+            || (puzzleObj != null && puzzleObj.isDirty())
+            || (monsterObj != null && monsterObj.isDirty());
+  }
+
+  /**
+   * Gets a stamp that changes whenever the room's items, exits, puzzle or monster change,
+   * including its puzzle being solved or its monster defeated, so that text rendered from
+   * the room can be reused for as long as the stamp stays the same.
+   *
+   * @return the version stamp
+   */
+  public long getVersion() {
+    // The room's own count grows by more than the old puzzle's or monster's count when one
+    // is replaced, so the sum never repeats
+    long stamp = version;
+    if (puzzleObj != null) {
+      stamp += puzzleObj.getVersion();
+    }
+    if (monsterObj != null) {
+      stamp += monsterObj.getVersion();
+    }
+    return stamp;
+  }
+
+  /**
+   * Has the room report changes to its items, exits, puzzle and monster to a world index.
+   *
+   * @param index the index, or null to stop reporting
+   */
+  void setIndex(WorldIndex index) {
+    this.index = index;
+  }
+
+  /**
+   * Records that the room's current state, and that of its puzzle and monster, has been saved.
+   */
+  void clearDirty() {
+    dirty = false;
+    if (puzzleObj != null) {
+      puzzleObj.clearDirty();
+    }
+    if (monsterObj != null) {
+      monsterObj.clearDirty();
+    }
   }
 
   /**
@@ -420,7 +732,8 @@ public class Room {
     return "Room [room_name=" + room_name
             + ", room_number=" + room_number
             + ", description=" + description
-            + ", N=" + N + ", S=" + S + ", E=" + E + ", W=" + W
+            + ", N=" + getNorth() + ", S=" + getSouth()
+            + ", E=" + getEast() + ", W=" + getWest()
             + ", puzzle=" + puzzleObj + ", monster=" + monsterObj
             + ", items=" + items + ", fixtures=" + fixtures
             + ", picture=" + picture + "]";
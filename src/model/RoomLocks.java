@@ -0,0 +1,132 @@
+package model;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Striped locks over the rooms of a world shared by several players.
+ * Each room maps to one of a fixed number of locks by its room number, so players in rooms
+ * on different stripes never wait for each other, while the number of locks stays fixed however
+ * large the map. A move holds the locks of both rooms it connects, always taken in stripe order
+ * so that two players crossing between the same rooms in opposite directions cannot deadlock.
+ *
+ * <p>Rooms that share a puzzle, monster or item are made to share one lock with
+ * {@link #guardTogether}, so that a player acting on the shared element in one room holds the
+ * lock of every room that can reach it.
+ */
+final class RoomLocks {
+  private final ReentrantLock[] stripes;
+  private final int mask;
+  private final Map<String, String> guardedBy = new HashMap<>();   // room number to its group's
+
+  /**
+   * Creates locks for a shared world.
+   *
+   * @param stripes the number of locks, rounded up to a power of two
+   * @throws IllegalArgumentException if stripes is less than one
+   */
+  RoomLocks(int stripes) {
+    if (stripes < 1) {
+      throw new IllegalArgumentException("Stripe count must be at least 1");
+    }
+    int size = Integer.highestOneBit(stripes);
+    if (size < stripes) {
+      size <<= 1;
+    }
+    this.stripes = new ReentrantLock[size];
+    for (int i = 0; i < size; i++) {
+      this.stripes[i] = new ReentrantLock();
+    }
+    this.mask = size - 1;
+  }
+
+  /**
+   * Gets the stripe a room is guarded by.
+   *
+   * @param room the room
+   * @return the index of the room's lock
+   */
+  int stripe(Room room) {
+    int hash = group(room.getRoomNumber()).hashCode();
+    return (hash ^ (hash >>> 16)) & mask;
+  }
+
+  /**
+   * Makes two rooms share a lock, and so every room either already shares one with.
+   * Must be called before the locks are used by more than one thread.
+   *
+   * @param first  one room
+   * @param second the other room
+   */
+  void guardTogether(Room first, Room second) {
+    String a = group(first.getRoomNumber());
+    String b = group(second.getRoomNumber());
+    if (!a.equals(b)) {
+      guardedBy.put(b, a);
+    }
+  }
+
+  /**
+   * Gets the room number whose stripe guards a room's group.
+   *
+   * @param number the room number
+   * @return the group's room number
+   */
+  String group(String number) {
+    String parent;
+    while ((parent = guardedBy.get(number)) != null) {
+      number = parent;
+    }
+    return number;
+  }
+
+  /**
+   * Runs an action holding the lock of one room.
+   *
+   * @param room   the room
+   * @param action the action
+   * @param <T>    the result type
+   * @return the action's result
+   */
+  <T> T withRoom(Room room, Supplier<T> action) {
+    ReentrantLock lock = stripes[stripe(room)];
+    lock.lock();
+    try {
+      return action.get();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Runs an action holding the locks of two rooms, taken in stripe order.
+   *
+   * @param first  one room
+   * @param second the other room, which may be the same room or share its stripe
+   * @param action the action
+   * @param <T>    the result type
+   * @return the action's result
+   */
+  <T> T withRooms(Room first, Room second, Supplier<T> action) {
+    int a = stripe(first);
+    int b = stripe(second);
+    if (a == b) {
+      return withRoom(first, action);
+    }
+    ReentrantLock outer = stripes[Math.min(a, b)];
+    ReentrantLock inner = stripes[Math.max(a, b)];
+    outer.lock();
+    try {
+      inner.lock();
+      try {
+        return action.get();
+      } finally {
+        inner.unlock();
+      }
+    } finally {
+      outer.unlock();
+    }
+  }
+}
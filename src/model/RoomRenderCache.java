@@ -0,0 +1,122 @@
+package model;
+
+import java.util.function.Function;
+
+/**
+ * Remembers text rendered from each room until the room changes.
+ * A view keeps one cache per piece of text it shows (an item list, the exits, a whole
+ * description) and asks it for the text on every look; the text is rendered again only when
+ * the room's {@link Room#getVersion() version stamp} has moved on, so repeated looks and
+ * refreshes cost an array lookup.
+ *
+ * <p>The cache holds at most {@link #SLOTS} rooms, each in the slot picked by its identity
+ * hash; a room that lands in an occupied slot replaces the room there. A player only looks at
+ * the room they are in, so a session's cache stays the same size however much of the map it
+ * has visited.
+ *
+ * <p>The renderer must depend on nothing but the room's items, exits, puzzle and monster.
+ * A cache is not thread-safe; each view uses its own from the thread that draws it.
+ */
+public final class RoomRenderCache {
+  /** Rooms a cache holds at most; a power of two. */
+  static final int SLOTS = 64;
+
+  private final Function<Room, String> renderer;
+  private final Entry[] entries = new Entry[SLOTS];
+
+  /**
+   * Text rendered from one room, with the room version it was rendered at.
+   */
+  private static final class Entry {
+    private Room room;
+    private long version;
+    private String text;
+  }
+
+  /**
+   * Creates a cache for one kind of text.
+   *
+   * @param renderer renders the text from a room
+   */
+  public RoomRenderCache(Function<Room, String> renderer) {
+    this.renderer = renderer;
+  }
+
+  /**
+   * Gets the text for a room, rendering it only if the room changed since it was last
+   * rendered.
+   *
+   * @param room the room
+   * @return the rendered text
+   */
+  public String get(Room room) {
+    long version = room.getVersion();
+    int slot = System.identityHashCode(room) & (SLOTS - 1);
+    Entry entry = entries[slot];
+    if (entry == null) {
+      entry = new Entry();
+      entries[slot] = entry;
+    } else if (entry.room == room && entry.version == version) {
+      return entry.text;
+    }
+    entry.room = room;
+    entry.text = renderer.apply(room);
+    entry.version = version;
+    return entry.text;
+  }
+
+  /**
+   * Counts the rooms the cache holds text for.
+   *
+   * @return the room count
+   */
+  int size() {
+    int size = 0;
+    for (Entry entry : entries) {
+      if (entry != null) {
+        size++;
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Renders the names of a room's items in the order they were put there.
+   *
+   * @param room      the room
+   * @param separator the text between two names
+   * @return the item names, or an empty string if the room has no items
+   */
+  public static String itemNames(Room room, String separator) {
+    StringBuilder names = new StringBuilder();
+    boolean first = true;
+    for (Item item : room.getItems()) {
+      if (!first) {
+        names.append(separator);
+      }
+      names.append(item.getName());
+      first = false;
+    }
+    return names.toString();
+  }
+
+  /**
+   * Renders a room's exits as the direction names separated by spaces, in
+   * {@link Direction} order, checking each exit once.
+   *
+   * @param room the room
+   * @return the exit names, or an empty string if the room has no exits
+   */
+  public static String exitNames(Room room) {
+    StringBuilder names = new StringBuilder();
+    for (Direction direction : Direction.values()) {
+      if (room.hasExit(direction)) {
+        if (names.length() > 0) {
+          names.append(' ');
+        }
+        names.append(direction.name());
+      }
+    }
+    return names.toString();
+  }
+}
@@ -0,0 +1,232 @@
+package model;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Append-only journal of incremental saves kept next to a full save file.
+ * The save file holds a full snapshot of the game state; each later save appends one line to
+ * "&lt;save file&gt;.journal" holding only the rooms and player that changed. Loading applies
+ * the snapshot and then every journal line in order. A new snapshot replaces the journal once
+ * the journal has grown too long, or whenever the files are not as this journal left them.
+ *
+ * <p>Every snapshot is stamped with a new generation number, and so is every delta appended
+ * after it. A new snapshot is renamed into place before the old journal is removed, so a crash
+ * in between leaves a journal of an older generation, which loading ignores.
+ *
+ * <p>Deltas are reserved on the game thread when a save is captured and written later by the
+ * save thread, so the journal's bookkeeping is synchronized; no lock is held during file I/O.
+ */
+final class SaveJournal {
+  static final String SUFFIX = ".journal";
+  private static final int MAX_DELTAS = 64;
+
+  private final File saveFile;
+  private final File journalFile;
+  private final long generation;
+  private Object saveKey;
+  private long saveModified;
+  private long saveLength;
+  private long journalLength;
+  private int deltas;
+  private int pendingWrites;         // snapshot or deltas captured but not yet written
+  private boolean broken;            // a write failed; the next save must be a snapshot
+
+  /**
+   * Creates a journal for a save file.
+   *
+   * @param saveFile      the path of the save file
+   * @param deltas        the number of deltas already in the journal
+   * @param pendingWrites the number of writes already captured for it
+   * @param generation    the generation of the snapshot the journal follows
+   */
+  private SaveJournal(String saveFile, int deltas, int pendingWrites, long generation) {
+    this.saveFile = new File(saveFile).getAbsoluteFile();
+    this.journalFile = journalFor(saveFile);
+    this.generation = generation;
+    this.deltas = deltas;
+    this.pendingWrites = pendingWrites;
+    recordFiles();
+  }
+
+  /**
+   * Gets the journal file that belongs to a save file.
+   *
+   * @param saveFile the path of the save file
+   * @return the journal file
+   */
+  static File journalFor(String saveFile) {
+    return new File(saveFile + SUFFIX).getAbsoluteFile();
+  }
+
+  /**
+   * Starts a journal for a snapshot that has been captured but not yet written.
+   *
+   * @param saveFile the path of the save file
+   * @return the journal
+   */
+  static SaveJournal forSnapshot(String saveFile) {
+    return new SaveJournal(saveFile, 0, 1, ThreadLocalRandom.current().nextLong());
+  }
+
+  /**
+   * Continues the journal of a save file that has just been loaded.
+   *
+   * @param saveFile the path of the loaded save file
+   * @param deltas     the number of deltas read from its journal
+   * @param generation the generation of the loaded snapshot
+   * @return the journal
+   */
+  static SaveJournal resume(String saveFile, int deltas, long generation) {
+    return new SaveJournal(saveFile, deltas, 0, generation);
+  }
+
+  /**
+   * Gets the generation stamped on this journal's snapshot and deltas.
+   *
+   * @return the generation
+   */
+  long getGeneration() {
+    return generation;
+  }
+
+  /**
+   * Reads the deltas recorded for a save file.
+   *
+   * @param saveFile the path of the save file
+   * @return the journal lines in order, or an empty list if there is no journal
+   * @throws IOException if the journal cannot be read
+   */
+  static List<String> readDeltas(String saveFile) throws IOException {
+    List<String> lines = new ArrayList<>();
+    try (BufferedReader reader = new BufferedReader(new FileReader(journalFor(saveFile)))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (!line.isBlank()) {
+          lines.add(line);
+        }
+      }
+    } catch (FileNotFoundException e) {
+      // No journal: the snapshot is the whole save
+    }
+    return lines;
+  }
+
+  /**
+   * Reserves a place in the journal for a delta about to be captured.
+   * That is only possible while the journal is short and, when no write is outstanding, while
+   * neither the snapshot nor the journal has been touched since this journal last wrote or
+   * read them. While writes are outstanding the files are expected to change.
+   *
+   * @param saveFile the path being saved to
+   * @return true if a delta may be captured and written with {@link #append}
+   */
+  synchronized boolean reserve(String saveFile) {
+    if (broken || deltas >= MAX_DELTAS || journalLength > saveLength
+            || !new File(saveFile).getAbsoluteFile().equals(this.saveFile)) {
+      return false;
+    }
+    if (pendingWrites == 0
+            && (!Objects.equals(fileKey(this.saveFile), saveKey)
+            || this.saveFile.lastModified() != saveModified
+            || this.saveFile.length() != saveLength
+            || journalFile.length() != journalLength)) {
+      return false;
+    }
+    deltas++;
+    pendingWrites++;
+    return true;
+  }
+
+  /**
+   * Gives back a reserved delta that will not be written, because it was empty or merged
+   * into another save.
+   */
+  synchronized void cancel() {
+    deltas--;
+    pendingWrites--;
+  }
+
+  /**
+   * Removes the journal of the snapshot that a new one has just replaced.
+   *
+   * @throws IOException if the journal exists and cannot be deleted
+   */
+  void discardFile() throws IOException {
+    if (journalFile.exists() && !journalFile.delete()) {
+      throw new IOException("Cannot delete save journal: " + journalFile);
+    }
+  }
+
+  /**
+   * Records that the snapshot this journal was started for has been written.
+   */
+  synchronized void snapshotWritten() {
+    pendingWrites--;
+    recordFiles();
+  }
+
+  /**
+   * Appends a reserved delta to the journal and forces it to disk.
+   *
+   * @param delta the delta as a single line of JSON
+   * @throws IOException if the journal cannot be written
+   */
+  void append(String delta) throws IOException {
+    byte[] line = (delta + "\n").getBytes(Charset.defaultCharset());
+    try (FileOutputStream out = new FileOutputStream(journalFile, true)) {
+      out.write(line);
+      out.getFD().sync();
+    }
+    synchronized (this) {
+      pendingWrites--;
+      recordFiles();
+    }
+  }
+
+  /**
+   * Records that a captured snapshot or delta could not be written, so the files no longer
+   * match the game and the next save must be a full one.
+   */
+  synchronized void failed() {
+    pendingWrites--;
+    broken = true;
+  }
+
+  /**
+   * Remembers the current identity, size and time stamp of the files.
+   */
+  private synchronized void recordFiles() {
+    saveKey = fileKey(saveFile);
+    saveModified = saveFile.lastModified();
+    saveLength = saveFile.length();
+    journalLength = journalFile.length();
+  }
+
+  /**
+   * Gets what identifies a file on its file system, such as its inode. A snapshot written by
+   * anyone is renamed into place, so a new snapshot gets a new key even if its size and time
+   * stamp happen to match the old one's.
+   *
+   * @param file the file
+   * @return the key, or null if the file is missing or the file system has none
+   */
+  private static Object fileKey(File file) {
+    try {
+      return Files.readAttributes(file.toPath(), BasicFileAttributes.class).fileKey();
+    } catch (IOException e) {
+      return null;
+    }
+  }
+}
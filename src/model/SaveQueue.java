@@ -0,0 +1,248 @@
+package model;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes captured saves on a background thread, one at a time and in the order requested.
+ * A save requested while an earlier save of the same world and file is still waiting to start
+ * is merged into it, so a burst of saves costs one write. The writer thread ends after a short
+ * idle period and is not a daemon, so a program that simply returns from main still finishes
+ * its saves; code that calls {@link System#exit} should call {@link #flush()} first.
+ */
+public final class SaveQueue {
+  private static final SaveQueue DEFAULT = new SaveQueue();
+
+  private final Executor executor;
+  private final List<Job> waiting = new ArrayList<>();
+
+  // Metrics, guarded by this
+  private long requested;
+  private long written;
+  private long coalesced;
+  private long failed;
+  private long lastLatencyNanos;
+  private long maxLatencyNanos;
+  private long totalLatencyNanos;
+
+  /**
+   * A save waiting for or being written, with everyone waiting on it.
+   */
+  private static final class Job {
+    private PendingSave save;
+    private final long requestedAt = System.nanoTime();
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+  }
+
+  /**
+   * Creates a queue with its own writer thread.
+   */
+  SaveQueue() {
+    this(newWriter());
+  }
+
+  /**
+   * Creates a queue that runs its writes on the given executor, which must run them one at
+   * a time in submission order.
+   *
+   * @param executor the executor that writes saves
+   */
+  SaveQueue(Executor executor) {
+    this.executor = executor;
+  }
+
+  /**
+   * Creates the single writer thread, which ends after two idle seconds.
+   *
+   * @return the executor
+   */
+  private static Executor newWriter() {
+    ThreadPoolExecutor writer = new ThreadPoolExecutor(1, 1, 2, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), runnable -> {
+              Thread thread = new Thread(runnable, "game-save-writer");
+              thread.setDaemon(false);
+              return thread;
+            });
+    writer.allowCoreThreadTimeOut(true);
+    return writer;
+  }
+
+  /**
+   * Gets the queue used by {@link GameWorld#saveGameAsync(String)}.
+   *
+   * @return the shared save queue
+   */
+  public static SaveQueue getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * Queues a captured save.
+   *
+   * @param save the captured state
+   * @return a future completed when the save is on disk, or completed exceptionally with the
+   *         IOException that stopped it
+   */
+  CompletableFuture<Void> submit(PendingSave save) {
+    Job job;
+    synchronized (this) {
+      requested++;
+      for (Job queued : waiting) {
+        if (queued.save.canMerge(save)) {
+          queued.save = queued.save.merge(save);
+          coalesced++;
+          return queued.done;
+        }
+      }
+      job = new Job();
+      job.save = save;
+      waiting.add(job);
+    }
+    executor.execute(() -> run(job));
+    return job.done;
+  }
+
+  /**
+   * Writes one job. It stops accepting merges as soon as it starts.
+   *
+   * @param job the job
+   */
+  private void run(Job job) {
+    PendingSave save;
+    synchronized (this) {
+      waiting.remove(job);
+      save = job.save;
+    }
+    try {
+      save.write();
+      record(job, true);
+      job.done.complete(null);
+    } catch (IOException | RuntimeException e) {
+      record(job, false);
+      job.done.completeExceptionally(e);
+    }
+  }
+
+  /**
+   * Records the outcome and latency of a job, from its first request until it finished.
+   *
+   * @param job       the job
+   * @param succeeded true if it was written
+   */
+  private synchronized void record(Job job, boolean succeeded) {
+    long latency = System.nanoTime() - job.requestedAt;
+    if (succeeded) {
+      written++;
+    } else {
+      failed++;
+    }
+    lastLatencyNanos = latency;
+    maxLatencyNanos = Math.max(maxLatencyNanos, latency);
+    totalLatencyNanos += latency;
+  }
+
+  /**
+   * Waits until every save queued so far has been written or has failed.
+   */
+  public void flush() {
+    CompletableFuture<Void> marker = new CompletableFuture<>();
+    executor.execute(() -> marker.complete(null));
+    marker.join();
+  }
+
+  /**
+   * Waits for a save and rethrows its failure as the IOException it was.
+   *
+   * @param future the future returned for the save
+   * @throws IOException if the save failed
+   */
+  static void await(CompletableFuture<Void> future) throws IOException {
+    try {
+      future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while saving", e);
+    } catch (ExecutionException | CompletionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException io) {
+        throw io;
+      }
+      if (cause instanceof RuntimeException runtime) {
+        throw runtime;
+      }
+      throw new IOException(cause);
+    }
+  }
+
+  /**
+   * Gets the number of saves requested, including those merged into another.
+   *
+   * @return the request count
+   */
+  public synchronized long getRequestedCount() {
+    return requested;
+  }
+
+  /**
+   * Gets the number of writes that completed.
+   *
+   * @return the write count
+   */
+  public synchronized long getWrittenCount() {
+    return written;
+  }
+
+  /**
+   * Gets the number of requests merged into a save that was already waiting.
+   *
+   * @return the coalesced count
+   */
+  public synchronized long getCoalescedCount() {
+    return coalesced;
+  }
+
+  /**
+   * Gets the number of writes that failed.
+   *
+   * @return the failure count
+   */
+  public synchronized long getFailedCount() {
+    return failed;
+  }
+
+  /**
+   * Gets the latency of the most recent write, from request until on disk.
+   *
+   * @return the latency in nanoseconds, 0 if nothing was written yet
+   */
+  public synchronized long getLastLatencyNanos() {
+    return lastLatencyNanos;
+  }
+
+  /**
+   * Gets the highest write latency seen.
+   *
+   * @return the latency in nanoseconds
+   */
+  public synchronized long getMaxLatencyNanos() {
+    return maxLatencyNanos;
+  }
+
+  /**
+   * Gets the mean write latency, counting failed writes.
+   *
+   * @return the latency in nanoseconds, 0 if nothing was written yet
+   */
+  public synchronized long getAverageLatencyNanos() {
+    long finished = written + failed;
+    return finished == 0 ? 0 : totalLatencyNanos / finished;
+  }
+}
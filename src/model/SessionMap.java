@@ -0,0 +1,115 @@
+package model;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Per-session map view over the definitions of a shared {@link WorldTemplate}.
+ * An element is copied from its definition the first time the session looks it up, and that
+ * copy is returned from then on, so a session only holds the elements it has touched.
+ * Definitions are read while holding the template's lock because templates backed by a world
+ * image build them on demand.
+ *
+ * @param <V> the element type
+ */
+final class SessionMap<V> extends AbstractMap<String, V> {
+  private final Object lock;
+  private final Map<String, V> definitions;
+  private final Function<V, V> copier;
+  private final Map<String, V> copies;
+
+  /**
+   * Creates a session view over a map of definitions.
+   *
+   * @param lock        lock guarding reads of the definitions
+   * @param definitions the shared definitions, never modified
+   * @param copier      creates a session copy of a definition
+   */
+  SessionMap(Object lock, Map<String, V> definitions, Function<V, V> copier) {
+    this.lock = lock;
+    this.definitions = definitions;
+    this.copier = copier;
+    this.copies = new HashMap<>();
+  }
+
+  @Override
+  public V get(Object key) {
+    if (!(key instanceof String name)) {
+      return null;
+    }
+    V copy = copies.get(name);
+    if (copy == null) {
+      V definition;
+      synchronized (lock) {
+        definition = definitions.get(name);
+      }
+      if (definition == null) {
+        return null;
+      }
+      copy = copier.apply(definition);
+      copies.put(name, copy);
+    }
+    return copy;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    synchronized (lock) {
+      return definitions.containsKey(key);
+    }
+  }
+
+  @Override
+  public int size() {
+    return definitions.size();
+  }
+
+  /**
+   * Gets the number of elements this session has copied so far.
+   *
+   * @return the number of copied elements
+   */
+  int copiedCount() {
+    return copies.size();
+  }
+
+  @Override
+  public Set<Entry<String, V>> entrySet() {
+    return new AbstractSet<>() {
+      @Override
+      public Iterator<Entry<String, V>> iterator() {
+        Iterator<String> keys;
+        synchronized (lock) {
+          keys = definitions.keySet().iterator();
+        }
+        return new Iterator<>() {
+          @Override
+          public boolean hasNext() {
+            synchronized (lock) {
+              return keys.hasNext();
+            }
+          }
+
+          @Override
+          public Entry<String, V> next() {
+            String key;
+            synchronized (lock) {
+              key = keys.next();
+            }
+            return new SimpleImmutableEntry<>(key, get(key));
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return definitions.size();
+      }
+    };
+  }
+}
@@ -0,0 +1,457 @@
+package model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+/**
+ * Compact binary snapshot of a game in progress.
+ * A snapshot holds the same state as a full JSON save, plus the game file it was played on,
+ * so it can be loaded without knowing that file in advance. It also keeps each monster's
+ * health and the position of the session's random stream, which JSON saves leave out.
+ *
+ * <p>The file starts with a fixed header: magic number, format version, body length and the
+ * CRC32 of the body. In the body every number is a varint (signed numbers zigzag-encoded) and
+ * every string is a reference into a name table built as the file is written: the first use of
+ * a string stores its UTF-8 bytes, later uses store only its index. Files are written and read
+ * through a small buffer on a file channel, so memory use does not grow with the world.
+ */
+final class SnapshotCodec {
+  private static final int MAGIC = 0x41474753; // "AGGS"
+  private static final int FORMAT_VERSION = 3;
+  private static final int HEADER_LENGTH = 20;
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  // Room flag bits
+  private static final int HAS_PUZZLE = 1;
+  private static final int PUZZLE_ACTIVE = 2;
+  private static final int HAS_MONSTER = 4;
+  private static final int MONSTER_ACTIVE = 8;
+
+  private static final Direction[] DIRECTIONS = Direction.values();
+
+  private SnapshotCodec() {
+  }
+
+  /**
+   * Writes a snapshot, replacing the file only once it is complete.
+   *
+   * @param file         the snapshot file
+   * @param gameFileName the game file the world was loaded from
+   * @param gameName     the game name
+   * @param version      the game version
+   * @param player       the player
+   * @param rooms        every room in the world
+   * @throws IOException if the snapshot cannot be written
+   */
+  static void write(Path file, String gameFileName, String gameName, String version,
+                    Player player, Collection<Room> rooms) throws IOException {
+    Path absolute = file.toAbsolutePath();
+    Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+    try {
+      try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE,
+              StandardOpenOption.TRUNCATE_EXISTING)) {
+        Encoder out = new Encoder(channel);
+        out.writeString(gameFileName);
+        out.writeString(gameName);
+        out.writeString(version);
+        writePlayer(out, player);
+        out.writeUnsigned(rooms.size());
+        for (Room room : rooms) {
+          writeRoom(out, room);
+        }
+        out.finish();
+        channel.force(true);
+      }
+      try {
+        Files.move(temp, absolute, StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  /**
+   * Writes the player's state and inventory.
+   *
+   * @param out    the encoder
+   * @param player the player
+   * @throws IOException if the snapshot cannot be written
+   */
+  private static void writePlayer(Encoder out, Player player) throws IOException {
+    out.writeString(player.getName());
+    out.writeSigned(player.getHealth());
+    out.writeSigned(player.getScore());
+    out.writeString(player.getCurrentRoom().getRoomNumber());
+    out.writeLong(player.getRandom().getSeed());
+    out.writeLong(player.getRandom().getDraws());
+    List<Item> inventory = player.getInventoryView();
+    out.writeUnsigned(inventory.size());
+    for (Item item : inventory) {
+      out.writeString(item.getName());
+      out.writeSigned(item.getUsesRemaining());
+    }
+  }
+
+  /**
+   * Writes one room's puzzle and monster state, exits and items.
+   *
+   * @param out  the encoder
+   * @param room the room
+   * @throws IOException if the snapshot cannot be written
+   */
+  private static void writeRoom(Encoder out, Room room) throws IOException {
+    out.writeString(room.getRoomNumber());
+    int flags = 0;
+    if (room.getPuzzle() != null) {
+      flags |= room.getPuzzle().isActive() ? HAS_PUZZLE | PUZZLE_ACTIVE : HAS_PUZZLE;
+    }
+    if (room.getMonster() != null) {
+      flags |= room.getMonster().isActive() ? HAS_MONSTER | MONSTER_ACTIVE : HAS_MONSTER;
+    }
+    out.writeUnsigned(flags);
+    if (room.getMonster() != null) {
+      out.writeSigned(room.getMonster().getHealth());
+    }
+    for (Direction dir : DIRECTIONS) {
+      out.writeSigned(room.getExitNumber(dir));
+    }
+    List<Item> items = room.getItems();
+    out.writeUnsigned(items.size());
+    for (Item item : items) {
+      out.writeString(item.getName());
+    }
+  }
+
+  /**
+   * Reads a snapshot into the layout of a full JSON save, with the game file under
+   * "game_file". Nothing is returned unless the whole body matches its checksum.
+   *
+   * @param file the snapshot file
+   * @return the saved state
+   * @throws IOException if the file cannot be read or is not a valid snapshot
+   */
+  static JSONObject read(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      Decoder in = new Decoder(channel);
+      JSONObject state = new JSONObject();
+      state.put("game_file", in.readString());
+      state.put("game_name", in.readString());
+      state.put("version", in.readString());
+      state.put("player", readPlayer(in));
+      int roomCount = in.readUnsigned();
+      JSONArray rooms = new JSONArray();
+      for (int i = 0; i < roomCount; i++) {
+        rooms.add(readRoom(in));
+      }
+      state.put("rooms", rooms);
+      in.finish();
+      return state;
+    } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+      throw new IOException("Malformed snapshot: " + file, e);
+    }
+  }
+
+  /**
+   * Reads the player's state and inventory.
+   *
+   * @param in the decoder
+   * @return the player state
+   * @throws IOException if the snapshot cannot be read
+   */
+  private static JSONObject readPlayer(Decoder in) throws IOException {
+    JSONObject player = new JSONObject();
+    player.put("name", in.readString());
+    player.put("health", (long) in.readSigned());
+    player.put("score", (long) in.readSigned());
+    player.put("current_room", in.readString());
+    player.put("random_seed", in.readLong());
+    player.put("random_draws", in.readLong());
+    int count = in.readUnsigned();
+    JSONArray inventory = new JSONArray();
+    for (int i = 0; i < count; i++) {
+      JSONObject item = new JSONObject();
+      item.put("name", in.readString());
+      item.put("uses_remaining", (long) in.readSigned());
+      inventory.add(item);
+    }
+    player.put("inventory", inventory);
+    return player;
+  }
+
+  /**
+   * Reads one room's state.
+   *
+   * @param in the decoder
+   * @return the room state
+   * @throws IOException if the snapshot cannot be read
+   */
+  private static JSONObject readRoom(Decoder in) throws IOException {
+    JSONObject room = new JSONObject();
+    room.put("room_number", in.readString());
+    int flags = in.readUnsigned();
+    if ((flags & HAS_PUZZLE) != 0) {
+      room.put("puzzle_active", (flags & PUZZLE_ACTIVE) != 0);
+    }
+    if ((flags & HAS_MONSTER) != 0) {
+      room.put("monster_active", (flags & MONSTER_ACTIVE) != 0);
+      room.put("monster_health", (long) in.readSigned());
+    }
+    JSONObject exits = new JSONObject();
+    for (Direction dir : DIRECTIONS) {
+      exits.put(dir.toString(), Integer.toString(in.readSigned()));
+    }
+    room.put("exits", exits);
+    int count = in.readUnsigned();
+    JSONArray items = new JSONArray();
+    for (int i = 0; i < count; i++) {
+      items.add(in.readString());
+    }
+    room.put("items", items);
+    return room;
+  }
+
+  /**
+   * Buffered varint writer over a file channel that leaves room for the header and fills it
+   * in once the body is complete.
+   */
+  private static final class Encoder {
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final CRC32 crc = new CRC32();
+    private final Map<String, Integer> names = new HashMap<>();
+    private long bodyLength;
+
+    private Encoder(FileChannel channel) throws IOException {
+      this.channel = channel;
+      channel.position(HEADER_LENGTH);
+    }
+
+    /**
+     * Writes a non-negative number as a varint of seven bits per byte.
+     */
+    private void writeUnsigned(int value) throws IOException {
+      reserve(5);
+      while ((value & ~0x7F) != 0) {
+        buffer.put((byte) ((value & 0x7F) | 0x80));
+        value >>>= 7;
+      }
+      buffer.put((byte) value);
+    }
+
+    /**
+     * Writes a 64-bit number as eight bytes.
+     */
+    private void writeLong(long value) throws IOException {
+      reserve(8);
+      buffer.putLong(value);
+    }
+
+    /**
+     * Writes a number that may be negative, zigzag-encoded so small magnitudes stay short.
+     */
+    private void writeSigned(int value) throws IOException {
+      writeUnsigned((value << 1) ^ (value >> 31));
+    }
+
+    /**
+     * Writes a string as a name table reference: 0 for null, the index plus one for a string
+     * already in the table, or the next index followed by the string's bytes.
+     */
+    private void writeString(String value) throws IOException {
+      if (value == null) {
+        writeUnsigned(0);
+        return;
+      }
+      Integer index = names.get(value);
+      if (index != null) {
+        writeUnsigned(index);
+        return;
+      }
+      names.put(value, names.size() + 1);
+      writeUnsigned(names.size());
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      writeUnsigned(bytes.length);
+      for (int offset = 0; offset < bytes.length; ) {
+        reserve(1);
+        int length = Math.min(buffer.remaining(), bytes.length - offset);
+        buffer.put(bytes, offset, length);
+        offset += length;
+      }
+    }
+
+    /**
+     * Makes room in the buffer, draining it to the channel if needed.
+     */
+    private void reserve(int bytes) throws IOException {
+      if (buffer.remaining() < bytes) {
+        drain();
+      }
+    }
+
+    private void drain() throws IOException {
+      buffer.flip();
+      crc.update(buffer.array(), 0, buffer.limit());
+      bodyLength += buffer.limit();
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      buffer.clear();
+    }
+
+    /**
+     * Writes what is left of the body and then the header.
+     */
+    private void finish() throws IOException {
+      drain();
+      ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+      header.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(bodyLength).putInt((int) crc.getValue());
+      header.flip();
+      long position = 0;
+      while (header.hasRemaining()) {
+        position += channel.write(header, position);
+      }
+    }
+  }
+
+  /**
+   * Buffered varint reader over a file channel that checks the header first and the body
+   * checksum at the end.
+   */
+  private static final class Decoder {
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final CRC32 crc = new CRC32();
+    private final List<String> names = new ArrayList<>();
+    private final long bodyLength;
+    private final int checksum;
+    private long consumed;
+
+    private Decoder(FileChannel channel) throws IOException {
+      this.channel = channel;
+      ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+      while (header.hasRemaining()) {
+        if (channel.read(header) < 0) {
+          throw new IOException("Not a game snapshot");
+        }
+      }
+      header.flip();
+      if (header.getInt() != MAGIC) {
+        throw new IOException("Not a game snapshot");
+      }
+      int version = header.getInt();
+      if (version != FORMAT_VERSION) {
+        throw new IOException("Unsupported snapshot version " + version);
+      }
+      bodyLength = header.getLong();
+      checksum = header.getInt();
+      if (bodyLength != channel.size() - HEADER_LENGTH) {
+        throw new IOException("Snapshot length does not match its header");
+      }
+      buffer.limit(0);
+    }
+
+    private int readUnsigned() throws IOException {
+      int value = 0;
+      for (int shift = 0; shift < 35; shift += 7) {
+        byte b = readByte();
+        value |= (b & 0x7F) << shift;
+        if (b >= 0) {
+          return value;
+        }
+      }
+      throw new IOException("Malformed varint in snapshot");
+    }
+
+    private long readLong() throws IOException {
+      long value = 0;
+      for (int i = 0; i < 8; i++) {
+        value = (value << 8) | (readByte() & 0xFF);
+      }
+      return value;
+    }
+
+    private int readSigned() throws IOException {
+      int value = readUnsigned();
+      return (value >>> 1) ^ -(value & 1);
+    }
+
+    private String readString() throws IOException {
+      int index = readUnsigned();
+      if (index == 0) {
+        return null;
+      }
+      if (index <= names.size()) {
+        return names.get(index - 1);
+      }
+      if (index != names.size() + 1) {
+        throw new IOException("Bad name reference in snapshot");
+      }
+      int length = readUnsigned();
+      if (length < 0 || length > bodyLength) {
+        throw new IOException("Bad name length in snapshot");
+      }
+      byte[] bytes = new byte[length];
+      for (int offset = 0; offset < length; ) {
+        fill();
+        int count = Math.min(buffer.remaining(), length - offset);
+        buffer.get(bytes, offset, count);
+        offset += count;
+      }
+      String value = new String(bytes, StandardCharsets.UTF_8);
+      names.add(value);
+      return value;
+    }
+
+    private byte readByte() throws IOException {
+      fill();
+      return buffer.get();
+    }
+
+    /**
+     * Refills the buffer from the channel once it is empty, checksumming what is read.
+     */
+    private void fill() throws IOException {
+      if (buffer.hasRemaining()) {
+        return;
+      }
+      buffer.clear();
+      int read = channel.read(buffer);
+      if (read <= 0) {
+        throw new IOException("Truncated snapshot");
+      }
+      buffer.flip();
+      crc.update(buffer.array(), 0, read);
+      consumed += read;
+    }
+
+    /**
+     * Checks that the whole body was read and matches its checksum.
+     */
+    private void finish() throws IOException {
+      if (buffer.hasRemaining() || consumed != bodyLength) {
+        throw new IOException("Unexpected data after snapshot body");
+      }
+      if ((int) crc.getValue() != checksum) {
+        throw new IOException("Snapshot checksum mismatch");
+      }
+    }
+  }
+}
@@ -0,0 +1,864 @@
+package model;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Precompiled binary image of a game file.
+ * The image holds a string table, fixed-width room records, an exit adjacency table and
+ * tables for items, fixtures, puzzles and monsters, each with a hashed key index. It is
+ * opened through a read-only memory-mapped file and game elements are only built when they
+ * are first looked up, so startup cost does not grow with the size of the world.
+ *
+ * <p>The header records the length, modification time and CRC32 checksum of the JSON file
+ * the image was compiled from. An image whose source has changed is treated as stale.
+ */
+final class WorldImage {
+  private static final int MAGIC = 0x41475749; // "AGWI"
+  private static final int FORMAT_VERSION = 1;
+  private static final String IMAGE_EXTENSION = ".world";
+
+  // Row layouts (all columns are 32-bit ints; strings are string table indexes, -1 for null)
+  private static final int ROOM_WIDTH = 15;
+  private static final int ITEM_WIDTH = 8;
+  private static final int FIXTURE_WIDTH = 7;
+  private static final int PUZZLE_WIDTH = 10;
+  private static final int MONSTER_WIDTH = 11;
+
+  private static final Direction[] DIRECTIONS = Direction.values();
+
+  private final ByteBuffer buffer;
+  private final String gameName;
+  private final String version;
+
+  // String table
+  private final int stringCount;
+  private final int stringOffsetsBase;
+  private final int stringBytesBase;
+
+  // Entity tables and the exit adjacency table
+  private final Table roomTable;
+  private final int exitsBase;
+  private final int listsBase;
+  private final Table itemTable;
+  private final Table fixtureTable;
+  private final Table puzzleTable;
+  private final Table monsterTable;
+
+  // Elements built so far, by row
+  private final Room[] roomCache;
+  private final Item[] itemCache;
+  private final Fixture[] fixtureCache;
+  private final Puzzle[] puzzleCache;
+  private final Monster[] monsterCache;
+
+  /**
+   * Reads the section layout of a mapped image.
+   *
+   * @param buffer the mapped image contents
+   * @throws IOException if the image is truncated or malformed
+   */
+  private WorldImage(ByteBuffer buffer) throws IOException {
+    this.buffer = buffer;
+    try {
+      int pos = 40;
+      int gameNameIndex = buffer.getInt(32);
+      int versionIndex = buffer.getInt(36);
+
+      stringCount = buffer.getInt(pos);
+      stringOffsetsBase = pos + 4;
+      stringBytesBase = stringOffsetsBase + (stringCount + 1) * 4;
+      pos = stringBytesBase + buffer.getInt(stringOffsetsBase + stringCount * 4);
+
+      roomTable = new Table(pos);
+      pos = roomTable.end;
+      exitsBase = pos;
+      pos += roomTable.count * DIRECTIONS.length * 4;
+      int listLength = buffer.getInt(pos);
+      listsBase = pos + 4;
+      pos = listsBase + listLength * 4;
+      itemTable = new Table(pos);
+      fixtureTable = new Table(itemTable.end);
+      puzzleTable = new Table(fixtureTable.end);
+      monsterTable = new Table(puzzleTable.end);
+      if (monsterTable.end != buffer.limit()) {
+        throw new IOException("Unexpected world image length");
+      }
+
+      gameName = string(gameNameIndex);
+      version = string(versionIndex);
+    } catch (IndexOutOfBoundsException e) {
+      throw new IOException("Truncated world image", e);
+    }
+
+    roomCache = new Room[roomTable.count];
+    itemCache = new Item[itemTable.count];
+    fixtureCache = new Fixture[fixtureTable.count];
+    puzzleCache = new Puzzle[puzzleTable.count];
+    monsterCache = new Monster[monsterTable.count];
+  }
+
+  /**
+   * Gets the path of the compiled image for a game file.
+   * A trailing ".json" is replaced; any other name gets the image extension appended.
+   *
+   * @param gameFileName path to the JSON game file
+   * @return path to the image file
+   */
+  static String imagePathFor(String gameFileName) {
+    if (gameFileName.toLowerCase().endsWith(".json")) {
+      return gameFileName.substring(0, gameFileName.length() - 5) + IMAGE_EXTENSION;
+    }
+    return gameFileName + IMAGE_EXTENSION;
+  }
+
+  /**
+   * Opens the compiled image of a game file if one exists and is current.
+   *
+   * @param gameFileName path to the JSON game file
+   * @return the opened image, or null if there is no usable image and the JSON must be read
+   */
+  static WorldImage openIfCurrent(String gameFileName) {
+    Path source = Path.of(gameFileName);
+    Path image = Path.of(imagePathFor(gameFileName));
+    if (!Files.isRegularFile(image) || !Files.isRegularFile(source)) {
+      return null;
+    }
+
+    try (FileChannel channel = FileChannel.open(image, StandardOpenOption.READ)) {
+      if (channel.size() < 40 || channel.size() > Integer.MAX_VALUE) {
+        return null;
+      }
+      MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (mapped.getInt(0) != MAGIC || mapped.getInt(4) != FORMAT_VERSION) {
+        return null;
+      }
+      if (!isCurrent(source, mapped.getLong(8), mapped.getLong(16), mapped.getLong(24))) {
+        return null;
+      }
+      return new WorldImage(mapped);
+    } catch (IOException e) {
+      // Unreadable or damaged image; fall back to the JSON file
+      return null;
+    }
+  }
+
+  /**
+   * Checks whether the source file still matches the stamp recorded in an image.
+   * Length and modification time are compared first; if either differs the file contents
+   * are checksummed, so a file that was only touched is still considered current.
+   *
+   * @param source   the JSON game file
+   * @param length   recorded length
+   * @param modified recorded modification time in milliseconds
+   * @param checksum recorded CRC32 of the file contents
+   * @return true if the image was compiled from the current file contents
+   * @throws IOException if the source cannot be read
+   */
+  private static boolean isCurrent(Path source, long length, long modified, long checksum)
+          throws IOException {
+    if (Files.size(source) != length) {
+      return false;
+    }
+    if (Files.getLastModifiedTime(source).toMillis() == modified) {
+      return true;
+    }
+    return checksum(source) == checksum;
+  }
+
+  /**
+   * Computes the CRC32 checksum of a file.
+   *
+   * @param file the file to checksum
+   * @return the checksum value
+   * @throws IOException if the file cannot be read
+   */
+  private static long checksum(Path file) throws IOException {
+    CRC32 crc = new CRC32();
+    byte[] chunk = new byte[64 * 1024];
+    try (InputStream in = Files.newInputStream(file)) {
+      int read;
+      while ((read = in.read(chunk)) != -1) {
+        crc.update(chunk, 0, read);
+      }
+    }
+    return crc.getValue();
+  }
+
+  /**
+   * Compiles loaded game elements into an image next to the game file.
+   * Tables are written in the iteration order of the given maps so that an opened image
+   * iterates its rooms in the same order as a world loaded from JSON.
+   *
+   * @param gameFileName path to the JSON game file the elements were loaded from
+   * @param gameName     the game name
+   * @param version      the game version
+   * @param rooms        map of room number to room
+   * @param items        map of item key to item
+   * @param fixtures     map of fixture key to fixture
+   * @param puzzles      map of puzzle key to puzzle
+   * @param monsters     map of monster key to monster
+   * @return path of the written image
+   * @throws IOException if the image cannot be written
+   */
+  static String write(String gameFileName, String gameName, String version,
+                      Map<String, Room> rooms, Map<String, Item> items,
+                      Map<String, Fixture> fixtures, Map<String, Puzzle> puzzles,
+                      Map<String, Monster> monsters) throws IOException {
+    Path source = Path.of(gameFileName);
+    String imageFileName = imagePathFor(gameFileName);
+    ImageWriter writer = new ImageWriter(gameName, version, rooms, items, fixtures, puzzles,
+            monsters);
+
+    // Write to a temporary file first so a reader never maps a half-written image
+    File target = new File(imageFileName);
+    File temp = new File(imageFileName + ".tmp");
+    try (DataOutputStream out = new DataOutputStream(
+            new BufferedOutputStream(new FileOutputStream(temp), 64 * 1024))) {
+      out.writeInt(MAGIC);
+      out.writeInt(FORMAT_VERSION);
+      out.writeLong(Files.size(source));
+      out.writeLong(Files.getLastModifiedTime(source).toMillis());
+      out.writeLong(checksum(source));
+      writer.writeBody(out);
+      if (out.size() == Integer.MAX_VALUE) {
+        throw new IOException("World image exceeds 2 GB");
+      }
+    }
+    Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    return imageFileName;
+  }
+
+  /**
+   * Gets the game name stored in the image.
+   *
+   * @return the game name
+   */
+  String getGameName() {
+    return gameName;
+  }
+
+  /**
+   * Gets the game version stored in the image.
+   *
+   * @return the game version
+   */
+  String getVersion() {
+    return version;
+  }
+
+  /**
+   * Gets a lazily built view of the rooms, keyed by room number.
+   *
+   * @return the room map
+   */
+  Map<String, Room> rooms() {
+    return new ImageMap<>(roomTable) {
+      @Override
+      Room build(int row) {
+        return room(row);
+      }
+    };
+  }
+
+  /**
+   * Gets a lazily built view of the items, keyed by upper-case name.
+   *
+   * @return the item map
+   */
+  Map<String, Item> items() {
+    return new ImageMap<>(itemTable) {
+      @Override
+      Item build(int row) {
+        return item(row);
+      }
+    };
+  }
+
+  /**
+   * Gets a lazily built view of the fixtures, keyed by upper-case name.
+   *
+   * @return the fixture map
+   */
+  Map<String, Fixture> fixtures() {
+    return new ImageMap<>(fixtureTable) {
+      @Override
+      Fixture build(int row) {
+        return fixture(row);
+      }
+    };
+  }
+
+  /**
+   * Gets a lazily built view of the puzzles, keyed by upper-case name.
+   *
+   * @return the puzzle map
+   */
+  Map<String, Puzzle> puzzles() {
+    return new ImageMap<>(puzzleTable) {
+      @Override
+      Puzzle build(int row) {
+        return puzzle(row);
+      }
+    };
+  }
+
+  /**
+   * Gets a lazily built view of the monsters, keyed by upper-case name.
+   *
+   * @return the monster map
+   */
+  Map<String, Monster> monsters() {
+    return new ImageMap<>(monsterTable) {
+      @Override
+      Monster build(int row) {
+        return monster(row);
+      }
+    };
+  }
+
+  /**
+   * Gets the room at a row, building it on first use.
+   * Exits are resolved lazily so that building one room does not build its neighbors.
+   *
+   * @param row the room row
+   * @return the room
+   */
+  private Room room(int row) {
+    Room room = roomCache[row];
+    if (room != null) {
+      return room;
+    }
+
+    Map<Direction, String> exits = new HashMap<>();
+    for (int d = 0; d < DIRECTIONS.length; d++) {
+      exits.put(DIRECTIONS[d], string(roomTable.field(row, 4 + d)));
+    }
+    room = new Room(string(roomTable.field(row, 1)), string(roomTable.field(row, 2)),
+            string(roomTable.field(row, 3)), exits, 0, 0, 0, 0, "itemsField", "field3");
+    roomCache[row] = room;
+
+    int itemsStart = roomTable.field(row, 10);
+    int itemsCount = roomTable.field(row, 11);
+    for (int i = 0; i < itemsCount; i++) {
+      room.addItem(item(listEntry(itemsStart + i)));
+    }
+    int fixturesStart = roomTable.field(row, 12);
+    int fixturesCount = roomTable.field(row, 13);
+    for (int i = 0; i < fixturesCount; i++) {
+      room.addFixture(fixture(listEntry(fixturesStart + i)));
+    }
+    int puzzleRow = roomTable.field(row, 8);
+    if (puzzleRow >= 0) {
+      room.setPuzzle(puzzle(puzzleRow));
+    }
+    int monsterRow = roomTable.field(row, 9);
+    if (monsterRow >= 0) {
+      room.setMonster(monster(monsterRow));
+    }
+
+    room.setExitResolver(direction -> {
+      int target = buffer.getInt(exitsBase + (row * DIRECTIONS.length + direction.ordinal()) * 4);
+      return target >= 0 ? room(target) : null;
+    });
+    return room;
+  }
+
+  /**
+   * Gets the item at a row, building it on first use.
+   *
+   * @param row the item row
+   * @return the item
+   */
+  private Item item(int row) {
+    Item item = itemCache[row];
+    if (item == null) {
+      Table t = itemTable;
+      item = new Item(string(t.field(row, 1)), t.field(row, 2), t.field(row, 3),
+              t.field(row, 4), t.field(row, 5), string(t.field(row, 6)),
+              string(t.field(row, 7)));
+      itemCache[row] = item;
+    }
+    return item;
+  }
+
+  /**
+   * Gets the fixture at a row, building it on first use.
+   *
+   * @param row the fixture row
+   * @return the fixture
+   */
+  private Fixture fixture(int row) {
+    Fixture fixture = fixtureCache[row];
+    if (fixture == null) {
+      Table t = fixtureTable;
+      fixture = new Fixture(string(t.field(row, 1)), t.field(row, 2), string(t.field(row, 3)),
+              string(t.field(row, 4)), string(t.field(row, 5)), string(t.field(row, 6)));
+      fixtureCache[row] = fixture;
+    }
+    return fixture;
+  }
+
+  /**
+   * Gets the puzzle at a row, building it on first use.
+   *
+   * @param row the puzzle row
+   * @return the puzzle
+   */
+  private Puzzle puzzle(int row) {
+    Puzzle puzzle = puzzleCache[row];
+    if (puzzle == null) {
+      Table t = puzzleTable;
+      puzzle = new Puzzle(string(t.field(row, 1)), t.field(row, 2) != 0, t.field(row, 3) != 0,
+              t.field(row, 4) != 0, string(t.field(row, 5)), t.field(row, 6),
+              string(t.field(row, 7)), string(t.field(row, 8)), string(t.field(row, 9)));
+      puzzleCache[row] = puzzle;
+    }
+    return puzzle;
+  }
+
+  /**
+   * Gets the monster at a row, building it on first use.
+   *
+   * @param row the monster row
+   * @return the monster
+   */
+  private Monster monster(int row) {
+    Monster monster = monsterCache[row];
+    if (monster == null) {
+      Table t = monsterTable;
+      monster = new Monster(string(t.field(row, 1)), string(t.field(row, 2)),
+              t.field(row, 3) != 0, t.field(row, 4), t.field(row, 5) != 0,
+              string(t.field(row, 6)), string(t.field(row, 7)), t.field(row, 8),
+              string(t.field(row, 9)), string(t.field(row, 10)));
+      monsterCache[row] = monster;
+    }
+    return monster;
+  }
+
+  /**
+   * Reads an entry of the shared item/fixture list pool.
+   *
+   * @param index index into the pool
+   * @return the row stored at that index
+   */
+  private int listEntry(int index) {
+    return buffer.getInt(listsBase + index * 4);
+  }
+
+  /**
+   * Decodes a string from the string table.
+   *
+   * @param index string index, or -1 for null
+   * @return the decoded string, or null
+   */
+  private String string(int index) {
+    if (index < 0) {
+      return null;
+    }
+    if (index >= stringCount) {
+      throw new IndexOutOfBoundsException("String index " + index);
+    }
+    int start = buffer.getInt(stringOffsetsBase + index * 4);
+    int end = buffer.getInt(stringOffsetsBase + (index + 1) * 4);
+    byte[] bytes = new byte[end - start];
+    buffer.get(stringBytesBase + start, bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Spreads a key hash over the slots of an index.
+   *
+   * @param key the key
+   * @return the spread hash
+   */
+  private static int spread(String key) {
+    int h = key.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  /**
+   * A fixed-width table of int rows followed by an open-addressing index on column 0.
+   */
+  private final class Table {
+    private final int count;
+    private final int width;
+    private final int rowsBase;
+    private final int indexCapacity;
+    private final int indexBase;
+    private final int end;
+
+    /**
+     * Reads the table header at a position.
+     *
+     * @param pos start of the table section
+     */
+    Table(int pos) {
+      count = buffer.getInt(pos);
+      width = buffer.getInt(pos + 4);
+      rowsBase = pos + 8;
+      int indexPos = rowsBase + count * width * 4;
+      indexCapacity = buffer.getInt(indexPos);
+      indexBase = indexPos + 4;
+      end = indexBase + indexCapacity * 4;
+    }
+
+    /**
+     * Reads one column of a row.
+     *
+     * @param row    the row
+     * @param column the column
+     * @return the stored value
+     */
+    int field(int row, int column) {
+      return buffer.getInt(rowsBase + (row * width + column) * 4);
+    }
+
+    /**
+     * Finds the row whose key matches.
+     *
+     * @param key the key to look up
+     * @return the row, or -1 if there is none
+     */
+    int find(String key) {
+      if (indexCapacity == 0) {
+        return -1;
+      }
+      int mask = indexCapacity - 1;
+      for (int slot = spread(key) & mask; ; slot = (slot + 1) & mask) {
+        int entry = buffer.getInt(indexBase + slot * 4);
+        if (entry == 0) {
+          return -1;
+        }
+        if (key.equals(string(field(entry - 1, 0)))) {
+          return entry - 1;
+        }
+      }
+    }
+  }
+
+  /**
+   * Read-only map view over a table that builds values on demand.
+   *
+   * @param <V> the element type
+   */
+  private abstract class ImageMap<V> extends AbstractMap<String, V> {
+    private final Table table;
+
+    ImageMap(Table table) {
+      this.table = table;
+    }
+
+    /**
+     * Builds or fetches the element at a row.
+     *
+     * @param row the row
+     * @return the element
+     */
+    abstract V build(int row);
+
+    @Override
+    public V get(Object key) {
+      if (!(key instanceof String name)) {
+        return null;
+      }
+      int row = table.find(name);
+      return row >= 0 ? build(row) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return key instanceof String name && table.find(name) >= 0;
+    }
+
+    @Override
+    public int size() {
+      return table.count;
+    }
+
+    @Override
+    public Set<Entry<String, V>> entrySet() {
+      return new AbstractSet<>() {
+        @Override
+        public Iterator<Entry<String, V>> iterator() {
+          return new Iterator<>() {
+            private int row;
+
+            @Override
+            public boolean hasNext() {
+              return row < table.count;
+            }
+
+            @Override
+            public Entry<String, V> next() {
+              if (!hasNext()) {
+                throw new NoSuchElementException();
+              }
+              int current = row++;
+              return new SimpleImmutableEntry<>(string(table.field(current, 0)), build(current));
+            }
+          };
+        }
+
+        @Override
+        public int size() {
+          return table.count;
+        }
+      };
+    }
+  }
+
+  /**
+   * Lays out loaded game elements as image sections.
+   */
+  private static final class ImageWriter {
+    private final Map<String, Integer> stringIndex = new HashMap<>();
+    private final List<byte[]> strings = new ArrayList<>();
+    private final List<Integer> lists = new ArrayList<>();
+    private final Map<String, Room> rooms;
+    private final Map<Room, Integer> roomRows = new IdentityHashMap<>();
+    private final Map<Item, Integer> itemRows = new IdentityHashMap<>();
+    private final Map<Fixture, Integer> fixtureRows = new IdentityHashMap<>();
+    private final Map<Puzzle, Integer> puzzleRows = new IdentityHashMap<>();
+    private final Map<Monster, Integer> monsterRows = new IdentityHashMap<>();
+    private final int[] header;
+    private final int[][] roomRowsData;
+    private final int[] exits;
+    private final int[][] itemRowsData;
+    private final int[][] fixtureRowsData;
+    private final int[][] puzzleRowsData;
+    private final int[][] monsterRowsData;
+
+    ImageWriter(String gameName, String version, Map<String, Room> rooms,
+                Map<String, Item> items, Map<String, Fixture> fixtures,
+                Map<String, Puzzle> puzzles, Map<String, Monster> monsters) throws IOException {
+      this.rooms = rooms;
+      header = new int[] {intern(gameName), intern(version)};
+
+      itemRowsData = new int[items.size()][];
+      int row = 0;
+      for (Map.Entry<String, Item> entry : items.entrySet()) {
+        Item item = entry.getValue();
+        itemRows.put(item, row);
+        itemRowsData[row++] = new int[] {intern(entry.getKey()), intern(item.getName()),
+            item.getWeight(), item.getMaxUses(), item.getUsesRemaining(), item.getValue(),
+            intern(item.getWhenUsed()), intern(item.getDescription())};
+      }
+
+      fixtureRowsData = new int[fixtures.size()][];
+      row = 0;
+      for (Map.Entry<String, Fixture> entry : fixtures.entrySet()) {
+        Fixture fixture = entry.getValue();
+        fixtureRows.put(fixture, row);
+        fixtureRowsData[row++] = new int[] {intern(entry.getKey()), intern(fixture.getName()),
+            fixture.getWeight(), intern(fixture.getPuzzle()), intern(fixture.getStates()),
+            intern(fixture.getDescription()), intern(fixture.getPicture())};
+      }
+
+      puzzleRowsData = new int[puzzles.size()][];
+      row = 0;
+      for (Map.Entry<String, Puzzle> entry : puzzles.entrySet()) {
+        Puzzle puzzle = entry.getValue();
+        puzzleRows.put(puzzle, row);
+        puzzleRowsData[row++] = new int[] {intern(entry.getKey()), intern(puzzle.getName()),
+            flag(puzzle.isActive()), flag(puzzle.affectsTarget()), flag(puzzle.affectsPlayer()),
+            intern(puzzle.getSolution()), puzzle.getValue(), intern(puzzle.getDescription()),
+            intern(puzzle.getEffects()), intern(puzzle.getTarget())};
+      }
+
+      monsterRowsData = new int[monsters.size()][];
+      row = 0;
+      for (Map.Entry<String, Monster> entry : monsters.entrySet()) {
+        Monster monster = entry.getValue();
+        monsterRows.put(monster, row);
+        monsterRowsData[row++] = new int[] {intern(entry.getKey()), intern(monster.getName()),
+            intern(monster.getDescription()), flag(monster.isActive()), monster.getDamage(),
+            flag(monster.canAttack()), intern(monster.getAttackDescription()),
+            intern(monster.getEffects()), monster.getValue(), intern(monster.getSolution()),
+            intern(monster.getTarget())};
+      }
+
+      row = 0;
+      for (Room room : rooms.values()) {
+        roomRows.put(room, row++);
+      }
+
+      roomRowsData = new int[rooms.size()][];
+      exits = new int[rooms.size() * DIRECTIONS.length];
+      row = 0;
+      for (Map.Entry<String, Room> entry : rooms.entrySet()) {
+        Room room = entry.getValue();
+        int[] data = new int[ROOM_WIDTH];
+        data[0] = intern(entry.getKey());
+        data[1] = intern(room.getName());
+        data[2] = intern(room.getRoomNumber());
+        data[3] = intern(room.getDescription());
+        for (int d = 0; d < DIRECTIONS.length; d++) {
+          String exitNumber = room.getExitRoomNumber(DIRECTIONS[d]);
+          data[4 + d] = intern(exitNumber);
+          exits[row * DIRECTIONS.length + d] = initialExit(room.getExitNumber(DIRECTIONS[d]));
+        }
+        data[8] = room.getPuzzle() == null ? -1 : rowOf(puzzleRows, room.getPuzzle());
+        data[9] = room.getMonster() == null ? -1 : rowOf(monsterRows, room.getMonster());
+        data[10] = lists.size();
+        data[11] = room.getItems().size();
+        for (Item item : room.getItems()) {
+          lists.add(rowOf(itemRows, item));
+        }
+        data[12] = lists.size();
+        data[13] = room.getFixtureList().size();
+        for (Fixture fixture : room.getFixtureList()) {
+          lists.add(rowOf(fixtureRows, fixture));
+        }
+        roomRowsData[row++] = data;
+      }
+    }
+
+    /**
+     * Finds the room an exit is connected to when the world is first loaded.
+     * Blocked exits are connected too; the room keeps them closed until it is unblocked.
+     *
+     * @param exitNumber the signed exit room number
+     * @return the target room row, or -1 if the exit is not connected
+     */
+    private int initialExit(int exitNumber) {
+      if (exitNumber == 0) {
+        return -1;
+      }
+      Room target = rooms.get(Integer.toString(Math.abs(exitNumber)));
+      return target == null ? -1 : roomRows.get(target);
+    }
+
+    /**
+     * Looks up the row of an element that a room refers to.
+     *
+     * @param rows    rows by element identity
+     * @param element the element
+     * @param <T>     the element type
+     * @return the row
+     * @throws IOException if the element is not part of any table
+     */
+    private static <T> int rowOf(Map<T, Integer> rows, T element) throws IOException {
+      Integer row = rows.get(element);
+      if (row == null) {
+        throw new IOException("Room refers to an element missing from the world: " + element);
+      }
+      return row;
+    }
+
+    private static int flag(boolean value) {
+      return value ? 1 : 0;
+    }
+
+    /**
+     * Adds a string to the string table.
+     *
+     * @param value the string, or null
+     * @return its index, or -1 for null
+     */
+    private int intern(String value) {
+      if (value == null) {
+        return -1;
+      }
+      Integer index = stringIndex.get(value);
+      if (index == null) {
+        index = strings.size();
+        strings.add(value.getBytes(StandardCharsets.UTF_8));
+        stringIndex.put(value, index);
+      }
+      return index;
+    }
+
+    /**
+     * Writes every section after the source stamp.
+     *
+     * @param out the image stream
+     * @throws IOException if writing fails
+     */
+    void writeBody(DataOutputStream out) throws IOException {
+      out.writeInt(header[0]);
+      out.writeInt(header[1]);
+
+      out.writeInt(strings.size());
+      int offset = 0;
+      out.writeInt(offset);
+      for (byte[] bytes : strings) {
+        offset += bytes.length;
+        out.writeInt(offset);
+      }
+      for (byte[] bytes : strings) {
+        out.write(bytes);
+      }
+
+      writeTable(out, roomRowsData, ROOM_WIDTH);
+      for (int exit : exits) {
+        out.writeInt(exit);
+      }
+      out.writeInt(lists.size());
+      for (int entry : lists) {
+        out.writeInt(entry);
+      }
+      writeTable(out, itemRowsData, ITEM_WIDTH);
+      writeTable(out, fixtureRowsData, FIXTURE_WIDTH);
+      writeTable(out, puzzleRowsData, PUZZLE_WIDTH);
+      writeTable(out, monsterRowsData, MONSTER_WIDTH);
+    }
+
+    /**
+     * Writes a table and its key index.
+     *
+     * @param out   the image stream
+     * @param rows  the table rows
+     * @param width the row width
+     * @throws IOException if writing fails
+     */
+    private void writeTable(DataOutputStream out, int[][] rows, int width) throws IOException {
+      out.writeInt(rows.length);
+      out.writeInt(width);
+      for (int[] data : rows) {
+        for (int value : data) {
+          out.writeInt(value);
+        }
+      }
+
+      int capacity = rows.length == 0 ? 0 : Integer.highestOneBit(rows.length * 2 - 1) << 1;
+      int[] slots = new int[capacity];
+      int mask = capacity - 1;
+      for (int row = 0; row < rows.length; row++) {
+        String key = new String(strings.get(rows[row][0]), StandardCharsets.UTF_8);
+        int slot = spread(key) & mask;
+        while (slots[slot] != 0) {
+          slot = (slot + 1) & mask;
+        }
+        slots[slot] = row + 1;
+      }
+      out.writeInt(capacity);
+      for (int slot : slots) {
+        out.writeInt(slot);
+      }
+    }
+  }
+}
@@ -0,0 +1,262 @@
+package model;
+
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Secondary indexes over one world's rooms, for questions that would otherwise scan every
+ * room: which rooms hold an item, which rooms still have an active monster or an unsolved
+ * puzzle, and which exits are blocked.
+ *
+ * <p>Rooms, puzzles and monsters added to the index report their own changes to it, so every
+ * mutation updates the index in constant time: a count per room and item name for each item moved,
+ * a recount of one room's four exit bits, or one set update per room holding the puzzle or
+ * monster that changed. Changes are recorded under the index's own lock, so players changing
+ * different rooms of a shared world can report to it at once; the live views are meant to be
+ * read by one thread while no player is changing the world.
+ */
+final class WorldIndex {
+  private static final Direction[] DIRECTIONS = Direction.values();
+
+  // Item name in upper case, then room number to the number of items of that name in the room
+  private final Map<String, Map<String, Integer>> itemRooms = new HashMap<>();
+  private final Map<Puzzle, Set<String>> puzzleRooms = new IdentityHashMap<>();
+  private final Map<Monster, Set<String>> monsterRooms = new IdentityHashMap<>();
+  private final Set<String> unsolvedPuzzleRooms = new HashSet<>();
+  private final Set<String> activeMonsterRooms = new HashSet<>();
+  private final Map<String, Set<Direction>> blockedExits = new HashMap<>();
+
+  /**
+   * Adds a room to the index with its items, puzzle, monster and blocked exits, and has the
+   * room, its puzzle and its monster report their changes from now on.
+   *
+   * @param room the room to add
+   */
+  synchronized void add(Room room) {
+    room.setIndex(this);
+    for (Item item : room.getItems()) {
+      itemAdded(room, item);
+    }
+    puzzleMoved(room, null, room.getPuzzle());
+    monsterMoved(room, null, room.getMonster());
+    exitsChanged(room);
+  }
+
+  /**
+   * Gets the rooms holding an item.
+   *
+   * @param itemName the item name, in any case
+   * @return a read-only live view of the room numbers, which is empty while no item of that
+   *         name is in any room and fills in once one is put in a room
+   */
+  Set<String> itemRooms(String itemName) {
+    return new ItemRooms(itemName.toUpperCase());
+  }
+
+  /**
+   * Gets the rooms whose puzzle is still active.
+   *
+   * @return a read-only live view of the room numbers
+   */
+  Set<String> unsolvedPuzzleRooms() {
+    return Collections.unmodifiableSet(unsolvedPuzzleRooms);
+  }
+
+  /**
+   * Gets the rooms whose monster is still active.
+   *
+   * @return a read-only live view of the room numbers
+   */
+  Set<String> activeMonsterRooms() {
+    return Collections.unmodifiableSet(activeMonsterRooms);
+  }
+
+  /**
+   * Gets the blocked exits of every room that has any.
+   *
+   * @return a read-only live view from room number to blocked directions
+   */
+  Map<String, Set<Direction>> blockedExits() {
+    return Collections.unmodifiableMap(blockedExits);
+  }
+
+  /**
+   * Records that an item was put in a room.
+   *
+   * @param room the room
+   * @param item the item
+   */
+  synchronized void itemAdded(Room room, Item item) {
+    itemRooms.computeIfAbsent(item.getName().toUpperCase(), name -> new HashMap<>(2))
+            .merge(room.getRoomNumber(), 1, Integer::sum);
+  }
+
+  /**
+   * Records that an item was taken from a room. The room stays listed if it still holds
+   * another item of the same name.
+   *
+   * @param room the room
+   * @param item the item
+   */
+  synchronized void itemRemoved(Room room, Item item) {
+    Map<String, Integer> counts = itemRooms.get(item.getName().toUpperCase());
+    if (counts != null) {
+      counts.computeIfPresent(room.getRoomNumber(), (number, count) -> count > 1 ? count - 1 : null);
+      if (counts.isEmpty()) {
+        itemRooms.remove(item.getName().toUpperCase());
+      }
+    }
+  }
+
+  /**
+   * Gets the number of item names lying in at least one room.
+   *
+   * @return the number of item names in the index
+   */
+  synchronized int itemNameCount() {
+    return itemRooms.size();
+  }
+
+  /**
+   * Records that a room's puzzle was replaced.
+   *
+   * @param room     the room
+   * @param previous the puzzle the room had, or null
+   * @param puzzle   the puzzle the room has now, or null
+   */
+  synchronized void puzzleMoved(Room room, Puzzle previous, Puzzle puzzle) {
+    String number = room.getRoomNumber();
+    if (previous != null) {
+      leave(puzzleRooms, previous, number);
+    }
+    if (puzzle != null) {
+      puzzle.setIndex(this);
+      puzzleRooms.computeIfAbsent(puzzle, p -> new HashSet<>(2)).add(number);
+    }
+    mark(unsolvedPuzzleRooms, number, puzzle != null && puzzle.isActive());
+  }
+
+  /**
+   * Records that a room's monster was replaced.
+   *
+   * @param room     the room
+   * @param previous the monster the room had, or null
+   * @param monster  the monster the room has now, or null
+   */
+  synchronized void monsterMoved(Room room, Monster previous, Monster monster) {
+    String number = room.getRoomNumber();
+    if (previous != null) {
+      leave(monsterRooms, previous, number);
+    }
+    if (monster != null) {
+      monster.setIndex(this);
+      monsterRooms.computeIfAbsent(monster, m -> new HashSet<>(2)).add(number);
+    }
+    mark(activeMonsterRooms, number, monster != null && monster.isActive());
+  }
+
+  /**
+   * Records that a puzzle was solved or made active again.
+   *
+   * @param puzzle the puzzle
+   */
+  synchronized void puzzleChanged(Puzzle puzzle) {
+    Set<String> numbers = puzzleRooms.get(puzzle);
+    if (numbers != null) {
+      for (String number : numbers) {
+        mark(unsolvedPuzzleRooms, number, puzzle.isActive());
+      }
+    }
+  }
+
+  /**
+   * Records that a monster was defeated or made active again.
+   *
+   * @param monster the monster
+   */
+  synchronized void monsterChanged(Monster monster) {
+    Set<String> numbers = monsterRooms.get(monster);
+    if (numbers != null) {
+      for (String number : numbers) {
+        mark(activeMonsterRooms, number, monster.isActive());
+      }
+    }
+  }
+
+  /**
+   * Records that a room's exits were blocked or unblocked.
+   *
+   * @param room the room
+   */
+  synchronized void exitsChanged(Room room) {
+    int bits = room.getBlockedExits();
+    if (bits == 0) {
+      blockedExits.remove(room.getRoomNumber());
+      return;
+    }
+    Set<Direction> directions = EnumSet.noneOf(Direction.class);
+    for (Direction direction : DIRECTIONS) {
+      if ((bits & (1 << direction.ordinal())) != 0) {
+        directions.add(direction);
+      }
+    }
+    blockedExits.put(room.getRoomNumber(), Collections.unmodifiableSet(directions));
+  }
+
+  private static <K> void leave(Map<K, Set<String>> rooms, K element, String number) {
+    Set<String> numbers = rooms.get(element);
+    if (numbers != null) {
+      numbers.remove(number);
+      if (numbers.isEmpty()) {
+        rooms.remove(element);
+      }
+    }
+  }
+
+  private static void mark(Set<String> rooms, String number, boolean member) {
+    if (member) {
+      rooms.add(number);
+    } else {
+      rooms.remove(number);
+    }
+  }
+
+  /**
+   * The rooms holding items of one name, looked up in the index on every read so the view
+   * stays current after the name leaves the index and comes back.
+   */
+  private final class ItemRooms extends AbstractSet<String> {
+    private final String name;
+
+    ItemRooms(String name) {
+      this.name = name;
+    }
+
+    private Set<String> rooms() {
+      Map<String, Integer> counts = itemRooms.get(name);
+      return counts == null ? Collections.emptySet() : Collections.unmodifiableSet(counts.keySet());
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+      return rooms().iterator();
+    }
+
+    @Override
+    public int size() {
+      return rooms().size();
+    }
+
+    @Override
+    public boolean contains(Object number) {
+      return rooms().contains(number);
+    }
+  }
+}
@@ -0,0 +1,413 @@
+package model;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.json.simple.parser.ContentHandler;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+/**
+ * Streaming loader that builds game elements straight from the JSON tokens of a game file.
+ * Unlike a whole-document parse, only the fields of the entity currently being read are held
+ * in memory. Rooms may appear before the items, fixtures, puzzles and monsters they name, so
+ * those references are recorded by name and resolved once the whole file has been read.
+ */
+class WorldLoader implements ContentHandler {
+  private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+  private final Map<String, Room> rooms;
+  private final Map<String, Item> items;
+  private final Map<String, Fixture> fixtures;
+  private final Map<String, Puzzle> puzzles;
+  private final Map<String, Monster> monsters;
+
+  // Rooms waiting for their item/fixture/puzzle/monster names to be resolved
+  private final List<PendingRoom> pendingRooms;
+
+  // Fields of the entity currently being read (reused for every entity)
+  private final Map<String, Object> fields;
+
+  private String gameName;
+  private String version;
+  private boolean roomsDefined;
+
+  // Parser position
+  private int depth;
+  private String section;
+  private String topLevelKey;
+  private String fieldKey;
+  private int entityDepth;
+
+  /**
+   * Creates a loader that fills the given maps as the game file is read.
+   *
+   * @param rooms    map of room number to room
+   * @param items    map of upper-case item name to item
+   * @param fixtures map of upper-case fixture name to fixture
+   * @param puzzles  map of upper-case puzzle name to puzzle
+   * @param monsters map of upper-case monster name to monster
+   */
+  WorldLoader(Map<String, Room> rooms, Map<String, Item> items, Map<String, Fixture> fixtures,
+              Map<String, Puzzle> puzzles, Map<String, Monster> monsters) {
+    this.rooms = rooms;
+    this.items = items;
+    this.fixtures = fixtures;
+    this.puzzles = puzzles;
+    this.monsters = monsters;
+    this.pendingRooms = new ArrayList<>();
+    this.fields = new HashMap<>();
+  }
+
+  /**
+   * Reads the given game file and resolves all room references.
+   *
+   * @param gameFileName path to the JSON game file
+   * @throws IOException    if the file cannot be read or defines no rooms
+   * @throws ParseException if the file is not valid JSON
+   */
+  void load(String gameFileName) throws IOException, ParseException {
+    try (Reader reader = new BufferedReader(new FileReader(gameFileName), READ_BUFFER_SIZE)) {
+      load(reader);
+    }
+  }
+
+  /**
+   * Reads game data from the given reader and resolves all room references.
+   *
+   * @param reader source of the JSON game data
+   * @throws IOException    if the data cannot be read or defines no rooms
+   * @throws ParseException if the data is not valid JSON
+   */
+  void load(Reader reader) throws IOException, ParseException {
+    new JSONParser().parse(reader, this);
+    if (!roomsDefined) {
+      throw new IOException("No rooms defined in the game file.");
+    }
+    resolvePendingRooms();
+  }
+
+  /**
+   * Gets the game name read from the file.
+   *
+   * @return the game name
+   */
+  String getGameName() {
+    return gameName;
+  }
+
+  /**
+   * Gets the game version read from the file.
+   *
+   * @return the game version
+   */
+  String getVersion() {
+    return version;
+  }
+
+  @Override
+  public void startJSON() {
+    depth = 0;
+    section = null;
+    entityDepth = 0;
+  }
+
+  @Override
+  public void endJSON() {
+    // Nothing to finish; references are resolved in load()
+  }
+
+  @Override
+  public boolean startObject() {
+    depth++;
+    if (section != null && entityDepth == 0 && depth == 3) {
+      entityDepth = depth;
+      fields.clear();
+    }
+    return true;
+  }
+
+  @Override
+  public boolean endObject() {
+    if (entityDepth != 0 && depth == entityDepth) {
+      buildEntity();
+      entityDepth = 0;
+    }
+    depth--;
+    return true;
+  }
+
+  @Override
+  public boolean startObjectEntry(String key) {
+    if (depth == 1) {
+      topLevelKey = key;
+    } else if (entityDepth != 0 && depth == entityDepth) {
+      fieldKey = key;
+    }
+    return true;
+  }
+
+  @Override
+  public boolean endObjectEntry() {
+    if (depth == 1) {
+      topLevelKey = null;
+    } else if (entityDepth != 0 && depth == entityDepth) {
+      fieldKey = null;
+    }
+    return true;
+  }
+
+  @Override
+  public boolean startArray() {
+    depth++;
+    if (depth == 2 && topLevelKey != null) {
+      section = topLevelKey;
+      if ("rooms".equals(section)) {
+        roomsDefined = true;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public boolean endArray() {
+    if (depth == 2) {
+      section = null;
+    }
+    depth--;
+    return true;
+  }
+
+  @Override
+  public boolean primitive(Object value) {
+    if (depth == 1 && topLevelKey != null) {
+      if ("name".equals(topLevelKey)) {
+        gameName = (String) value;
+      } else if ("version".equals(topLevelKey)) {
+        version = (String) value;
+      }
+    } else if (entityDepth != 0 && depth == entityDepth && fieldKey != null) {
+      fields.put(fieldKey, value);
+    }
+    return true;
+  }
+
+  /**
+   * Builds the element described by the fields just read, based on the current section.
+   */
+  private void buildEntity() {
+    switch (section) {
+      case "rooms" -> loadRoom(fields);
+      case "items" -> loadItem(fields);
+      case "fixtures" -> loadFixture(fields);
+      case "puzzles" -> loadPuzzle(fields);
+      case "monsters" -> loadMonster(fields);
+      default -> {
+        // Unknown sections are ignored
+      }
+    }
+  }
+
+  /**
+   * Creates a Room from its fields and queues its element names for resolution.
+   *
+   * @param roomData the room fields
+   */
+  private void loadRoom(Map<String, Object> roomData) {
+    String roomName = (String) roomData.get("room_name");
+    String roomNumber = (String) roomData.get("room_number");
+    String description = (String) roomData.get("description");
+
+    // Parse exits
+    Map<Direction, String> exits = new HashMap<>();
+    exits.put(Direction.NORTH, (String) roomData.get("N"));
+    exits.put(Direction.SOUTH, (String) roomData.get("S"));
+    exits.put(Direction.EAST, (String) roomData.get("E"));
+    exits.put(Direction.WEST, (String) roomData.get("W"));
+
+    Room room = new Room(roomName, roomNumber, description, exits,
+            0, 0, 0, 0, "itemsField", "field3");
+
+    String itemsList = (String) roomData.get("items");
+    String fixturesList = (String) roomData.get("fixtures");
+    String puzzleName = (String) roomData.get("puzzle");
+    String monsterName = (String) roomData.get("monster");
+    if (!isBlank(itemsList) || !isBlank(fixturesList)
+            || !isBlank(puzzleName) || !isBlank(monsterName)) {
+      pendingRooms.add(new PendingRoom(room, itemsList, fixturesList, puzzleName, monsterName));
+    }
+
+    rooms.put(roomNumber, room);
+  }
+
+  /**
+   * Creates an Item from its fields.
+   *
+   * @param itemData the item fields
+   */
+  private void loadItem(Map<String, Object> itemData) {
+    String name = (String) itemData.get("name");
+    int weight = parseIntOrDefault(itemData.get("weight"), 1);
+    int maxUses = parseIntOrDefault(itemData.get("max_uses"), 1);
+    int usesRemaining = parseIntOrDefault(itemData.get("uses_remaining"), 1);
+    int value = parseIntOrDefault(itemData.get("value"), 0);
+    String whenUsed = (String) itemData.get("when_used");
+    String description = (String) itemData.get("description");
+
+    Item item = new Item(name, weight, maxUses, usesRemaining, value, whenUsed, description);
+    items.put(name.toUpperCase(), item);
+  }
+
+  /**
+   * Creates a Fixture from its fields.
+   *
+   * @param fixtureData the fixture fields
+   */
+  private void loadFixture(Map<String, Object> fixtureData) {
+    String name = (String) fixtureData.get("name");
+    int weight = parseIntOrDefault(fixtureData.get("weight"), 1000);
+    String description = (String) fixtureData.get("description");
+
+    Fixture fixture = new Fixture(name, weight, description);
+    fixtures.put(name.toUpperCase(), fixture);
+  }
+
+  /**
+   * Creates a Puzzle from its fields.
+   *
+   * @param puzzleData the puzzle fields
+   */
+  private void loadPuzzle(Map<String, Object> puzzleData) {
+    String name = (String) puzzleData.get("name");
+    boolean active = Boolean.parseBoolean((String) puzzleData.get("active"));
+    boolean affectsTarget = Boolean.parseBoolean((String) puzzleData.get("affects_target"));
+    boolean affectsPlayer = Boolean.parseBoolean((String) puzzleData.get("affects_player"));
+    String solution = (String) puzzleData.get("solution");
+    int value = parseIntOrDefault(puzzleData.get("value"), 0);
+    String description = (String) puzzleData.get("description");
+    String effects = (String) puzzleData.get("effects");
+    String target = (String) puzzleData.get("target");
+
+    Puzzle puzzle = new Puzzle(name, active, affectsTarget, affectsPlayer, solution, value,
+            description, effects, target);
+    puzzles.put(name.toUpperCase(), puzzle);
+  }
+
+  /**
+   * Creates a Monster from its fields.
+   *
+   * @param monsterData the monster fields
+   */
+  private void loadMonster(Map<String, Object> monsterData) {
+    String name = (String) monsterData.get("name");
+    String description = (String) monsterData.get("description");
+    boolean active = Boolean.parseBoolean((String) monsterData.get("active"));
+    int damage = parseIntOrDefault(monsterData.get("damage"), 5);
+    boolean canAttack = Boolean.parseBoolean((String) monsterData.get("can_attack"));
+    String attackDescription = (String) monsterData.get("attack");
+    String effects = (String) monsterData.get("effects");
+    int value = parseIntOrDefault(monsterData.get("value"), 0);
+    String solution = (String) monsterData.get("solution");
+    String target = (String) monsterData.get("target");
+
+    Monster monster = new Monster(name, description, active, damage, canAttack,
+            attackDescription, effects, value, solution, target);
+    monsters.put(name.toUpperCase(), monster);
+  }
+
+  /**
+   * Links every queued room with the items, fixtures, puzzles and monsters it names.
+   * Runs after the whole file has been read so that forward references resolve.
+   */
+  private void resolvePendingRooms() {
+    for (PendingRoom pending : pendingRooms) {
+      Room room = pending.room();
+
+      if (!isBlank(pending.itemsList())) {
+        for (String itemName : pending.itemsList().split(",")) {
+          Item item = items.get(itemName.trim().toUpperCase());
+          if (item != null) {
+            room.addItem(item);
+          }
+        }
+      }
+
+      if (!isBlank(pending.fixturesList())) {
+        for (String fixtureName : pending.fixturesList().split(",")) {
+          Fixture fixture = fixtures.get(fixtureName.trim().toUpperCase());
+          if (fixture != null) {
+            room.addFixture(fixture);
+          }
+        }
+      }
+
+      if (!isBlank(pending.puzzleName())) {
+        Puzzle puzzle = puzzles.get(pending.puzzleName().trim().toUpperCase());
+        if (puzzle != null) {
+          room.setPuzzle(puzzle);
+        }
+      }
+
+      if (!isBlank(pending.monsterName())) {
+        Monster monster = monsters.get(pending.monsterName().trim().toUpperCase());
+        if (monster != null) {
+          room.setMonster(monster);
+        }
+      }
+    }
+    pendingRooms.clear();
+  }
+
+  /**
+   * Checks whether an optional name field is missing or empty.
+   *
+   * @param value the field value
+   * @return true if the value is null or empty
+   */
+  private static boolean isBlank(String value) {
+    return value == null || value.isEmpty();
+  }
+
+  /**
+   * Utility method to parse integer values from JSON, providing a default if parsing fails.
+   *
+   * @param value        The value to parse
+   * @param defaultValue The default value to return if parsing fails
+   * @return The parsed integer value or the default value
+   */
+  static int parseIntOrDefault(Object value, int defaultValue) {
+    if (value == null) {
+      return defaultValue;
+    }
+
+    try {
+      if (value instanceof String) {
+        return Integer.parseInt((String) value);
+      } else if (value instanceof Number) {
+        return ((Number) value).intValue();
+      }
+    } catch (NumberFormatException e) {
+      // Ignore and return default
+    }
+
+    return defaultValue;
+  }
+
+  /**
+   * A room whose element names are resolved after the whole file has been read.
+   *
+   * @param room         the room to link
+   * @param itemsList    comma-separated item names (nullable)
+   * @param fixturesList comma-separated fixture names (nullable)
+   * @param puzzleName   puzzle name (nullable)
+   * @param monsterName  monster name (nullable)
+   */
+  private record PendingRoom(Room room, String itemsList, String fixturesList,
+                             String puzzleName, String monsterName) {
+  }
+}
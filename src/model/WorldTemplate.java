@@ -0,0 +1,154 @@
+package model;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A game world loaded once and shared by any number of game sessions.
+ * The template's elements are definitions only and are never handed to a player; each session
+ * created with {@link #newSession()} works on its own copies, made as it first touches them.
+ * Starting a session therefore costs a few small maps rather than a full reload of the game file.
+ */
+public final class WorldTemplate {
+  private final String gameFileName;
+  private final String gameName;
+  private final String version;
+  private final Map<String, Room> rooms;
+  private final Map<String, Item> items;
+  private final Map<String, Fixture> fixtures;
+  private final Map<String, Puzzle> puzzles;
+  private final Map<String, Monster> monsters;
+  private final String startRoomNumber;
+
+  /**
+   * Creates a template over fully loaded game elements.
+   *
+   * @param gameFileName    the game file the elements were loaded from
+   * @param gameName        the game name
+   * @param version         the game version
+   * @param rooms           map of room number to room
+   * @param items           map of upper-case item name to item
+   * @param fixtures        map of upper-case fixture name to fixture
+   * @param puzzles         map of upper-case puzzle name to puzzle
+   * @param monsters        map of upper-case monster name to monster
+   * @param startRoomNumber number of the room new players start in
+   */
+  WorldTemplate(String gameFileName, String gameName, String version, Map<String, Room> rooms,
+                Map<String, Item> items, Map<String, Fixture> fixtures,
+                Map<String, Puzzle> puzzles, Map<String, Monster> monsters,
+                String startRoomNumber) {
+    this.gameFileName = gameFileName;
+    this.gameName = gameName;
+    this.version = version;
+    this.rooms = rooms;
+    this.items = items;
+    this.fixtures = Collections.unmodifiableMap(fixtures);
+    this.puzzles = puzzles;
+    this.monsters = monsters;
+    this.startRoomNumber = startRoomNumber;
+  }
+
+  /**
+   * Loads a template from a game file, using its compiled world image when one is current.
+   *
+   * @param gameFileName the path to the JSON file containing game data
+   * @return the loaded template
+   * @throws IOException If there is an error reading or parsing the game file
+   */
+  public static WorldTemplate load(String gameFileName) throws IOException {
+    return GameWorld.loadTemplate(gameFileName);
+  }
+
+  /**
+   * Starts a new game session on this template.
+   * The session behaves like a GameWorld loaded from the game file, with the player in the
+   * start room; changes made during the session are not visible to other sessions.
+   *
+   * @return a new game session
+   */
+  public GameWorld newSession() {
+    return new GameWorld(this);
+  }
+
+  /**
+   * Gets the game file the template was loaded from.
+   *
+   * @return the game file path
+   */
+  String getGameFileName() {
+    return gameFileName;
+  }
+
+  /**
+   * Gets the name of the game.
+   *
+   * @return the game name
+   */
+  public String getGameName() {
+    return gameName;
+  }
+
+  /**
+   * Gets the version of the game.
+   *
+   * @return the game version
+   */
+  String getVersion() {
+    return version;
+  }
+
+  /**
+   * Gets the number of the room new players start in.
+   *
+   * @return the start room number
+   */
+  String getStartRoomNumber() {
+    return startRoomNumber;
+  }
+
+  /**
+   * Gets the room definitions.
+   *
+   * @return map of room number to room
+   */
+  Map<String, Room> rooms() {
+    return rooms;
+  }
+
+  /**
+   * Gets the item definitions.
+   *
+   * @return map of upper-case item name to item
+   */
+  Map<String, Item> items() {
+    return items;
+  }
+
+  /**
+   * Gets the fixtures, which have no per-session state and are shared as they are.
+   *
+   * @return read-only map of upper-case fixture name to fixture
+   */
+  Map<String, Fixture> fixtures() {
+    return fixtures;
+  }
+
+  /**
+   * Gets the puzzle definitions.
+   *
+   * @return map of upper-case puzzle name to puzzle
+   */
+  Map<String, Puzzle> puzzles() {
+    return puzzles;
+  }
+
+  /**
+   * Gets the monster definitions.
+   *
+   * @return map of upper-case monster name to monster
+   */
+  Map<String, Monster> monsters() {
+    return monsters;
+  }
+}
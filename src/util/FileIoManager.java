@@ -56,6 +56,36 @@ public class FileIoManager {
     return readFile(filePath);
   }
 
+  /**
+   * Opens a file for reading one line at a time, for inputs too large to hold in memory.
+   * Like {@link #readFile(String)}, a missing file is not an error.
+   *
+   * @param filePath the path to the input file
+   * @return a reader over the file, or null if the path is null or the file does not exist
+   */
+  public static BufferedReader openReader(String filePath) {
+    if (filePath == null) {
+      return null;
+    }
+    try {
+      return new BufferedReader(new FileReader(filePath));
+    } catch (FileNotFoundException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Opens a file for writing through a buffer of the given size, replacing any existing content.
+   *
+   * @param filePath   the path to the output file
+   * @param bufferSize the number of characters buffered before they are written to the file
+   * @return a writer to the file
+   * @throws IOException if the file cannot be created or opened
+   */
+  public static BufferedWriter openWriter(String filePath, int bufferSize) throws IOException {
+    return new BufferedWriter(new FileWriter(filePath), bufferSize);
+  }
+
   /**
    * Writes the given output string to the specified file.
    *
@@ -1,9 +1,16 @@
 package util;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
 import java.util.logging.Logger;
+import java.util.regex.Pattern;
 import javax.imageio.ImageIO;
 import javax.swing.Icon;
 import javax.swing.ImageIcon;
@@ -11,60 +18,202 @@ import model.Room;
 
 /**
  * Utility class for loading images with fallback support.
+ * Decoded images are kept in a cache bounded by their size in memory, least recently used
+ * first out, and image paths found missing on the classpath are remembered so that later
+ * requests go straight to the fallback image without probing or logging again.
  */
 public class ImageLoader {
   private static final Logger LOGGER = Logger.getLogger(ImageLoader.class.getName());
+  private static final String[] BASE_PATHS = {"/images/", "/resources/images/"};
+  private static final String ULTIMATE_FALLBACK = "items/default item.png";
+  private static final Pattern NON_FILE_CHARS = Pattern.compile("[^a-z0-9]+");
 
+  // Cache budget: an eighth of the heap, at most 64 MB of decoded pixels
+  private static final long MAX_CACHE_BYTES =
+          Math.min(64L * 1024 * 1024, Runtime.getRuntime().maxMemory() / 8);
+  private static final int MAX_MISSING_PATHS = 1024;
+
+  private static final Object CACHE_LOCK = new Object();
+  private static final Map<String, CachedImage> CACHE = new LinkedHashMap<>(16, 0.75f, true);
+  private static final Set<String> MISSING = Collections.newSetFromMap(
+          new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+              return size() > MAX_MISSING_PATHS;
+            }
+          });
+  private static long cachedBytes;
+  private static long cacheHits;
+  private static long cacheMisses;
+  private static long negativeCacheHits;
+
+  /**
+   * Loads an image, falling back to the category default, then to the default item image,
+   * and finally to a blank image.
+   *
+   * @param category the image category (e.g., "items")
+   * @param name     the image file name
+   * @return the image; never null
+   */
   public static BufferedImage loadImage(String category, String name) {
-    String[] basePaths = {"/images/", "/resources/images/"};
+    return resolve(category, name).image;
+  }
+
+  /**
+   * Finds the cache entry for an image, following the same fallbacks as
+   * {@link #loadImage(String, String)}.
+   *
+   * @param category the image category
+   * @param name     the image file name
+   * @return the cache entry of the image that was found, or an uncached blank image
+   */
+  private static CachedImage resolve(String category, String name) {
+    boolean expectedMissing = isExpectedMissing(category) || isExpectedMissing(name);
+    CachedImage image = loadCached(category + "/" + name, expectedMissing ? null : "Failed to load: ");
+    if (image != null) {
+      return image;
+    }
+
+    // Try category fallback (e.g., default item.png)
     String fallbackName = getCategoryFallbackName(category);
+    String fallbackPath = category + "/" + fallbackName;
+    image = loadCached(fallbackPath,
+            isExpectedMissing(fallbackName) ? null : "Failed to load fallback: ");
+    if (image != null) {
+      LOGGER.fine("Using fallback: " + fallbackPath);
+      return image;
+    }
+
+    // Final fallback from known reliable default
+    image = loadCached(ULTIMATE_FALLBACK, null);
+    if (image != null) {
+      LOGGER.fine("Using ultimate fallback image: " + ULTIMATE_FALLBACK);
+      return image;
+    }
+
+    // Return a blank placeholder image if everything failed
+    LOGGER.severe("Returning blank image (no image found anywhere).");
+    return new CachedImage(new BufferedImage(64, 64, BufferedImage.TYPE_INT_ARGB));
+  }
+
+  /**
+   * Gets an image from the cache, or reads it from the first base path that has it.
+   * Paths that no base path has are remembered as missing and return null at once.
+   *
+   * @param path           the image path below the base paths
+   * @param missingWarning prefix of the warning logged for each base path without the image,
+   *                       or null to log nothing
+   * @return the cache entry, or null if the image could not be read
+   */
+  private static CachedImage loadCached(String path, String missingWarning) {
+    synchronized (CACHE_LOCK) {
+      CachedImage cached = CACHE.get(path);
+      if (cached != null) {
+        cacheHits++;
+        return cached;
+      }
+      if (MISSING.contains(path)) {
+        negativeCacheHits++;
+        return null;
+      }
+      cacheMisses++;
+    }
 
-    for (String base : basePaths) {
-      String fullPath = base + category + "/" + name;
+    boolean found = false;
+    for (String base : BASE_PATHS) {
+      String fullPath = base + path;
       try (InputStream in = ImageLoader.class.getResourceAsStream(fullPath)) {
         if (in != null) {
-          return ImageIO.read(in);
-        } else if (!isExpectedMissing(category) && !isExpectedMissing(name)) {
-          LOGGER.warning("Failed to load: " + fullPath);
+          found = true;
+          BufferedImage image = ImageIO.read(in);
+          if (image != null) {
+            return store(path, image);
+          }
+        } else if (missingWarning != null) {
+          LOGGER.warning(missingWarning + fullPath);
         }
       } catch (IOException e) {
         LOGGER.warning("IOException reading image: " + fullPath + " -> " + e.getMessage());
       }
     }
 
-    // Try category fallback (e.g., default item.png)
-    if (fallbackName != null) {
-      for (String base : basePaths) {
-        String fallbackPath = base + category + "/" + fallbackName;
-        try (InputStream fallbackIn = ImageLoader.class.getResourceAsStream(fallbackPath)) {
-          if (fallbackIn != null) {
-            LOGGER.fine("Using fallback: " + fallbackPath);
-            return ImageIO.read(fallbackIn);
-          } else if (!isExpectedMissing(fallbackName)) {
-            LOGGER.warning("Failed to load fallback: " + fallbackPath);
-          }
-        } catch (IOException e) {
-          LOGGER.warning("IOException reading fallback: " + e.getMessage());
-        }
+    if (!found) {
+      synchronized (CACHE_LOCK) {
+        MISSING.add(path);
       }
     }
+    return null;
+  }
 
-    // Final fallback from known reliable default
-    for (String base : basePaths) {
-      String ultimatePath = base + "items/default item.png";
-      try (InputStream in = ImageLoader.class.getResourceAsStream(ultimatePath)) {
-        if (in != null) {
-          LOGGER.fine("Using ultimate fallback image: " + ultimatePath);
-          return ImageIO.read(in);
-        }
-      } catch (IOException e) {
-        LOGGER.warning("IOException reading ultimate fallback: " + e.getMessage());
+  /**
+   * Adds a decoded image to the cache and evicts least recently used images over the budget.
+   *
+   * @param path  the image path
+   * @param image the decoded image
+   * @return the cache entry for the image
+   */
+  private static CachedImage store(String path, BufferedImage image) {
+    CachedImage entry = new CachedImage(image);
+    synchronized (CACHE_LOCK) {
+      CachedImage previous = CACHE.put(path, entry);
+      if (previous != null) {
+        cachedBytes -= previous.bytes;
+      }
+      cachedBytes += entry.bytes;
+      Iterator<CachedImage> eldest = CACHE.values().iterator();
+      while (cachedBytes > MAX_CACHE_BYTES && CACHE.size() > 1) {
+        cachedBytes -= eldest.next().bytes;
+        eldest.remove();
       }
     }
+    return entry;
+  }
 
-    // Return a blank placeholder image if everything failed
-    LOGGER.severe("Returning blank image (no image found anywhere).");
-    return new BufferedImage(64, 64, BufferedImage.TYPE_INT_ARGB);
+  /**
+   * Gets the number of image lookups answered from the cache.
+   *
+   * @return the cache hit count
+   */
+  public static long getCacheHits() {
+    synchronized (CACHE_LOCK) {
+      return cacheHits;
+    }
+  }
+
+  /**
+   * Gets the number of image lookups that had to probe the classpath.
+   *
+   * @return the cache miss count
+   */
+  public static long getCacheMisses() {
+    synchronized (CACHE_LOCK) {
+      return cacheMisses;
+    }
+  }
+
+  /**
+   * Gets the number of lookups skipped because the image is known to be missing.
+   *
+   * @return the negative cache hit count
+   */
+  public static long getNegativeCacheHits() {
+    synchronized (CACHE_LOCK) {
+      return negativeCacheHits;
+    }
+  }
+
+  /**
+   * Empties the image and missing-path caches and resets the counters.
+   */
+  public static void clearCache() {
+    synchronized (CACHE_LOCK) {
+      CACHE.clear();
+      MISSING.clear();
+      cachedBytes = 0;
+      cacheHits = 0;
+      cacheMisses = 0;
+      negativeCacheHits = 0;
+    }
   }
 
   private static String getCategoryFallbackName(String category) {
@@ -91,10 +240,7 @@ public class ImageLoader {
   }
 
   public static Icon getRoomImage(Room room) {
-    String roomName = room.getName().toLowerCase().replaceAll("[^a-z0-9]+", "-");
-    String fileName = roomName + ".png";
-    BufferedImage image = loadImage("rooms", fileName);
-    return new ImageIcon(image);
+    return resolve("rooms", fileNameFor(room.getName())).icon();
   }
 
   /**
@@ -104,9 +250,7 @@ public class ImageLoader {
    * @return an Icon of the item
    */
   public static Icon getItemIcon(String itemName) {
-    String filename = itemName.toLowerCase().replaceAll("[^a-z0-9]+", "-") + ".png";
-    BufferedImage image = loadImage("items", filename);
-    return new ImageIcon(image);
+    return resolve("items", fileNameFor(itemName)).icon();
   }
 
   /**
@@ -116,8 +260,44 @@ public class ImageLoader {
    * @return an Icon of the monster
    */
   public static Icon getMonsterIcon(String monsterName) {
-    String filename = monsterName.toLowerCase().replaceAll("[^a-z0-9]+", "-") + ".png";
-    BufferedImage image = loadImage("monsters", filename);
-    return new ImageIcon(image);
+    return resolve("monsters", fileNameFor(monsterName)).icon();
+  }
+
+  /**
+   * Builds the image file name for a display name (e.g., "Diamond Sword" to diamond-sword.png).
+   *
+   * @param name the display name
+   * @return the image file name
+   */
+  private static String fileNameFor(String name) {
+    return NON_FILE_CHARS.matcher(name.toLowerCase()).replaceAll("-") + ".png";
+  }
+
+  /**
+   * A decoded image with its size in memory and the icon made from it on first use.
+   */
+  private static final class CachedImage {
+    private final BufferedImage image;
+    private final long bytes;
+    private ImageIcon icon;
+
+    CachedImage(BufferedImage image) {
+      this.image = image;
+      DataBuffer buffer = image.getRaster().getDataBuffer();
+      this.bytes = (long) buffer.getSize() * buffer.getNumBanks()
+              * DataBuffer.getDataTypeSize(buffer.getDataType()) / 8;
+    }
+
+    /**
+     * Gets the icon for this image, creating it on first use.
+     *
+     * @return the icon
+     */
+    synchronized ImageIcon icon() {
+      if (icon == null) {
+        icon = new ImageIcon(image);
+      }
+      return icon;
+    }
   }
 }
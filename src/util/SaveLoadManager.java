@@ -1,15 +1,13 @@
 package util;
 
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.File;
+import java.io.IOException;
 import model.GameWorld;
 
 /**
  * Utility for saving and loading the GameWorld state.
+ * Games are stored as compact binary snapshots (see {@link GameWorld#saveSnapshot(String)}),
+ * which name the game file they were played on and carry a checksum of their contents.
  */
 public class SaveLoadManager {
 
@@ -20,10 +18,10 @@ public class SaveLoadManager {
    * @param filePath the file path to save to
    */
   public static void saveGame(GameWorld world, String filePath) {
-    File file = new File(filePath);
+    File file = new File(filePath).getAbsoluteFile();
     file.getParentFile().mkdirs(); // Ensure directories exist
-    try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(file))) {
-      out.writeObject(world);
+    try {
+      world.saveSnapshot(file.getPath());
     } catch (IOException e) {
       System.err.println("Failed to save game: " + e.getMessage());
     }
@@ -42,9 +40,9 @@ public class SaveLoadManager {
       return null;
     }
 
-    try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(file))) {
-      return (GameWorld) in.readObject();
-    } catch (IOException | ClassNotFoundException e) {
+    try {
+      return GameWorld.loadSnapshot(filePath);
+    } catch (IOException e) {
       System.err.println("Failed to load game: " + e.getMessage());
       return null;
     }
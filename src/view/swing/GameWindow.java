@@ -2,6 +2,8 @@ package view.swing;
 
 import java.awt.BorderLayout;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.swing.JFrame;
 import javax.swing.JMenuBar;
 import javax.swing.JOptionPane;
@@ -9,12 +11,12 @@ import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTextArea;
 import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 
 import controller.SwingController;
 import controller.GameController;
 
 import model.Item;
-import model.Room;
 import view.GameView;
 
 /**
@@ -30,6 +32,13 @@ public class GameWindow extends JFrame implements GameView {
   private JScrollPane outputScrollPane;
   private JTextArea outputArea;
 
+  // View states published by the game thread; the latest is drawn at most once per frame
+  private static final long FRAME_NANOS = TimeUnit.SECONDS.toNanos(1) / 60;
+  private final AtomicReference<ViewState> pendingState = new AtomicReference<>();
+  private final Timer frameTimer = new Timer(0, e -> drawFrame());
+  private ViewState shownState;      // used on the event dispatch thread only
+  private long lastFrame;            // System.nanoTime() of the last frame drawn
+
   /**
    * Constructs a new GameWindow.
    *
@@ -41,6 +50,9 @@ public class GameWindow extends JFrame implements GameView {
     super(title);
     this.controller = controller;
 
+    frameTimer.setRepeats(false);
+    lastFrame = System.nanoTime() - FRAME_NANOS;
+
     // Initialize UI components
     initComponents();
     createMenuBar();
@@ -108,19 +120,54 @@ public class GameWindow extends JFrame implements GameView {
   }
 
   /**
-   * Displays the current room and updates all panels.
+   * Publishes the state the panels should show. Can be called from any thread; states
+   * published within one frame replace each other and only the latest is drawn, updating only
+   * the panels whose contents changed.
    *
-   * @param room The room to display
+   * @param state the state to show
+   */
+  public void publish(ViewState state) {
+    if (pendingState.getAndSet(state) == null) {
+      SwingUtilities.invokeLater(this::scheduleFrame);
+    }
+  }
+
+  /**
+   * Draws the pending state now if a frame has passed since the last one, or else when it has.
    */
-  public void displayRoom(Room room) {
-    if (room != null) {
-      SwingUtilities.invokeLater(() -> {
-        roomPanel.updateRoom(room);
-        navigationPanel.updateAvailableDirections(room);
-      });
+  private void scheduleFrame() {
+    long wait = lastFrame + FRAME_NANOS - System.nanoTime();
+    if (wait <= 0) {
+      drawFrame();
+    } else if (!frameTimer.isRunning()) {
+      frameTimer.setInitialDelay((int) TimeUnit.NANOSECONDS.toMillis(wait) + 1);
+      frameTimer.start();
     }
   }
 
+  /**
+   * Draws the latest published state into the panels it changes.
+   */
+  private void drawFrame() {
+    ViewState state = pendingState.getAndSet(null);
+    if (state == null) {
+      return;
+    }
+    lastFrame = System.nanoTime();
+    int changed = state.changedSince(shownState);
+    if ((changed & ViewState.ROOM) != 0) {
+      roomPanel.showRoom(state.getRoomImage(), state.getDescription());
+      navigationPanel.updateAvailableDirections(state.getOpenExits());
+    }
+    if ((changed & ViewState.HEALTH) != 0) {
+      roomPanel.updateHealth(state.getHealth(), state.getHealthStatus());
+    }
+    if ((changed & ViewState.INVENTORY) != 0) {
+      inventoryPanel.showEntries(state.getInventory());
+    }
+    shownState = state;
+  }
+
   /**
    * Displays the current room description.
    * This implementation passes the description to the room panel.
@@ -143,15 +190,13 @@ public class GameWindow extends JFrame implements GameView {
    */
   @Override
   public void displayMessage(String message) {
-    SwingUtilities.invokeLater(() -> {
-      if (outputArea != null) {
-        outputArea.append(message + "\n");
-        outputArea.setCaretPosition(outputArea.getDocument().getLength());
-      }
-      if (roomPanel != null) {
-        roomPanel.addMessage(message);
-      }
-    });
+    OutputLog outputLog = controller.getOutputLog();
+    if (outputLog != null) {
+      outputLog.append(message);
+    }
+    if (roomPanel != null) {
+      roomPanel.addMessage(message);
+    }
   }
 
   /**
@@ -1,6 +1,7 @@
 package view.swing;
 
 import java.awt.BorderLayout;
+import java.util.ArrayList;
 import java.util.List;
 
 import javax.swing.*;
@@ -60,13 +61,35 @@ public class InventoryPanel extends JPanel {
    * @param items List of items to display in the inventory
    */
   public void updateInventory(List<Item> items) {
-    inventoryListModel.clear();
+    showEntries(entries(items));
+  }
+
+  /**
+   * Builds the inventory list rows for the items carried.
+   *
+   * @param items the items
+   * @return one row per item with its name and remaining uses
+   */
+  public static List<String> entries(List<Item> items) {
+    List<String> entries = new ArrayList<>(items.size());
     for (Item item : items) {
-      inventoryListModel.addElement(item.getName()
+      entries.add(item.getName()
               + " ("
               + item.getUsesRemaining()
               + " uses)");
     }
+    return entries;
+  }
+
+  /**
+   * Shows inventory list rows built by {@link #entries(List)}.
+   *
+   * @param entries the rows
+   */
+  public void showEntries(List<String> entries) {
+    // Replace the list contents with one model event rather than one per item
+    inventoryListModel.clear();
+    inventoryListModel.addAll(entries);
   }
 
   /**
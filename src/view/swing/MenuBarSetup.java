@@ -1,12 +1,12 @@
 package view.swing;
 
 import controller.SwingController;
-import controller.GameController;
 
 import javax.swing.JMenu;
 import javax.swing.JMenuBar;
 import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
 
 /**
  * Utility class for creating and configuring the application menu bar.
@@ -17,47 +17,55 @@ public class MenuBarSetup {
    * Creates a menu bar for the game window.
    * 
    * @param gameWindow The parent game window
-   * @param controller The controller for handling menu actions
+   * @param controller The controller for handling menu actions, which run on its game thread
    * @return The configured JMenuBar
    */
-  public static JMenuBar createMenuBar(GameWindow gameWindow, GameController controller) {
+  public static JMenuBar createMenuBar(GameWindow gameWindow, SwingController controller) {
     JMenuBar menuBar = new JMenuBar();
     
     // Game menu
     JMenu gameMenu = new JMenu("Game");
     
     JMenuItem saveItem = new JMenuItem("Save Game");
-    saveItem.addActionListener(e -> {
+    saveItem.addActionListener(e -> controller.execute(() -> {
       try {
         controller.saveGame();
       } catch (java.io.IOException ex) {
-        JOptionPane.showMessageDialog(gameWindow, "Error saving game: " + ex.getMessage(), 
-            "Save Error", JOptionPane.ERROR_MESSAGE);
+        SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(gameWindow,
+            "Error saving game: " + ex.getMessage(), "Save Error", JOptionPane.ERROR_MESSAGE));
       }
-    });
+    }));
     
     JMenuItem loadItem = new JMenuItem("Load Game");
-    loadItem.addActionListener(e -> {
+    loadItem.addActionListener(e -> controller.execute(() -> {
       try {
         controller.restoreGame();
       } catch (java.io.IOException ex) {
-        JOptionPane.showMessageDialog(gameWindow, "Error loading game: " + ex.getMessage(), 
-            "Load Error", JOptionPane.ERROR_MESSAGE);
+        SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(gameWindow,
+            "Error loading game: " + ex.getMessage(), "Load Error", JOptionPane.ERROR_MESSAGE));
       }
-    });
+    }));
     
     JMenuItem exitItem = new JMenuItem("Exit");
-    exitItem.addActionListener(e -> {
+    exitItem.addActionListener(e -> controller.execute(() -> {
+      String error = null;
       try {
         controller.saveGame();
+        controller.awaitSaves();
       } catch (java.io.IOException ex) {
-        JOptionPane.showMessageDialog(gameWindow, "Error saving game: " + ex.getMessage(),
-                "Save Error", JOptionPane.ERROR_MESSAGE);
+        error = "Error saving game: " + ex.getMessage();
       }
-      // Use the built-in close() method in GameWindow
-      gameWindow.close();
-      System.exit(0);
-    });
+      String message = error;
+      SwingUtilities.invokeLater(() -> {
+        if (message != null) {
+          JOptionPane.showMessageDialog(gameWindow, message, "Save Error",
+                  JOptionPane.ERROR_MESSAGE);
+        }
+        // Use the built-in close() method in GameWindow
+        gameWindow.close();
+        System.exit(0);
+      });
+    }));
     
     // Add items to menu
     gameMenu.add(saveItem);
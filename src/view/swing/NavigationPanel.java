@@ -1,8 +1,10 @@
 package view.swing;
 
 import java.awt.*;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 import javax.swing.*;
 
@@ -87,7 +89,7 @@ public class NavigationPanel extends JPanel {
     // Add action listener to handle movement
     button.addActionListener(e -> {
       if (controller != null) {
-        controller.move(direction);
+        controller.execute(() -> controller.move(direction));
       }
     });
 
@@ -104,15 +106,35 @@ public class NavigationPanel extends JPanel {
       disableAllButtons();
       return;
     }
+    updateAvailableDirections(openExits(room));
+  }
 
-    // Update each direction button based on available exits
+  /**
+   * Finds the exits of a room the player can take: those that exist and are not blocked.
+   *
+   * @param room The room to check
+   * @return The open directions
+   */
+  public static Set<Direction> openExits(Room room) {
+    Set<Direction> open = EnumSet.noneOf(Direction.class);
+    for (Direction direction : Direction.values()) {
+      if (room.hasExit(direction) && !room.isExitBlocked(direction)) {
+        open.add(direction);
+      }
+    }
+    return open;
+  }
+
+  /**
+   * Enables the buttons for the open directions and disables the rest.
+   *
+   * @param open The directions the player can move in
+   */
+  public void updateAvailableDirections(Set<Direction> open) {
     for (Direction direction : Direction.values()) {
       JButton button = directionButtons.get(direction);
       if (button != null) {
-        String exitNumber = room.getExitRoomNumber(direction);
-
-        // Enable if exit exists and is not blocked (positive number)
-        boolean enabled = !exitNumber.equals("0") && Integer.parseInt(exitNumber) > 0;
+        boolean enabled = open.contains(direction);
         button.setEnabled(enabled);
 
         // Visual indication of available exits
@@ -0,0 +1,146 @@
+package view.swing;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.JTextArea;
+import javax.swing.SwingUtilities;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+
+/**
+ * Bounded, batched output for a text area that only ever has lines appended to it.
+ * The area keeps at most a fixed number of recent messages, so its document stops growing in
+ * long sessions, and messages appended before the event dispatch thread gets to them are
+ * written to the document in one insert with one scroll to the end.
+ *
+ * <p>The length of every message shown is kept in a ring of fixed capacity. Once the area
+ * holds an eighth more messages than it should, the oldest ones are removed from the front of
+ * the document in one edit, so trimming costs a constant amount per message on average.
+ * Messages can be appended from any thread; the document is only changed on the event
+ * dispatch thread.
+ */
+public final class OutputLog {
+  /** Messages kept unless the caller chooses otherwise. */
+  public static final int DEFAULT_LINES = 1000;
+
+  /** Messages kept in the room panel's short message area. */
+  static final int MESSAGE_LINES = 200;
+
+  private final JTextArea area;
+  private final int maxLines;
+  private final int[] lengths;       // characters of each message shown, newline included
+  private int first;                 // ring index of the oldest message shown
+  private int count;                 // messages shown
+
+  private final Object lock = new Object();
+  private List<String> pending = new ArrayList<>();   // guarded by lock
+  private boolean scheduled;                          // guarded by lock
+
+  /**
+   * Creates bounded output for a text area.
+   *
+   * @param area     the text area, which nothing else should append to
+   * @param maxLines the number of recent messages to keep
+   * @throws IllegalArgumentException if maxLines is not positive
+   */
+  public OutputLog(JTextArea area, int maxLines) {
+    if (maxLines < 1) {
+      throw new IllegalArgumentException("Output must keep at least one line");
+    }
+    this.area = area;
+    this.maxLines = maxLines;
+    this.lengths = new int[maxLines + Math.max(1, maxLines / 8)];
+  }
+
+  /**
+   * Appends a message followed by a newline. The text area shows it once the event dispatch
+   * thread has run, together with any other messages appended before then.
+   *
+   * @param message the message
+   */
+  public void append(String message) {
+    synchronized (lock) {
+      pending.add(message);
+      if (scheduled) {
+        return;
+      }
+      scheduled = true;
+    }
+    SwingUtilities.invokeLater(this::flush);
+  }
+
+  /**
+   * Writes every message appended so far to the text area. Runs on the event dispatch thread;
+   * appended messages are flushed without calling this.
+   */
+  public void flush() {
+    List<String> messages;
+    synchronized (lock) {
+      messages = pending;
+      pending = new ArrayList<>();
+      scheduled = false;
+    }
+    if (messages.isEmpty()) {
+      return;
+    }
+
+    // Messages that would be trimmed straight away are never inserted
+    int from = Math.max(0, messages.size() - maxLines);
+    if (from > 0) {
+      clear();
+    }
+    int added = messages.size() - from;
+    Document document = area.getDocument();
+    try {
+      if (count + added > lengths.length) {
+        trim(document, count + added - maxLines);
+      }
+      StringBuilder text = new StringBuilder();
+      for (int i = from; i < messages.size(); i++) {
+        String message = messages.get(i);
+        text.append(message).append('\n');
+        lengths[(first + count) % lengths.length] = message.length() + 1;
+        count++;
+      }
+      document.insertString(document.getLength(), text.toString(), null);
+    } catch (BadLocationException e) {
+      throw new IllegalStateException("Output area changed outside its log", e);
+    }
+    area.setCaretPosition(document.getLength());
+  }
+
+  /**
+   * Removes every message from the text area. Runs on the event dispatch thread.
+   */
+  public void clear() {
+    area.setText("");
+    first = 0;
+    count = 0;
+  }
+
+  /**
+   * Gets the number of messages the text area holds, which stays below an eighth more than
+   * the number it keeps.
+   *
+   * @return the message count
+   */
+  public int getLineCount() {
+    return count;
+  }
+
+  /**
+   * Removes the oldest messages from the front of the document in one edit.
+   *
+   * @param document the text area's document
+   * @param lines    the number of messages to remove, no more than are shown
+   */
+  private void trim(Document document, int lines) throws BadLocationException {
+    int chars = 0;
+    for (int i = 0; i < lines; i++) {
+      chars += lengths[(first + i) % lengths.length];
+    }
+    document.remove(0, chars);
+    first = (first + lines) % lengths.length;
+    count -= lines;
+  }
+}
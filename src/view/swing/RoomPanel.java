@@ -4,11 +4,10 @@ import java.awt.*;
 
 import javax.swing.*;
 
-import model.Item;
 import model.Monster;
 import model.Puzzle;
 import model.Room;
-import model.Direction;
+import model.RoomRenderCache;
 import util.ImageLoader;
 
 /**
@@ -21,6 +20,12 @@ public class RoomPanel extends JPanel {
   private JProgressBar healthBar;
   private JPanel healthPanel;
 
+  // Description text reused until the room changes
+  private final RoomRenderCache descriptionText = new RoomRenderCache(RoomPanel::describe);
+  private String shownDescription;
+
+  private final OutputLog messageLog;
+
   /**
    * Constructs the layout, border/s, and adds images and descriptions for rooms.
    */
@@ -62,6 +67,7 @@ public class RoomPanel extends JPanel {
     messageArea.setLineWrap(true);
     messageArea.setWrapStyleWord(true);
     messageArea.setFont(new Font("SansSerif", Font.PLAIN, 12));
+    messageLog = new OutputLog(messageArea, OutputLog.MESSAGE_LINES);
     JScrollPane messageScroll = new JScrollPane(messageArea);
     messageScroll.setBorder(BorderFactory.createTitledBorder("Messages"));
 
@@ -85,14 +91,38 @@ public class RoomPanel extends JPanel {
   public void updateRoom(Room room) {
     if (room == null) {
       descriptionArea.setText("Error: Room is null");
+      shownDescription = null;
       return;
     }
 
-    // Get image for room
-    Icon image = ImageLoader.getRoomImage(room);
+    showRoom(ImageLoader.getRoomImage(room), descriptionText.get(room));
+  }
+
+  /**
+   * Shows a room's picture and description rendered elsewhere.
+   *
+   * @param image       the room's picture
+   * @param description the text from {@link #describe(Room)}
+   */
+  public void showRoom(Icon image, String description) {
     roomImageLabel.setIcon(image);
 
-    // Update description based on room state
+    // Update the description unless it is already showing
+    if (description != shownDescription) {
+      descriptionArea.setText(description);
+      descriptionArea.setCaretPosition(0); // Scroll to top
+      shownDescription = description;
+    }
+  }
+
+  /**
+   * Builds the description of a room: its name, the effects of an active puzzle or monster
+   * or else its description, its items and its exits.
+   *
+   * @param room the room
+   * @return the description text
+   */
+  public static String describe(Room room) {
     StringBuilder description = new StringBuilder();
     description.append("You are in: ").append(room.getName()).append("\n\n");
 
@@ -110,46 +140,16 @@ public class RoomPanel extends JPanel {
     }
 
     // Add items in room
-    if (room.getItems() != null && !room.getItems().isEmpty()) {
-      description.append("Items here: ");
-      boolean first = true;
-      for (Item item : room.getItems()) {
-        if (!first) {
-          description.append(", ");
-        }
-        description.append(item.getName());
-        first = false;
-      }
-      description.append("\n");
+    if (!room.getItems().isEmpty()) {
+      description.append("Items here: ").append(RoomRenderCache.itemNames(room, ", "))
+              .append("\n");
     }
 
     // Add exits information
-    description.append("\nExits: ");
-    boolean hasExits = false;
-
-    if (!"0".equals(room.getExitRoomNumber(Direction.NORTH))) {
-      description.append("NORTH ");
-      hasExits = true;
-    }
-    if (!"0".equals(room.getExitRoomNumber(Direction.SOUTH))) {
-      description.append("SOUTH ");
-      hasExits = true;
-    }
-    if (!"0".equals(room.getExitRoomNumber(Direction.EAST))) {
-      description.append("EAST ");
-      hasExits = true;
-    }
-    if (!"0".equals(room.getExitRoomNumber(Direction.WEST))) {
-      description.append("WEST ");
-      hasExits = true;
-    }
-
-    if (!hasExits) {
-      description.append("NONE");
-    }
+    String exits = RoomRenderCache.exitNames(room);
+    description.append("\nExits: ").append(exits.isEmpty() ? "NONE" : exits + " ");
 
-    descriptionArea.setText(description.toString());
-    descriptionArea.setCaretPosition(0); // Scroll to top
+    return description.toString();
   }
 
   /**
@@ -174,20 +174,19 @@ public class RoomPanel extends JPanel {
   }
 
   /**
-   * Adds a message to the message area.
+   * Adds a message to the message area, which keeps the most recent messages and shows
+   * messages added together in one update. Can be called from any thread.
    *
    * @param message The message to add
    */
   public void addMessage(String message) {
-    messageArea.append(message + "\n");
-    // Auto-scroll to bottom
-    messageArea.setCaretPosition(messageArea.getDocument().getLength());
+    messageLog.append(message);
   }
 
   /**
    * Clears the message area.
    */
   public void clearMessages() {
-    messageArea.setText("");
+    messageLog.clear();
   }
 }
\ No newline at end of file
@@ -0,0 +1,146 @@
+package view.swing;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import javax.swing.Icon;
+
+import model.Direction;
+import model.Room;
+
+/**
+ * What the game window's panels show, captured on the game thread after a command.
+ * Everything the panels need is rendered here, so the event dispatch thread draws a state
+ * without reading the game world while the game thread may be changing it.
+ */
+public final class ViewState {
+  /** The room panel and navigation buttons changed. */
+  public static final int ROOM = 1;
+  /** The health bar changed. */
+  public static final int HEALTH = 1 << 1;
+  /** The inventory list changed. */
+  public static final int INVENTORY = 1 << 2;
+  /** Every panel. */
+  public static final int ALL = ROOM | HEALTH | INVENTORY;
+
+  private final Room room;
+  private final long roomVersion;
+  private final Icon roomImage;
+  private final String description;
+  private final Set<Direction> openExits;
+  private final int health;
+  private final String healthStatus;
+  private final List<String> inventory;
+
+  /**
+   * Creates a view state.
+   *
+   * @param room         the player's room, compared by identity only
+   * @param roomVersion  the room's version stamp when the state was captured
+   * @param roomImage    the room's picture
+   * @param description  the room panel text
+   * @param openExits    the directions the player can move in
+   * @param health       the player's health
+   * @param healthStatus the player's health status text
+   * @param inventory    one inventory list row per item carried
+   */
+  public ViewState(Room room, long roomVersion, Icon roomImage, String description,
+                   Set<Direction> openExits, int health, String healthStatus,
+                   List<String> inventory) {
+    this.room = room;
+    this.roomVersion = roomVersion;
+    this.roomImage = roomImage;
+    this.description = description;
+    this.openExits = Collections.unmodifiableSet(openExits);
+    this.health = health;
+    this.healthStatus = healthStatus;
+    this.inventory = Collections.unmodifiableList(inventory);
+  }
+
+  /**
+   * Finds the panels that show something different from an earlier state.
+   *
+   * @param previous the state shown before, or null if nothing has been shown
+   * @return the changed panels as {@link #ROOM}, {@link #HEALTH} and {@link #INVENTORY} bits
+   */
+  public int changedSince(ViewState previous) {
+    if (previous == null) {
+      return ALL;
+    }
+    int changed = 0;
+    if (room != previous.room || roomVersion != previous.roomVersion) {
+      changed |= ROOM;
+    }
+    if (health != previous.health || !Objects.equals(healthStatus, previous.healthStatus)) {
+      changed |= HEALTH;
+    }
+    if (!inventory.equals(previous.inventory)) {
+      changed |= INVENTORY;
+    }
+    return changed;
+  }
+
+  /**
+   * Gets the player's room.
+   *
+   * @return the room
+   */
+  public Room getRoom() {
+    return room;
+  }
+
+  /**
+   * Gets the room's picture.
+   *
+   * @return the picture
+   */
+  public Icon getRoomImage() {
+    return roomImage;
+  }
+
+  /**
+   * Gets the room panel text.
+   *
+   * @return the description
+   */
+  public String getDescription() {
+    return description;
+  }
+
+  /**
+   * Gets the directions the player can move in.
+   *
+   * @return the open exits
+   */
+  public Set<Direction> getOpenExits() {
+    return openExits;
+  }
+
+  /**
+   * Gets the player's health.
+   *
+   * @return the health
+   */
+  public int getHealth() {
+    return health;
+  }
+
+  /**
+   * Gets the player's health status text.
+   *
+   * @return the status
+   */
+  public String getHealthStatus() {
+    return healthStatus;
+  }
+
+  /**
+   * Gets the inventory list rows.
+   *
+   * @return one row per item carried
+   */
+  public List<String> getInventory() {
+    return inventory;
+  }
+}
@@ -113,6 +113,67 @@ class BatchControllerTest {
             "Should handle unknown command");
   }
 
+  @Test
+  void testOutputFileIsWrittenAsCommandsRun() throws IOException {
+    List<String> commands = new ArrayList<>();
+    commands.add("// setup");
+    commands.add("");
+    for (int i = 0; i < 5000; i++) {
+      commands.add("  fly  ");
+    }
+    String filePath = createCommandFile(commands);
+    String outputPath = tempDir.resolve("transcript.txt").toString();
+
+    BatchController controller = new BatchController(gameWorld, filePath, outputPath, view);
+    controller.run();
+
+    assertNull(controller.getError());
+    List<String> lines = Files.readAllLines(Path.of(outputPath));
+    assertEquals("Player name set to: TestPlayer", lines.get(0));
+    assertEquals("> fly", lines.get(1));
+    assertEquals("Unknown command: fly", lines.get(2));
+    assertEquals(1 + 2 * 5000, lines.size());
+    assertEquals("Unknown command: fly", lines.get(lines.size() - 1));
+  }
+
+  @Test
+  void testSeedDirectiveSetsSeedWithoutOutput() throws IOException {
+    String filePath = createCommandFile(List.of("@seed 42", "fly", "@seed many"));
+    String outputPath = tempDir.resolve("seeded.txt").toString();
+
+    new BatchController(gameWorld, filePath, outputPath, view).run();
+
+    assertEquals(42, gameWorld.getSeed());
+    assertEquals(List.of("Player name set to: TestPlayer", "> fly", "Unknown command: fly",
+            "Error: Invalid seed: many"), Files.readAllLines(Path.of(outputPath)));
+  }
+
+  @Test
+  void testMissingBatchFileWritesEmptyOutput() throws IOException {
+    String outputPath = tempDir.resolve("empty.txt").toString();
+
+    BatchController controller = new BatchController(gameWorld,
+            tempDir.resolve("missing.txt").toString(), outputPath, view);
+    controller.run();
+
+    assertEquals(0, Files.size(Path.of(outputPath)));
+    assertTrue(controller.getError().startsWith("Batch file not found: "), controller.getError());
+  }
+
+  @Test
+  void testUnwritableOutputIsReported() throws IOException {
+    String filePath = createCommandFile(List.of("fly"));
+    // A path under a regular file cannot be created, even by root
+    String outputPath = Path.of(filePath, "transcript.txt").toString();
+
+    BatchController controller = new BatchController(gameWorld, filePath, outputPath, view);
+    controller.run();
+
+    assertEquals(1, controller.getCommandCount());
+    assertTrue(controller.getError().startsWith("Error writing to output file: "),
+            controller.getError());
+  }
+
   /**
    * Stub implementation of GameWorld that avoids file I/O.
    */
@@ -0,0 +1,272 @@
+package controller;
+
+import model.GameWorld;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for running batch scripts on a long-running daemon.
+ * Covers transcripts sent back or written to a file, games kept loaded until they change,
+ * failed jobs, and jobs from many clients at once.
+ */
+@DisplayName("Batch Daemon Tests")
+class BatchDaemonTest {
+
+  @TempDir
+  Path tempDir;
+
+  private BatchDaemon daemon;
+
+  @AfterEach
+  void tearDown() throws Exception {
+    if (daemon != null) {
+      daemon.close();
+    }
+  }
+
+  /**
+   * Writes a two-room game file with a lamp in the first room.
+   *
+   * @param lampWeight the weight of the lamp
+   * @return path to the game file
+   */
+  private String writeGameFile(int lampWeight) throws IOException {
+    return writeFile("game.json",
+            "{\"name\": \"Daemon Test\", \"version\": \"1.0\", \"rooms\": [\n"
+            + "  {\"room_name\": \"Hall\", \"room_number\": \"1\", \"description\": \"A hall.\",\n"
+            + "   \"N\": \"2\", \"S\": \"0\", \"E\": \"0\", \"W\": \"0\", \"items\": \"Lamp\"},\n"
+            + "  {\"room_name\": \"Attic\", \"room_number\": \"2\", \"description\": \"An attic.\",\n"
+            + "   \"N\": \"0\", \"S\": \"1\", \"E\": \"0\", \"W\": \"0\"}\n"
+            + "], \"items\": [{\"name\": \"Lamp\", \"weight\": \"" + lampWeight + "\", \"max_uses\": \"3\",\n"
+            + "   \"uses_remaining\": \"3\", \"value\": \"5\", \"when_used\": \"It glows.\",\n"
+            + "   \"description\": \"A lamp.\"}]}");
+  }
+
+  private String writeFile(String name, String content) throws IOException {
+    File file = tempDir.resolve(name).toFile();
+    try (FileWriter writer = new FileWriter(file)) {
+      writer.write(content);
+    }
+    return file.getPath();
+  }
+
+  /**
+   * Runs a script with "-batch" and returns its transcript.
+   */
+  private String batchTranscript(String gameFile, String script) throws IOException {
+    String expected = tempDir.resolve("expected.txt").toString();
+    new BatchController(new GameWorld(gameFile), script, expected, null).run();
+    return Files.readString(Path.of(expected));
+  }
+
+  @Test
+  @DisplayName("Transcripts match a batch run, sent back or written to a file")
+  void testTranscripts() throws Exception {
+    String gameFile = writeGameFile(2);
+    String script = writeFile("script.txt", "Al\ntake lamp\nn\ni\nlook\n");
+    Path outDir = Files.createDirectory(tempDir.resolve("out"));
+    daemon = new BatchDaemon(tempDir.resolve("daemon.sock").toString(), 2, outDir.toString());
+    daemon.preload(gameFile);
+    daemon.start();
+
+    StringBuilder sent = new StringBuilder();
+    String status = BatchDaemon.submit(daemon.getAddress(), gameFile, script, null, null, sent);
+    assertTrue(status.startsWith("done 4 commands in "), status);
+    assertEquals(batchTranscript(gameFile, script), sent.toString());
+
+    String output = outDir.resolve("out.txt").toString();
+    StringBuilder nothing = new StringBuilder();
+    status = BatchDaemon.submit(daemon.getAddress(), gameFile, script, output, 7L, nothing);
+    assertTrue(status.startsWith("done 4 commands"), status);
+    assertEquals("", nothing.toString());
+    assertEquals(sent.toString(), Files.readString(Path.of(output)));
+
+    // Outside the output directory, by name or through a link, nothing is written
+    Path outside = tempDir.resolve("outside.txt");
+    status = BatchDaemon.submit(daemon.getAddress(), gameFile, script,
+            outDir.resolve("../outside.txt").toString(), null, nothing);
+    assertTrue(status.startsWith("failed Output file outside "), status);
+    Files.createSymbolicLink(outDir.resolve("link.txt"), outside);
+    status = BatchDaemon.submit(daemon.getAddress(), gameFile, script,
+            outDir.resolve("link.txt").toString(), null, nothing);
+    assertTrue(status.startsWith("failed Output file outside "), status);
+    assertFalse(Files.exists(outside));
+    assertEquals(4, daemon.getJobCount());
+  }
+
+  @Test
+  @DisplayName("A game stays loaded until its file changes, and bad jobs fail")
+  void testReloadAndFailures() throws Exception {
+    String gameFile = writeGameFile(2);
+    String script = writeFile("script.txt", "Al\ntake lamp\n");
+    daemon = new BatchDaemon("0", 1, tempDir.toString());
+    daemon.start();
+
+    StringBuilder first = new StringBuilder();
+    BatchDaemon.submit(daemon.getAddress(), gameFile, script, null, null, first);
+    assertTrue(first.toString().contains("You pick up the Lamp."), first.toString());
+
+    writeGameFile(500);
+    assertTrue(new File(gameFile).setLastModified(System.currentTimeMillis() + 5000));
+    StringBuilder second = new StringBuilder();
+    BatchDaemon.submit(daemon.getAddress(), gameFile, script, null, null, second);
+    assertEquals(batchTranscript(gameFile, script), second.toString());
+    assertNotEquals(first.toString(), second.toString());
+
+    String missing = tempDir.resolve("missing.txt").toString();
+    String status = BatchDaemon.submit(daemon.getAddress(), gameFile, missing, null, null,
+            new StringBuilder());
+    assertEquals("failed Script not found: " + missing, status);
+
+    // The script is a regular file, so nothing can be created under it
+    String unwritable = Path.of(script, "out.txt").toString();
+    status = BatchDaemon.submit(daemon.getAddress(), gameFile, script, unwritable, null,
+            new StringBuilder());
+    assertTrue(status.startsWith("failed Error writing to output file: "), status);
+
+    status = BatchDaemon.submit(daemon.getAddress(), gameFile, script, "/etc/passwd", null,
+            new StringBuilder());
+    assertTrue(status.startsWith("failed Output file outside "), status);
+
+    int port = Integer.parseInt(daemon.getAddress());
+    try (SocketChannel channel = SocketChannel.open(
+            new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+         BufferedReader in = new BufferedReader(new InputStreamReader(
+                 Channels.newInputStream(channel), StandardCharsets.UTF_8))) {
+      Writer out = new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8);
+      out.write("just one field\n");
+      out.flush();
+      assertTrue(in.readLine().startsWith(BatchDaemon.STATUS + "failed expected"));
+      assertNull(in.readLine());
+    }
+    status = BatchDaemon.submit(daemon.getAddress(), tempDir.resolve("nothing.json").toString(),
+            script, null, null, new StringBuilder());
+    assertTrue(status.startsWith("failed "), status);
+    assertTrue(daemon.status().startsWith("Jobs: 7 (5 failed)"), daemon.status());
+    assertTrue(daemon.status().endsWith("games loaded: 1"), daemon.status());
+  }
+
+  @Test
+  @DisplayName("A stale socket file is replaced but a running daemon's is not")
+  void testSocketFile() throws Exception {
+    String gameFile = writeGameFile(2);
+    String script = writeFile("script.txt", "Al\nlook\n");
+    Path socket = tempDir.resolve("daemon.sock");
+    try (ServerSocketChannel stale = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+      stale.bind(UnixDomainSocketAddress.of(socket));
+    }
+    assertTrue(Files.exists(socket));
+    daemon = new BatchDaemon(socket.toString(), 1);
+    daemon.start();
+
+    BatchDaemon second = new BatchDaemon(socket.toString(), 1);
+    IOException refused = assertThrows(IOException.class, second::start);
+    assertTrue(refused.getMessage().startsWith("A daemon is already listening"), refused.getMessage());
+    String status = BatchDaemon.submit(daemon.getAddress(), gameFile, script, null, null,
+            new StringBuilder());
+    assertTrue(status.startsWith("done 1 commands"), status);
+  }
+
+  @Test
+  @DisplayName("Job lines that are too long or too slow fail without holding a worker")
+  void testBadRequests() throws Exception {
+    String gameFile = writeGameFile(2);
+    String script = writeFile("script.txt", "Al\nlook\n");
+    daemon = new BatchDaemon(tempDir.resolve("daemon.sock").toString(), 1);
+    daemon.start();
+    UnixDomainSocketAddress address = UnixDomainSocketAddress.of(daemon.getAddress());
+
+    try (SocketChannel silent = SocketChannel.open(address);
+         SocketChannel flood = SocketChannel.open(address)) {
+      Writer out = new OutputStreamWriter(Channels.newOutputStream(flood), StandardCharsets.UTF_8);
+      out.write("x".repeat(BatchDaemon.MAX_REQUEST_BYTES + 1));
+      out.flush();
+      assertEquals(BatchDaemon.STATUS + "failed job line longer than "
+              + BatchDaemon.MAX_REQUEST_BYTES + " bytes", readReply(flood));
+
+      // The only worker is free while the silent client waits
+      String status = BatchDaemon.submit(daemon.getAddress(), gameFile, script, null, null,
+              new StringBuilder());
+      assertTrue(status.startsWith("done 1 commands"), status);
+
+      long start = System.nanoTime();
+      assertEquals(BatchDaemon.STATUS + "failed no job line within "
+              + BatchDaemon.REQUEST_TIMEOUT_MILLIS + " ms", readReply(silent));
+      assertTrue(System.nanoTime() - start
+              < TimeUnit.MILLISECONDS.toNanos(BatchDaemon.REQUEST_TIMEOUT_MILLIS) + 2_000_000_000L);
+    }
+    assertTrue(daemon.status().startsWith("Jobs: 3 (2 failed)"), daemon.status());
+  }
+
+  /**
+   * Reads everything a daemon sends on a connection until it closes it.
+   */
+  private static String readReply(SocketChannel channel) throws IOException {
+    BufferedReader in = new BufferedReader(new InputStreamReader(
+            Channels.newInputStream(channel), StandardCharsets.UTF_8));
+    String line = in.readLine();
+    assertNull(in.readLine());
+    return line;
+  }
+
+  @Test
+  @DisplayName("Jobs from many clients at once each get their own transcript")
+  void testConcurrentJobs() throws Exception {
+    String gameFile = writeGameFile(2);
+    List<String> scripts = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      scripts.add(writeFile("script" + i + ".txt", "P" + i + "\n" + "look\n".repeat(i) + "take lamp\n"));
+    }
+    daemon = new BatchDaemon(tempDir.resolve("daemon.sock").toString(), 2);
+    daemon.start();
+
+    ExecutorService clients = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<String>> transcripts = new ArrayList<>();
+      for (String script : scripts) {
+        transcripts.add(clients.submit(() -> {
+          StringBuilder out = new StringBuilder();
+          String status = BatchDaemon.submit(daemon.getAddress(), gameFile, script, null, 1L, out);
+          assertTrue(status.startsWith("done"), status);
+          return out.toString();
+        }));
+      }
+      for (int i = 0; i < scripts.size(); i++) {
+        String transcript = transcripts.get(i).get(30, TimeUnit.SECONDS);
+        assertTrue(transcript.startsWith("Player name set to: P" + i + "\n"), transcript);
+        assertTrue(transcript.contains("You pick up the Lamp."), transcript);
+      }
+    } finally {
+      clients.shutdownNow();
+    }
+    assertEquals(8, daemon.getJobCount());
+  }
+}
@@ -0,0 +1,132 @@
+package controller;
+
+import model.GameWorld;
+import model.WorldTemplate;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for running many batch scripts at once.
+ * Covers script discovery, session isolation between scripts, and the summary.
+ */
+@DisplayName("Batch Runner Tests")
+class BatchRunnerTest {
+
+  @TempDir
+  Path tempDir;
+
+  /**
+   * Writes a two-room game file with a lamp in the first room.
+   *
+   * @return path to the game file
+   */
+  private String writeGameFile() throws IOException {
+    return writeFile("game.json",
+            "{\"name\": \"Runner Test\", \"version\": \"1.0\", \"rooms\": [\n"
+            + "  {\"room_name\": \"Hall\", \"room_number\": \"1\", \"description\": \"A hall.\",\n"
+            + "   \"N\": \"2\", \"S\": \"0\", \"E\": \"0\", \"W\": \"0\", \"items\": \"Lamp\"},\n"
+            + "  {\"room_name\": \"Attic\", \"room_number\": \"2\", \"description\": \"An attic.\",\n"
+            + "   \"N\": \"0\", \"S\": \"1\", \"E\": \"0\", \"W\": \"0\"}\n"
+            + "], \"items\": [{\"name\": \"Lamp\", \"weight\": \"2\", \"max_uses\": \"3\",\n"
+            + "   \"uses_remaining\": \"3\", \"value\": \"5\", \"when_used\": \"It glows.\",\n"
+            + "   \"description\": \"A lamp.\"}]}");
+  }
+
+  private String writeFile(String name, String content) throws IOException {
+    File file = tempDir.resolve(name).toFile();
+    file.getParentFile().mkdirs();
+    try (FileWriter writer = new FileWriter(file)) {
+      writer.write(content);
+    }
+    return file.getPath();
+  }
+
+  @Test
+  @DisplayName("Scripts are listed from a directory or a list file")
+  void testListScripts() throws IOException {
+    String second = writeFile("scripts/b.txt", "Bea\n");
+    String first = writeFile("scripts/a.txt", "Al\n");
+    assertEquals(List.of(first, second), BatchRunner.listScripts(tempDir.resolve("scripts").toString()));
+
+    String list = writeFile("list.txt", "// scripts\n" + second + "\n\n  " + first + "\n");
+    assertEquals(List.of(second, first), BatchRunner.listScripts(list));
+
+    assertThrows(IOException.class, () -> BatchRunner.listScripts(tempDir.resolve("none").toString()));
+  }
+
+  @Test
+  @DisplayName("Each script plays its own session and matches a single batch run")
+  void testScriptsRunInIsolation() throws Exception {
+    String gameFile = writeGameFile();
+    String taker = writeFile("scripts/taker.txt", "Al\ntake lamp\nn\ni\n");
+    String looker = writeFile("scripts/looker.txt", "Bea\nlook\ntake lamp\n");
+    String outputDir = tempDir.resolve("out").toString();
+
+    BatchRunner runner = new BatchRunner(WorldTemplate.load(gameFile), outputDir, 2);
+    List<BatchRunner.Result> results = runner.run(List.of(taker, looker, taker));
+
+    assertEquals(3, results.size());
+    for (BatchRunner.Result result : results) {
+      assertNull(result.getError());
+      assertEquals("Beginner", result.getRank());
+      assertFalse(result.isDead());
+    }
+    assertEquals(3, results.get(0).getCommands());
+    assertEquals(2, results.get(1).getCommands());
+
+    // Both scripts found the lamp, so neither saw the other's session
+    String expected = tempDir.resolve("expected.txt").toString();
+    new BatchController(new GameWorld(gameFile), looker, expected, null).run();
+    assertEquals(Files.readString(Path.of(expected)),
+            Files.readString(Path.of(results.get(1).getTranscript())));
+    assertTrue(Files.readString(Path.of(results.get(0).getTranscript()))
+            .contains("You pick up the Lamp."));
+    assertNotEquals(results.get(0).getTranscript(), results.get(2).getTranscript());
+    assertEquals(Files.readString(Path.of(results.get(0).getTranscript())),
+            Files.readString(Path.of(results.get(2).getTranscript())));
+  }
+
+  @Test
+  @DisplayName("A script that cannot be read fails instead of scoring a fresh session")
+  void testMissingScriptFails() throws Exception {
+    String gameFile = writeGameFile();
+    String missing = tempDir.resolve("scripts/gone.txt").toString();
+    String outputDir = tempDir.resolve("out").toString();
+
+    BatchRunner runner = new BatchRunner(WorldTemplate.load(gameFile), outputDir, 1);
+    List<BatchRunner.Result> results = runner.run(List.of(missing));
+
+    assertEquals(1, results.size());
+    assertEquals("Batch file not found: " + missing, results.get(0).getError());
+    assertNull(results.get(0).getRank());
+    assertEquals(0, results.get(0).getCommands());
+  }
+
+  @Test
+  @DisplayName("The summary reports totals for the run")
+  void testSummary() throws Exception {
+    String gameFile = writeGameFile();
+    String script = writeFile("scripts/one.txt", "Al\nlook\nn\n");
+    String outputDir = tempDir.resolve("out").toString();
+
+    BatchRunner runner = new BatchRunner(WorldTemplate.load(gameFile), outputDir, 1);
+    List<BatchRunner.Result> results = runner.run(List.of(script, tempDir.resolve("gone.txt").toString()));
+    String summary = runner.writeSummary(results, 1_000_000_000L);
+
+    assertTrue(summary.contains("Scripts: 2 (1 failed) on 1 threads"), summary);
+    assertTrue(summary.contains("Ranks: Beginner=1"), summary);
+    assertTrue(summary.contains("Deaths: 0"));
+    assertTrue(summary.contains("Commands: 2 in 1.00 s (2 commands/s)"));
+    assertEquals(summary, Files.readString(Path.of(outputDir, "summary.txt")));
+  }
+}
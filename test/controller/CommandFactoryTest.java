@@ -0,0 +1,93 @@
+package controller;
+
+import controller.commands.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for the shared command table.
+ * Covers alias lookup, per-controller verb sets, and argument checking.
+ */
+@DisplayName("Command Factory Tests")
+class CommandFactoryTest {
+
+  /**
+   * A controller with no world that supports the given verbs.
+   */
+  private static GameController controller(Set<Verb> verbs, boolean lenient) {
+    return new GameController() {
+      @Override
+      public Set<Verb> supportedVerbs() {
+        return verbs;
+      }
+
+      @Override
+      public boolean isLenientParsing() {
+        return lenient;
+      }
+    };
+  }
+
+  @Test
+  @DisplayName("Every alias finds its verb regardless of case")
+  void testLookupAliases() {
+    for (Verb verb : Verb.values()) {
+      for (String alias : verb.getAliases()) {
+        assertEquals(verb, CommandFactory.lookup(alias, 0, alias.length()));
+        String upper = alias.toUpperCase();
+        assertEquals(verb, CommandFactory.lookup(upper, 0, upper.length()));
+      }
+    }
+    assertNull(CommandFactory.lookup("fly", 0, 3));
+    assertNull(CommandFactory.lookup("", 0, 0));
+  }
+
+  @Test
+  @DisplayName("Lookup reads only the given range of the text")
+  void testLookupRange() {
+    String line = "  take lamp";
+    assertEquals(Verb.TAKE, CommandFactory.lookup(line, 2, 6));
+    assertEquals(Verb.TAKE, CommandFactory.lookup(line, 2, 3));
+    assertNull(CommandFactory.lookup(line, 2, 5));
+  }
+
+  @Test
+  @DisplayName("Commands are built from the verb and trimmed argument")
+  void testCreateCommand() {
+    GameController controller = controller(EnumSet.allOf(Verb.class), false);
+    assertInstanceOf(MoveCommand.class, CommandFactory.createCommand(controller, "NORTH"));
+    assertInstanceOf(LookCommand.class, CommandFactory.createCommand(controller, "  l  "));
+    assertInstanceOf(TakeCommand.class, CommandFactory.createCommand(controller, "Take  Lamp "));
+    assertInstanceOf(HelpCommand.class, CommandFactory.createCommand(controller, "?"));
+    assertInstanceOf(LoadCommand.class, CommandFactory.createCommand(controller, "load"));
+    assertInstanceOf(UnknownCommand.class, CommandFactory.createCommand(controller, "fly"));
+    assertInstanceOf(UnknownCommand.class, CommandFactory.createCommand(controller, "   "));
+    assertInstanceOf(UnknownCommand.class, CommandFactory.createCommand(controller, null));
+  }
+
+  @Test
+  @DisplayName("Verbs a controller does not support are unknown")
+  void testUnsupportedVerb() {
+    GameController controller = controller(EnumSet.of(Verb.NORTH, Verb.QUIT), false);
+    assertInstanceOf(MoveCommand.class, CommandFactory.createCommand(controller, "n"));
+    assertInstanceOf(QuitCommand.class, CommandFactory.createCommand(controller, "quit"));
+    assertInstanceOf(UnknownCommand.class, CommandFactory.createCommand(controller, "save"));
+  }
+
+  @Test
+  @DisplayName("Argument mismatches are unknown unless parsing is lenient")
+  void testArgumentChecking() {
+    GameController strict = controller(EnumSet.allOf(Verb.class), false);
+    assertInstanceOf(UnknownCommand.class, CommandFactory.createCommand(strict, "take"));
+    assertInstanceOf(UnknownCommand.class, CommandFactory.createCommand(strict, "look around"));
+
+    GameController lenient = controller(EnumSet.allOf(Verb.class), true);
+    assertInstanceOf(TakeCommand.class, CommandFactory.createCommand(lenient, "take"));
+    assertInstanceOf(LookCommand.class, CommandFactory.createCommand(lenient, "look around"));
+  }
+}
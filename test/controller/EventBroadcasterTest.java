@@ -0,0 +1,193 @@
+package controller;
+
+import model.Direction;
+import model.GameWorld;
+import model.Player;
+import model.WorldTemplate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for sending events only to the players near them.
+ * Covers who hears an event, subscriptions following moves, one batch per tick, and a slow
+ * client falling behind without holding up the others.
+ */
+@DisplayName("Event Broadcaster Tests")
+class EventBroadcasterTest {
+  @TempDir
+  Path tempDir;
+
+  private ExecutorService pool;
+
+  @BeforeEach
+  void setUp() {
+    pool = Executors.newFixedThreadPool(2);
+  }
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    pool.shutdownNow();
+    pool.awaitTermination(10, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Writes a game with a hall, a den to its east and a cellar to the east of the den.
+   *
+   * @return a new session of the game
+   */
+  private GameWorld newWorld() throws IOException {
+    File gameFile = tempDir.resolve("event_game.json").toFile();
+    try (FileWriter writer = new FileWriter(gameFile)) {
+      writer.write("{\"name\": \"Event Test\", \"version\": \"1.0\", \"rooms\": [\n"
+              + "  {\"room_name\": \"Hall\", \"room_number\": \"1\", \"description\": \"A hall.\",\n"
+              + "   \"N\": \"0\", \"S\": \"0\", \"E\": \"3\", \"W\": \"0\", \"items\": \"Lamp\"},\n"
+              + "  {\"room_name\": \"Den\", \"room_number\": \"3\", \"description\": \"A den.\",\n"
+              + "   \"N\": \"0\", \"S\": \"0\", \"E\": \"5\", \"W\": \"1\"},\n"
+              + "  {\"room_name\": \"Cellar\", \"room_number\": \"5\", \"description\": \"A cellar.\",\n"
+              + "   \"N\": \"0\", \"S\": \"0\", \"E\": \"0\", \"W\": \"3\"}\n"
+              + "], \"items\": [\n"
+              + "  {\"name\": \"Lamp\", \"weight\": \"1\", \"max_uses\": \"1\", \"uses_remaining\": \"1\",\n"
+              + "   \"value\": \"1\", \"when_used\": \"Done.\", \"description\": \"A lamp.\"}]}");
+    }
+    return WorldTemplate.load(gameFile.getPath()).newSession();
+  }
+
+  @Test
+  @DisplayName("Events reach the players in the room, and next door only if asked for")
+  void testInterest() throws Exception {
+    for (boolean adjacentRooms : new boolean[] {false, true}) {
+      GameWorld world = newWorld();
+      Player al = world.addPlayer("al");
+      Player bo = world.addPlayer("bo");
+      Player cy = world.addPlayer("cy");
+      Player di = world.addPlayer("di");
+      assertTrue(world.move(cy, Direction.EAST));
+      assertTrue(world.move(di, Direction.EAST));
+      assertTrue(world.move(di, Direction.EAST));
+
+      EventBroadcaster events = new EventBroadcaster(adjacentRooms);
+      List<StringBuilder> heard = new ArrayList<>();
+      for (Player player : List.of(al, bo, cy, di)) {
+        StringBuilder out = new StringBuilder();
+        events.subscribe(player, batch -> {
+          out.append(batch);
+          return true;
+        });
+        heard.add(out);
+      }
+
+      events.publish(world.getRoom("1"), al, "al waves.");
+      assertEquals(1, events.flush());
+      assertTrue(world.move(di, Direction.WEST));
+      assertTrue(world.move(cy, Direction.WEST));
+      events.publish(world.getRoom("1"), null, "a bell rings.");
+      events.flush();
+      events.unsubscribe(bo);
+      events.publish(world.getRoom("1"), null, "a door slams.");
+      events.flush();
+      assertEquals(0, events.flush());
+
+      List<String> expected = adjacentRooms
+              ? List.of("a bell rings.\na door slams.\n", "al waves.\na bell rings.\n",
+                      "al waves.\na bell rings.\na door slams.\n", "a bell rings.\na door slams.\n")
+              : List.of("a bell rings.\na door slams.\n", "al waves.\na bell rings.\n",
+                      "a bell rings.\na door slams.\n", "");
+      assertEquals(expected, heard.stream().map(StringBuilder::toString).toList(),
+              "adjacent rooms " + adjacentRooms);
+    }
+  }
+
+  @Test
+  @DisplayName("A player's commands reach the others as one batch per tick")
+  void testCommandsBatchedPerTick() throws Exception {
+    GameWorld world = newWorld();
+    Player al = world.addPlayer("al");
+    Player bo = world.addPlayer("bo");
+    EventBroadcaster events = new EventBroadcaster(false);
+    List<String> writes = new ArrayList<>();
+    events.subscribe(bo, new BufferedOutput(writes, Integer.MAX_VALUE));
+    List<String> alHeard = new ArrayList<>();
+    events.subscribe(al, new BufferedOutput(alHeard, Integer.MAX_VALUE));
+
+    RoomActors actors = new RoomActors(world, pool);
+    ActorController controller = new ActorController(world, al, actors, new StringBuilder(), events);
+    CompletableFuture<Void> last = null;
+    for (String command : List.of("take lamp", "drop lamp", "e")) {
+      last = actors.submit(controller, command);
+    }
+    last.get(10, TimeUnit.SECONDS);
+
+    assertEquals(4, events.flush());
+    assertEquals(List.of("al picks up the lamp.\nal drops the lamp.\nal leaves east.\n"), writes);
+    assertEquals(List.of(), alHeard);
+    assertEquals(0, events.flush());
+    assertEquals(1, writes.size());
+  }
+
+  @Test
+  @DisplayName("A slow client misses events without holding up the others")
+  void testSlowClient() throws Exception {
+    GameWorld world = newWorld();
+    Player slow = world.addPlayer("slow");
+    Player fast = world.addPlayer("fast");
+    EventBroadcaster events = new EventBroadcaster(false);
+    int ticks = 40;
+    String text = "x".repeat(1000);
+
+    // Nothing drains the slow client's buffer, as if its connection had stalled
+    List<String> slowWrites = new ArrayList<>();
+    events.subscribe(slow, new BufferedOutput(slowWrites, 16 * 1024));
+    List<String> fastWrites = new ArrayList<>();
+    events.subscribe(fast, new BufferedOutput(fastWrites, Integer.MAX_VALUE));
+
+    for (int i = 0; i < ticks; i++) {
+      events.publish(world.getRoom("1"), null, text);
+      assertEquals(1, events.flush());
+    }
+    assertEquals(ticks, fastWrites.size());
+    assertEquals(0, events.getDropped(fast));
+    assertEquals(16, slowWrites.size());
+    assertEquals(ticks - 16, events.getDropped(slow));
+  }
+
+  /**
+   * Output that keeps the batches it takes, as a connection's write buffer would, and refuses
+   * any batch that would take it over its capacity.
+   */
+  private static final class BufferedOutput implements EventBroadcaster.Output {
+    private final List<String> taken;
+    private final int capacity;
+    private int buffered;
+
+    BufferedOutput(List<String> taken, int capacity) {
+      this.taken = taken;
+      this.capacity = capacity;
+    }
+
+    @Override
+    public boolean offer(String batch) {
+      if (batch.length() > capacity - buffered) {
+        return false;
+      }
+      buffered += batch.length();
+      taken.add(batch);
+      return true;
+    }
+  }
+}
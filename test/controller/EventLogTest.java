@@ -0,0 +1,204 @@
+package controller;
+
+import model.GameWorld;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for event-sourced sessions.
+ * Covers what is recorded, restoring from snapshots, replaying a whole session, and
+ * recovering from a log cut short.
+ */
+@DisplayName("Event Log Tests")
+class EventLogTest {
+
+  @TempDir
+  Path tempDir;
+
+  private String gameFile;
+  private String base;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    File file = tempDir.resolve("events_game.json").toFile();
+    try (FileWriter writer = new FileWriter(file)) {
+      writer.write("{\"name\": \"Event Test\", \"version\": \"1.0\", \"rooms\": [\n"
+              + "  {\"room_name\": \"Hall\", \"room_number\": \"1\", \"description\": \"A hall.\",\n"
+              + "   \"N\": \"-2\", \"S\": \"0\", \"E\": \"3\", \"W\": \"0\",\n"
+              + "   \"puzzle\": \"Riddle\", \"items\": \"Lamp, Key\"},\n"
+              + "  {\"room_name\": \"Vault\", \"room_number\": \"2\", \"description\": \"A vault.\",\n"
+              + "   \"N\": \"0\", \"S\": \"1\", \"E\": \"0\", \"W\": \"0\"},\n"
+              + "  {\"room_name\": \"Den\", \"room_number\": \"3\", \"description\": \"A den.\",\n"
+              + "   \"N\": \"0\", \"S\": \"0\", \"E\": \"0\", \"W\": \"1\", \"monster\": \"Rat\"}\n"
+              + "], \"items\": [{\"name\": \"Lamp\", \"weight\": \"2\", \"max_uses\": \"3\",\n"
+              + "   \"uses_remaining\": \"3\", \"value\": \"5\", \"when_used\": \"It glows.\",\n"
+              + "   \"description\": \"A lamp.\"},\n"
+              + "  {\"name\": \"Key\", \"weight\": \"1\", \"max_uses\": \"1\",\n"
+              + "   \"uses_remaining\": \"1\", \"value\": \"2\", \"when_used\": \"Click.\",\n"
+              + "   \"description\": \"A key.\"}],\n"
+              + " \"puzzles\": [{\"name\": \"Riddle\", \"active\": \"true\", \"affects_target\": \"true\",\n"
+              + "   \"affects_player\": \"false\", \"solution\": \"'echo'\", \"value\": \"15\",\n"
+              + "   \"description\": \"A riddle.\", \"effects\": \"A voice asks.\", \"target\": \"1:Hall\"}],\n"
+              + " \"monsters\": [{\"name\": \"Rat\", \"active\": \"true\", \"damage\": \"-3\",\n"
+              + "   \"can_attack\": \"true\", \"solution\": \"Key\", \"value\": \"10\",\n"
+              + "   \"description\": \"A rat.\", \"attack\": \"It bites.\", \"effects\": \"Squeak.\"}]}");
+    }
+    gameFile = file.getAbsolutePath();
+    base = tempDir.resolve("session").toString();
+  }
+
+  /**
+   * Plays commands on a recording controller.
+   */
+  private GameController play(EventLog log, GameWorld world, String... commands)
+          throws IOException {
+    GameController controller = new GameController(world);
+    controller.setEventLog(log);
+    for (String command : commands) {
+      controller.processCommand(command);
+    }
+    return controller;
+  }
+
+  /**
+   * Checks that two games are in the same state by comparing their snapshots.
+   */
+  private void assertSameGame(GameWorld expected, GameWorld actual) throws IOException {
+    Path a = tempDir.resolve("expected.snap");
+    Path b = tempDir.resolve("actual.snap");
+    expected.saveSnapshot(a.toString());
+    actual.saveSnapshot(b.toString());
+    assertArrayEquals(Files.readAllBytes(a), Files.readAllBytes(b));
+  }
+
+  private long snapshotCount() throws IOException {
+    try (Stream<Path> files = Files.list(tempDir)) {
+      return files.filter(file -> file.toString().endsWith(".snap")).count();
+    }
+  }
+
+  @Test
+  @DisplayName("Only commands that can change the game are recorded")
+  void testRecordsStateChanges() throws IOException {
+    GameWorld world = new GameWorld(gameFile);
+    try (EventLog log = EventLog.create(base, gameFile, 7L, 100)) {
+      GameController controller = play(log, world, "take lamp", "i", "x key", "dance", "help");
+      controller.namePlayer("Ada");
+      play(log, world, "answer echo", "n");
+      assertEquals(4, log.getEventCount());
+      log.sync();
+      assertTrue(log.getSyncCount() >= 1);
+    }
+    try (EventLog reopened = EventLog.open(base, 100)) {
+      assertEquals(4, reopened.getEventCount());
+      assertEquals(gameFile, reopened.getGameFileName());
+      assertEquals(7L, reopened.getSeed());
+    }
+  }
+
+  @Test
+  @DisplayName("Restoring loads the newest snapshot and replays the rest")
+  void testRestoreMatchesLiveGame() throws IOException {
+    GameWorld live = new GameWorld(gameFile);
+    try (EventLog log = EventLog.create(base, gameFile, live.getSeed(), 3)) {
+      GameController controller = play(log, live, "take lamp", "take key", "e", "look");
+      controller.namePlayer("Ada");
+      play(log, live, "attack", "use key", "w", "drop lamp", "answer echo", "n");
+      assertEquals(11, log.getEventCount());
+    }
+    assertTrue(live.getPlayer().getHealth() < 100);
+    assertEquals(2, snapshotCount());
+    assertTrue(Files.exists(Path.of(base + ".9.snap")));
+
+    try (EventLog log = EventLog.open(base, 3)) {
+      GameWorld restored = log.restore(GameController::new);
+      assertSameGame(live, restored);
+      assertEquals("Ada", restored.getPlayer().getName());
+
+      GameWorld replayed = log.replay(GameController::new);
+      assertSameGame(live, replayed);
+    }
+  }
+
+  @Test
+  @DisplayName("A damaged snapshot falls back to an older one")
+  void testDamagedSnapshotSkipped() throws IOException {
+    GameWorld live = new GameWorld(gameFile);
+    try (EventLog log = EventLog.create(base, gameFile, live.getSeed(), 2)) {
+      play(log, live, "take lamp", "e", "look", "w", "answer echo");
+    }
+    Files.writeString(Path.of(base + ".4.snap"), "not a snapshot");
+    try (EventLog log = EventLog.open(base, 2)) {
+      assertSameGame(live, log.restore(GameController::new));
+    }
+  }
+
+  @Test
+  @DisplayName("A frame cut short by a crash is dropped and the log continues")
+  void testTornFrameDropped() throws IOException {
+    GameWorld live = new GameWorld(gameFile);
+    try (EventLog log = EventLog.create(base, gameFile, live.getSeed(), 100)) {
+      play(log, live, "take lamp", "e");
+    }
+    long length = Files.size(Path.of(base + ".events"));
+    try (FileOutputStream out = new FileOutputStream(base + ".events", true)) {
+      out.write(new byte[] {0, 0, 0, 9, 1, 2});
+    }
+
+    try (EventLog log = EventLog.open(base, 100)) {
+      assertEquals(2, log.getEventCount());
+      assertEquals(length, Files.size(Path.of(base + ".events")));
+      GameWorld restored = log.restore(GameController::new);
+      play(log, restored, "w", "take key");
+      play(null, live, "w", "take key");
+    }
+    try (EventLog log = EventLog.open(base, 100)) {
+      assertEquals(4, log.getEventCount());
+      assertSameGame(live, log.restore(GameController::new));
+    }
+  }
+
+  @Test
+  @DisplayName("Verbs keep their codes, and a frame longer than the file is dropped")
+  void testStableCodesAndOversizedFrame() throws IOException {
+    try (EventLog log = EventLog.create(base, gameFile, 7L, 100)) {
+      play(log, new GameWorld(gameFile), "take lamp");
+    }
+    byte[] bytes = Files.readAllBytes(Path.of(base + ".events"));
+    // The frame is the last 8 + 1 + 2 + "lamp".length() bytes; its first event code is "take"
+    assertEquals(7, bytes[bytes.length - 7]);
+
+    try (FileOutputStream out = new FileOutputStream(base + ".events", true)) {
+      out.write(new byte[] {0x7f, -1, -1, -1, 1, 2, 3, 4, 5});
+    }
+    try (EventLog log = EventLog.open(base, 100)) {
+      assertEquals(1, log.getEventCount());
+      assertEquals(bytes.length, Files.size(Path.of(base + ".events")));
+    }
+  }
+
+  @Test
+  @DisplayName("Starting a new log removes the old snapshots")
+  void testCreateReplacesLog() throws IOException {
+    try (EventLog log = EventLog.create(base, gameFile, 7L, 1)) {
+      play(log, new GameWorld(gameFile), "take lamp", "e");
+    }
+    assertEquals(2, snapshotCount());
+    try (EventLog log = EventLog.create(base, gameFile, 7L, 1)) {
+      assertEquals(0, log.getEventCount());
+    }
+    assertEquals(0, snapshotCount());
+  }
+}
@@ -0,0 +1,203 @@
+package controller;
+
+import model.WorldTemplate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for serving the game over TCP.
+ * Covers playing a session over a connection, keeping sessions apart, and ending sessions.
+ */
+@DisplayName("Game Server Tests")
+class GameServerTest {
+
+  @TempDir
+  Path tempDir;
+
+  private GameServer server;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    File file = tempDir.resolve("game.json").toFile();
+    try (FileWriter writer = new FileWriter(file)) {
+      writer.write("{\"name\": \"Server Test\", \"version\": \"1.0\", \"rooms\": [\n"
+              + "  {\"room_name\": \"Hall\", \"room_number\": \"1\", \"description\": \"A hall.\",\n"
+              + "   \"N\": \"2\", \"S\": \"0\", \"E\": \"0\", \"W\": \"0\", \"items\": \"Lamp\"},\n"
+              + "  {\"room_name\": \"Attic\", \"room_number\": \"2\", \"description\": \"An attic.\",\n"
+              + "   \"N\": \"0\", \"S\": \"1\", \"E\": \"0\", \"W\": \"0\"}\n"
+              + "], \"items\": [{\"name\": \"Lamp\", \"weight\": \"2\", \"max_uses\": \"3\",\n"
+              + "   \"uses_remaining\": \"3\", \"value\": \"5\", \"when_used\": \"It glows.\",\n"
+              + "   \"description\": \"A lamp.\"}]}");
+    }
+    server = new GameServer(WorldTemplate.load(file.getPath()), 0, 2, null);
+    server.start();
+  }
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    server.close();
+  }
+
+  private Socket connect() throws IOException {
+    Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+    socket.setSoTimeout(5000);
+    return socket;
+  }
+
+  private static void send(Socket socket, String lines) throws IOException {
+    socket.getOutputStream().write(lines.getBytes(StandardCharsets.UTF_8));
+    socket.getOutputStream().flush();
+  }
+
+  /**
+   * Reads what the server sends until the given text has arrived.
+   */
+  private static String readUntil(Socket socket, String expected) throws IOException {
+    InputStream in = socket.getInputStream();
+    ByteArrayOutputStream received = new ByteArrayOutputStream();
+    byte[] buffer = new byte[4096];
+    while (!received.toString(StandardCharsets.UTF_8).contains(expected)) {
+      int count = in.read(buffer);
+      if (count < 0) {
+        fail("Connection closed before \"" + expected + "\" in: " + received);
+      }
+      received.write(buffer, 0, count);
+    }
+    return received.toString(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Reads everything the server sends until it closes the connection.
+   */
+  private static String readToEnd(Socket socket) throws IOException {
+    return new String(socket.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  @DisplayName("A connection plays the console game")
+  void testPlaySession() throws IOException {
+    try (Socket socket = connect()) {
+      assertTrue(readUntil(socket, "Enter your name: ").contains("Welcome to Server Test!"));
+
+      send(socket, "Al\r\n");
+      String greeting = readUntil(socket, "What would you like to do? ");
+      assertTrue(greeting.contains("Welcome, Al! Your adventure begins now."));
+      assertTrue(greeting.contains("You are in the Hall"));
+
+      send(socket, "take lamp\nn\n");
+      String moved = readUntil(socket, "You are in the Attic");
+      assertTrue(moved.contains("You pick up the Lamp."));
+
+      send(socket, "save\nquit\n");
+      String end = readToEnd(socket);
+      assertTrue(end.contains("I don't understand that command."));
+      assertTrue(end.contains("Final score: 0"));
+    }
+    assertEquals(4, server.getCommandCount());
+  }
+
+  @Test
+  @DisplayName("Each connection plays its own session")
+  void testSessionsApart() throws IOException {
+    try (Socket first = connect(); Socket second = connect()) {
+      send(first, "Al\ntake lamp\n");
+      assertTrue(readUntil(first, "You pick up the Lamp.").contains("Items here: Lamp"));
+
+      send(second, "Bea\nlook\n");
+      String look = readUntil(second, "Exits: NORTH");
+      assertTrue(look.contains("Welcome, Bea!"));
+      assertTrue(look.contains("Items here: Lamp"));
+      assertEquals(2, server.getOpenSessions());
+    }
+  }
+
+  @Test
+  @DisplayName("Lines sent while earlier ones run get every reply and prompt in order")
+  void testLinesDuringDrain() throws IOException {
+    int moves = 500;
+    try (Socket socket = connect()) {
+      send(socket, "Al\n");
+      readUntil(socket, "What would you like to do? ");
+      // One line per write, so lines keep arriving while a worker runs the earlier ones
+      for (int i = 0; i < moves; i++) {
+        send(socket, i % 2 == 0 ? "n\n" : "s\n");
+      }
+      send(socket, "quit\n");
+      String[] turns = readToEnd(socket).split("What would you like to do\\? ", -1);
+      assertEquals(moves + 1, turns.length);
+      for (int i = 0; i < moves; i++) {
+        String room = i % 2 == 0 ? "Attic" : "Hall";
+        assertTrue(turns[i].contains("You are in the " + room), "turn " + i + ": " + turns[i]);
+      }
+      assertTrue(turns[moves].contains("Final score: 0"));
+    }
+    assertEquals(moves + 1, server.getCommandCount());
+  }
+
+  @Test
+  @DisplayName("A shared server puts every connection into one world")
+  void testSharedWorld() throws Exception {
+    GameServer sharedServer = new GameServer(WorldTemplate.load(tempDir.resolve("game.json").toString()),
+            0, 2, null, true);
+    sharedServer.start();
+    try (Socket al = new Socket(InetAddress.getLoopbackAddress(), sharedServer.getPort());
+         Socket bea = new Socket(InetAddress.getLoopbackAddress(), sharedServer.getPort())) {
+      al.setSoTimeout(5000);
+      bea.setSoTimeout(5000);
+      assertTrue(readUntil(al, "Enter your name: ").contains("welcome to Server Test!"));
+      send(al, "Al\n");
+      assertTrue(readUntil(al, "What would you like to do? ").contains("welcome, Al!"));
+      send(bea, "Bea\n");
+      readUntil(bea, "What would you like to do? ");
+      readUntil(al, "Bea joins the game.");
+
+      send(al, "take lamp\n");
+      assertTrue(readUntil(al, "What would you like to do? ").contains("you pick up the lamp."));
+      readUntil(bea, "Al picks up the lamp.");
+      send(bea, "take lamp\n");
+      assertTrue(readUntil(bea, "What would you like to do? ")
+              .contains("there's no lamp here to take."));
+
+      send(al, "n\n");
+      assertTrue(readUntil(al, "What would you like to do? ").contains("you move north."));
+      readUntil(bea, "Al leaves north.");
+      al.close();
+      send(bea, "n\n");
+      String attic = readUntil(bea, "What would you like to do? ");
+      assertTrue(attic.contains("you move north."), attic);
+    } finally {
+      sharedServer.close();
+    }
+    assertEquals(4, sharedServer.getCommandCount());
+  }
+
+  @Test
+  @DisplayName("Overlong lines are cut short and sessions end when the client leaves")
+  void testSessionEnds() throws Exception {
+    try (Socket socket = connect()) {
+      send(socket, "x".repeat(GameServer.MAX_LINE * 3) + "\nlook\n");
+      String welcome = readUntil(socket, "You are in the Hall");
+      assertTrue(welcome.contains("Welcome, " + "x".repeat(GameServer.MAX_LINE) + "!"));
+    }
+    for (int i = 0; i < 100 && server.getOpenSessions() > 0; i++) {
+      Thread.sleep(20);
+    }
+    assertEquals(0, server.getOpenSessions());
+    assertTrue(server.status().startsWith("Sessions: 0 open, 1 total"));
+  }
+}
@@ -0,0 +1,290 @@
+package controller;
+
+import model.Direction;
+import model.GameWorld;
+import model.Item;
+import model.Player;
+import model.Room;
+import model.WorldTemplate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for running players as messages to room actors.
+ * Covers one message per room at a time, mailboxes surviving failed messages, moves handed
+ * between rooms, and items staying whole while many players play at once.
+ */
+@DisplayName("Room Actors Tests")
+class RoomActorsTest {
+  private static final String[] ITEMS = {"Lamp", "Key", "Coin", "Rope", "Gem", "Map"};
+
+  @TempDir
+  Path tempDir;
+
+  private ExecutorService pool;
+
+  @BeforeEach
+  void setUp() {
+    pool = Executors.newFixedThreadPool(4);
+  }
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    pool.shutdownNow();
+    pool.awaitTermination(10, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Writes a game with a hall and a den to its east, each holding three light items.
+   *
+   * @return a new session of the game
+   */
+  private GameWorld newWorld() throws IOException {
+    StringBuilder items = new StringBuilder();
+    for (String item : ITEMS) {
+      items.append(items.length() == 0 ? "" : ",\n")
+              .append("  {\"name\": \"").append(item).append("\", \"weight\": \"1\",")
+              .append(" \"max_uses\": \"1\", \"uses_remaining\": \"1\", \"value\": \"1\",")
+              .append(" \"when_used\": \"Done.\", \"description\": \"A thing.\"}");
+    }
+    File gameFile = tempDir.resolve("actor_game.json").toFile();
+    try (FileWriter writer = new FileWriter(gameFile)) {
+      writer.write("{\"name\": \"Actor Test\", \"version\": \"1.0\", \"rooms\": [\n"
+              + "  {\"room_name\": \"Hall\", \"room_number\": \"1\", \"description\": \"A hall.\",\n"
+              + "   \"N\": \"0\", \"S\": \"0\", \"E\": \"3\", \"W\": \"0\",\n"
+              + "   \"items\": \"Lamp, Key, Coin\"},\n"
+              + "  {\"room_name\": \"Den\", \"room_number\": \"3\", \"description\": \"A den.\",\n"
+              + "   \"N\": \"0\", \"S\": \"0\", \"E\": \"0\", \"W\": \"1\",\n"
+              + "   \"items\": \"Rope, Gem, Map\"}\n"
+              + "], \"items\": [\n" + items + "]}");
+    }
+    return WorldTemplate.load(gameFile.getPath()).newSession();
+  }
+
+  @Test
+  @DisplayName("A room runs its messages one at a time, in the order they were sent")
+  void testOneMessageAtATime() throws Exception {
+    GameWorld world = newWorld();
+    world.addPlayer("Al");
+    RoomActors actors = new RoomActors(world, pool);
+    Room room = world.getRoom("1");
+    int[] counter = new int[1];
+    List<Integer> order = new ArrayList<>();
+    List<CompletableFuture<Void>> sent = new ArrayList<>();
+    for (int i = 0; i < 5000; i++) {
+      int id = i;
+      sent.add(actors.tell(room, () -> {
+        counter[0]++;
+        order.add(id);
+      }));
+    }
+    CompletableFuture.allOf(sent.toArray(new CompletableFuture<?>[0])).get(30, TimeUnit.SECONDS);
+
+    assertEquals(5000, counter[0]);
+    for (int i = 0; i < order.size(); i++) {
+      assertEquals(i, order.get(i));
+    }
+    assertEquals(Map.of("1", 5000L), actors.getMessageCounts());
+
+    CompletableFuture<Void> failed = actors.tell(room, () -> {
+      throw new IllegalStateException("boom");
+    });
+    assertThrows(Exception.class, () -> failed.get(5, TimeUnit.SECONDS));
+    actors.tell(room, () -> counter[0]++).get(5, TimeUnit.SECONDS);
+    assertEquals(5001, counter[0]);
+  }
+
+  @Test
+  @DisplayName("Commands run in order and moves hand the player to the next room")
+  void testCommandsAndMoves() throws Exception {
+    GameWorld world = newWorld();
+    Player player = world.addPlayer("Al");
+    StringBuilder output = new StringBuilder();
+    RoomActors actors = new RoomActors(world, pool);
+    ActorController controller = new ActorController(world, player, actors, output);
+
+    CompletableFuture<Void> last = null;
+    for (String command : List.of("take lamp", "e", "take rope", "save", "w", "drop rope")) {
+      last = actors.submit(controller, command);
+    }
+    last.get(10, TimeUnit.SECONDS);
+
+    assertEquals("you pick up the lamp.\nyou move east.\nyou pick up the rope.\n"
+            + "I don't understand that command.\nyou move west.\nyou drop the rope.\n",
+            output.toString());
+    Room hall = world.getRoom("1");
+    assertSame(hall, player.getCurrentRoom());
+    assertEquals(List.of(player), world.getPlayersIn(hall));
+    assertTrue(world.getPlayersIn(world.getRoom("3")).isEmpty());
+    assertNotNull(hall.getItem("Rope"));
+    assertEquals(Map.of("1", 4L, "3", 4L), actors.getMessageCounts());
+  }
+
+  @Test
+  @DisplayName("No item is lost or duplicated while players play at once")
+  void testItemsUnderContention() throws Exception {
+    GameWorld world = newWorld();
+    RoomActors actors = new RoomActors(world, pool);
+    List<Player> players = new ArrayList<>();
+    List<CompletableFuture<Void>> finished = new ArrayList<>();
+    SplittableRandom random = new SplittableRandom(42);
+    for (int p = 0; p < 8; p++) {
+      Player player = world.addPlayer("P" + p);
+      players.add(player);
+      ActorController controller = new ActorController(world, player, actors, new StringBuilder());
+      CompletableFuture<Void> last = null;
+      for (int i = 0; i < 2000; i++) {
+        int roll = random.nextInt(10);
+        String item = ITEMS[random.nextInt(ITEMS.length)];
+        String command = roll < 4 ? "take " + item : roll < 8 ? "drop " + item
+                : random.nextBoolean() ? "e" : "w";
+        last = actors.submit(controller, command);
+      }
+      finished.add(last);
+    }
+    CompletableFuture.allOf(finished.toArray(new CompletableFuture<?>[0])).get(60, TimeUnit.SECONDS);
+
+    Room hall = world.getRoom("1");
+    Room den = world.getRoom("3");
+    Map<Item, Boolean> seen = new IdentityHashMap<>();
+    List<Item> everywhere = new ArrayList<>(hall.getItems());
+    everywhere.addAll(den.getItems());
+    for (Player player : players) {
+      everywhere.addAll(player.getInventoryView());
+    }
+    for (Item item : everywhere) {
+      assertNull(seen.put(item, Boolean.TRUE), "duplicated " + item.getName());
+    }
+    assertEquals(ITEMS.length, everywhere.size());
+
+    List<Player> placed = new ArrayList<>(world.getPlayersIn(hall));
+    placed.addAll(world.getPlayersIn(den));
+    assertEquals(players.size(), placed.size());
+    for (Player player : players) {
+      assertTrue(world.getPlayersIn(player.getCurrentRoom()).contains(player));
+    }
+  }
+
+  @Test
+  @DisplayName("Rooms sharing an item share a mailbox, so only one player takes it")
+  void testSharedItem() throws Exception {
+    File gameFile = tempDir.resolve("shared_item.json").toFile();
+    try (FileWriter writer = new FileWriter(gameFile)) {
+      writer.write("{\"name\": \"Shared Item\", \"version\": \"1.0\", \"rooms\": [\n"
+              + "  {\"room_name\": \"Hall\", \"room_number\": \"1\", \"description\": \"A hall.\",\n"
+              + "   \"N\": \"0\", \"S\": \"0\", \"E\": \"3\", \"W\": \"0\", \"items\": \"Lamp\"},\n"
+              + "  {\"room_name\": \"Den\", \"room_number\": \"3\", \"description\": \"A den.\",\n"
+              + "   \"N\": \"0\", \"S\": \"0\", \"E\": \"0\", \"W\": \"1\", \"items\": \"Lamp\"}\n"
+              + "], \"items\": [{\"name\": \"Lamp\", \"weight\": \"1\", \"max_uses\": \"1\",\n"
+              + "   \"uses_remaining\": \"1\", \"value\": \"1\", \"when_used\": \"Done.\",\n"
+              + "   \"description\": \"A lamp.\"}]}");
+    }
+    for (int round = 0; round < 50; round++) {
+      GameWorld world = WorldTemplate.load(gameFile.getPath()).newSession();
+      List<Player> players = new ArrayList<>();
+      for (int p = 0; p < 4; p++) {
+        players.add(world.addPlayer("P" + p));
+      }
+      Room hall = world.getRoom("1");
+      Room den = world.getRoom("3");
+      assertSame(hall.getItem("Lamp"), den.getItem("Lamp"));
+      assertEquals(world.getGuardRoomNumber(hall), world.getGuardRoomNumber(den));
+      RoomActors actors = new RoomActors(world, pool);
+      List<CompletableFuture<Void>> taken = new ArrayList<>();
+      for (Player player : players) {
+        ActorController controller = new ActorController(world, player, actors, new StringBuilder());
+        if (players.indexOf(player) % 2 == 0) {
+          actors.submit(controller, "e");
+        }
+        taken.add(actors.submit(controller, "take lamp"));
+      }
+      CompletableFuture.allOf(taken.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+
+      int holders = 0;
+      for (Player player : players) {
+        holders += player.getInventoryView().size();
+      }
+      assertEquals(1, holders, "round " + round);
+      assertEquals(1, actors.getMessageCounts().size());
+    }
+  }
+
+  /**
+   * Runs the tasks queued on an executor, in order, until none are left.
+   */
+  private static void runAll(Queue<Runnable> tasks) {
+    Runnable task;
+    while ((task = tasks.poll()) != null) {
+      task.run();
+    }
+  }
+
+  @Test
+  @DisplayName("A mailbox keeps running after a message throws an Error")
+  void testErrorInMessage() throws Exception {
+    Queue<Runnable> tasks = new ArrayDeque<>();
+    GameWorld world = newWorld();
+    world.addPlayer("Al");
+    RoomActors actors = new RoomActors(world, tasks::add);
+    Room room = world.getRoom("1");
+    CompletableFuture<Void> failed = actors.tell(room, () -> {
+      throw new AssertionError("boom");
+    });
+    assertThrows(AssertionError.class, () -> runAll(tasks));
+    assertTrue(failed.isCompletedExceptionally());
+
+    int[] counter = new int[1];
+    CompletableFuture<Void> next = actors.tell(room, () -> counter[0]++);
+    runAll(tasks);
+    assertTrue(next.isDone());
+    assertEquals(1, counter[0]);
+  }
+
+  @Test
+  @DisplayName("A command that fails after moving still hands the player over first")
+  void testFailureAfterMove() throws Exception {
+    GameWorld world = newWorld();
+    Player player = world.addPlayer("Al");
+    StringBuilder output = new StringBuilder();
+    Queue<Runnable> tasks = new ArrayDeque<>();
+    RoomActors actors = new RoomActors(world, tasks::add);
+    ActorController controller = new ActorController(world, player, actors, output) {
+      @Override
+      protected void moveTo(Room nextRoom, Direction direction) {
+        super.moveTo(nextRoom, direction);
+        throw new IllegalStateException("failed after moving");
+      }
+    };
+
+    CompletableFuture<Void> move = actors.submit(controller, "e");
+    CompletableFuture<Void> take = actors.submit(controller, "take rope");
+    runAll(tasks);
+
+    assertTrue(move.isCompletedExceptionally());
+    assertTrue(take.isDone() && !take.isCompletedExceptionally());
+    assertEquals("you move east.\nyou pick up the rope.\n", output.toString());
+    assertEquals(List.of(player), world.getPlayersIn(world.getRoom("3")));
+    assertTrue(controller.takeHandoff().isDone());
+  }
+}
@@ -0,0 +1,124 @@
+package model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for the combat simulator.
+ * Covers fixed outcomes, the statistics reported, and results that do not depend on the
+ * number of threads.
+ */
+@DisplayName("Combat Simulator Tests")
+class CombatSimulatorTest {
+
+  @TempDir
+  Path tempDir;
+
+  /**
+   * Writes a game with a harmless monster, a weak one and a deadly one.
+   *
+   * @return the loaded game
+   */
+  private WorldTemplate loadGame() throws IOException {
+    File gameFile = tempDir.resolve("combat_game.json").toFile();
+    try (FileWriter writer = new FileWriter(gameFile)) {
+      writer.write("{\"name\": \"Combat Test\", \"version\": \"1.0\", \"rooms\": [\n"
+              + "  {\"room_name\": \"Hall\", \"room_number\": \"1\", \"description\": \"A hall.\",\n"
+              + "   \"N\": \"0\", \"S\": \"0\", \"E\": \"0\", \"W\": \"0\", \"monster\": \"Rat\"}\n"
+              + "], \"items\": [], \"puzzles\": [],\n"
+              + " \"monsters\": [{\"name\": \"Rat\", \"active\": \"true\", \"damage\": \"-3\",\n"
+              + "   \"can_attack\": \"true\", \"solution\": \"Key\", \"value\": \"10\",\n"
+              + "   \"description\": \"A rat.\", \"attack\": \"It bites.\", \"effects\": \"Squeak.\"},\n"
+              + "  {\"name\": \"Statue\", \"active\": \"false\", \"damage\": \"-50\",\n"
+              + "   \"can_attack\": \"false\", \"solution\": \"Key\", \"value\": \"4\",\n"
+              + "   \"description\": \"A statue.\", \"attack\": \"None.\", \"effects\": \"None.\"},\n"
+              + "  {\"name\": \"Troll\", \"active\": \"true\", \"damage\": \"-60\",\n"
+              + "   \"can_attack\": \"true\", \"solution\": \"Key\", \"value\": \"50\",\n"
+              + "   \"description\": \"A troll.\", \"attack\": \"It smashes.\", \"effects\": \"Thud.\"}]}");
+    }
+    return WorldTemplate.load(gameFile.getAbsolutePath());
+  }
+
+  private static List<CombatSimulator.Stats> run(CombatSimulator simulator, long fights,
+                                                 int threads) {
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    try {
+      return simulator.run(fights, 99, pool);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  @DisplayName("Fights without critical hits have fixed outcomes")
+  void testFixedOutcomes() throws IOException {
+    List<CombatSimulator.Stats> results = run(new CombatSimulator(loadGame(), 10, 0), 1000, 1);
+
+    assertEquals(3, results.size());
+    CombatSimulator.Stats rat = results.get(0);
+    assertEquals("Rat", rat.getMonster());
+    assertEquals(1.0, rat.getWinRate());
+    assertEquals(10.0, rat.getMeanTurnsToWin());
+    assertEquals(27, rat.getHealthLostPercentile(99));
+    assertEquals(10.0, rat.getExpectedScore());
+
+    CombatSimulator.Stats statue = results.get(1);
+    assertEquals(1000, statue.getWins());
+    assertEquals(0.0, statue.getMeanHealthLost());
+
+    CombatSimulator.Stats troll = results.get(2);
+    assertEquals(60, troll.getDamage());
+    assertEquals(1000, troll.getLosses());
+    assertEquals(100, troll.getHealthLostPercentile(50));
+    assertEquals(0.0, troll.getExpectedScore());
+  }
+
+  @Test
+  @DisplayName("Critical hits shorten fights")
+  void testCriticalHits() throws IOException {
+    WorldTemplate game = loadGame();
+    assertEquals(5.0, run(new CombatSimulator(game, 10, 100), 100, 1).get(0).getMeanTurnsToWin());
+
+    CombatSimulator.Stats rat = run(new CombatSimulator(game), 200_000, 2).get(0);
+    assertTrue(rat.getMeanTurnsToWin() > 8 && rat.getMeanTurnsToWin() < 9.5,
+            "turns: " + rat.getMeanTurnsToWin());
+    assertTrue(rat.getHealthLostPercentile(50) <= rat.getHealthLostPercentile(90));
+  }
+
+  @Test
+  @DisplayName("Results depend on the seed, not the number of threads")
+  void testThreadCountDoesNotMatter() throws IOException {
+    CombatSimulator simulator = new CombatSimulator(loadGame(), 12, 30);
+    List<CombatSimulator.Stats> one = run(simulator, 300_000, 1);
+    List<CombatSimulator.Stats> four = run(simulator, 300_000, 4);
+    for (int i = 0; i < one.size(); i++) {
+      assertEquals(one.get(i).getWins(), four.get(i).getWins());
+      assertEquals(one.get(i).getMeanTurnsToWin(), four.get(i).getMeanTurnsToWin());
+      assertEquals(one.get(i).getMeanHealthLost(), four.get(i).getMeanHealthLost());
+    }
+  }
+
+  @Test
+  @DisplayName("The report lists every monster and the run's totals")
+  void testReport() throws IOException {
+    List<CombatSimulator.Stats> results = run(new CombatSimulator(loadGame()), 1000, 1);
+    String report = CombatSimulator.report(results, 1_000_000_000L, 1, 99);
+
+    assertTrue(report.contains("Rat"));
+    assertTrue(report.contains("Troll"));
+    assertTrue(report.contains("Fights: 3000 in 1.00 s (3000 fights/s) on 1 threads"));
+    assertTrue(report.contains("Seed: 99"));
+    assertThrows(IllegalArgumentException.class,
+        () -> new CombatSimulator(loadGame(), 10, 101));
+  }
+}
@@ -0,0 +1,125 @@
+package model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for per-session random streams.
+ * Covers seeding, resuming a stream, critical hits, and keeping the stream across a save.
+ */
+@DisplayName("Game Random Tests")
+class GameRandomTest {
+
+  @TempDir
+  Path tempDir;
+
+  private static boolean[] rolls(GameRandom random, int count) {
+    boolean[] rolls = new boolean[count];
+    for (int i = 0; i < count; i++) {
+      rolls[i] = random.chance(50);
+    }
+    return rolls;
+  }
+
+  @Test
+  @DisplayName("The same seed gives the same rolls")
+  void testSameSeedSameRolls() {
+    assertArrayEquals(rolls(new GameRandom(42), 200), rolls(new GameRandom(42), 200));
+    assertEquals(new GameRandom(7).nextSeed(), new GameRandom(7).nextSeed());
+    assertEquals(42, new GameRandom(42).getSeed());
+  }
+
+  @Test
+  @DisplayName("A restored stream continues where it left off")
+  void testRestoreContinuesStream() {
+    GameRandom random = new GameRandom(99);
+    rolls(random, 37);
+    random.nextSeed();
+    assertEquals(38, random.getDraws());
+
+    GameRandom restored = GameRandom.restore(99, random.getDraws());
+    assertArrayEquals(rolls(random, 100), rolls(restored, 100));
+  }
+
+  @Test
+  @DisplayName("The stream is SplittableRandom's, and restoring far along it is immediate")
+  void testRestoreJumpsAhead() {
+    SplittableRandom reference = new SplittableRandom(314);
+    GameRandom random = new GameRandom(314);
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(reference.nextLong(), random.nextSeed());
+    }
+
+    long draws = 1L << 40;
+    GameRandom restored = GameRandom.restore(314, draws);
+    assertEquals(draws, restored.getDraws());
+    GameRandom near = GameRandom.restore(314, draws - 1);
+    near.nextSeed();
+    assertEquals(near.nextSeed(), restored.nextSeed());
+  }
+
+  @Test
+  @DisplayName("Chances are percentages")
+  void testChanceIsPercent() {
+    GameRandom random = new GameRandom(5);
+    int hits = 0;
+    for (int i = 0; i < 10_000; i++) {
+      assertFalse(random.chance(0));
+      assertTrue(random.chance(100));
+      if (random.chance(15)) {
+        hits++;
+      }
+    }
+    assertTrue(hits > 1200 && hits < 1800, "hits: " + hits);
+  }
+
+  @Test
+  @DisplayName("Only some attacks are critical hits")
+  void testSomeAttacksCritical() {
+    Room room = new Room("Hall", "1", "A hall.", new HashMap<>(), "", "", "", "", "");
+    Player player = new Player(room);
+    player.setRandom(new GameRandom(11));
+    int critical = 0;
+    for (int i = 0; i < 1000; i++) {
+      Monster monster = new Monster("Rat", "A rat.", true, -3, true, "It bites.", "Squeak.",
+              10, "Lamp", "1:Hall");
+      if (player.attack(monster) > 10) {
+        critical++;
+      }
+    }
+    assertTrue(critical > 100 && critical < 200, "critical hits: " + critical);
+  }
+
+  @Test
+  @DisplayName("A snapshot keeps the session's place in its stream")
+  void testSnapshotKeepsStream() throws IOException {
+    File gameFile = tempDir.resolve("random_game.json").toFile();
+    try (FileWriter writer = new FileWriter(gameFile)) {
+      writer.write("{\"name\": \"Random Test\", \"version\": \"1.0\", \"rooms\": [\n"
+              + "  {\"room_name\": \"Hall\", \"room_number\": \"1\", \"description\": \"A hall.\",\n"
+              + "   \"N\": \"0\", \"S\": \"0\", \"E\": \"0\", \"W\": \"0\"}\n"
+              + "], \"items\": [], \"puzzles\": [], \"monsters\": []}");
+    }
+    GameWorld world = new GameWorld(gameFile.getAbsolutePath());
+    world.setSeed(1234);
+    rolls(world.getPlayer().getRandom(), 25);
+
+    String snapshot = tempDir.resolve("random.snap").toString();
+    world.saveSnapshot(snapshot);
+    GameWorld loaded = GameWorld.loadSnapshot(snapshot);
+
+    assertEquals(1234, loaded.getSeed());
+    assertArrayEquals(rolls(world.getPlayer().getRandom(), 50),
+            rolls(loaded.getPlayer().getRandom(), 50));
+  }
+}
@@ -160,6 +160,50 @@ class PlayerTest {
     assertThrows(IllegalArgumentException.class, () -> player.getItemFromInventory("  "));
   }
 
+  @Test
+  void testInventoryIndexAndWeight() {
+    Player player = new Player(testRoom);
+    Item firstKey = new Item("Key", 1, 1, 1, 0, "Click.", "A key");
+    Item secondKey = new Item("KEY", 3, 1, 1, 0, "Clack.", "Another key");
+    assertTrue(player.addToInventory(firstKey));
+    assertTrue(player.addToInventory(secondKey));
+    assertTrue(player.addToInventory(testItem));
+
+    // Lookup ignores case and returns the first item with the name
+    assertSame(firstKey, player.getItemFromInventory("key"));
+    assertSame(testItem, player.getItemFromInventory("TEST ITEM"));
+    assertEquals(6, player.getInventoryWeight());
+
+    // Removing the first item exposes the next one with the same name
+    assertTrue(player.removeFromInventory(firstKey));
+    assertSame(secondKey, player.getItemFromInventory("Key"));
+    assertEquals(5, player.getInventoryWeight());
+    assertTrue(player.removeFromInventory(secondKey));
+    assertNull(player.getItemFromInventory("Key"));
+    assertEquals(2, player.getInventoryWeight());
+
+    // Replacing the inventory rebuilds the index and weight
+    player.setInventory(List.of(firstKey));
+    assertSame(firstKey, player.getItemFromInventory("KEY"));
+    assertNull(player.getItemFromInventory("Test Item"));
+    assertEquals(1, player.getInventoryWeight());
+  }
+
+  @Test
+  void testInventoryView() {
+    Player player = new Player(testRoom);
+    List<Item> view = player.getInventoryView();
+    assertTrue(view.isEmpty());
+
+    player.addToInventory(testItem);
+    assertEquals(List.of(testItem), view);
+    assertThrows(UnsupportedOperationException.class, () -> view.add(testItem));
+
+    // Setting the inventory from its own view keeps the items
+    player.setInventory(view);
+    assertEquals(List.of(testItem), player.getInventory());
+  }
+
   @Test
   void testSetInventory() {
     Player player = new Player(testRoom);
@@ -214,6 +258,18 @@ class PlayerTest {
     assertThrows(IllegalArgumentException.class, () -> player.move(null));
   }
 
+  @Test
+  void testMoveTellsRoomListener() {
+    Player player = new Player(testRoom);
+    List<String> moves = new ArrayList<>();
+    player.setRoomListener((from, to) -> moves.add(from.getRoomNumber() + ">" + to.getRoomNumber()));
+
+    assertTrue(player.move(Direction.NORTH));
+    assertFalse(player.move(Direction.EAST));
+    player.setCurrentRoom(testRoom);
+    assertEquals(List.of("R1>R2", "R2>R1"), moves);
+  }
+
   @Test
   void testScoreManagement() {
     Player player = new Player(testRoom);
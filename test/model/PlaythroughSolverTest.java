@@ -0,0 +1,153 @@
+package model;
+
+import controller.BatchController;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for the playthrough solver.
+ * Covers finding the best route, replaying it in batch mode, making room by dropping items,
+ * and searches that stop early.
+ */
+@DisplayName("Playthrough Solver Tests")
+class PlaythroughSolverTest {
+
+  @TempDir
+  Path tempDir;
+
+  /**
+   * Writes a game file.
+   *
+   * @param rooms    the room objects
+   * @param items    the item objects
+   * @param puzzles  the puzzle objects
+   * @param monsters the monster objects
+   * @return the loaded game
+   */
+  private WorldTemplate loadGame(String rooms, String items, String puzzles, String monsters)
+          throws IOException {
+    File gameFile = tempDir.resolve("solver_game.json").toFile();
+    try (FileWriter writer = new FileWriter(gameFile)) {
+      writer.write("{\"name\": \"Solver Test\", \"version\": \"1.0\", \"rooms\": [" + rooms
+              + "], \"items\": [" + items + "], \"puzzles\": [" + puzzles
+              + "], \"monsters\": [" + monsters + "]}");
+    }
+    return WorldTemplate.load(gameFile.getAbsolutePath());
+  }
+
+  private static String room(String number, String name, String n, String s, String e,
+                             String w, String extra) {
+    return "{\"room_name\": \"" + name + "\", \"room_number\": \"" + number
+            + "\", \"description\": \"A room.\", \"N\": \"" + n + "\", \"S\": \"" + s
+            + "\", \"E\": \"" + e + "\", \"W\": \"" + w + "\"" + extra + "}";
+  }
+
+  private static String item(String name, int weight) {
+    return "{\"name\": \"" + name + "\", \"weight\": \"" + weight + "\", \"max_uses\": \"1\","
+            + " \"uses_remaining\": \"1\", \"value\": \"1\", \"when_used\": \"Done.\","
+            + " \"description\": \"A thing.\"}";
+  }
+
+  private static String puzzle(String name, String solution, int value, String target) {
+    return "{\"name\": \"" + name + "\", \"active\": \"true\", \"affects_target\": \"true\","
+            + " \"affects_player\": \"false\", \"solution\": \"" + solution + "\", \"value\": \""
+            + value + "\", \"description\": \"A puzzle.\", \"effects\": \"Something stirs.\","
+            + " \"target\": \"" + target + "\"}";
+  }
+
+  private static String monster(String name, String solution, int value) {
+    return "{\"name\": \"" + name + "\", \"active\": \"true\", \"damage\": \"-3\","
+            + " \"can_attack\": \"true\", \"solution\": \"" + solution + "\", \"value\": \""
+            + value + "\", \"description\": \"A monster.\", \"attack\": \"It bites.\","
+            + " \"effects\": \"Growl.\"}";
+  }
+
+  /**
+   * A hall whose north exit opens with an answer, a den with a rat that wants the key, and
+   * a vault behind the hall holding a statue that wants the lamp.
+   */
+  private WorldTemplate threeRooms() throws IOException {
+    return loadGame(
+            room("1", "Hall", "-2", "0", "3", "0", ", \"puzzle\": \"Riddle\", \"items\": \"Key, Rock\"")
+                    + "," + room("2", "Vault", "0", "1", "0", "0", ", \"monster\": \"Statue\"")
+                    + "," + room("3", "Den", "0", "0", "0", "1", ", \"monster\": \"Rat\", \"items\": \"Lamp\""),
+            item("Key", 1) + "," + item("Rock", 5) + "," + item("Lamp", 2),
+            puzzle("Riddle", "'echo'", 15, "1:Hall"),
+            monster("Rat", "Key", 10) + "," + monster("Statue", "Lamp", 20));
+  }
+
+  private static PlaythroughSolver.Route solve(WorldTemplate game, int threads, int maxStates) {
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    try {
+      return new PlaythroughSolver(game).solve(pool, maxStates);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  @DisplayName("The best route scores everything and replays in batch mode")
+  void testBestRouteReplays() throws IOException {
+    WorldTemplate game = threeRooms();
+    PlaythroughSolver.Route route = solve(game, 1, 1000);
+
+    assertTrue(route.isComplete());
+    assertEquals(45, route.getMaxScore());
+    assertEquals(45, route.getScore());
+    assertEquals(List.of("answer echo", "take Key", "east", "use Key", "take Lamp", "west",
+            "north", "use Lamp"), route.getCommands());
+    assertFalse(route.getCommands().contains("take Rock"));
+
+    String script = tempDir.resolve("route.txt").toString();
+    String transcript = tempDir.resolve("route.out").toString();
+    Files.writeString(Path.of(script), route.toScript("Solver"));
+    new BatchController(game.newSession(), script, transcript, null).run();
+    List<String> lines = Files.readAllLines(Path.of(transcript));
+    assertEquals("Exiting game with score: 45", lines.get(lines.size() - 1));
+  }
+
+  @Test
+  @DisplayName("The route is the same on any number of threads")
+  void testThreadCountDoesNotMatter() throws IOException {
+    WorldTemplate game = threeRooms();
+    assertEquals(solve(game, 1, 1000).getCommands(), solve(game, 4, 1000).getCommands());
+  }
+
+  @Test
+  @DisplayName("A carried item is dropped to make room for a heavier one")
+  void testDropsToMakeRoom() throws IOException {
+    WorldTemplate game = loadGame(
+            room("1", "Yard", "0", "0", "2", "0", ", \"items\": \"Anvil, Bell\"")
+                    + "," + room("2", "Forge", "0", "0", "3", "1", ", \"monster\": \"Smith\"")
+                    + "," + room("3", "Tower", "0", "0", "0", "2", ", \"monster\": \"Ringer\""),
+            item("Anvil", 10) + "," + item("Bell", 10),
+            "",
+            monster("Smith", "Anvil", 5) + "," + monster("Ringer", "Bell", 7));
+    PlaythroughSolver.Route route = solve(game, 2, 10_000);
+
+    assertEquals(12, route.getScore());
+    assertTrue(route.getCommands().stream().anyMatch(command -> command.startsWith("drop ")));
+  }
+
+  @Test
+  @DisplayName("A search that runs out of states returns the best route so far")
+  void testStateLimit() throws IOException {
+    PlaythroughSolver.Route route = solve(threeRooms(), 1, 5);
+
+    assertFalse(route.isComplete());
+    assertTrue(route.getStates() <= 5);
+    assertTrue(route.getScore() < 45);
+    assertThrows(IllegalArgumentException.class, () -> solve(threeRooms(), 1, 0));
+  }
+}
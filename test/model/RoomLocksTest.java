@@ -0,0 +1,256 @@
+package model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for players sharing one world under striped room locks.
+ * Covers lock striping, and items, puzzles and monsters changing hands exactly once while
+ * many players play at the same time, also when several rooms hold the same one.
+ */
+@DisplayName("Room Locks Tests")
+class RoomLocksTest {
+  private static final String[] ITEMS = {"Lamp", "Key", "Coin", "Rope", "Gem", "Map"};
+  private static final int PLAYERS = 8;
+
+  @TempDir
+  Path tempDir;
+
+  /**
+   * Writes a game with a puzzle-blocked vault north of the hall and a rat in the den to the
+   * east. The hall and den each hold three light items.
+   *
+   * @return a new session of the game
+   */
+  private GameWorld newWorld() throws IOException {
+    StringBuilder items = new StringBuilder();
+    for (String item : ITEMS) {
+      items.append(items.length() == 0 ? "" : ",\n")
+              .append("  {\"name\": \"").append(item).append("\", \"weight\": \"1\",")
+              .append(" \"max_uses\": \"1\", \"uses_remaining\": \"1\", \"value\": \"1\",")
+              .append(" \"when_used\": \"Done.\", \"description\": \"A thing.\"}");
+    }
+    File gameFile = tempDir.resolve("shared_game.json").toFile();
+    try (FileWriter writer = new FileWriter(gameFile)) {
+      writer.write("{\"name\": \"Shared Test\", \"version\": \"1.0\", \"rooms\": [\n"
+              + "  {\"room_name\": \"Hall\", \"room_number\": \"1\", \"description\": \"A hall.\",\n"
+              + "   \"N\": \"-2\", \"S\": \"0\", \"E\": \"3\", \"W\": \"0\",\n"
+              + "   \"puzzle\": \"Riddle\", \"items\": \"Lamp, Key, Coin\"},\n"
+              + "  {\"room_name\": \"Vault\", \"room_number\": \"2\", \"description\": \"A vault.\",\n"
+              + "   \"N\": \"0\", \"S\": \"1\", \"E\": \"0\", \"W\": \"0\"},\n"
+              + "  {\"room_name\": \"Den\", \"room_number\": \"3\", \"description\": \"A den.\",\n"
+              + "   \"N\": \"0\", \"S\": \"0\", \"E\": \"0\", \"W\": \"1\", \"monster\": \"Rat\",\n"
+              + "   \"items\": \"Rope, Gem, Map\"}\n"
+              + "], \"items\": [\n" + items + "],\n"
+              + " \"puzzles\": [{\"name\": \"Riddle\", \"active\": \"true\", \"affects_target\": \"true\",\n"
+              + "   \"affects_player\": \"false\", \"solution\": \"'echo'\", \"value\": \"15\",\n"
+              + "   \"description\": \"A riddle.\", \"effects\": \"A voice asks.\", \"target\": \"1:Hall\"}],\n"
+              + " \"monsters\": [{\"name\": \"Rat\", \"active\": \"true\", \"damage\": \"-3\",\n"
+              + "   \"can_attack\": \"true\", \"solution\": \"Lamp\", \"value\": \"10\",\n"
+              + "   \"description\": \"A rat.\", \"attack\": \"It bites.\", \"effects\": \"Squeak.\"}]}");
+    }
+    return WorldTemplate.load(gameFile.getPath()).newSession();
+  }
+
+  /**
+   * Runs one task per player, all released at once, and waits for them.
+   */
+  private static <T> List<T> runTogether(List<Player> players, PlayerTask<T> task) throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(players.size());
+    CountDownLatch start = new CountDownLatch(1);
+    try {
+      List<Future<T>> futures = new ArrayList<>();
+      for (int i = 0; i < players.size(); i++) {
+        int id = i;
+        futures.add(pool.submit(() -> {
+          start.await();
+          return task.run(id, players.get(id));
+        }));
+      }
+      start.countDown();
+      List<T> results = new ArrayList<>();
+      for (Future<T> future : futures) {
+        results.add(future.get(60, TimeUnit.SECONDS));
+      }
+      return results;
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  private interface PlayerTask<T> {
+    T run(int id, Player player) throws Exception;
+  }
+
+  private static List<Player> join(GameWorld world, int count) {
+    List<Player> players = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      players.add(world.addPlayer("P" + i));
+    }
+    return players;
+  }
+
+  @Test
+  @DisplayName("Rooms map onto a power-of-two number of stripes")
+  void testStripes() {
+    RoomLocks locks = new RoomLocks(5);
+    for (int number = 1; number <= 100; number++) {
+      Room room = new Room("Room", Integer.toString(number), "A room.", Map.of());
+      int stripe = locks.stripe(room);
+      assertTrue(stripe >= 0 && stripe < 8, "stripe " + stripe);
+      assertEquals(stripe, locks.stripe(new Room("Other", Integer.toString(number), "", Map.of())));
+    }
+    Room hall = new Room("Hall", "1", "A hall.", Map.of());
+    Room den = new Room("Den", "3", "A den.", Map.of());
+    assertEquals("both", locks.withRooms(den, hall, () -> locks.withRooms(hall, den, () -> "both")));
+    assertThrows(IllegalArgumentException.class, () -> new RoomLocks(0));
+  }
+
+  @Test
+  @DisplayName("No item is lost or duplicated while players take, drop and move at once")
+  void testItemsUnderContention() throws Exception {
+    GameWorld world = newWorld();
+    List<Player> players = join(world, PLAYERS);
+    Room hall = world.getRoom("1");
+    Room den = world.getRoom("3");
+    den.getMonster().defeat();
+    den.unblockExits();
+
+    List<Integer> taken = runTogether(players, (id, player) -> {
+      SplittableRandom random = new SplittableRandom(id);
+      int count = 0;
+      for (int i = 0; i < 20_000; i++) {
+        int roll = random.nextInt(10);
+        if (roll < 4) {
+          if (world.takeItem(player, ITEMS[random.nextInt(ITEMS.length)]) != null) {
+            count++;
+          }
+        } else if (roll < 8) {
+          List<Item> carried = player.getInventoryView();
+          if (!carried.isEmpty()) {
+            world.dropItem(player, carried.get(random.nextInt(carried.size())).getName());
+          }
+        } else {
+          world.move(player, player.getCurrentRoom() == hall ? Direction.EAST : Direction.WEST);
+        }
+      }
+      return count;
+    });
+    assertTrue(taken.stream().mapToInt(Integer::intValue).sum() > 0);
+
+    Map<Item, Boolean> seen = new IdentityHashMap<>();
+    List<Item> everywhere = new ArrayList<>(hall.getItems());
+    everywhere.addAll(den.getItems());
+    for (Player player : players) {
+      everywhere.addAll(player.getInventoryView());
+    }
+    for (Item item : everywhere) {
+      assertNull(seen.put(item, Boolean.TRUE), "duplicated " + item.getName());
+    }
+    assertEquals(ITEMS.length, everywhere.size());
+
+    List<Player> placed = new ArrayList<>(world.getPlayersIn(hall));
+    placed.addAll(world.getPlayersIn(den));
+    assertEquals(PLAYERS, placed.size());
+    for (Player player : placed) {
+      assertTrue(world.getPlayersIn(player.getCurrentRoom()).contains(player));
+    }
+  }
+
+  @Test
+  @DisplayName("A puzzle is solved and a monster defeated by exactly one player")
+  void testSolvedOnce() throws Exception {
+    GameWorld world = newWorld();
+    List<Player> players = join(world, PLAYERS);
+
+    List<Boolean> solved = runTogether(players, (id, player) -> world.applySolution(player, "echo"));
+    assertEquals(1, Collections.frequency(solved, true));
+    assertTrue(world.move(players.get(0), Direction.NORTH));
+
+    for (Player player : players) {
+      assertTrue(world.move(player, Direction.EAST) || player.getCurrentRoom().getRoomNumber().equals("2"));
+    }
+    runTogether(players, (id, player) -> {
+      while (world.attack(player) > 0) {
+        Thread.yield();
+      }
+      return null;
+    });
+    Monster rat = world.getRoom("3").getMonster();
+    assertFalse(rat.isActive());
+    int total = 0;
+    for (Player player : players) {
+      total += player.getScore();
+    }
+    assertEquals(15 + 10, total);
+    assertTrue(world.getBlockedExits().isEmpty());
+    assertEquals(List.copyOf(players), world.getPlayers());
+  }
+
+  @Test
+  @DisplayName("Rooms holding the same monster share a lock, so it is defeated once")
+  void testSharedMonster() throws Exception {
+    File gameFile = tempDir.resolve("shared_monster.json").toFile();
+    try (FileWriter writer = new FileWriter(gameFile)) {
+      writer.write("{\"name\": \"Shared Monster\", \"version\": \"1.0\", \"rooms\": [\n"
+              + "  {\"room_name\": \"Hall\", \"room_number\": \"1\", \"description\": \"A hall.\",\n"
+              + "   \"N\": \"0\", \"S\": \"0\", \"E\": \"3\", \"W\": \"0\", \"monster\": \"Rat\"},\n"
+              + "  {\"room_name\": \"Den\", \"room_number\": \"3\", \"description\": \"A den.\",\n"
+              + "   \"N\": \"0\", \"S\": \"0\", \"E\": \"0\", \"W\": \"1\", \"monster\": \"Rat\"},\n"
+              + "  {\"room_name\": \"Yard\", \"room_number\": \"4\", \"description\": \"A yard.\",\n"
+              + "   \"N\": \"0\", \"S\": \"0\", \"E\": \"0\", \"W\": \"0\"}\n"
+              + "], \"items\": [], \"puzzles\": [],\n"
+              + " \"monsters\": [{\"name\": \"Rat\", \"active\": \"true\", \"damage\": \"-3\",\n"
+              + "   \"can_attack\": \"true\", \"solution\": \"Lamp\", \"value\": \"10\",\n"
+              + "   \"description\": \"A rat.\", \"attack\": \"It bites.\", \"effects\": \"Squeak.\"}]}");
+    }
+    GameWorld world = WorldTemplate.load(gameFile.getPath()).newSession();
+    List<Player> players = join(world, PLAYERS);
+    Room hall = world.getRoom("1");
+    Room den = world.getRoom("3");
+    assertSame(hall.getMonster(), den.getMonster());
+    assertEquals(world.sharedLocks().stripe(hall), world.sharedLocks().stripe(den));
+    for (int i = 0; i < PLAYERS; i += 2) {
+      assertTrue(world.move(players.get(i), Direction.EAST));
+    }
+
+    RoomLocks locks = new RoomLocks(1 << 16);
+    Room yard = world.getRoom("4");
+    locks.guardTogether(hall, den);
+    assertEquals(locks.stripe(hall), locks.stripe(den));
+    locks.guardTogether(den, yard);
+    assertEquals(locks.stripe(hall), locks.stripe(yard));
+
+    runTogether(players, (id, player) -> {
+      while (world.attack(player) > 0) {
+        Thread.yield();
+      }
+      return null;
+    });
+    assertFalse(hall.getMonster().isActive());
+    int total = 0;
+    for (Player player : players) {
+      total += player.getScore();
+    }
+    assertEquals(10, total);
+  }
+}
@@ -0,0 +1,125 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for rendering rooms through a cache.
+ * Covers reusing text while a room is unchanged, rendering again after each kind of change,
+ * the cache's bounded size, and the item and exit name helpers.
+ */
+@DisplayName("Room Render Cache Tests")
+class RoomRenderCacheTest {
+  private Room room;
+  private int renders;
+  private RoomRenderCache cache;
+
+  @BeforeEach
+  void setUp() {
+    Map<Direction, String> exits = new HashMap<>();
+    exits.put(Direction.NORTH, "2");
+    exits.put(Direction.WEST, "-3");
+    room = new Room("Hall", "1", "A hall.", exits, null, null, null, null, null);
+    renders = 0;
+    cache = new RoomRenderCache(r -> {
+      renders++;
+      return RoomRenderCache.itemNames(r, ", ") + "|" + RoomRenderCache.exitNames(r);
+    });
+  }
+
+  private static Item item(String name) {
+    return new Item(name, 1, 1, 1, 1, "Used.", "A thing.");
+  }
+
+  @Test
+  @DisplayName("An unchanged room is rendered once")
+  void testReusedWhileUnchanged() {
+    room.addItem(item("Key"));
+    String first = cache.get(room);
+    assertEquals("Key|NORTH WEST", first);
+    assertSame(first, cache.get(room));
+    assertSame(first, cache.get(room));
+    assertEquals(1, renders);
+
+    Room other = new Room("Hall", "1", "A hall.", new HashMap<>(), null, null, null, null, null);
+    assertEquals("|", cache.get(other));
+    assertEquals(2, renders);
+  }
+
+  @Test
+  @DisplayName("Items and exits changing render the room again")
+  void testItemsAndExits() {
+    cache.get(room);
+    Item lamp = item("Lamp");
+    room.addItem(lamp);
+    assertEquals("Lamp|NORTH WEST", cache.get(room));
+    room.removeItem(lamp);
+    assertEquals("|NORTH WEST", cache.get(room));
+    room.setExitNumber(Direction.EAST, 4);
+    assertEquals("|NORTH EAST WEST", cache.get(room));
+    assertEquals(4, renders);
+
+    long version = room.getVersion();
+    assertTrue(room.unblockExits());
+    assertTrue(room.getVersion() > version);
+  }
+
+  @Test
+  @DisplayName("Solving the puzzle or defeating the monster renders the room again")
+  void testPuzzleAndMonster() {
+    Puzzle riddle = new Puzzle("Riddle", true, true, false, "'echo'", 10, "A riddle.",
+            "A voice asks.", "1:Hall");
+    Monster rat = new Monster("Rat", "A rat.", true, -3, true, "It bites.", "Squeak.", 10,
+            "Key", "1:Hall");
+    room.setPuzzle(riddle);
+    room.setMonster(rat);
+    RoomRenderCache effects = new RoomRenderCache(r -> r.getPuzzle().isActive()
+            ? r.getPuzzle().getEffects() : r.getMonster().isActive()
+            ? r.getMonster().getEffects() : r.getDescription());
+
+    assertEquals("A voice asks.", effects.get(room));
+    assertTrue(riddle.solve("echo"));
+    assertEquals("Squeak.", effects.get(room));
+    rat.defeat();
+    assertEquals("A hall.", effects.get(room));
+  }
+
+  @Test
+  @DisplayName("Replacing the puzzle always moves the version on")
+  void testReplacingPuzzle() {
+    Puzzle busy = new Puzzle("Busy", true, true, false, "'a'", 1, "Busy.", "Busy.", "1:Hall");
+    for (int i = 0; i < 5; i++) {
+      busy.setActive(i % 2 == 0);
+    }
+    room.setPuzzle(busy);
+    long seen = room.getVersion();
+
+    room.setPuzzle(new Puzzle("Fresh", true, true, false, "'b'", 1, "Fresh.", "Fresh.",
+            "1:Hall"));
+    assertTrue(room.getVersion() > seen);
+    seen = room.getVersion();
+    room.setPuzzle(null);
+    assertTrue(room.getVersion() > seen);
+  }
+
+  @Test
+  @DisplayName("Visiting many rooms keeps the cache bounded")
+  void testBounded() {
+    for (int i = 0; i < 10 * RoomRenderCache.SLOTS; i++) {
+      Room visited = new Room("Room", Integer.toString(i), "A room.", new HashMap<>(),
+              null, null, null, null, null);
+      assertEquals("|", cache.get(visited));
+    }
+    assertTrue(cache.size() <= RoomRenderCache.SLOTS);
+    assertEquals(10 * RoomRenderCache.SLOTS, renders);
+
+    String text = cache.get(room);
+    assertSame(text, cache.get(room));
+  }
+}
@@ -187,6 +187,49 @@ class RoomTest {
     assertEquals(room2, room1.getExit(Direction.EAST));
   }
 
+  /**
+   * Tests that blocked exits keep their link but stay closed until unblocked.
+   */
+  @Test
+  @DisplayName("Test blocked exits open after unblockExits")
+  void testBlockedExitUnblock() {
+    Room room1 = createRoom("One", "1", "Room One", "-2", "0", "x", "3", "", "", "", "", "");
+    Room room2 = createRoom("Two", "2", "Room Two", "0", "1", "0", "0", "", "", "", "", "");
+    room1.setExit(Direction.NORTH, room2);
+
+    assertTrue(room1.hasExit(Direction.NORTH));
+    assertTrue(room1.isExitBlocked(Direction.NORTH));
+    assertEquals(-2, room1.getExitNumber(Direction.NORTH));
+    assertNull(room1.getExit(Direction.NORTH));
+    assertFalse(room1.hasExit(Direction.EAST));
+    assertEquals(3, room1.getWest());
+
+    assertTrue(room1.unblockExits());
+    assertFalse(room1.isExitBlocked(Direction.NORTH));
+    assertEquals("2", room1.getExitRoomNumber(Direction.NORTH));
+    assertEquals(room2, room1.getExit(Direction.NORTH));
+    assertFalse(room1.unblockExits());
+  }
+
+  /**
+   * Tests that changing an exit's target room unlinks the old neighbor.
+   */
+  @Test
+  @DisplayName("Test changing an exit number unlinks the old room")
+  void testSetExitNumberUnlinks() {
+    Room room1 = createRoom("One", "1", "Room One", "2", "0", "0", "0", "", "", "", "", "");
+    Room room2 = createRoom("Two", "2", "Room Two", "0", "0", "0", "0", "", "", "", "", "");
+    room1.setExit(Direction.NORTH, room2);
+
+    room1.setExitNumber(Direction.NORTH, -2);
+    assertNull(room1.getExit(Direction.NORTH));
+    room1.setExitNumber(Direction.NORTH, 2);
+    assertEquals(room2, room1.getExit(Direction.NORTH));
+
+    room1.setExitRoomNumber(Direction.NORTH, "5");
+    assertNull(room1.getExit(Direction.NORTH));
+  }
+
   /**
    * Tests toString() returns a non-null string.
    */
@@ -0,0 +1,250 @@
+package model;
+
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for incremental saves.
+ * Covers what is appended to the journal, loading a journal back, when a full save is
+ * written instead, and a failed or interrupted full save leaving the old files usable.
+ */
+@DisplayName("Save Journal Tests")
+class SaveJournalTest {
+
+  @TempDir
+  Path tempDir;
+
+  private String gameFile;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    File file = tempDir.resolve("journal_game.json").toFile();
+    try (FileWriter writer = new FileWriter(file)) {
+      writer.write("{\"name\": \"Journal Test\", \"version\": \"1.0\", \"rooms\": [\n"
+              + "  {\"room_name\": \"Hall\", \"room_number\": \"1\", \"description\": \"A hall.\",\n"
+              + "   \"N\": \"-2\", \"S\": \"0\", \"E\": \"3\", \"W\": \"0\",\n"
+              + "   \"puzzle\": \"Riddle\", \"items\": \"Lamp\"},\n"
+              + "  {\"room_name\": \"Vault\", \"room_number\": \"2\", \"description\": \"A vault.\",\n"
+              + "   \"N\": \"0\", \"S\": \"1\", \"E\": \"0\", \"W\": \"0\"},\n"
+              + "  {\"room_name\": \"Den\", \"room_number\": \"3\", \"description\": \"A den.\",\n"
+              + "   \"N\": \"0\", \"S\": \"0\", \"E\": \"0\", \"W\": \"1\", \"monster\": \"Rat\"}\n"
+              + "], \"items\": [{\"name\": \"Lamp\", \"weight\": \"2\", \"max_uses\": \"3\",\n"
+              + "   \"uses_remaining\": \"3\", \"value\": \"5\", \"when_used\": \"It glows.\",\n"
+              + "   \"description\": \"A lamp.\"}],\n"
+              + " \"puzzles\": [{\"name\": \"Riddle\", \"active\": \"true\", \"affects_target\": \"true\",\n"
+              + "   \"affects_player\": \"false\", \"solution\": \"'echo'\", \"value\": \"15\",\n"
+              + "   \"description\": \"A riddle.\", \"effects\": \"A voice asks.\", \"target\": \"1:Hall\"}],\n"
+              + " \"monsters\": [{\"name\": \"Rat\", \"active\": \"true\", \"damage\": \"-3\",\n"
+              + "   \"can_attack\": \"true\", \"solution\": \"Lamp\", \"value\": \"10\",\n"
+              + "   \"description\": \"A rat.\", \"attack\": \"It bites.\", \"effects\": \"Squeak.\"}]}");
+    }
+    gameFile = file.getAbsolutePath();
+  }
+
+  private String path(String name) {
+    return tempDir.resolve(name).toString();
+  }
+
+  private List<String> journal(String saveFile) throws IOException {
+    return Files.readAllLines(SaveJournal.journalFor(saveFile).toPath());
+  }
+
+  private JSONObject read(String file) throws Exception {
+    try (FileReader reader = new FileReader(file)) {
+      return (JSONObject) new JSONParser().parse(reader);
+    }
+  }
+
+  /**
+   * Loads a save into a fresh world and writes that world's full state to a new file.
+   * The new file's generation is left out, as it differs on every full save.
+   */
+  private JSONObject reloaded(String saveFile, String fullFile) throws Exception {
+    GameWorld world = new GameWorld(gameFile);
+    world.loadGame(saveFile);
+    world.saveGame(fullFile);
+    JSONObject state = read(fullFile);
+    state.remove("generation");
+    return state;
+  }
+
+  @Test
+  @DisplayName("Later saves append only what changed")
+  void testSavesAppendChanges() throws Exception {
+    GameWorld world = new GameWorld(gameFile);
+    String save = path("save.json");
+    world.saveGame(save);
+    assertFalse(SaveJournal.journalFor(save).exists());
+
+    Player player = world.getPlayer();
+    player.setCurrentRoom(world.getRoom("1"));
+    world.saveGame(save);
+    world.saveGame(save);
+    assertEquals(1, journal(save).size());
+    assertTrue(journal(save).get(0).contains("\"player\""));
+    assertFalse(journal(save).get(0).contains("\"rooms\""));
+
+    assertTrue(world.applySolution("echo"));
+    world.saveGame(save);
+    List<String> lines = journal(save);
+    assertEquals(2, lines.size());
+    JSONObject delta = (JSONObject) new JSONParser().parse(lines.get(1));
+    assertEquals(1, ((List<?>) delta.get("rooms")).size());
+    assertTrue(lines.get(1).contains("\"room_number\":\"1\""));
+  }
+
+  @Test
+  @DisplayName("Loading a journal rebuilds the same state as a full save")
+  void testJournalMatchesFullSave() throws Exception {
+    GameWorld world = new GameWorld(gameFile);
+    String save = path("save.json");
+    world.saveGame(save);
+
+    Player player = world.getPlayer();
+    Room hall = world.getRoom("1");
+    player.setCurrentRoom(hall);
+    Item lamp = hall.getItem("Lamp");
+    hall.removeItem(lamp);
+    player.addToInventory(lamp);
+    world.saveGame(save);
+    assertTrue(lamp.use());
+    assertTrue(world.applySolution("echo"));
+    assertTrue(player.move(Direction.EAST));
+    world.getRoom("3").getMonster().defeat();
+    player.setName("Tess");
+    world.saveGame(save);
+    assertEquals(2, journal(save).size());
+
+    String full = path("full.json");
+    world.saveGame(full);
+    assertEquals(reloaded(full, path("a.json")), reloaded(save, path("b.json")));
+
+    GameWorld loaded = new GameWorld(gameFile);
+    loaded.loadGame(save);
+    assertEquals("Tess", loaded.getPlayer().getName());
+    assertEquals(2, loaded.getPlayer().getItemFromInventory("Lamp").getUsesRemaining());
+    assertFalse(loaded.getRoom("1").isExitBlocked(Direction.NORTH));
+    assertFalse(loaded.getRoom("3").getMonster().isActive());
+  }
+
+  @Test
+  @DisplayName("A loaded save keeps its journal going")
+  void testLoadResumesJournal() throws Exception {
+    GameWorld world = new GameWorld(gameFile);
+    String save = path("save.json");
+    world.saveGame(save);
+    world.getPlayer().setScore(7);
+    world.saveGame(save);
+
+    GameWorld loaded = new GameWorld(gameFile);
+    loaded.loadGame(save);
+    loaded.saveGame(save);
+    assertEquals(1, journal(save).size());
+    loaded.getPlayer().setScore(9);
+    loaded.saveGame(save);
+    assertEquals(2, journal(save).size());
+    JSONObject player = (JSONObject) reloaded(save, path("check.json")).get("player");
+    assertEquals(9L, player.get("score"));
+  }
+
+  @Test
+  @DisplayName("A full save is written when the files were changed by someone else")
+  void testFullSaveAfterOutsideChange() throws Exception {
+    String save = path("save.json");
+    GameWorld first = new GameWorld(gameFile);
+    GameWorld second = new GameWorld(gameFile);
+    first.saveGame(save);
+    second.getPlayer().setScore(20);
+    second.saveGame(save);
+
+    first.getPlayer().setScore(10);
+    first.saveGame(save);
+    assertFalse(SaveJournal.journalFor(save).exists());
+    assertEquals(10L, ((JSONObject) read(save).get("player")).get("score"));
+  }
+
+  @Test
+  @DisplayName("An interrupted last delta is ignored and the next save is full")
+  void testTornDeltaIgnored() throws Exception {
+    GameWorld world = new GameWorld(gameFile);
+    String save = path("save.json");
+    world.saveGame(save);
+    world.getPlayer().setScore(5);
+    world.saveGame(save);
+    try (FileWriter writer = new FileWriter(SaveJournal.journalFor(save), true)) {
+      writer.write("{\"player\":{\"na");
+    }
+
+    GameWorld loaded = new GameWorld(gameFile);
+    loaded.loadGame(save);
+    assertEquals(5, loaded.getPlayer().getScore());
+    loaded.saveGame(save);
+    assertFalse(SaveJournal.journalFor(save).exists());
+    assertEquals(5L, ((JSONObject) read(save).get("player")).get("score"));
+  }
+
+  @Test
+  @DisplayName("A failed full save leaves the previous save and its journal loadable")
+  void testFailedSnapshotKeepsJournal() throws Exception {
+    GameWorld world = new GameWorld(gameFile);
+    String save = path("save.json");
+    world.saveGame(save);
+    world.getPlayer().setScore(5);
+    world.saveGame(save);
+
+    JSONObject state = new JSONObject();
+    state.put("player", new Object() {
+      @Override
+      public String toString() {
+        throw new IllegalStateException("disk full");
+      }
+    });
+    PendingSave snapshot = new PendingSave(world, save, SaveJournal.forSnapshot(save), true, state);
+    assertThrows(IllegalStateException.class, snapshot::write);
+
+    assertEquals(1, journal(save).size());
+    GameWorld loaded = new GameWorld(gameFile);
+    loaded.loadGame(save);
+    assertEquals(5, loaded.getPlayer().getScore());
+  }
+
+  @Test
+  @DisplayName("A journal left behind by an older save is ignored")
+  void testStaleJournalIgnored() throws Exception {
+    String save = path("save.json");
+    GameWorld first = new GameWorld(gameFile);
+    first.saveGame(save);
+    first.getPlayer().setScore(5);
+    first.saveGame(save);
+    Path stale = tempDir.resolve("stale.journal");
+    Files.copy(SaveJournal.journalFor(save).toPath(), stale);
+
+    GameWorld second = new GameWorld(gameFile);
+    second.getPlayer().setScore(20);
+    second.saveGame(save);
+    assertFalse(SaveJournal.journalFor(save).exists());
+    Files.copy(stale, SaveJournal.journalFor(save).toPath());
+
+    GameWorld loaded = new GameWorld(gameFile);
+    loaded.loadGame(save);
+    assertEquals(20, loaded.getPlayer().getScore());
+    loaded.getPlayer().setScore(30);
+    loaded.saveGame(save);
+    assertFalse(SaveJournal.journalFor(save).exists());
+    assertEquals(30L, ((JSONObject) read(save).get("player")).get("score"));
+  }
+}
@@ -0,0 +1,160 @@
+package model;
+
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for background saves.
+ * Covers merging saves that wait together, the atomic replace of the save file, and how
+ * failures reach the caller.
+ */
+@DisplayName("Save Queue Tests")
+class SaveQueueTest {
+
+  @TempDir
+  Path tempDir;
+
+  private String gameFile;
+
+  /** Writes held until the test runs them. */
+  private final List<Runnable> held = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() throws IOException {
+    File file = tempDir.resolve("queue_game.json").toFile();
+    try (FileWriter writer = new FileWriter(file)) {
+      writer.write("{\"name\": \"Queue Test\", \"version\": \"1.0\", \"rooms\": [\n"
+              + "  {\"room_name\": \"Hall\", \"room_number\": \"1\", \"description\": \"A hall.\",\n"
+              + "   \"N\": \"0\", \"S\": \"0\", \"E\": \"2\", \"W\": \"0\", \"items\": \"Lamp\"},\n"
+              + "  {\"room_name\": \"Den\", \"room_number\": \"2\", \"description\": \"A den.\",\n"
+              + "   \"N\": \"0\", \"S\": \"0\", \"E\": \"0\", \"W\": \"1\"}\n"
+              + "], \"items\": [{\"name\": \"Lamp\", \"weight\": \"2\", \"max_uses\": \"3\",\n"
+              + "   \"uses_remaining\": \"3\", \"value\": \"5\", \"when_used\": \"It glows.\",\n"
+              + "   \"description\": \"A lamp.\"}]}");
+    }
+    gameFile = file.getAbsolutePath();
+  }
+
+  private String path(String name) {
+    return tempDir.resolve(name).toString();
+  }
+
+  private JSONObject read(String file) throws Exception {
+    try (FileReader reader = new FileReader(file)) {
+      return (JSONObject) new JSONParser().parse(reader);
+    }
+  }
+
+  private void runHeld() {
+    List<Runnable> writes = new ArrayList<>(held);
+    held.clear();
+    writes.forEach(Runnable::run);
+  }
+
+  @Test
+  @DisplayName("Saves waiting together are merged into one write")
+  void testWaitingSavesMerge() throws Exception {
+    SaveQueue queue = new SaveQueue(held::add);
+    GameWorld world = new GameWorld(gameFile);
+    String save = path("save.json");
+
+    CompletableFuture<Void> first = queue.submit(world.captureSave(save));
+    world.getPlayer().setScore(3);
+    CompletableFuture<Void> second = queue.submit(world.captureSave(save));
+    world.getPlayer().setScore(8);
+    CompletableFuture<Void> third = queue.submit(world.captureSave(save));
+    assertSame(first, second);
+    assertSame(first, third);
+    assertEquals(1, held.size());
+    assertFalse(new File(save).exists());
+
+    runHeld();
+    assertTrue(first.isDone());
+    assertEquals(3, queue.getRequestedCount());
+    assertEquals(2, queue.getCoalescedCount());
+    assertEquals(1, queue.getWrittenCount());
+    assertTrue(queue.getLastLatencyNanos() > 0);
+    assertFalse(SaveJournal.journalFor(save).exists());
+    assertEquals(8L, ((JSONObject) read(save).get("player")).get("score"));
+
+    // The merged save left the journal ready for the next delta
+    world.getPlayer().setScore(9);
+    queue.submit(world.captureSave(save));
+    runHeld();
+    assertEquals(1, Files.readAllLines(SaveJournal.journalFor(save).toPath()).size());
+    GameWorld loaded = new GameWorld(gameFile);
+    loaded.loadGame(save);
+    assertEquals(9, loaded.getPlayer().getScore());
+  }
+
+  @Test
+  @DisplayName("Saves to different files are not merged")
+  void testDifferentFilesNotMerged() throws IOException {
+    SaveQueue queue = new SaveQueue(held::add);
+    GameWorld world = new GameWorld(gameFile);
+    CompletableFuture<Void> first = queue.submit(world.captureSave(path("one.json")));
+    CompletableFuture<Void> second = queue.submit(world.captureSave(path("two.json")));
+    assertNotSame(first, second);
+    assertEquals(2, held.size());
+    runHeld();
+    assertTrue(new File(path("one.json")).exists());
+    assertTrue(new File(path("two.json")).exists());
+    assertEquals(2, queue.getWrittenCount());
+  }
+
+  @Test
+  @DisplayName("A full save replaces the file without leaving temporary files")
+  void testAtomicReplace() throws Exception {
+    GameWorld world = new GameWorld(gameFile);
+    String save = path("save.json");
+    world.saveGame(save);
+    GameWorld other = new GameWorld(gameFile);
+    other.getPlayer().setScore(4);
+    other.saveGame(save);
+
+    assertEquals(4L, ((JSONObject) read(save).get("player")).get("score"));
+    try (Stream<Path> files = Files.list(tempDir)) {
+      assertTrue(files.noneMatch(file -> file.toString().endsWith(".tmp")));
+    }
+  }
+
+  @Test
+  @DisplayName("A background save completes and a failed one reports its IOException")
+  void testAsyncResultAndFailure() throws Exception {
+    GameWorld world = new GameWorld(gameFile);
+    String save = path("save.json");
+    world.saveGameAsync(save).get();
+    assertTrue(new File(save).exists());
+
+    String missing = path("missing/save.json");
+    ExecutionException error = assertThrows(ExecutionException.class,
+            () -> world.saveGameAsync(missing).get());
+    assertInstanceOf(IOException.class, error.getCause());
+    assertThrows(IOException.class, () -> world.saveGame(missing));
+
+    // The failure does not spoil later saves to a good file
+    world.getPlayer().setScore(6);
+    world.saveGame(save);
+    GameWorld loaded = new GameWorld(gameFile);
+    loaded.loadGame(save);
+    assertEquals(6, loaded.getPlayer().getScore());
+  }
+}
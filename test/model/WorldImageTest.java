@@ -0,0 +1,106 @@
+package model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for compiled world images.
+ * Covers compiling, opening an image in place of the JSON file, and stale image fallback.
+ */
+@DisplayName("World Image Tests")
+class WorldImageTest {
+
+  @TempDir
+  Path tempDir;
+
+  /**
+   * Writes a small two-room game file with a blocked exit.
+   *
+   * @param description description used for the first room
+   * @return path to the game file
+   */
+  private String writeGameFile(String description) throws IOException {
+    File gameFile = tempDir.resolve("image_game.json").toFile();
+    try (FileWriter writer = new FileWriter(gameFile)) {
+      writer.write("{\"name\": \"Image Test\", \"version\": \"1.0\", \"rooms\": [\n"
+              + "  {\"room_name\": \"Hall\", \"room_number\": \"1\", \"description\": \""
+              + description + "\",\n"
+              + "   \"N\": \"-2\", \"S\": \"0\", \"E\": \"0\", \"W\": \"0\",\n"
+              + "   \"puzzle\": \"Riddle\", \"items\": \"Lamp\", \"fixtures\": \"Desk\"},\n"
+              + "  {\"room_name\": \"Vault\", \"room_number\": \"2\", \"description\": \"A vault.\",\n"
+              + "   \"N\": \"0\", \"S\": \"1\", \"E\": \"0\", \"W\": \"0\"}\n"
+              + "], \"items\": [{\"name\": \"Lamp\", \"weight\": \"2\", \"max_uses\": \"3\",\n"
+              + "   \"uses_remaining\": \"3\", \"value\": \"5\", \"when_used\": \"It glows.\",\n"
+              + "   \"description\": \"A lamp.\"}],\n"
+              + " \"fixtures\": [{\"name\": \"Desk\", \"weight\": \"500\", \"description\": \"A desk.\"}],\n"
+              + " \"puzzles\": [{\"name\": \"Riddle\", \"active\": \"true\", \"affects_target\": \"true\",\n"
+              + "   \"affects_player\": \"false\", \"solution\": \"'echo'\", \"value\": \"15\",\n"
+              + "   \"description\": \"A riddle.\", \"effects\": \"A voice asks.\", \"target\": \"1:Hall\"}]}");
+    }
+    return gameFile.getAbsolutePath();
+  }
+
+  @Test
+  @DisplayName("A compiled image builds the same world as the JSON file")
+  void testCompiledWorldMatchesJson() throws IOException {
+    String gameFile = writeGameFile("A hall.");
+    String imageFile = GameWorld.compileImage(gameFile);
+    assertTrue(new File(imageFile).exists());
+
+    GameWorld world = new GameWorld(gameFile);
+    assertEquals("Image Test", world.getGameName());
+
+    Room hall = world.getRoom("1");
+    assertNotNull(hall);
+    assertEquals("A hall.", hall.getDescription());
+    assertEquals("-2", hall.getExitRoomNumber(Direction.NORTH));
+    assertNull(hall.getExit(Direction.NORTH));
+    assertEquals(3, hall.getItem("Lamp").getUsesRemaining());
+    assertEquals(500, hall.getFixture("Desk").getWeight());
+    assertSame(hall.getPuzzle(), world.getPuzzleByName("riddle"));
+
+    Room vault = world.getRoom("2");
+    assertSame(hall, vault.getExit(Direction.SOUTH));
+    assertNull(world.getRoom("3"));
+  }
+
+  @Test
+  @DisplayName("Solving a puzzle unblocks exits in an image-backed world")
+  void testApplySolutionOnImage() throws IOException {
+    String gameFile = writeGameFile("A hall.");
+    GameWorld.compileImage(gameFile);
+    GameWorld world = new GameWorld(gameFile);
+    world.getPlayer().setCurrentRoom(world.getRoom("1"));
+
+    assertTrue(world.applySolution("echo"));
+    assertEquals(15, world.getPlayer().getScore());
+    assertSame(world.getRoom("2"), world.getRoom("1").getExit(Direction.NORTH));
+    assertTrue(world.getPlayer().move(Direction.NORTH));
+  }
+
+  @Test
+  @DisplayName("A stale image is ignored in favor of the changed JSON file")
+  void testStaleImageFallsBackToJson() throws IOException {
+    String gameFile = writeGameFile("A hall.");
+    GameWorld.compileImage(gameFile);
+    writeGameFile("A rebuilt hall.");
+
+    GameWorld world = new GameWorld(gameFile);
+    assertEquals("A rebuilt hall.", world.getRoom("1").getDescription());
+  }
+
+  @Test
+  @DisplayName("Image paths replace the JSON extension")
+  void testImagePathFor() {
+    assertEquals("worlds/game.world", WorldImage.imagePathFor("worlds/game.json"));
+    assertEquals("game.txt.world", WorldImage.imagePathFor("game.txt"));
+  }
+}
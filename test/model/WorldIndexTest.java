@@ -0,0 +1,203 @@
+package model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for the world's secondary indexes.
+ * Covers the initial contents of each index, keeping them up to date as items move and
+ * puzzles and monsters are solved, sessions on a shared template, and loading a save.
+ */
+@DisplayName("World Index Tests")
+class WorldIndexTest {
+
+  @TempDir
+  Path tempDir;
+
+  /**
+   * Writes a hall with a riddle blocking its north exit, a vault with a statue, and a den
+   * with a rat that wants the key.
+   *
+   * @return the path of the game file
+   */
+  private String writeGame() throws IOException {
+    File gameFile = tempDir.resolve("index_game.json").toFile();
+    try (FileWriter writer = new FileWriter(gameFile)) {
+      writer.write("{\"name\": \"Index Test\", \"version\": \"1.0\", \"rooms\": [\n"
+              + "  {\"room_name\": \"Hall\", \"room_number\": \"1\", \"description\": \"A hall.\",\n"
+              + "   \"N\": \"-2\", \"S\": \"0\", \"E\": \"3\", \"W\": \"0\", \"puzzle\": \"Riddle\",\n"
+              + "   \"items\": \"Key, Rock\"},\n"
+              + "  {\"room_name\": \"Vault\", \"room_number\": \"2\", \"description\": \"A vault.\",\n"
+              + "   \"N\": \"0\", \"S\": \"1\", \"E\": \"0\", \"W\": \"0\", \"monster\": \"Statue\"},\n"
+              + "  {\"room_name\": \"Den\", \"room_number\": \"3\", \"description\": \"A den.\",\n"
+              + "   \"N\": \"0\", \"S\": \"0\", \"E\": \"0\", \"W\": \"-1\", \"monster\": \"Rat\",\n"
+              + "   \"items\": \"Rock\"}\n"
+              + "], \"items\": [\n"
+              + "  {\"name\": \"Key\", \"weight\": \"1\", \"max_uses\": \"1\", \"uses_remaining\": \"1\",\n"
+              + "   \"value\": \"1\", \"when_used\": \"Click.\", \"description\": \"A key.\"},\n"
+              + "  {\"name\": \"Rock\", \"weight\": \"5\", \"max_uses\": \"1\", \"uses_remaining\": \"1\",\n"
+              + "   \"value\": \"1\", \"when_used\": \"Thud.\", \"description\": \"A rock.\"}\n"
+              + "], \"puzzles\": [\n"
+              + "  {\"name\": \"Riddle\", \"active\": \"true\", \"affects_target\": \"true\",\n"
+              + "   \"affects_player\": \"false\", \"solution\": \"'echo'\", \"value\": \"15\",\n"
+              + "   \"description\": \"A riddle.\", \"effects\": \"A door opens.\", \"target\": \"1:Hall\"}\n"
+              + "], \"monsters\": [\n"
+              + "  {\"name\": \"Rat\", \"active\": \"true\", \"damage\": \"-3\", \"can_attack\": \"true\",\n"
+              + "   \"solution\": \"Key\", \"value\": \"10\", \"description\": \"A rat.\",\n"
+              + "   \"attack\": \"It bites.\", \"effects\": \"Squeak.\"},\n"
+              + "  {\"name\": \"Statue\", \"active\": \"false\", \"damage\": \"0\", \"can_attack\": \"false\",\n"
+              + "   \"solution\": \"Lamp\", \"value\": \"5\", \"description\": \"A statue.\",\n"
+              + "   \"attack\": \"None.\", \"effects\": \"None.\"}\n"
+              + "]}");
+    }
+    return gameFile.getAbsolutePath();
+  }
+
+  @Test
+  @DisplayName("The indexes start out matching the rooms")
+  void testInitialContents() throws IOException {
+    GameWorld world = new GameWorld(writeGame());
+
+    assertEquals(Set.of("1"), world.findItem("key"));
+    assertEquals(Set.of("1", "3"), world.findItem("ROCK"));
+    assertTrue(world.findItem("Lamp").isEmpty());
+    assertEquals(Set.of("3"), world.getRoomsWithActiveMonsters());
+    assertEquals(Set.of("1"), world.getRoomsWithUnsolvedPuzzles());
+    assertEquals(Map.of("1", Set.of(Direction.NORTH), "3", Set.of(Direction.WEST)),
+            world.getBlockedExits());
+  }
+
+  @Test
+  @DisplayName("The indexes follow items, solutions and exits as they change")
+  void testKeptUpToDate() throws IOException {
+    GameWorld world = new GameWorld(writeGame());
+    Set<String> keyRooms = world.findItem("Key");
+    Set<String> monsters = world.getRoomsWithActiveMonsters();
+    Set<String> puzzles = world.getRoomsWithUnsolvedPuzzles();
+    Map<String, Set<Direction>> blocked = world.getBlockedExits();
+
+    Room hall = world.getRoom("1");
+    Room den = world.getRoom("3");
+    Item key = hall.getItem("Key");
+    hall.removeItem(key);
+    assertTrue(keyRooms.isEmpty());
+    den.addItem(key);
+    assertEquals(Set.of("3"), keyRooms);
+
+    assertTrue(world.applySolution("echo"));
+    assertTrue(puzzles.isEmpty());
+    assertFalse(blocked.containsKey("1"));
+
+    world.getPlayer().setCurrentRoom(den);
+    assertTrue(world.applySolution("Key"));
+    assertTrue(monsters.isEmpty());
+    assertTrue(blocked.isEmpty());
+
+    world.getRoom("2").getMonster().setActive(true);
+    assertEquals(Set.of("2"), monsters);
+    den.setExitNumber(Direction.SOUTH, -1);
+    assertEquals(Set.of(Direction.SOUTH), blocked.get("3"));
+    den.clearItems();
+    assertTrue(keyRooms.isEmpty());
+    assertEquals(Set.of("1"), world.findItem("Rock"));
+    assertThrows(UnsupportedOperationException.class, () -> keyRooms.add("2"));
+  }
+
+  @Test
+  @DisplayName("Item views follow names the index has not seen, and emptied names are dropped")
+  void testItemNames() throws IOException {
+    GameWorld world = new GameWorld(writeGame());
+    WorldIndex index = new WorldIndex();
+    Room hall = world.getRoom("1");
+    Room den = world.getRoom("3");
+    index.add(hall);
+    index.add(den);
+    int names = index.itemNameCount();
+
+    Set<String> lampRooms = index.itemRooms("Lamp");
+    assertTrue(lampRooms.isEmpty());
+    Item lamp = new Item("Lamp", 1, 5, 5, 10, "It glows.", "A brass lamp");
+    den.addItem(lamp);
+    assertEquals(Set.of("3"), lampRooms);
+    assertEquals(names + 1, index.itemNameCount());
+
+    Set<String> keyRooms = index.itemRooms("key");
+    Item key = hall.getItem("Key");
+    hall.removeItem(key);
+    den.removeItem(lamp);
+    assertTrue(keyRooms.isEmpty());
+    assertTrue(lampRooms.isEmpty());
+    assertEquals(names - 1, index.itemNameCount());
+
+    hall.addItem(lamp);
+    den.addItem(key);
+    assertEquals(Set.of("1"), lampRooms);
+    assertEquals(Set.of("3"), keyRooms);
+    assertTrue(keyRooms.contains("3"));
+    assertThrows(UnsupportedOperationException.class, () -> lampRooms.remove("1"));
+  }
+
+  @Test
+  @DisplayName("Sessions on one template keep separate indexes")
+  void testSessions() throws IOException {
+    WorldTemplate template = WorldTemplate.load(writeGame());
+    GameWorld first = template.newSession();
+    GameWorld second = template.newSession();
+
+    assertTrue(first.applySolution("echo"));
+    assertTrue(first.getRoomsWithUnsolvedPuzzles().isEmpty());
+    assertEquals(Set.of("1"), second.getRoomsWithUnsolvedPuzzles());
+
+    second.getRoom("1").clearItems();
+    assertTrue(second.findItem("Key").isEmpty());
+    assertEquals(Set.of("1"), first.findItem("Key"));
+    assertEquals(Set.of("1"), template.newSession().findItem("Key"));
+  }
+
+  @Test
+  @DisplayName("Loading a save updates the indexes")
+  void testLoadGame() throws Exception {
+    String gameFile = writeGame();
+    GameWorld saved = new GameWorld(gameFile);
+    saved.getRoom("1").removeItem(saved.getRoom("1").getItem("Key"));
+    assertTrue(saved.applySolution("echo"));
+    String saveFile = tempDir.resolve("index.sav").toString();
+    saved.saveGame(saveFile);
+
+    GameWorld world = new GameWorld(gameFile);
+    Set<String> keyRooms = world.findItem("Key");
+    Set<String> puzzles = world.getRoomsWithUnsolvedPuzzles();
+    world.loadGame(saveFile);
+
+    assertTrue(keyRooms.isEmpty());
+    assertTrue(puzzles.isEmpty());
+    assertEquals(Set.of("3"), world.getBlockedExits().keySet());
+  }
+
+  @Test
+  @DisplayName("A room stays listed until its last item of a name is taken")
+  void testItemsOfTheSameName() throws IOException {
+    GameWorld world = new GameWorld(writeGame());
+    Room hall = world.getRoom("1");
+    Set<String> rockRooms = world.findItem("Rock");
+    Item first = hall.getItem("Rock");
+    Item second = new Item("Rock", 1, 1, 1, 1, "Thud.", "Another rock.");
+    hall.addItem(second);
+
+    hall.removeItem(second);
+    assertEquals(Set.of("1", "3"), rockRooms);
+    hall.removeItem(first);
+    assertEquals(Set.of("3"), rockRooms);
+    assertTrue(world.findItem("Nothing").isEmpty());
+  }
+}
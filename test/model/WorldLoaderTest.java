@@ -0,0 +1,96 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for the streaming WorldLoader.
+ * Covers entity creation, forward references from rooms, and missing sections.
+ */
+@DisplayName("World Loader Tests")
+class WorldLoaderTest {
+
+  private Map<String, Room> rooms;
+  private Map<String, Item> items;
+  private Map<String, Fixture> fixtures;
+  private Map<String, Puzzle> puzzles;
+  private Map<String, Monster> monsters;
+  private WorldLoader loader;
+
+  @BeforeEach
+  void setUp() {
+    rooms = new HashMap<>();
+    items = new HashMap<>();
+    fixtures = new HashMap<>();
+    puzzles = new HashMap<>();
+    monsters = new HashMap<>();
+    loader = new WorldLoader(rooms, items, fixtures, puzzles, monsters);
+  }
+
+  @Test
+  @DisplayName("Rooms listed before items still receive their items")
+  void testForwardReferencesResolved() throws Exception {
+    loader.load(new StringReader("{\n"
+            + "  \"name\": \"Stream Test\",\n"
+            + "  \"version\": \"2.0\",\n"
+            + "  \"rooms\": [\n"
+            + "    {\"room_name\": \"Hall\", \"room_number\": \"1\", \"description\": \"A hall.\",\n"
+            + "     \"N\": \"-2\", \"S\": \"0\", \"E\": \"0\", \"W\": \"0\",\n"
+            + "     \"puzzle\": \"Door\", \"monster\": null,\n"
+            + "     \"items\": \"Lamp, Key\", \"fixtures\": \"Desk\"}\n"
+            + "  ],\n"
+            + "  \"items\": [\n"
+            + "    {\"name\": \"Lamp\", \"weight\": \"2\", \"max_uses\": \"3\", \"uses_remaining\": \"3\",\n"
+            + "     \"value\": \"5\", \"when_used\": \"It glows.\", \"description\": \"A lamp.\"},\n"
+            + "    {\"name\": \"Key\", \"weight\": 1, \"description\": \"A key.\"}\n"
+            + "  ],\n"
+            + "  \"fixtures\": [{\"name\": \"Desk\", \"description\": \"A desk.\"}],\n"
+            + "  \"puzzles\": [{\"name\": \"Door\", \"active\": \"true\", \"solution\": \"Key\"}]\n"
+            + "}"));
+
+    assertEquals("Stream Test", loader.getGameName());
+    assertEquals("2.0", loader.getVersion());
+
+    Room hall = rooms.get("1");
+    assertNotNull(hall);
+    assertEquals(2, hall.getItems().size());
+    assertEquals("Lamp", hall.getItems().get(0).getName());
+    assertEquals("Key", hall.getItems().get(1).getName());
+    assertEquals(2, hall.getItem("lamp").getWeight());
+    assertEquals(1, hall.getItem("key").getWeight());
+    assertNotNull(hall.getFixture("Desk"));
+    assertEquals(1000, hall.getFixture("Desk").getWeight());
+    assertNotNull(hall.getPuzzle());
+    assertTrue(hall.getPuzzle().isActive());
+    assertNull(hall.getMonster());
+    assertEquals("-2", hall.getExitRoomNumber(Direction.NORTH));
+  }
+
+  @Test
+  @DisplayName("Unknown names and sections are ignored")
+  void testUnknownReferencesIgnored() throws Exception {
+    loader.load(new StringReader("{\"name\": \"Sparse\", \"extras\": [{\"a\": [1, {\"b\": 2}]}],"
+            + " \"rooms\": [{\"room_name\": \"Cell\", \"room_number\": \"7\","
+            + " \"description\": \"Bare.\", \"items\": \"Ghost\", \"monster\": \"Nobody\"}]}"));
+
+    Room cell = rooms.get("7");
+    assertNotNull(cell);
+    assertTrue(cell.getItems().isEmpty());
+    assertNull(cell.getMonster());
+  }
+
+  @Test
+  @DisplayName("A file without rooms is rejected")
+  void testMissingRoomsRejected() {
+    assertThrows(IOException.class,
+        () -> loader.load(new StringReader("{\"name\": \"Empty\", \"items\": []}")));
+  }
+}
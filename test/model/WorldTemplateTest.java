@@ -0,0 +1,133 @@
+package model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for shared world templates and their sessions.
+ * Covers session isolation, lazy copying, and templates backed by a world image.
+ */
+@DisplayName("World Template Tests")
+class WorldTemplateTest {
+
+  @TempDir
+  Path tempDir;
+
+  /**
+   * Writes a three-room game file with a puzzle-blocked exit and a monster.
+   *
+   * @return path to the game file
+   */
+  private String writeGameFile() throws IOException {
+    File gameFile = tempDir.resolve("template_game.json").toFile();
+    try (FileWriter writer = new FileWriter(gameFile)) {
+      writer.write("{\"name\": \"Template Test\", \"version\": \"1.0\", \"rooms\": [\n"
+              + "  {\"room_name\": \"Hall\", \"room_number\": \"1\", \"description\": \"A hall.\",\n"
+              + "   \"N\": \"-2\", \"S\": \"0\", \"E\": \"3\", \"W\": \"0\",\n"
+              + "   \"puzzle\": \"Riddle\", \"items\": \"Lamp\", \"fixtures\": \"Desk\"},\n"
+              + "  {\"room_name\": \"Vault\", \"room_number\": \"2\", \"description\": \"A vault.\",\n"
+              + "   \"N\": \"0\", \"S\": \"1\", \"E\": \"0\", \"W\": \"0\"},\n"
+              + "  {\"room_name\": \"Den\", \"room_number\": \"3\", \"description\": \"A den.\",\n"
+              + "   \"N\": \"0\", \"S\": \"0\", \"E\": \"0\", \"W\": \"1\", \"monster\": \"Rat\"}\n"
+              + "], \"items\": [{\"name\": \"Lamp\", \"weight\": \"2\", \"max_uses\": \"3\",\n"
+              + "   \"uses_remaining\": \"3\", \"value\": \"5\", \"when_used\": \"It glows.\",\n"
+              + "   \"description\": \"A lamp.\"}],\n"
+              + " \"fixtures\": [{\"name\": \"Desk\", \"weight\": \"500\", \"description\": \"A desk.\"}],\n"
+              + " \"puzzles\": [{\"name\": \"Riddle\", \"active\": \"true\", \"affects_target\": \"true\",\n"
+              + "   \"affects_player\": \"false\", \"solution\": \"'echo'\", \"value\": \"15\",\n"
+              + "   \"description\": \"A riddle.\", \"effects\": \"A voice asks.\", \"target\": \"1:Hall\"}],\n"
+              + " \"monsters\": [{\"name\": \"Rat\", \"active\": \"true\", \"damage\": \"-3\",\n"
+              + "   \"can_attack\": \"true\", \"solution\": \"Lamp\", \"value\": \"10\",\n"
+              + "   \"description\": \"A rat.\", \"attack\": \"It bites.\", \"effects\": \"Squeak.\"}]}");
+    }
+    return gameFile.getAbsolutePath();
+  }
+
+  @Test
+  @DisplayName("A session looks like a world loaded from the game file")
+  void testSessionMatchesLoadedWorld() throws IOException {
+    String gameFile = writeGameFile();
+    GameWorld loaded = new GameWorld(gameFile);
+    GameWorld session = WorldTemplate.load(gameFile).newSession();
+
+    assertEquals(loaded.getGameName(), session.getGameName());
+    assertEquals(loaded.getPlayer().getCurrentRoom().getRoomNumber(),
+            session.getPlayer().getCurrentRoom().getRoomNumber());
+    Room hall = session.getRoom("1");
+    assertEquals("A hall.", hall.getDescription());
+    assertTrue(hall.isExitBlocked(Direction.NORTH));
+    assertSame(session.getRoom("3"), hall.getExit(Direction.EAST));
+    assertSame(hall, session.getRoom("3").getExit(Direction.WEST));
+    assertSame(hall.getPuzzle(), session.getPuzzleByName("riddle"));
+    assertEquals(500, hall.getFixture("Desk").getWeight());
+    assertNull(session.getRoom("9"));
+  }
+
+  @Test
+  @DisplayName("Changes in one session are not seen by another")
+  void testSessionsAreIsolated() throws IOException {
+    WorldTemplate template = WorldTemplate.load(writeGameFile());
+    GameWorld first = template.newSession();
+    GameWorld second = template.newSession();
+
+    Room firstHall = first.getRoom("1");
+    first.getPlayer().setCurrentRoom(firstHall);
+    Item lamp = firstHall.getItem("Lamp");
+    assertTrue(lamp.use());
+    firstHall.removeItem(lamp);
+    assertTrue(first.applySolution("echo"));
+    first.getRoom("3").getMonster().defeat();
+
+    Room secondHall = second.getRoom("1");
+    assertNotNull(secondHall.getItem("Lamp"));
+    assertEquals(3, secondHall.getItem("Lamp").getUsesRemaining());
+    assertTrue(secondHall.getPuzzle().isActive());
+    assertTrue(secondHall.isExitBlocked(Direction.NORTH));
+    assertNull(secondHall.getExit(Direction.NORTH));
+    assertTrue(second.getRoom("3").getMonster().isActive());
+
+    assertSame(first.getRoom("2"), firstHall.getExit(Direction.NORTH));
+    assertNotSame(first.getRoom("2"), second.getRoom("2"));
+  }
+
+  @Test
+  @DisplayName("A session copies only the elements it touches")
+  void testSessionCopiesLazily() throws Exception {
+    GameWorld session = WorldTemplate.load(writeGameFile()).newSession();
+    Field roomsField = GameWorld.class.getDeclaredField("rooms");
+    roomsField.setAccessible(true);
+    SessionMap<?> rooms = (SessionMap<?>) roomsField.get(session);
+
+    assertEquals(3, rooms.size());
+    assertEquals(1, rooms.copiedCount());
+    assertTrue(session.getPlayer().move(Direction.EAST));
+    assertEquals("3", session.getPlayer().getCurrentRoom().getRoomNumber());
+    assertEquals(2, rooms.copiedCount());
+  }
+
+  @Test
+  @DisplayName("Templates can be loaded from a compiled world image")
+  void testTemplateFromImage() throws IOException {
+    String gameFile = writeGameFile();
+    GameWorld.compileImage(gameFile);
+    WorldTemplate template = WorldTemplate.load(gameFile);
+    assertEquals("Template Test", template.getGameName());
+
+    GameWorld first = template.newSession();
+    GameWorld second = template.newSession();
+    first.getPlayer().setCurrentRoom(first.getRoom("1"));
+    assertTrue(first.applySolution("echo"));
+    assertTrue(first.getPlayer().move(Direction.NORTH));
+    assertEquals("2", first.getPlayer().getCurrentRoom().getRoomNumber());
+    assertTrue(second.getRoom("1").getPuzzle().isActive());
+  }
+}
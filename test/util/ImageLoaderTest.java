@@ -95,5 +95,32 @@ class ImageLoaderTest {
     assertEquals(64, image.getWidth(), "Should return blank 64x64 image if all fails");
     assertEquals(64, image.getHeight(), "Should return blank 64x64 image if all fails");
   }
-}
 
+  /**
+   * Test that a second load of the same image is served from the cache.
+   */
+  @Test
+  void testRepeatedLoadUsesCache() {
+    ImageLoader.clearCache();
+    BufferedImage first = ImageLoader.loadImage("items", "diamond.png");
+    long misses = ImageLoader.getCacheMisses();
+    BufferedImage second = ImageLoader.loadImage("items", "diamond.png");
+    assertSame(first, second, "Expected the cached image to be returned");
+    assertEquals(misses, ImageLoader.getCacheMisses());
+    assertTrue(ImageLoader.getCacheHits() >= 1);
+  }
+
+  /**
+   * Test that a known-missing image goes straight to the fallback without probing again.
+   */
+  @Test
+  void testMissingImageIsRemembered() {
+    ImageLoader.clearCache();
+    BufferedImage first = ImageLoader.loadImage("items", "nonexistent-item.png");
+    long misses = ImageLoader.getCacheMisses();
+    BufferedImage second = ImageLoader.loadImage("items", "nonexistent-item.png");
+    assertSame(first, second, "Expected the same fallback image");
+    assertEquals(misses, ImageLoader.getCacheMisses());
+    assertEquals(1, ImageLoader.getNegativeCacheHits());
+  }
+}
@@ -0,0 +1,159 @@
+package util;
+
+import model.Direction;
+import model.GameWorld;
+import model.Item;
+import model.Player;
+import model.Room;
+import model.WorldTemplate;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for saving and loading binary game snapshots through SaveLoadManager.
+ */
+@DisplayName("Save Load Manager Tests")
+class SaveLoadManagerTest {
+
+  @TempDir
+  Path tempDir;
+
+  private String gameFile;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    File file = tempDir.resolve("snapshot_game.json").toFile();
+    try (FileWriter writer = new FileWriter(file)) {
+      writer.write("{\"name\": \"Snapshot Test\", \"version\": \"1.0\", \"rooms\": [\n"
+              + "  {\"room_name\": \"Hall\", \"room_number\": \"1\", \"description\": \"A hall.\",\n"
+              + "   \"N\": \"-2\", \"S\": \"0\", \"E\": \"3\", \"W\": \"0\",\n"
+              + "   \"puzzle\": \"Riddle\", \"items\": \"Lamp, Key\"},\n"
+              + "  {\"room_name\": \"Vault\", \"room_number\": \"2\", \"description\": \"A vault.\",\n"
+              + "   \"N\": \"0\", \"S\": \"1\", \"E\": \"0\", \"W\": \"0\"},\n"
+              + "  {\"room_name\": \"Den\", \"room_number\": \"3\", \"description\": \"A den.\",\n"
+              + "   \"N\": \"0\", \"S\": \"0\", \"E\": \"0\", \"W\": \"1\", \"monster\": \"Rat\"}\n"
+              + "], \"items\": [{\"name\": \"Lamp\", \"weight\": \"2\", \"max_uses\": \"3\",\n"
+              + "   \"uses_remaining\": \"3\", \"value\": \"5\", \"when_used\": \"It glows.\",\n"
+              + "   \"description\": \"A lamp.\"},\n"
+              + "  {\"name\": \"Key\", \"weight\": \"1\", \"max_uses\": \"1\",\n"
+              + "   \"uses_remaining\": \"1\", \"value\": \"2\", \"when_used\": \"Click.\",\n"
+              + "   \"description\": \"A key.\"}],\n"
+              + " \"puzzles\": [{\"name\": \"Riddle\", \"active\": \"true\", \"affects_target\": \"true\",\n"
+              + "   \"affects_player\": \"false\", \"solution\": \"'echo'\", \"value\": \"15\",\n"
+              + "   \"description\": \"A riddle.\", \"effects\": \"A voice asks.\", \"target\": \"1:Hall\"}],\n"
+              + " \"monsters\": [{\"name\": \"Rat\", \"active\": \"true\", \"damage\": \"-3\",\n"
+              + "   \"can_attack\": \"true\", \"solution\": \"Lamp\", \"value\": \"10\",\n"
+              + "   \"description\": \"A rat.\", \"attack\": \"It bites.\", \"effects\": \"Squeak.\"}]}");
+    }
+    gameFile = file.getAbsolutePath();
+  }
+
+  /**
+   * Plays a few moves that touch every kind of saved state.
+   */
+  private GameWorld playedWorld() throws IOException {
+    GameWorld world = new GameWorld(gameFile);
+    Player player = world.getPlayer();
+    Room hall = world.getRoom("1");
+    player.setCurrentRoom(hall);
+    Item lamp = hall.getItem("Lamp");
+    hall.removeItem(lamp);
+    player.addToInventory(lamp);
+    assertTrue(lamp.use());
+    assertTrue(world.applySolution("echo"));
+    assertTrue(player.move(Direction.EAST));
+    world.getRoom("3").getMonster().defeat();
+    player.setName("Tëss");
+    player.takeDamage(7);
+    return world;
+  }
+
+  /**
+   * Reads a JSON save without the generation that tells its journal apart from older ones.
+   */
+  private JSONObject savedState(Path save) throws Exception {
+    JSONObject state = (JSONObject) new JSONParser().parse(Files.readString(save));
+    state.remove("generation");
+    return state;
+  }
+
+  @Test
+  @DisplayName("A snapshot restores the same state as a JSON save")
+  void testRoundTripMatchesJsonSave() throws Exception {
+    GameWorld world = playedWorld();
+    String snapshot = tempDir.resolve("saves/game.sav").toString();
+    SaveLoadManager.saveGame(world, snapshot);
+
+    GameWorld loaded = SaveLoadManager.loadGame(snapshot);
+    assertNotNull(loaded);
+    assertEquals("Snapshot Test", loaded.getGameName());
+    assertEquals("Tëss", loaded.getPlayer().getName());
+    assertEquals(world.getPlayer().getHealth(), loaded.getPlayer().getHealth());
+    assertEquals(2, loaded.getPlayer().getItemFromInventory("Lamp").getUsesRemaining());
+    assertEquals("3", loaded.getPlayer().getCurrentRoom().getRoomNumber());
+    assertFalse(loaded.getRoom("1").isExitBlocked(Direction.NORTH));
+    assertFalse(loaded.getRoom("3").getMonster().isActive());
+    assertNull(loaded.getRoom("1").getItem("Lamp"));
+    assertNotNull(loaded.getRoom("1").getItem("Key"));
+
+    Path expected = tempDir.resolve("expected.json");
+    Path actual = tempDir.resolve("actual.json");
+    world.saveGame(expected.toString());
+    loaded.saveGame(actual.toString());
+    assertEquals(savedState(expected), savedState(actual));
+    assertTrue(Files.size(Path.of(snapshot)) < Files.size(expected));
+  }
+
+  @Test
+  @DisplayName("A session on a shared template can be saved and loaded")
+  void testTemplateSession() throws IOException {
+    GameWorld session = WorldTemplate.load(gameFile).newSession();
+    session.getPlayer().setScore(12);
+    String snapshot = tempDir.resolve("session.sav").toString();
+    SaveLoadManager.saveGame(session, snapshot);
+
+    GameWorld loaded = SaveLoadManager.loadGame(snapshot);
+    assertNotNull(loaded);
+    assertEquals(12, loaded.getPlayer().getScore());
+  }
+
+  @Test
+  @DisplayName("Damaged, truncated or foreign files are rejected")
+  void testDamagedSnapshotRejected() throws IOException {
+    String snapshot = tempDir.resolve("game.sav").toString();
+    SaveLoadManager.saveGame(playedWorld(), snapshot);
+    byte[] original = Files.readAllBytes(Path.of(snapshot));
+
+    try (RandomAccessFile file = new RandomAccessFile(snapshot, "rw")) {
+      file.seek(original.length - 3);
+      file.write(original[original.length - 3] ^ 0x40);
+    }
+    assertNull(SaveLoadManager.loadGame(snapshot));
+
+    Files.write(Path.of(snapshot), Arrays.copyOf(original, original.length - 5));
+    assertNull(SaveLoadManager.loadGame(snapshot));
+
+    Files.writeString(Path.of(snapshot), "{\"player\": {}}");
+    assertNull(SaveLoadManager.loadGame(snapshot));
+
+    assertNull(SaveLoadManager.loadGame(tempDir.resolve("none.sav").toString()));
+    try (Stream<Path> files = Files.list(tempDir)) {
+      assertTrue(files.noneMatch(file -> file.toString().endsWith(".tmp")));
+    }
+  }
+}
@@ -0,0 +1,116 @@
+package view.swing;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.swing.JTextArea;
+import javax.swing.SwingUtilities;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for bounded text area output.
+ * Covers batching appends into one document update, keeping only recent messages, and
+ * appending from other threads.
+ */
+@DisplayName("Output Log Tests")
+class OutputLogTest {
+
+  private static void waitForEdt() throws Exception {
+    SwingUtilities.invokeAndWait(() -> { });
+  }
+
+  private static String lines(int from, int to) {
+    StringBuilder text = new StringBuilder();
+    for (int i = from; i < to; i++) {
+      text.append("line ").append(i).append('\n');
+    }
+    return text.toString();
+  }
+
+  @Test
+  @DisplayName("Messages appended together reach the document in one insert")
+  void testBatchedInsert() throws Exception {
+    JTextArea area = new JTextArea();
+    AtomicInteger inserts = new AtomicInteger();
+    area.getDocument().addDocumentListener(new DocumentListener() {
+      @Override
+      public void insertUpdate(DocumentEvent e) {
+        inserts.incrementAndGet();
+      }
+
+      @Override
+      public void removeUpdate(DocumentEvent e) {
+      }
+
+      @Override
+      public void changedUpdate(DocumentEvent e) {
+      }
+    });
+    OutputLog log = new OutputLog(area, 100);
+
+    SwingUtilities.invokeAndWait(() -> {
+      for (int i = 0; i < 10; i++) {
+        log.append("line " + i);
+      }
+    });
+    waitForEdt();
+
+    assertEquals(lines(0, 10), area.getText());
+    assertEquals(1, inserts.get());
+    assertEquals(area.getDocument().getLength(), area.getCaretPosition());
+  }
+
+  @Test
+  @DisplayName("Only the most recent messages are kept")
+  void testBounded() throws Exception {
+    JTextArea area = new JTextArea();
+    OutputLog log = new OutputLog(area, 8);
+    for (int i = 0; i < 1000; i++) {
+      log.append("line " + i);
+      waitForEdt();
+      assertTrue(log.getLineCount() <= 9, "lines: " + log.getLineCount());
+    }
+    String text = area.getText();
+    assertTrue(text.endsWith(lines(992, 1000)));
+    assertEquals(log.getLineCount(), text.split("\n").length);
+
+    for (int i = 0; i < 50; i++) {
+      log.append("burst " + i);
+    }
+    waitForEdt();
+    assertEquals(8, log.getLineCount());
+    assertTrue(area.getText().startsWith("burst 42\n"));
+
+    SwingUtilities.invokeAndWait(log::clear);
+    assertEquals("", area.getText());
+    assertThrows(IllegalArgumentException.class, () -> new OutputLog(area, 0));
+  }
+
+  @Test
+  @DisplayName("Messages can be appended from any thread")
+  void testAppendFromThreads() throws Exception {
+    JTextArea area = new JTextArea();
+    OutputLog log = new OutputLog(area, 10_000);
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      int id = t;
+      threads[t] = new Thread(() -> {
+        for (int i = 0; i < 500; i++) {
+          log.append(id + ":" + i);
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    waitForEdt();
+
+    assertEquals(2000, log.getLineCount());
+    assertEquals(2000, area.getText().split("\n").length);
+  }
+}
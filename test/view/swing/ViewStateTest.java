@@ -0,0 +1,77 @@
+package view.swing;
+
+import model.Direction;
+import model.Item;
+import model.Monster;
+import model.Room;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for the view states the game thread publishes.
+ * Covers finding the panels that changed and rendering panel contents without a window.
+ */
+@DisplayName("View State Tests")
+class ViewStateTest {
+
+  private static Room room(String number) {
+    Map<Direction, String> exits = new HashMap<>();
+    exits.put(Direction.NORTH, "2");
+    exits.put(Direction.EAST, "-3");
+    return new Room("Hall", number, "A hall.", exits, null, null, null, null, null);
+  }
+
+  private static ViewState capture(Room room, int health, List<Item> inventory) {
+    return new ViewState(room, room.getVersion(), null, RoomPanel.describe(room),
+            NavigationPanel.openExits(room), health, health > 50 ? "Fine" : "Hurt",
+            InventoryPanel.entries(inventory));
+  }
+
+  @Test
+  @DisplayName("Only the panels whose contents changed are redrawn")
+  void testChangedPanels() {
+    Room hall = room("1");
+    Item key = new Item("Key", 1, 2, 2, 1, "Click.", "A key.");
+    ViewState first = capture(hall, 100, List.of(key));
+
+    assertEquals(ViewState.ALL, first.changedSince(null));
+    assertEquals(0, capture(hall, 100, List.of(key)).changedSince(first));
+    assertEquals(ViewState.HEALTH, capture(hall, 90, List.of(key)).changedSince(first));
+    assertEquals(ViewState.ROOM, capture(room("1"), 100, List.of(key)).changedSince(first));
+
+    key.setUsesRemaining(1);
+    assertEquals(ViewState.INVENTORY, capture(hall, 100, List.of(key)).changedSince(first));
+
+    hall.setMonster(new Monster("Rat", "A rat.", true, -3, true, "It bites.", "Squeak.", 10,
+            "Key", "1:Hall"));
+    assertEquals(ViewState.ROOM | ViewState.INVENTORY | ViewState.HEALTH,
+            capture(hall, 10, List.of(key)).changedSince(first));
+  }
+
+  @Test
+  @DisplayName("Panel contents are rendered from the room and items")
+  void testRenderedContents() {
+    Room hall = room("1");
+    hall.addItem(new Item("Lamp", 1, 1, 1, 1, "Light.", "A lamp."));
+    ViewState state = capture(hall, 100, List.of(new Item("Key", 1, 3, 2, 1, "Click.", "A key.")));
+
+    assertEquals(Set.of(Direction.NORTH), state.getOpenExits());
+    assertEquals(List.of("Key (2 uses)"), state.getInventory());
+    assertEquals("You are in: Hall\n\nA hall.\n\nItems here: Lamp\n\nExits: NORTH EAST ",
+            state.getDescription());
+
+    hall.unblockExits();
+    assertEquals(EnumSet.of(Direction.NORTH, Direction.EAST), NavigationPanel.openExits(hall));
+    assertThrows(UnsupportedOperationException.class,
+        () -> state.getOpenExits().add(Direction.WEST));
+  }
+}